@@ -54,10 +54,15 @@ CREATE TABLE IF NOT EXISTS accidents (
     traffic_density INT DEFAULT 50,
     casualties INT DEFAULT 0,
     status VARCHAR(50) DEFAULT 'Reported',
+    report_count INT DEFAULT 1,
+    detection_id VARCHAR(64) UNIQUE,
+    risk_score TINYINT UNSIGNED,
     accident_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
     INDEX idx_severity (severity),
     INDEX idx_time (accident_time),
-    INDEX idx_location (location)
+    INDEX idx_location (location),
+    INDEX idx_updated (updated_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- ============================================
@@ -76,7 +81,9 @@ CREATE TABLE IF NOT EXISTS hospitals (
     contact_number VARCHAR(20),
     address TEXT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    INDEX idx_beds (available_beds)
+    updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    INDEX idx_beds (available_beds),
+    INDEX idx_updated (updated_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- Insert sample hospitals
@@ -102,7 +109,10 @@ CREATE TABLE IF NOT EXISTS ambulances (
     driver_name VARCHAR(100),
     driver_contact VARCHAR(20),
     last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
     INDEX idx_status (status),
+    INDEX idx_status_position (status, current_x, current_y),
+    INDEX idx_updated (updated_at),
     FOREIGN KEY (assigned_accident_id) REFERENCES accidents(accident_id) ON DELETE SET NULL,
     FOREIGN KEY (assigned_hospital_id) REFERENCES hospitals(hospital_id) ON DELETE SET NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -195,12 +205,14 @@ CREATE TABLE IF NOT EXISTS messages (
     priority VARCHAR(20),
     is_read BOOLEAN DEFAULT FALSE,
     sent_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
     FOREIGN KEY (sender_id) REFERENCES users(id) ON DELETE CASCADE,
     FOREIGN KEY (receiver_id) REFERENCES users(id) ON DELETE CASCADE,
     FOREIGN KEY (accident_id) REFERENCES accidents(accident_id) ON DELETE CASCADE,
     INDEX idx_sender (sender_id),
     INDEX idx_receiver (receiver_id),
-    INDEX idx_read (is_read)
+    INDEX idx_read (is_read),
+    INDEX idx_updated (updated_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- ============================================
@@ -218,6 +230,20 @@ CREATE TABLE IF NOT EXISTS surgery_rooms (
     INDEX idx_status (status)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- ============================================
+-- 11. DETECTION IDS TABLE (Ingest idempotency)
+-- ============================================
+-- Every detection_id admitted by the ingestion service, including reports
+-- merged into an existing accident
+CREATE TABLE IF NOT EXISTS detection_ids (
+    detection_id VARCHAR(64) PRIMARY KEY,
+    accident_id INT NOT NULL,
+    INDEX idx_accident (accident_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+INSERT IGNORE INTO detection_ids (detection_id, accident_id)
+SELECT detection_id, accident_id FROM accidents WHERE detection_id IS NOT NULL;
+
 -- ============================================
 -- VERIFICATION QUERIES
 -- ============================================
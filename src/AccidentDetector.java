@@ -0,0 +1,59 @@
+/**
+ * AccidentDetector - Plug-in point of the FramePipeline. An instance
+ * watches one stretch of one recording at a time: it is fed consecutive
+ * frames in order and says when it sees a crash. Each pipeline worker
+ * has its own instance, so implementations need not be thread-safe, but
+ * must keep all their history in the instance (reset clears it).
+ *
+ * Implementations are named by class with FramePipeline --detector and
+ * need a public no-argument constructor; "motion" is the built-in
+ * MotionEnergyDetector.
+ */
+public interface AccidentDetector {
+
+    /**
+     * Something in a frame that looks like a crash
+     */
+    class Candidate {
+        public final int frameIndex;
+        public final long timestampMs;
+        public final String severity;
+        public final double confidence;
+        // Where in the frame it happened, 0-1 from the top left
+        public final double x;
+        public final double y;
+        public final String summary;
+
+        public Candidate(int frameIndex, long timestampMs, String severity, double confidence, double x, double y,
+                String summary) {
+            this.frameIndex = frameIndex;
+            this.timestampMs = timestampMs;
+            this.severity = severity;
+            this.confidence = confidence;
+            this.x = x;
+            this.y = y;
+            this.summary = summary;
+        }
+    }
+
+    /**
+     * Frames of history the detector needs before its answers are the
+     * same as if it had watched the recording from the start, and the
+     * longest it takes to report a crash after it happens. Workers start
+     * each stretch this many frames early and run this many frames past
+     * its end, so every crash is reported by exactly one worker.
+     */
+    int getContextFrames();
+
+    /**
+     * Look at the next frame. The frame is reused once this returns.
+     *
+     * @return a crash seen at or before this frame, or null
+     */
+    Candidate accept(LumaFrame frame);
+
+    /**
+     * Forget all history before moving to another stretch
+     */
+    void reset();
+}
@@ -0,0 +1,756 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.DataTruncation;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AccidentIngestor - Group-commits incoming detections into the accidents
+ * table. Request threads only put detections into an IngestionBuffer; one
+ * writer thread drains it in batches of up to batchSize and inserts each
+ * batch in a single transaction, so the database sees a few commits a
+ * second however many detections arrive.
+ *
+ * With a DetectionIdFilter, detections whose client detection_id has been
+ * seen before are dropped as retries. The filter settles almost every id in
+ * memory; only ids it cannot rule out are looked up in detection_ids, all
+ * at once per batch, and the unique index on detection_id catches the rest
+ * (for example ids written by another ingest process). Every admitted id
+ * is stored there, including those of reports merged into another, so a
+ * retry of a merged report is recognised too.
+ *
+ * With a DetectionDeduplicator, each batch is first checked for reports of
+ * crashes already known: those are folded into the existing accident
+ * (severity raised to the highest reported, report_count increased)
+ * instead of becoming new rows that would each get an ambulance.
+ *
+ * With a RiskScorer, every new report is scored for dispatch order from
+ * its severity, the weather, the hour and the accident history of its
+ * area before it is planned; the history is kept in memory and updated
+ * with each new accident, seeded from the store when the writer starts.
+ *
+ * Admission control decides what happens when the buffer is full:
+ * BLOCK makes the caller wait for room up to a timeout, SHED drops the
+ * oldest queued detection of a lower severity (so Critical reports still
+ * get in at line rate), SPILL writes the overflow to an OverflowSpill file
+ * that the writer replays once it has caught up.
+ *
+ * A batch the database refuses because of its data (a value too long or
+ * out of range, a missing column value) cannot succeed on retry, so it is
+ * written again one report at a time and the reports refused on their own
+ * are moved to a dead-letter file. Other errors, such as a lost
+ * connection, keep the batch and retry it.
+ *
+ * Keeps counters and the ingest-to-commit latency of recent detections
+ * for the /api/ingest/metrics endpoint.
+ */
+public class AccidentIngestor {
+    /**
+     * What submit does when the buffer has no room
+     */
+    public enum Admission {
+        BLOCK, SHED, SPILL
+    }
+
+    private static final long POLL_MS = 200;
+    private static final long LINGER_MS = 5;
+    private static final long RETRY_DELAY_MS = 1000;
+
+    // Latency is reported over the most recent committed detections
+    private static final int LATENCY_SAMPLES = 8192;
+
+    private final FleetStore store;
+    private final IngestionBuffer buffer;
+    private final int batchSize;
+    private final DetectionDeduplicator deduplicator;
+    private final Admission admission;
+    private final long blockTimeoutMs;
+    private final OverflowSpill spill;
+    private final DetectionIdFilter idFilter;
+    private final RiskScorer riskScorer;
+    private File deadLetterFile;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+    private final AtomicLong escalated = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong idsChecked = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong lruHits = new AtomicLong();
+    private final AtomicLong bloomNegatives = new AtomicLong();
+    private final AtomicLong bloomFalsePositives = new AtomicLong();
+    private final AtomicLong dbFallbacks = new AtomicLong();
+    private final AtomicLong idConflicts = new AtomicLong();
+    private final AtomicLong riskScored = new AtomicLong();
+    private final AtomicLong scoringNanos = new AtomicLong();
+    private final AtomicLong riskScoreTotal = new AtomicLong();
+    // Shed detections by IncidentSizing.priority (Low, Medium, High, Critical)
+    private final AtomicLong[] shed = { new AtomicLong(), new AtomicLong(), new AtomicLong(), new AtomicLong() };
+
+    private final long[] latencyMicros = new long[LATENCY_SAMPLES];
+    private long latencyCount = 0;
+    private long maxLatencyMicros = 0;
+
+    private volatile double commitRate = 0;
+    private long rateWindowStart = System.nanoTime();
+    private long rateWindowCommitted = 0;
+
+    private volatile boolean running = false;
+    private Thread writer;
+
+    /**
+     * Batch of detections turned into rows to insert and merges into
+     * existing accidents; kept as is until it has been written
+     */
+    private static class WritePlan {
+        final List<Detection> received;
+        final List<Detection> inserts = new ArrayList<>();
+        final List<DetectionDeduplicator.Incident> created = new ArrayList<>();
+        final Map<DetectionDeduplicator.Incident, Integer> pending = new HashMap<>();
+        final Set<DetectionDeduplicator.Incident> updated = new LinkedHashSet<>();
+        // Inserts already committed one at a time after the batch was refused
+        int written = 0;
+
+        WritePlan(List<Detection> received) {
+            this.received = received;
+        }
+    }
+
+    public AccidentIngestor(FleetStore store, int bufferCapacity, int batchSize) {
+        this(store, bufferCapacity, batchSize, null, Admission.SHED, 0, null, null, null);
+    }
+
+    /**
+     * @param deduplicator   merges duplicate reports, or null to insert every detection
+     * @param admission      behaviour when the buffer is full
+     * @param blockTimeoutMs longest a BLOCK caller waits for room
+     * @param spill          overflow file, required for SPILL
+     * @param idFilter       drops retried detection ids, or null to trust the unique index alone
+     * @param riskScorer     scores new reports for dispatch order, or null to leave them unscored
+     */
+    public AccidentIngestor(FleetStore store, int bufferCapacity, int batchSize,
+            DetectionDeduplicator deduplicator, Admission admission, long blockTimeoutMs, OverflowSpill spill,
+            DetectionIdFilter idFilter, RiskScorer riskScorer) {
+        if (admission == Admission.SPILL && spill == null) {
+            throw new IllegalArgumentException("SPILL admission needs an overflow file");
+        }
+        this.store = store;
+        this.buffer = new IngestionBuffer(bufferCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.deduplicator = deduplicator;
+        this.admission = admission;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.spill = spill;
+        this.idFilter = idFilter;
+        this.riskScorer = riskScorer;
+    }
+
+    /**
+     * Ingestor configured from config.properties (ingest.*)
+     *
+     * @param spillFile overflow file used by the spill policy; each process needs its own
+     */
+    public static AccidentIngestor fromConfig(FleetStore store, String spillFile) {
+        return fromConfig(store, spillFile, new WeatherService());
+    }
+
+    /**
+     * @param weather weather used for risk scores, shared with the console when it has one
+     */
+    public static AccidentIngestor fromConfig(FleetStore store, String spillFile, WeatherService weather) {
+        ConfigManager config = ConfigManager.getInstance();
+        double radius = config.getIngestDedupRadiusMeters();
+        DetectionDeduplicator deduplicator = radius > 0
+                ? new DetectionDeduplicator(radius, config.getIngestDedupWindowSeconds() * 1000L) : null;
+        Admission admission = Admission.valueOf(config.getIngestAdmissionPolicy().toUpperCase(Locale.ROOT));
+        int bloomCapacity = config.getIngestIdBloomCapacity();
+        DetectionIdFilter idFilter = bloomCapacity > 0 ? new DetectionIdFilter(bloomCapacity,
+                config.getIngestIdBloomFalsePositiveRate(), config.getIngestIdLruSize()) : null;
+        AccidentIngestor ingestor = new AccidentIngestor(store, config.getIngestBufferCapacity(),
+                config.getIngestBatchSize(), deduplicator, admission, config.getIngestBlockTimeoutMs(),
+                admission == Admission.SPILL ? new OverflowSpill(new File(spillFile)) : null, idFilter,
+                config.isIngestRiskEnabled() ? RiskScorer.fromConfig(weather) : null);
+        ingestor.setDeadLetterFile(new File(config.getIngestDeadLetterFile()));
+        return ingestor;
+    }
+
+    /**
+     * Where to append detections the database refuses, as JSON lines with
+     * the error; without one they are only logged. Set before start().
+     */
+    public void setDeadLetterFile(File file) {
+        this.deadLetterFile = file;
+    }
+
+    /**
+     * Start the writer thread
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "accident-ingestor");
+        writer.setDaemon(true);
+        writer.start();
+        System.out.println("[AccidentIngestor] Started, buffer " + buffer.capacity() + ", batch " + batchSize);
+    }
+
+    /**
+     * Stop the writer once everything already accepted has been written
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(10000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+        if (spill != null) {
+            spill.close();
+        }
+        System.out.println("[AccidentIngestor] Stopped, " + committed.get() + " accidents committed");
+    }
+
+    /**
+     * Admit detections under the admission policy
+     *
+     * @return how many were queued or spilled; the rest were refused
+     */
+    public int submit(List<Detection> detections) {
+        return submit(detections, blockTimeoutMs);
+    }
+
+    /**
+     * Admit detections without ever waiting for room, for callers on the
+     * event dispatch thread; under BLOCK a full buffer refuses them at once
+     *
+     * @return how many were queued or spilled; the rest were refused
+     */
+    public int submitNow(List<Detection> detections) {
+        return submit(detections, 0);
+    }
+
+    private int submit(List<Detection> detections, long maxWaitMs) {
+        if (!running) {
+            rejected.addAndGet(detections.size());
+            return 0;
+        }
+        int admitted = 0;
+        try {
+            switch (admission) {
+                case BLOCK:
+                    if (buffer.offerAll(detections, 0)) {
+                        admitted = detections.size();
+                    } else if (maxWaitMs > 0) {
+                        blocked.incrementAndGet();
+                        admitted = buffer.offerAll(detections, maxWaitMs) ? detections.size() : 0;
+                    }
+                    break;
+                case SHED:
+                    for (Detection detection : detections) {
+                        Detection dropped = buffer.offerShedding(detection);
+                        if (dropped != null) {
+                            shed[IncidentSizing.priority(dropped.severity)].incrementAndGet();
+                        }
+                        if (dropped != detection) {
+                            admitted++;
+                        }
+                    }
+                    break;
+                case SPILL:
+                    if (!buffer.offerAll(detections, 0)) {
+                        spill.append(detections);
+                    }
+                    admitted = detections.size();
+                    break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("[AccidentIngestor] Error spilling detections: " + e.getMessage());
+        }
+        accepted.addAndGet(admitted);
+        rejected.addAndGet(detections.size() - admitted);
+        return admitted;
+    }
+
+    private void writeLoop() {
+        if (riskScorer != null) {
+            try {
+                riskScorer.seed(store.findRecentAccidents(ConfigManager.getInstance().getIngestRiskHistoryLimit()),
+                        System.currentTimeMillis());
+            } catch (SQLException e) {
+                System.err.println("[AccidentIngestor] Error loading accident history: " + e.getMessage());
+            }
+        }
+        List<Detection> batch = null;
+        WritePlan plan = null;
+        while (running || buffer.size() > 0 || batch != null || plan != null) {
+            try {
+                if (batch == null && plan == null && spill != null && spill.getBacklog() > 0
+                        && buffer.size() < batchSize) {
+                    // Caught up with live traffic - replay the overflow file
+                    List<Detection> replay = spill.read(batchSize);
+                    batch = replay.isEmpty() ? null : replay;
+                }
+                if (batch == null && plan == null) {
+                    List<Detection> drained = new ArrayList<>(batchSize);
+                    if (buffer.drainTo(drained, batchSize, POLL_MS, LINGER_MS) > 0) {
+                        batch = drained;
+                    }
+                }
+                if (batch != null) {
+                    plan = plan(batch);
+                    batch = null;
+                }
+                if (plan != null) {
+                    write(plan);
+                    plan = null;
+                }
+                updateRate();
+            } catch (SQLException e) {
+                // Keep the batch or plan and try again; new detections wait in the buffer
+                failedBatches.incrementAndGet();
+                int size = plan != null ? plan.received.size() : batch.size();
+                System.err.println("[AccidentIngestor] Error writing " + size + " accidents: " + e.getMessage());
+                if (!running) {
+                    System.err.println("[AccidentIngestor] Giving up on " + (size + buffer.size())
+                            + " accidents at shutdown");
+                    return;
+                }
+                sleep(RETRY_DELAY_MS);
+            } catch (IOException e) {
+                System.err.println("[AccidentIngestor] Error replaying overflow file: " + e.getMessage());
+                sleep(RETRY_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drop retried detection ids, then split the batch into new accidents
+     * and duplicates of known ones
+     */
+    private WritePlan plan(List<Detection> batch) throws SQLException {
+        List<Detection> fresh = dropRetries(batch);
+        WritePlan plan = new WritePlan(batch);
+        long now = System.currentTimeMillis();
+        for (Detection detection : fresh) {
+            if (riskScorer != null) {
+                detection = score(detection, now);
+            }
+            DetectionDeduplicator.Incident known = deduplicator != null && detection.hasPosition
+                    ? deduplicator.find(detection, now) : null;
+            if (known == null) {
+                DetectionDeduplicator.Incident incident = null;
+                if (deduplicator != null && detection.hasPosition) {
+                    incident = deduplicator.add(detection, now);
+                    plan.pending.put(incident, plan.inserts.size());
+                }
+                plan.created.add(incident);
+                plan.inserts.add(detection);
+                if (riskScorer != null) {
+                    riskScorer.record(detection.latitude, detection.longitude, now);
+                }
+                continue;
+            }
+
+            merged.incrementAndGet();
+            Integer pending = plan.pending.get(known);
+            if (pending != null) {
+                // Still to be inserted in this batch - insert it already merged
+                plan.inserts.set(pending, plan.inserts.get(pending).merge(detection));
+                deduplicator.merge(known, detection, now);
+                known.unsavedReports = 0;
+                known.unsavedIds.clear();
+                if (known.escalated) {
+                    known.escalated = false;
+                    escalated.incrementAndGet();
+                }
+            } else {
+                deduplicator.merge(known, detection, now);
+                plan.updated.add(known);
+            }
+        }
+        return plan;
+    }
+
+    private Detection score(Detection detection, long now) {
+        long start = System.nanoTime();
+        int score = riskScorer.score(detection.severity, detection.latitude, detection.longitude, now);
+        scoringNanos.addAndGet(System.nanoTime() - start);
+        riskScored.incrementAndGet();
+        riskScoreTotal.addAndGet(score);
+        return detection.scored(score);
+    }
+
+    /**
+     * Detections whose id has not been seen before. Ids in the LRU are
+     * retries; ids the Bloom filter rules out are new; the ids left over
+     * are looked up in one query. Nothing is remembered unless the lookup
+     * succeeds, so a failed batch can be planned again.
+     */
+    private List<Detection> dropRetries(List<Detection> batch) throws SQLException {
+        if (idFilter == null) {
+            return batch;
+        }
+        Set<String> uncertain = new LinkedHashSet<>();
+        for (Detection detection : batch) {
+            String id = detection.detectionId;
+            if (id != null && !idFilter.isRecent(id) && idFilter.mightContain(id)) {
+                uncertain.add(id);
+            }
+        }
+        Map<String, Integer> stored = Collections.emptyMap();
+        if (!uncertain.isEmpty()) {
+            stored = store.findDetections(uncertain);
+            dbFallbacks.addAndGet(uncertain.size());
+        }
+
+        List<Detection> fresh = new ArrayList<>(batch.size());
+        for (Detection detection : batch) {
+            String id = detection.detectionId;
+            if (id == null) {
+                fresh.add(detection);
+                continue;
+            }
+            idsChecked.incrementAndGet();
+            if (idFilter.isRecent(id)) {
+                lruHits.incrementAndGet();
+                duplicates.incrementAndGet();
+                continue;
+            }
+            if (stored.containsKey(id)) {
+                duplicates.incrementAndGet();
+                idFilter.add(id);
+                continue;
+            }
+            if (uncertain.contains(id)) {
+                bloomFalsePositives.incrementAndGet();
+            } else {
+                bloomNegatives.incrementAndGet();
+            }
+            idFilter.add(id);
+            fresh.add(detection);
+        }
+        return fresh;
+    }
+
+    /**
+     * After a unique-index conflict, turn inserts whose detection id is
+     * already stored into merges of their extra reports, if any, and drop
+     * merged reports whose id is already stored
+     *
+     * @return false if none of the plan's ids was already stored
+     */
+    private boolean dropStoredInserts(WritePlan plan) throws SQLException {
+        List<String> ids = new ArrayList<>();
+        for (Detection detection : plan.inserts) {
+            ids.addAll(detection.allIds());
+        }
+        for (DetectionDeduplicator.Incident incident : plan.updated) {
+            ids.addAll(incident.unsavedIds);
+        }
+        Map<String, Integer> stored = store.findDetections(ids);
+        dbFallbacks.addAndGet(ids.size());
+        if (stored.isEmpty()) {
+            return false;
+        }
+        for (int i = plan.inserts.size() - 1; i >= 0; i--) {
+            Detection detection = plan.inserts.get(i);
+            Detection unstored = detection.withoutMerged(stored.keySet());
+            duplicates.addAndGet(detection.reports - unstored.reports);
+            Integer accidentId = detection.detectionId != null ? stored.get(detection.detectionId) : null;
+            if (accidentId == null) {
+                plan.inserts.set(i, unstored);
+                continue;
+            }
+            duplicates.incrementAndGet();
+            DetectionDeduplicator.Incident incident = plan.created.get(i);
+            if (incident != null) {
+                incident.accidentId = accidentId;
+                if (unstored.reports > 1) {
+                    incident.unsavedReports = unstored.reports - 1;
+                    incident.unsavedIds.addAll(unstored.mergedIds);
+                    plan.updated.add(incident);
+                }
+            }
+            plan.inserts.remove(i);
+            plan.created.remove(i);
+        }
+        for (DetectionDeduplicator.Incident incident : plan.updated) {
+            int before = incident.unsavedIds.size();
+            incident.unsavedIds.removeAll(stored.keySet());
+            incident.unsavedReports -= before - incident.unsavedIds.size();
+            duplicates.addAndGet(before - incident.unsavedIds.size());
+        }
+        plan.pending.clear();
+        for (int i = 0; i < plan.created.size(); i++) {
+            if (plan.created.get(i) != null) {
+                plan.pending.put(plan.created.get(i), i);
+            }
+        }
+        return true;
+    }
+
+    private void write(WritePlan plan) throws SQLException {
+        List<Integer> ids;
+        while (true) {
+            List<FleetStore.ReportMerge> merges = new ArrayList<>(plan.updated.size());
+            for (DetectionDeduplicator.Incident incident : plan.updated) {
+                merges.add(new FleetStore.ReportMerge(incident.accidentId, incident.severity,
+                        incident.unsavedReports, incident.riskScore, new ArrayList<>(incident.unsavedIds)));
+            }
+            try {
+                ids = store.saveDetections(plan.inserts, merges);
+                break;
+            } catch (SQLIntegrityConstraintViolationException e) {
+                // An id the filter could not know about, e.g. written by another ingest process
+                idConflicts.incrementAndGet();
+                if (!dropStoredInserts(plan)) {
+                    writeSeparately(plan, merges);
+                    ids = Collections.emptyList();
+                    break;
+                }
+            } catch (SQLException e) {
+                if (!isRefusedData(e)) {
+                    throw e;
+                }
+                writeSeparately(plan, merges);
+                ids = Collections.emptyList();
+                break;
+            }
+        }
+
+        for (int i = 0; i < plan.created.size() && i < ids.size(); i++) {
+            if (plan.created.get(i) != null) {
+                plan.created.get(i).accidentId = ids.get(i);
+            }
+        }
+        for (DetectionDeduplicator.Incident incident : plan.updated) {
+            incident.unsavedReports = 0;
+            incident.unsavedIds.clear();
+            if (incident.escalated) {
+                incident.escalated = false;
+                escalated.incrementAndGet();
+            }
+        }
+        recordCommit(plan.received, plan.written + plan.inserts.size());
+    }
+
+    /**
+     * Write a refused batch one insert at a time, dead-lettering the inserts
+     * refused on their own, then its merges. Inserts leave the plan as they
+     * are written, so a retry after another error does not repeat them.
+     */
+    private void writeSeparately(WritePlan plan, List<FleetStore.ReportMerge> merges) throws SQLException {
+        System.err.println("[AccidentIngestor] Batch of " + plan.inserts.size()
+                + " accidents refused, writing them one at a time");
+        while (!plan.inserts.isEmpty()) {
+            Detection detection = plan.inserts.get(0);
+            DetectionDeduplicator.Incident incident = plan.created.get(0);
+            try {
+                List<Integer> ids = store.saveDetections(Collections.singletonList(detection),
+                        Collections.emptyList());
+                if (incident != null && !ids.isEmpty()) {
+                    incident.accidentId = ids.get(0);
+                }
+                plan.written++;
+            } catch (SQLException e) {
+                if (!isRefusedData(e)) {
+                    throw e;
+                }
+                deadLetter(detection, e);
+                if (incident != null) {
+                    deduplicator.remove(incident);
+                    plan.updated.remove(incident);
+                }
+            }
+            plan.inserts.remove(0);
+            plan.created.remove(0);
+            plan.pending.remove(incident);
+        }
+        try {
+            store.saveDetections(Collections.emptyList(), merges);
+        } catch (SQLException e) {
+            if (!isRefusedData(e)) {
+                throw e;
+            }
+            System.err.println("[AccidentIngestor] Dropping " + merges.size() + " report merges: " + e.getMessage());
+            plan.updated.clear();
+        }
+    }
+
+    // Errors caused by the rows themselves (SQLSTATE class 22 data, 23 constraint), not by the connection
+    private static boolean isRefusedData(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof DataTruncation || e instanceof SQLDataException
+                || e instanceof SQLIntegrityConstraintViolationException
+                || (state != null && (state.startsWith("22") || state.startsWith("23")))
+                || (e.getNextException() != null && e.getNextException() != e && isRefusedData(e.getNextException()));
+    }
+
+    private void deadLetter(Detection detection, SQLException e) {
+        deadLettered.incrementAndGet();
+        System.err.println("[AccidentIngestor] Refused accident at " + detection.location + ": " + e.getMessage());
+        if (deadLetterFile == null) {
+            return;
+        }
+        try (PrintWriter out = new PrintWriter(new FileWriter(deadLetterFile, true))) {
+            out.println("{\"error\":" + Json.quote(String.valueOf(e.getMessage())) + ",\"detection\":"
+                    + detection.toJson() + "}");
+        } catch (IOException io) {
+            System.err.println("[AccidentIngestor] Error writing dead-letter file: " + io.getMessage());
+        }
+    }
+
+    private synchronized void recordCommit(List<Detection> received, int inserted) {
+        long now = System.nanoTime();
+        for (Detection detection : received) {
+            long micros = (now - detection.receivedNanos) / 1000;
+            latencyMicros[(int) (latencyCount++ % LATENCY_SAMPLES)] = micros;
+            maxLatencyMicros = Math.max(maxLatencyMicros, micros);
+        }
+        committed.addAndGet(inserted);
+        processed.addAndGet(received.size());
+        batches.incrementAndGet();
+    }
+
+    private void updateRate() {
+        long now = System.nanoTime();
+        long elapsed = now - rateWindowStart;
+        if (elapsed >= 1_000_000_000L) {
+            long total = committed.get();
+            commitRate = (total - rateWindowCommitted) * 1e9 / elapsed;
+            rateWindowStart = now;
+            rateWindowCommitted = total;
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Ingest-to-commit latency percentile over recent detections, in ms
+     */
+    public synchronized double getLatencyPercentileMs(double p) {
+        int n = (int) Math.min(latencyCount, LATENCY_SAMPLES);
+        if (n == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencyMicros, n);
+        Arrays.sort(sorted);
+        int idx = (int) Math.ceil(p / 100.0 * n) - 1;
+        return sorted[Math.max(0, Math.min(n - 1, idx))] / 1000.0;
+    }
+
+    public synchronized double getMaxLatencyMs() {
+        return maxLatencyMicros / 1000.0;
+    }
+
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getCommittedCount() {
+        return committed.get();
+    }
+
+    public long getMergedCount() {
+        return merged.get();
+    }
+
+    public long getDeadLetteredCount() {
+        return deadLettered.get();
+    }
+
+    /**
+     * Counters, queue depth, shedding and spill state and latency as a JSON object
+     */
+    public String metricsJson() {
+        long batchCount = batches.get();
+        StringBuilder sb = new StringBuilder(512).append('{');
+        sb.append(String.format(Locale.ROOT,
+                "\"accepted\":%d,\"rejected\":%d,\"committed\":%d,\"merged\":%d,\"escalated\":%d," +
+                        "\"live_incidents\":%d,\"batches\":%d,\"failed_batches\":%d,\"dead_lettered\":%d," +
+                        "\"avg_batch\":%.1f," +
+                        "\"commit_rate_per_sec\":%.1f,",
+                accepted.get(), rejected.get(), committed.get(), merged.get(), escalated.get(),
+                deduplicator != null ? deduplicator.getLiveIncidentCount() : 0, batchCount, failedBatches.get(),
+                deadLettered.get(), batchCount == 0 ? 0.0 : (double) processed.get() / batchCount, commitRate));
+
+        sb.append(String.format(Locale.ROOT,
+                "\"admission\":\"%s\",\"queue_depth\":%d,\"queue_capacity\":%d,\"queue_by_severity\":{",
+                admission.name().toLowerCase(Locale.ROOT), buffer.size(), buffer.capacity()));
+        for (int i = 0; i < Detection.SEVERITIES.size(); i++) {
+            String severity = Detection.SEVERITIES.get(i);
+            sb.append(i > 0 ? "," : "").append(Json.quote(severity)).append(':').append(buffer.size(severity));
+        }
+        sb.append("},\"shed_by_severity\":{");
+        for (int i = 0; i < Detection.SEVERITIES.size(); i++) {
+            String severity = Detection.SEVERITIES.get(i);
+            sb.append(i > 0 ? "," : "").append(Json.quote(severity)).append(':')
+                    .append(shed[IncidentSizing.priority(severity)].get());
+        }
+        sb.append(String.format(Locale.ROOT, "},\"blocked\":%d,\"spilled\":%d,\"spill_backlog\":%d," +
+                        "\"replayed\":%d,",
+                blocked.get(), spill != null ? spill.getSpilledCount() : 0, spill != null ? spill.getBacklog() : 0,
+                spill != null ? spill.getReplayedCount() : 0));
+
+        long negatives = bloomNegatives.get();
+        long falsePositives = bloomFalsePositives.get();
+        sb.append(String.format(Locale.ROOT, "\"ids_checked\":%d,\"duplicates\":%d,\"lru_hits\":%d," +
+                        "\"bloom_negatives\":%d,\"bloom_false_positives\":%d,\"bloom_fp_rate\":%.5f," +
+                        "\"bloom_expected_fp_rate\":%.5f,\"db_fallbacks\":%d,\"id_conflicts\":%d,",
+                idsChecked.get(), duplicates.get(), lruHits.get(), negatives, falsePositives,
+                negatives + falsePositives == 0 ? 0.0 : (double) falsePositives / (negatives + falsePositives),
+                idFilter != null ? idFilter.expectedFalsePositiveRate() : 0.0, dbFallbacks.get(),
+                idConflicts.get()));
+
+        long scoredCount = riskScored.get();
+        sb.append(String.format(Locale.ROOT,
+                "\"risk_scored\":%d,\"risk_avg_score\":%.1f,\"risk_ns_per_event\":%.0f,",
+                scoredCount, scoredCount == 0 ? 0.0 : (double) riskScoreTotal.get() / scoredCount,
+                scoredCount == 0 ? 0.0 : (double) scoringNanos.get() / scoredCount));
+
+        sb.append(String.format(Locale.ROOT,
+                "\"latency_p50_ms\":%.3f,\"latency_p99_ms\":%.3f,\"latency_max_ms\":%.3f",
+                getLatencyPercentileMs(50), getLatencyPercentileMs(99), getMaxLatencyMs()));
+        return sb.append('}').toString();
+    }
+}
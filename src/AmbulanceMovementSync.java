@@ -1,39 +1,364 @@
-import javax.swing.*;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * AmbulanceMovementSync - Central synchronization manager for ambulance
  * movements
- * Handles automatic dispatching, movement simulation, and status updates
+ * Handles automatic dispatching, movement simulation, and status updates.
+ * Incidents are sized by IncidentSizing and may need several units; an
+ * incident counts as covered once every requested unit is on scene.
+ *
+ * With dispatch.sharding.enabled the city is split into regions leased by
+ * RegionLeaseManager: this node only dispatches to accidents and moves
+ * ambulances inside its own regions, and hands a unit (with its mission and
+ * fuel state) to the next region's owner through ambulance_handoffs when it
+ * crosses a border.
+ *
+ * Otherwise, when several copies of the application run against the same
+ * database, LeaderElection picks one of them to run the mutating tick. The
+ * others stay read-only followers: their tick only refreshes a fleet
+ * snapshot from what the leader wrote, and they take over (adopting the
+ * leader's units and missions) if its lease lapses.
+ *
+ * The engine needs no display: start() ticks it every 2 seconds from its
+ * own scheduler thread, on that thread unless setTickExecutor hands the
+ * ticks to another one (the console runs them on the event dispatch
+ * thread, where it also reads the engine), and what it does is reported to
+ * a NotificationSink, standard output unless one is set.
  */
 public class AmbulanceMovementSync {
-    private DatabaseManager dbManager;
-    private Timer syncTimer;
-    private NotificationManager notificationManager;
-    private boolean isRunning = false;
-    private Set<Integer> assignedAccidents = new HashSet<>();
+    private FleetStore store;
+    private static final long TICK_INTERVAL_MS = 2000;
+    private ScheduledExecutorService scheduler;
+    private Executor tickExecutor = Runnable::run;
+    // Set while a tick is handed to the tick executor, so a busy one is not sent a backlog
+    private final AtomicBoolean tickQueued = new AtomicBoolean(false);
+    private NotificationSink notifications;
+    private MissionRecorder missionRecorder;
+    private FuelModel fuelModel;
+    private volatile boolean isRunning = false;
+    private boolean notificationsEnabled = true;
+    private Random random = new Random();
+
+    // Incidents being worked, keyed by accident id, and the newest accident seen
+    private static final int ACCIDENT_BATCH = 500;
+    private Map<Integer, Incident> incidents = new HashMap<>();
+    private int lastAccidentId = 0;
+
+    // Available units are read from this far around the waiting incidents, doubled while
+    // an incident finds no usable unit inside it; from GRID_SIZE on the box is the whole grid
+    private static final int SEARCH_RADIUS = 75;
+    private static final int GRID_SIZE = 600;
+
+    // Hospitals double as refuelling points; cached so fuel checks need no queries
+    private static final int HOSPITAL_REFRESH_TICKS = 30;
+    private List<FleetStore.Hospital> hospitals = new ArrayList<>();
+    private int ticksSinceHospitalRefresh = 0;
+
+    // Idle low-fuel units waiting to be sent off, and units driving to refuel
+    private Map<Integer, FleetStore.Unit> refuelQueue = new LinkedHashMap<>();
+    private Map<Integer, RefuelTrip> refuelTrips = new HashMap<>();
+
+    // Region leases or leadership - null when this is the only dispatch node
+    private static final int ADOPT_WINDOW_MINUTES = 60;
+    private DispatchOwnership leases;
+    private RegionMap regionMap;
+    private Set<Integer> ownedRegions = Collections.emptySet();
+
+    /**
+     * Accident with the units requested for it and their progress
+     */
+    private static class Incident {
+        final int accidentId;
+        final String location;
+        final String severity;
+        final int riskScore;
+        final int targetX;
+        final int targetY;
+        int unitsRequired;
+        final Set<Integer> dispatched = new LinkedHashSet<>();
+        final Set<Integer> arrived = new HashSet<>();
+        final Set<Integer> departed = new HashSet<>();
+        boolean covered = false;
+        boolean resolved = false; // dropped at the start of the next tick
+
+        Incident(int accidentId, String location, String severity, int riskScore, int targetX, int targetY,
+                int unitsRequired) {
+            this.accidentId = accidentId;
+            this.location = location;
+            this.severity = severity;
+            this.riskScore = riskScore;
+            this.targetX = targetX;
+            this.targetY = targetY;
+            this.unitsRequired = unitsRequired;
+        }
+
+        int unitsNeeded() {
+            return Math.max(0, unitsRequired - dispatched.size());
+        }
+    }
+
+    /**
+     * Position of a unit on its way to a refuelling point
+     */
+    private static class RefuelTrip {
+        int x;
+        int y;
+        final FleetStore.Hospital station;
+
+        RefuelTrip(int x, int y, FleetStore.Hospital station) {
+            this.x = x;
+            this.y = y;
+            this.station = station;
+        }
+    }
 
     public AmbulanceMovementSync() {
-        this.dbManager = DatabaseManager.getInstance();
-        this.notificationManager = NotificationManager.getInstance();
-        loadAssignedAccidents();
+        this(new JdbcFleetStore(DatabaseManager.getInstance()), ConfigManager.getInstance());
+    }
+
+    private AmbulanceMovementSync(JdbcFleetStore store, ConfigManager config) {
+        this(store, createOwnership(store, config));
+    }
+
+    /**
+     * Create a sync engine on top of a specific store (used by FleetBenchmark)
+     */
+    public AmbulanceMovementSync(FleetStore store) {
+        this(store, null);
+    }
+
+    /**
+     * Create a sync engine that acts only on what the given ownership grants
+     * (leased regions, or the whole city while leader), or on the whole city
+     * when it is null
+     */
+    public AmbulanceMovementSync(FleetStore store, DispatchOwnership leases) {
+        this.store = store;
+        this.leases = leases;
+        this.regionMap = leases != null ? leases.getRegionMap() : new RegionMap(1);
+        this.notifications = new LogNotificationSink();
+        this.missionRecorder = new MissionRecorder(store);
+        this.fuelModel = new FuelModel(store);
+        loadHospitals();
+        if (leases == null) {
+            adopt(null);
+        }
+        // Sharded nodes and leaders adopt the fleet as their leases come in
+    }
+
+    private static DispatchOwnership createOwnership(JdbcFleetStore store, ConfigManager config) {
+        if (config.isDispatchShardingEnabled()) {
+            RegionLeaseManager leases = new RegionLeaseManager(DatabaseManager.getInstance(),
+                    new RegionMap(config.getDispatchRegionGrid()), config.getDispatchNodeId());
+            store.setFence(leases);
+            return leases;
+        }
+        if (!config.isLeaderElectionEnabled()) {
+            return null;
+        }
+        LeaderElection leader = new LeaderElection(DatabaseManager.getInstance(), config.getDispatchNodeId());
+        store.setFence(leader);
+        return leader;
+    }
+
+    /**
+     * Cache hospital positions used for fuel range checks and refuel trips
+     */
+    private void loadHospitals() {
+        try {
+            hospitals = store.loadHospitals();
+        } catch (SQLException e) {
+            System.err.println("[AmbulanceMovementSync] Error loading hospitals: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Take over incidents and units: rebuild incidents with the units already
+     * assigned to them, seed the fuel model, resume refuel trips interrupted
+     * by a restart and queue idle units that are already low.
+     *
+     * @param regions regions just leased, or null for the whole city when
+     *                running as the only node (recent accidents only, as before)
+     */
+    private void adopt(Set<Integer> regions) {
+        try {
+            List<FleetStore.Accident> accidents = regions == null ? store.findRecentAccidents(20)
+                    : store.findUnresolvedAccidents(ADOPT_WINDOW_MINUTES);
+            if (regions != null) {
+                // Accidents already resolved must not come back as new ones
+                for (FleetStore.Accident newest : store.findRecentAccidents(1)) {
+                    lastAccidentId = Math.max(lastAccidentId, newest.accidentId);
+                }
+            }
+            Set<Integer> adopted = new HashSet<>();
+            for (FleetStore.Accident accident : accidents) {
+                lastAccidentId = Math.max(lastAccidentId, accident.accidentId);
+                if (incidents.containsKey(accident.accidentId)) {
+                    continue;
+                }
+                Incident incident = newIncident(accident);
+                if (regions == null || regions.contains(regionMap.regionOf(incident.targetX, incident.targetY))) {
+                    openIncident(incident);
+                    adopted.add(accident.accidentId);
+                }
+            }
+
+            for (FleetStore.Unit unit : store.loadFleet()) {
+                if (unit.accidentId != 0) {
+                    Incident incident = incidents.get(unit.accidentId);
+                    if (incident == null && regions == null) {
+                        // Older accident still being worked - size it by its units
+                        incident = new Incident(unit.accidentId, null, null, 0, unit.targetX, unit.targetY, 0);
+                        incidents.put(unit.accidentId, incident);
+                        adopted.add(unit.accidentId);
+                    }
+                    if (incident != null && adopted.contains(unit.accidentId)) {
+                        incident.dispatched.add(unit.ambulanceId);
+                        incident.unitsRequired = Math.max(incident.unitsRequired, incident.dispatched.size());
+                        if ("red".equals(unit.status)) {
+                            incident.arrived.add(unit.ambulanceId);
+                            if (unit.hospitalId != 0) {
+                                incident.departed.add(unit.ambulanceId);
+                            }
+                        }
+                        incident.covered = incident.unitsNeeded() == 0
+                                && incident.arrived.size() >= incident.unitsRequired;
+                    }
+                    lastAccidentId = Math.max(lastAccidentId, unit.accidentId);
+                }
+
+                if (regions != null && !regions.contains(regionMap.regionOf(unit.currentX, unit.currentY))) {
+                    continue;
+                }
+                fuelModel.observe(unit.ambulanceId, unit.fuelLevel);
+                if ("yellow".equals(unit.status) && unit.accidentId == 0) {
+                    FleetStore.Hospital station = nearestHospital(unit.targetX, unit.targetY);
+                    if (station != null) {
+                        refuelTrips.put(unit.ambulanceId, new RefuelTrip(unit.currentX, unit.currentY, station));
+                    }
+                } else if ("green".equals(unit.status) && fuelModel.isLow(unit.ambulanceId)) {
+                    refuelQueue.put(unit.ambulanceId, unit);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("[AmbulanceMovementSync] Error adopting fleet state: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Hand every unit we track in the given regions to their next owner and
+     * forget the incidents there
+     */
+    private void dropRegions(Set<Integer> regions) {
+        incidents.values().removeIf(i -> regions.contains(regionMap.regionOf(i.targetX, i.targetY)));
+        refuelQueue.values().removeIf(u -> regions.contains(regionMap.regionOf(u.currentX, u.currentY)));
+        fuelModel.flush();
+
+        try {
+            for (FleetStore.Unit unit : store.loadFleet()) {
+                if (!regions.contains(regionMap.regionOf(unit.currentX, unit.currentY))) {
+                    continue;
+                }
+                RefuelTrip trip = refuelTrips.remove(unit.ambulanceId);
+                if (trip != null) {
+                    handOff(unit.ambulanceId, trip.x, trip.y, trip.station.x, trip.station.y, true);
+                } else if (unit.accidentId != 0) {
+                    handOff(unit.ambulanceId, unit.currentX, unit.currentY, unit.targetX, unit.targetY, false);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("[AmbulanceMovementSync] Error handing off regions: " + e.getMessage());
+        }
     }
 
     /**
-     * Load already assigned accidents from database
+     * Follow lease changes since the last tick and pick up units handed to us
+     *
+     * @return false while this node must not mutate the fleet
      */
-    private void loadAssignedAccidents() {
+    private boolean syncRegions() {
+        if (!leases.isLeaseValid()) {
+            if (!ownedRegions.isEmpty()) {
+                System.err.println("[AmbulanceMovementSync] Leases not renewed, pausing dispatch");
+                dropRegions(ownedRegions);
+                ownedRegions = Collections.emptySet();
+            }
+            return false;
+        }
+
+        Set<Integer> current = new HashSet<>(leases.getOwnedRegions());
+        Set<Integer> lost = new HashSet<>(ownedRegions);
+        lost.removeAll(current);
+        Set<Integer> gained = new HashSet<>(current);
+        gained.removeAll(ownedRegions);
+
+        if (!lost.isEmpty()) {
+            dropRegions(lost);
+        }
+        ownedRegions = current;
+        if (!gained.isEmpty()) {
+            adopt(gained);
+        }
+
         try {
-            String sql = "SELECT assigned_accident_id FROM ambulances WHERE assigned_accident_id IS NOT NULL";
-            ResultSet rs = dbManager.executeQuery(sql);
-            while (rs.next()) {
-                assignedAccidents.add(rs.getInt("assigned_accident_id"));
+            for (FleetStore.Handoff handoff : store.claimHandoffs(ownedRegions)) {
+                fuelModel.adopt(handoff.ambulanceId, handoff.fuelLevel);
+                if (handoff.mission != null) {
+                    missionRecorder.adopt(handoff.mission);
+                }
+                if (handoff.refuelling) {
+                    FleetStore.Hospital station = nearestHospital(handoff.targetX, handoff.targetY);
+                    if (station != null) {
+                        refuelTrips.put(handoff.ambulanceId,
+                                new RefuelTrip(handoff.currentX, handoff.currentY, station));
+                    }
+                }
             }
         } catch (SQLException e) {
-            System.err.println("[AmbulanceMovementSync] Error loading assigned accidents: " + e.getMessage());
+            System.err.println("[AmbulanceMovementSync] Error claiming handoffs: " + e.getMessage());
         }
+        return true;
+    }
+
+    /**
+     * Pass a unit that left our regions to whoever owns the region it is in now
+     */
+    private void handOff(int ambulanceId, int x, int y, int targetX, int targetY, boolean refuelling) {
+        MissionRecorder.Mission mission = missionRecorder.handOff(ambulanceId);
+        double fuel = fuelModel.handOff(ambulanceId);
+        int region = regionMap.regionOf(x, y);
+        try {
+            store.saveHandoff(new FleetStore.Handoff(ambulanceId, region, x, y, targetX, targetY, refuelling, fuel,
+                    mission));
+            System.out.println(String.format("[AmbulanceMovementSync] Ambulance %d handed off to region %d",
+                    ambulanceId, region));
+        } catch (SQLException e) {
+            System.err.println("[AmbulanceMovementSync] Error handing off ambulance: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Whether this node is responsible for a grid position
+     */
+    private boolean owns(int x, int y) {
+        return leases == null || ownedRegions.contains(regionMap.regionOf(x, y));
     }
 
     /**
@@ -46,31 +371,93 @@ public class AmbulanceMovementSync {
 
         isRunning = true;
         System.out.println("[AmbulanceMovementSync] Starting synchronization...");
+        missionRecorder.start();
+        fuelModel.start();
+        if (leases != null) {
+            leases.start();
+        }
 
         // Run sync every 2 seconds
-        syncTimer = new Timer(2000, e -> performSync());
-        syncTimer.start();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dispatch-engine");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::scheduleTick, TICK_INTERVAL_MS, TICK_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void scheduleTick() {
+        if (!tickQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            tickExecutor.execute(() -> {
+                try {
+                    if (isRunning) {
+                        performSync();
+                    }
+                } finally {
+                    tickQueued.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            tickQueued.set(false);
+            System.err.println("[AmbulanceMovementSync] Tick not run: " + e.getMessage());
+        }
     }
 
     /**
      * Stop synchronization
      */
     public void stop() {
-        if (syncTimer != null) {
-            syncTimer.stop();
+        if (scheduler != null && isRunning) {
             isRunning = false;
+            scheduler.shutdown();
+            try {
+                // A tick run on the scheduler thread finishes before the handover below
+                scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (leases != null) {
+                // Hand everything over before releasing the leases
+                dropRegions(ownedRegions);
+                ownedRegions = Collections.emptySet();
+                leases.stop();
+            }
+            missionRecorder.stop();
+            fuelModel.stop();
             System.out.println("[AmbulanceMovementSync] Synchronization stopped");
         }
     }
 
+    /**
+     * Run a single synchronization cycle on the calling thread
+     */
+    public void tick() {
+        performSync();
+    }
+
     /**
      * Perform synchronization cycle
      */
     private void performSync() {
         try {
+            // Followers do nothing; consoles see the fleet through LiveDataHub
+            if (leases != null && !syncRegions()) {
+                return;
+            }
+            if (++ticksSinceHospitalRefresh >= HOSPITAL_REFRESH_TICKS) {
+                ticksSinceHospitalRefresh = 0;
+                loadHospitals();
+            }
             checkForNewAccidents();
+            dispatchWaitingIncidents();
+            sendLowFuelUnitsToRefuel();
             moveAmbulances();
             updateAmbulanceStatus();
+            moveRefuellingAmbulances();
         } catch (Exception e) {
             System.err.println("[AmbulanceMovementSync] Sync error: " + e.getMessage());
         }
@@ -80,114 +467,327 @@ public class AmbulanceMovementSync {
      * Check for new accidents that need ambulance dispatch
      */
     private void checkForNewAccidents() {
+        incidents.values().removeIf(i -> i.resolved);
         try {
-            // Find all accidents - we'll track assignment via our Set
-            String sql = "SELECT accident_id, location, severity FROM accidents " +
-                    "ORDER BY accident_time DESC LIMIT 20";
+            for (FleetStore.Accident accident : store.findAccidentsAfter(lastAccidentId, ACCIDENT_BATCH)) {
+                lastAccidentId = Math.max(lastAccidentId, accident.accidentId);
+                if (incidents.containsKey(accident.accidentId)) {
+                    continue;
+                }
+                // Accidents in other nodes' regions are theirs to dispatch
+                Incident incident = newIncident(accident);
+                if (owns(incident.targetX, incident.targetY)) {
+                    openIncident(incident);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("[AmbulanceMovementSync] Error checking accidents: " + e.getMessage());
+        }
+    }
 
-            ResultSet rs = dbManager.executeQuery(sql);
+    /**
+     * Size the response to an accident
+     */
+    private Incident newIncident(FleetStore.Accident accident) {
+        // Convert to grid coordinates (0-600 range)
+        // Chennai spans roughly: lat 12.9-13.2, lng 80.0-80.4
+        int targetX = (int) ((accident.latitude - 12.9) / 0.3 * 600);
+        int targetY = (int) ((accident.longitude - 80.0) / 0.4 * 600);
+        // Clamp to valid range
+        targetX = Math.max(50, Math.min(550, targetX));
+        targetY = Math.max(50, Math.min(550, targetY));
 
-            while (rs.next()) {
-                int accidentId = rs.getInt("accident_id");
+        int units = IncidentSizing.unitsRequired(accident.severity, accident.patientCount, accident.description);
+        // Accidents that did not come through ingest are ranked by severity alone
+        int riskScore = accident.riskScore > 0 ? accident.riskScore : RiskScorer.baseline(accident.severity);
+        return new Incident(accident.accidentId, accident.location, accident.severity, riskScore, targetX, targetY,
+                units);
+    }
 
-                // Skip if already assigned
-                if (assignedAccidents.contains(accidentId)) {
-                    continue;
-                }
+    /**
+     * Start tracking an incident
+     */
+    private void openIncident(Incident incident) {
+        incidents.put(incident.accidentId, incident);
 
-                String location = rs.getString("location");
-                String severity = rs.getString("severity");
+        if (incident.unitsRequired > 1) {
+            System.out.println(String.format("[AmbulanceMovementSync] Accident %d at %s needs %d units",
+                    incident.accidentId, incident.location, incident.unitsRequired));
+        }
+    }
 
-                // Try to dispatch ambulance
-                if (dispatchNearestAmbulance(accidentId, location, severity)) {
-                    assignedAccidents.add(accidentId);
+    /**
+     * Assign units to every incident still short of its requested count.
+     * Incidents are served in risk score order, each taking the nearest
+     * available units with enough fuel for the scene and the hospital run.
+     * Available units are read from a box around the waiting incidents and
+     * indexed by position; a unit inside the search radius of an incident is
+     * therefore nearer than any unit not read. When an incident finds none
+     * within the radius, the radius doubles and the units are read again
+     * before any lower-risk incident is served.
+     */
+    private void dispatchWaitingIncidents() {
+        List<Incident> waiting = new ArrayList<>();
+        for (Incident incident : incidents.values()) {
+            if (incident.unitsNeeded() > 0) {
+                waiting.add(incident);
+            }
+        }
+        if (waiting.isEmpty()) {
+            return;
+        }
+        waiting.sort(Comparator.comparingInt((Incident i) -> -i.riskScore)
+                .thenComparingInt(i -> i.accidentId));
+
+        int radius = SEARCH_RADIUS;
+        DispatchIndex index = null;
+        for (int i = 0; i < waiting.size(); i++) {
+            Incident incident = waiting.get(i);
+            FleetStore.Hospital hospital = nearestHospital(incident.targetX, incident.targetY);
+            double onwardDistance = hospital == null ? 0
+                    : Math.hypot(hospital.x - incident.targetX, hospital.y - incident.targetY);
+
+            int sent = 0;
+            while (incident.unitsNeeded() > 0) {
+                if (index == null) {
+                    index = loadAvailableUnits(waiting.subList(i, waiting.size()), radius);
+                    if (index == null) {
+                        return;
+                    }
                 }
+                boolean wholeGrid = radius >= GRID_SIZE;
+                if (wholeGrid && index.size() == 0) {
+                    // No unit available anywhere
+                    return;
+                }
+                FleetStore.Unit unit = index.takeNearest(incident.targetX, incident.targetY,
+                        u -> hasRangeFor(u, incident.targetX, incident.targetY, onwardDistance),
+                        wholeGrid ? Double.MAX_VALUE : radius);
+                if (unit == null) {
+                    if (wholeGrid) {
+                        break;
+                    }
+                    radius = Math.min(GRID_SIZE, radius * 2);
+                    index = null;
+                    continue;
+                }
+                if (dispatchUnit(unit, incident)) {
+                    sent++;
+                }
+            }
+            if (sent > 0 && notificationsEnabled) {
+                if (incident.unitsRequired == 1) {
+                    notifications.showWarning("Ambulance Dispatched",
+                            String.format("Ambulance #%d dispatched to %s (%s severity)",
+                                    incident.dispatched.iterator().next(), incident.location, incident.severity));
+                } else {
+                    notifications.showWarning("Ambulances Dispatched",
+                            String.format("%d ambulances dispatched to %s (%s severity, %d/%d units)", sent,
+                                    incident.location, incident.severity, incident.dispatched.size(),
+                                    incident.unitsRequired));
+                }
+            }
+        }
+    }
+
+    /**
+     * Index the available units within radius of any of the incidents
+     *
+     * @return the index, or null if the units could not be read
+     */
+    private DispatchIndex loadAvailableUnits(List<Incident> around, int radius) {
+        int minX = GRID_SIZE;
+        int minY = GRID_SIZE;
+        int maxX = 0;
+        int maxY = 0;
+        for (Incident incident : around) {
+            minX = Math.min(minX, incident.targetX);
+            minY = Math.min(minY, incident.targetY);
+            maxX = Math.max(maxX, incident.targetX);
+            maxY = Math.max(maxY, incident.targetY);
+        }
+        if (radius >= GRID_SIZE) {
+            // Units parked off the grid count too
+            minX = minY = Integer.MIN_VALUE;
+            maxX = maxY = Integer.MAX_VALUE;
+        } else {
+            minX -= radius;
+            minY -= radius;
+            maxX += radius;
+            maxY += radius;
+        }
+        try {
+            List<FleetStore.Unit> candidates = store.findAvailableUnits((int) FuelModel.RESERVE, minX, minY, maxX,
+                    maxY);
+            for (FleetStore.Unit unit : candidates) {
+                fuelModel.observe(unit.ambulanceId, unit.fuelLevel);
             }
+            return new DispatchIndex(candidates);
         } catch (SQLException e) {
-            System.err.println("[AmbulanceMovementSync] Error checking accidents: " + e.getMessage());
+            System.err.println("[AmbulanceMovementSync] Error loading available units: " + e.getMessage());
+            return null;
         }
     }
 
     /**
-     * Dispatch nearest available ambulance to accident
+     * Send one unit to an incident
      */
-    private boolean dispatchNearestAmbulance(int accidentId, String location, String severity) {
+    private boolean dispatchUnit(FleetStore.Unit unit, Incident incident) {
+        int ambulanceId = unit.ambulanceId;
         try {
-            // Get accident coordinates first
-            String accSql = "SELECT latitude, longitude FROM accidents WHERE accident_id = ?";
-            PreparedStatement accPstmt = dbManager.getConnection().prepareStatement(accSql);
-            accPstmt.setInt(1, accidentId);
-            ResultSet accRs = accPstmt.executeQuery();
-
-            double targetLat = 13.0827; // Default Chennai
-            double targetLng = 80.2707;
-            int targetX = 200, targetY = 200;
-
-            if (accRs.next()) {
-                targetLat = accRs.getDouble("latitude");
-                targetLng = accRs.getDouble("longitude");
-                // Convert to grid coordinates (0-600 range)
-                // Chennai spans roughly: lat 12.9-13.2, lng 80.0-80.4
-                targetX = (int) ((targetLat - 12.9) / 0.3 * 600);
-                targetY = (int) ((targetLng - 80.0) / 0.4 * 600);
-                // Clamp to valid range
-                targetX = Math.max(50, Math.min(550, targetX));
-                targetY = Math.max(50, Math.min(550, targetY));
+            // Update ambulance status to yellow (dispatched) AND set target coordinates
+            if (!store.dispatch(ambulanceId, incident.accidentId, incident.targetX, incident.targetY)) {
+                // Taken by another node since we read it
+                return false;
             }
 
-            // Find nearest green (available) ambulance
-            String sql = "SELECT ambulance_id, current_x, current_y FROM ambulances " +
-                    "WHERE status = 'green' ORDER BY ambulance_id LIMIT 1";
-
-            ResultSet rs = dbManager.executeQuery(sql);
-
-            if (rs.next()) {
-                int ambulanceId = rs.getInt("ambulance_id");
-
-                // Update ambulance status to yellow (dispatched) AND set target coordinates
-                String updateAmb = "UPDATE ambulances SET status = 'yellow', " +
-                        "assigned_accident_id = ?, target_x = ?, target_y = ? WHERE ambulance_id = ?";
-                PreparedStatement pstmt = dbManager.getConnection().prepareStatement(updateAmb);
-                pstmt.setInt(1, accidentId);
-                pstmt.setInt(2, targetX);
-                pstmt.setInt(3, targetY);
-                pstmt.setInt(4, ambulanceId);
-                pstmt.executeUpdate();
-
-                // Notify
-                notificationManager.showWarning("Ambulance Dispatched",
-                        String.format("Ambulance #%d dispatched to %s (%s severity)",
-                                ambulanceId, location, severity));
-
-                System.out.println(
-                        String.format("[AmbulanceMovementSync] Dispatched ambulance %d to accident %d at (%d,%d)",
-                                ambulanceId, accidentId, targetX, targetY));
-                return true;
+            incident.dispatched.add(ambulanceId);
+            refuelQueue.remove(ambulanceId);
+            missionRecorder.missionDispatched(ambulanceId, incident.accidentId, incident.severity, incident.location);
+
+            // Units idle in another node's region are driven by that node
+            if (!owns(unit.currentX, unit.currentY)) {
+                handOff(ambulanceId, unit.currentX, unit.currentY, incident.targetX, incident.targetY, false);
             }
+
+            System.out.println(
+                    String.format("[AmbulanceMovementSync] Dispatched ambulance %d to accident %d at (%d,%d)",
+                            ambulanceId, incident.accidentId, incident.targetX, incident.targetY));
+            return true;
         } catch (SQLException e) {
             System.err.println("[AmbulanceMovementSync] Error dispatching ambulance: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Whether the unit's in-memory fuel covers the drive to the scene and on
+     * to the nearest hospital. Low units that cannot make it are queued for
+     * refuelling instead.
+     */
+    private boolean hasRangeFor(FleetStore.Unit unit, int targetX, int targetY, double onwardDistance) {
+        double tripDistance = Math.hypot(targetX - unit.currentX, targetY - unit.currentY) + onwardDistance;
+        if (fuelModel.canDrive(unit.ambulanceId, tripDistance)) {
+            return true;
+        }
+        if (fuelModel.isLow(unit.ambulanceId) && owns(unit.currentX, unit.currentY)) {
+            refuelQueue.put(unit.ambulanceId, unit);
         }
         return false;
     }
 
+    /**
+     * Send queued idle low-fuel units to the nearest refuelling point
+     */
+    private void sendLowFuelUnitsToRefuel() {
+        Iterator<FleetStore.Unit> it = refuelQueue.values().iterator();
+        while (it.hasNext()) {
+            FleetStore.Unit unit = it.next();
+            FleetStore.Hospital station = nearestHospital(unit.currentX, unit.currentY);
+            if (station == null) {
+                return;
+            }
+            try {
+                store.startRefuel(unit.ambulanceId, station.x, station.y);
+                refuelTrips.put(unit.ambulanceId, new RefuelTrip(unit.currentX, unit.currentY, station));
+                it.remove();
+
+                System.out.println(String.format("[AmbulanceMovementSync] Ambulance %d low on fuel (%.0f%%), " +
+                        "refuelling at %s", unit.ambulanceId, fuelModel.getLevel(unit.ambulanceId), station.name));
+            } catch (SQLException e) {
+                System.err.println("[AmbulanceMovementSync] Error starting refuel: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Move ambulances on refuel trips and put them back in service on arrival
+     */
+    private void moveRefuellingAmbulances() {
+        Iterator<Map.Entry<Integer, RefuelTrip>> it = refuelTrips.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, RefuelTrip> entry = it.next();
+            int ambulanceId = entry.getKey();
+            RefuelTrip trip = entry.getValue();
+            FleetStore.Hospital station = trip.station;
+
+            int dx = station.x - trip.x;
+            int dy = station.y - trip.y;
+            double distance = Math.sqrt(dx * dx + dy * dy);
+            int speed = 15;
+
+            try {
+                if (distance <= speed) {
+                    store.finishRefuel(ambulanceId);
+                    fuelModel.refuelled(ambulanceId);
+                    it.remove();
+
+                    if (notificationsEnabled) {
+                        notifications.showInfo("Refuelled",
+                                String.format("Ambulance #%d refuelled at %s and back in service", ambulanceId,
+                                        station.name));
+                    }
+                    System.out.println(String.format("[AmbulanceMovementSync] Ambulance %d refuelled at %s",
+                            ambulanceId, station.name));
+                } else {
+                    double ratio = speed / distance;
+                    int newX = trip.x + (int) (dx * ratio);
+                    int newY = trip.y + (int) (dy * ratio);
+
+                    double newLat = 13.0827 + (newX - 200) * 0.0005;
+                    double newLng = 80.2707 + (newY - 200) * 0.0005;
+
+                    store.updatePosition(ambulanceId, newX, newY, newLat, newLng);
+
+                    fuelModel.consume(ambulanceId, Math.hypot(newX - trip.x, newY - trip.y));
+                    trip.x = newX;
+                    trip.y = newY;
+
+                    if (!owns(newX, newY)) {
+                        it.remove();
+                        handOff(ambulanceId, newX, newY, station.x, station.y, true);
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println("[AmbulanceMovementSync] Error moving refuelling ambulance: " + e.getMessage());
+            }
+        }
+    }
+
+    private FleetStore.Hospital nearestHospital(int x, int y) {
+        FleetStore.Hospital nearest = null;
+        double best = Double.MAX_VALUE;
+        for (FleetStore.Hospital h : hospitals) {
+            double d = Math.hypot(h.x - x, h.y - y);
+            if (d < best) {
+                best = d;
+                nearest = h;
+            }
+        }
+        return nearest;
+    }
+
     /**
      * Move ambulances towards their targets
      */
     private void moveAmbulances() {
         try {
             // Get all yellow (dispatched) ambulances with their targets
-            String sql = "SELECT ambulance_id, current_x, current_y, target_x, target_y, assigned_accident_id " +
-                    "FROM ambulances WHERE status = 'yellow' AND assigned_accident_id IS NOT NULL";
+            List<FleetStore.Unit> units = store.findUnits("yellow");
 
-            ResultSet rs = dbManager.executeQuery(sql);
+            for (FleetStore.Unit unit : units) {
+                int ambulanceId = unit.ambulanceId;
+                int currentX = unit.currentX;
+                int currentY = unit.currentY;
+                int targetX = unit.targetX;
+                int targetY = unit.targetY;
+                int accidentId = unit.accidentId;
 
-            while (rs.next()) {
-                int ambulanceId = rs.getInt("ambulance_id");
-                int currentX = rs.getInt("current_x");
-                int currentY = rs.getInt("current_y");
-                int targetX = rs.getInt("target_x");
-                int targetY = rs.getInt("target_y");
-                int accidentId = rs.getInt("assigned_accident_id");
+                if (!owns(currentX, currentY)) {
+                    continue;
+                }
+                fuelModel.observe(ambulanceId, unit.fuelLevel);
 
                 // Calculate direction toward target
                 int dx = targetX - currentX;
@@ -200,10 +800,12 @@ public class AmbulanceMovementSync {
                 int newX, newY;
 
                 if (distance <= speed) {
-                    // Close enough - arrived!
+                    // Close enough - arrived! (scenes in other regions are marked by their owner)
                     newX = targetX;
                     newY = targetY;
-                    markArrived(ambulanceId, accidentId);
+                    if (owns(newX, newY)) {
+                        markArrived(ambulanceId, accidentId);
+                    }
                 } else {
                     // Move toward target
                     double ratio = speed / distance;
@@ -211,27 +813,27 @@ public class AmbulanceMovementSync {
                     newY = currentY + (int) (dy * ratio);
 
                     // Add small random variation for realism
-                    newX += (int) (Math.random() * 4 - 2);
-                    newY += (int) (Math.random() * 4 - 2);
+                    newX += (int) (random.nextDouble() * 4 - 2);
+                    newY += (int) (random.nextDouble() * 4 - 2);
 
                     // Clamp to reasonable bounds
                     newX = Math.max(0, Math.min(600, newX));
                     newY = Math.max(0, Math.min(600, newY));
                 }
 
+                double moved = Math.hypot(newX - currentX, newY - currentY);
+                missionRecorder.distanceTravelled(ambulanceId, moved);
+                fuelModel.consume(ambulanceId, moved);
+
                 // Update ambulance position and GPS coordinates
                 double newLat = 13.0827 + (newX - 200) * 0.0005;
                 double newLng = 80.2707 + (newY - 200) * 0.0005;
 
-                String update = "UPDATE ambulances SET current_x = ?, current_y = ?, latitude = ?, longitude = ? " +
-                        "WHERE ambulance_id = ?";
-                PreparedStatement pstmt = dbManager.getConnection().prepareStatement(update);
-                pstmt.setInt(1, newX);
-                pstmt.setInt(2, newY);
-                pstmt.setDouble(3, newLat);
-                pstmt.setDouble(4, newLng);
-                pstmt.setInt(5, ambulanceId);
-                pstmt.executeUpdate();
+                store.updatePosition(ambulanceId, newX, newY, newLat, newLng);
+
+                if (!owns(newX, newY)) {
+                    handOff(ambulanceId, newX, newY, targetX, targetY, false);
+                }
             }
         } catch (SQLException e) {
             System.err.println("[AmbulanceMovementSync] Error moving ambulances: " + e.getMessage());
@@ -244,14 +846,34 @@ public class AmbulanceMovementSync {
     private void markArrived(int ambulanceId, int accidentId) {
         try {
             // Update ambulance to red (at scene)
-            String update = "UPDATE ambulances SET status = 'red' WHERE ambulance_id = ?";
-            PreparedStatement pstmt = dbManager.getConnection().prepareStatement(update);
-            pstmt.setInt(1, ambulanceId);
-            pstmt.executeUpdate();
+            store.setStatus(ambulanceId, "red");
 
-            notificationManager.showUrgent("Ambulance Arrived",
-                    String.format("Ambulance #%d has arrived at accident scene #%d",
-                            ambulanceId, accidentId));
+            missionRecorder.arrivedAtScene(ambulanceId);
+
+            Incident incident = incidents.get(accidentId);
+            if (incident != null) {
+                incident.arrived.add(ambulanceId);
+                if (!incident.covered && incident.unitsNeeded() == 0
+                        && incident.arrived.size() >= incident.unitsRequired) {
+                    incident.covered = true;
+                    if (incident.unitsRequired > 1) {
+                        if (notificationsEnabled) {
+                            notifications.showInfo("Incident Covered",
+                                    String.format("All %d units on scene at accident #%d",
+                                            incident.unitsRequired, accidentId));
+                        }
+                        System.out.println(String.format(
+                                "[AmbulanceMovementSync] Accident %d covered (%d units on scene)", accidentId,
+                                incident.unitsRequired));
+                    }
+                }
+            }
+
+            if (notificationsEnabled) {
+                notifications.showUrgent("Ambulance Arrived",
+                        String.format("Ambulance #%d has arrived at accident scene #%d",
+                                ambulanceId, accidentId));
+            }
 
             System.out.println(String.format("[AmbulanceMovementSync] Ambulance %d arrived at accident %d",
                     ambulanceId, accidentId));
@@ -266,76 +888,71 @@ public class AmbulanceMovementSync {
     private void updateAmbulanceStatus() {
         try {
             // Handle red ambulances (at scene) - move them to nearest hospital
-            String sql = "SELECT a.ambulance_id, a.assigned_accident_id, a.current_x, a.current_y, " +
-                    "a.assigned_hospital_id FROM ambulances a WHERE a.status = 'red'";
-            ResultSet rs = dbManager.executeQuery(sql);
+            List<FleetStore.Unit> units = store.findUnits("red");
+
+            for (FleetStore.Unit unit : units) {
+                int ambulanceId = unit.ambulanceId;
+                int accidentId = unit.accidentId;
+                int hospitalId = unit.hospitalId;
+                int currentX = unit.currentX;
+                int currentY = unit.currentY;
 
-            while (rs.next()) {
-                int ambulanceId = rs.getInt("ambulance_id");
-                int accidentId = rs.getInt("assigned_accident_id");
-                int hospitalId = rs.getInt("assigned_hospital_id");
-                int currentX = rs.getInt("current_x");
-                int currentY = rs.getInt("current_y");
+                if (!owns(currentX, currentY)) {
+                    continue;
+                }
+                fuelModel.observe(ambulanceId, unit.fuelLevel);
 
                 if (hospitalId == 0) {
                     // Find nearest hospital and start transport
-                    String hospSql = "SELECT hospital_id, x, y, name FROM hospitals ORDER BY " +
-                            "SQRT(POW(x - ?, 2) + POW(y - ?, 2)) LIMIT 1";
-                    PreparedStatement hospPstmt = dbManager.getConnection().prepareStatement(hospSql);
-                    hospPstmt.setInt(1, currentX);
-                    hospPstmt.setInt(2, currentY);
-                    ResultSet hospRs = hospPstmt.executeQuery();
-
-                    if (hospRs.next()) {
-                        int nearestHospId = hospRs.getInt("hospital_id");
-                        int hospX = hospRs.getInt("x");
-                        int hospY = hospRs.getInt("y");
-                        String hospName = hospRs.getString("name");
+                    FleetStore.Hospital hospital = store.findNearestHospital(currentX, currentY);
 
+                    if (hospital != null) {
                         // Assign hospital and set target
-                        String update = "UPDATE ambulances SET assigned_hospital_id = ?, target_x = ?, target_y = ? " +
-                                "WHERE ambulance_id = ?";
-                        PreparedStatement pstmt = dbManager.getConnection().prepareStatement(update);
-                        pstmt.setInt(1, nearestHospId);
-                        pstmt.setInt(2, hospX);
-                        pstmt.setInt(3, hospY);
-                        pstmt.setInt(4, ambulanceId);
-                        pstmt.executeUpdate();
-
-                        notificationManager.showInfo("Patient Pickup",
-                                String.format("Ambulance #%d transporting patient to %s", ambulanceId, hospName));
+                        store.assignHospital(ambulanceId, hospital.hospitalId, hospital.x, hospital.y);
+
+                        missionRecorder.departedScene(ambulanceId, hospital.hospitalId);
+                        unitLeftScene(accidentId, ambulanceId);
+
+                        if (notificationsEnabled) {
+                            notifications.showInfo("Patient Pickup",
+                                    String.format("Ambulance #%d transporting patient to %s", ambulanceId,
+                                            hospital.name));
+                        }
                         System.out.println(
                                 String.format("[AmbulanceMovementSync] Ambulance %d transporting to hospital %s",
-                                        ambulanceId, hospName));
+                                        ambulanceId, hospital.name));
                     }
                 } else {
                     // Already has hospital assigned - check if arrived at hospital
-                    String hospSql = "SELECT x, y FROM hospitals WHERE hospital_id = ?";
-                    PreparedStatement hospPstmt = dbManager.getConnection().prepareStatement(hospSql);
-                    hospPstmt.setInt(1, hospitalId);
-                    ResultSet hospRs = hospPstmt.executeQuery();
-
-                    if (hospRs.next()) {
-                        int hospX = hospRs.getInt("x");
-                        int hospY = hospRs.getInt("y");
+                    FleetStore.Hospital hospital = store.findHospital(hospitalId);
+
+                    if (hospital != null) {
+                        int hospX = hospital.x;
+                        int hospY = hospital.y;
                         double distance = Math.sqrt(Math.pow(hospX - currentX, 2) + Math.pow(hospY - currentY, 2));
 
                         if (distance <= 15) {
                             // Arrived at hospital - complete mission
-                            String update = "UPDATE ambulances SET status = 'green', " +
-                                    "assigned_accident_id = NULL, assigned_hospital_id = NULL " +
-                                    "WHERE ambulance_id = ?";
-                            PreparedStatement pstmt = dbManager.getConnection().prepareStatement(update);
-                            pstmt.setInt(1, ambulanceId);
-                            pstmt.executeUpdate();
+                            store.completeMission(ambulanceId);
 
-                            assignedAccidents.remove(accidentId);
+                            missionRecorder.arrivedAtHospital(ambulanceId);
 
-                            notificationManager.showInfo("Patient Delivered",
-                                    String.format("Ambulance #%d delivered patient to hospital", ambulanceId));
+                            if (notificationsEnabled) {
+                                notifications.showInfo("Patient Delivered",
+                                        String.format("Ambulance #%d delivered patient to hospital", ambulanceId));
+                            }
                             System.out.println(String.format(
                                     "[AmbulanceMovementSync] Ambulance %d completed mission (delivered to hospital)",
                                     ambulanceId));
+
+                            // Hospitals are refuelling points - top up before going back in service
+                            if (fuelModel.isLow(ambulanceId)) {
+                                store.finishRefuel(ambulanceId);
+                                fuelModel.refuelled(ambulanceId);
+                                System.out.println(String.format(
+                                        "[AmbulanceMovementSync] Ambulance %d refuelled at %s", ambulanceId,
+                                        hospital.name));
+                            }
                         } else {
                             // Still moving to hospital - update position
                             int dx = hospX - currentX;
@@ -348,16 +965,15 @@ public class AmbulanceMovementSync {
                             double newLat = 13.0827 + (newX - 200) * 0.0005;
                             double newLng = 80.2707 + (newY - 200) * 0.0005;
 
-                            String update = "UPDATE ambulances SET current_x = ?, current_y = ?, latitude = ?, longitude = ? "
-                                    +
-                                    "WHERE ambulance_id = ?";
-                            PreparedStatement pstmt = dbManager.getConnection().prepareStatement(update);
-                            pstmt.setInt(1, newX);
-                            pstmt.setInt(2, newY);
-                            pstmt.setDouble(3, newLat);
-                            pstmt.setDouble(4, newLng);
-                            pstmt.setInt(5, ambulanceId);
-                            pstmt.executeUpdate();
+                            store.updatePosition(ambulanceId, newX, newY, newLat, newLng);
+
+                            double moved = Math.hypot(newX - currentX, newY - currentY);
+                            missionRecorder.distanceTravelled(ambulanceId, moved);
+                            fuelModel.consume(ambulanceId, moved);
+
+                            if (!owns(newX, newY)) {
+                                handOff(ambulanceId, newX, newY, hospX, hospY, false);
+                            }
                         }
                     }
                 }
@@ -367,27 +983,121 @@ public class AmbulanceMovementSync {
         }
     }
 
+    /**
+     * Count a unit leaving the scene for hospital; once every unit the
+     * incident needed has left, stop tracking it and mark the accident resolved
+     */
+    private void unitLeftScene(int accidentId, int ambulanceId) throws SQLException {
+        Incident incident = incidents.get(accidentId);
+        if (incident == null) {
+            return;
+        }
+        incident.departed.add(ambulanceId);
+        if (!incident.resolved && incident.unitsNeeded() == 0
+                && incident.departed.size() >= incident.dispatched.size()) {
+            incident.resolved = true;
+            store.resolveAccident(accidentId);
+        }
+    }
+
     /**
      * Manually dispatch ambulance to accident
      */
     public void manualDispatch(int ambulanceId, int accidentId) {
         try {
-            String updateAmb = "UPDATE ambulances SET status = 'yellow', " +
-                    "assigned_accident_id = ? WHERE ambulance_id = ?";
-            PreparedStatement pstmt = dbManager.getConnection().prepareStatement(updateAmb);
-            pstmt.setInt(1, accidentId);
-            pstmt.setInt(2, ambulanceId);
-            pstmt.executeUpdate();
+            store.manualDispatch(ambulanceId, accidentId);
 
-            assignedAccidents.add(accidentId);
+            // Counts towards the incident's units; an untracked accident gets a one-unit incident
+            Incident incident = incidents.computeIfAbsent(accidentId,
+                    id -> new Incident(id, null, null, 0, 0, 0, 1));
+            incident.dispatched.add(ambulanceId);
+            refuelQueue.remove(ambulanceId);
+            missionRecorder.missionDispatched(ambulanceId, accidentId, null, null);
 
-            notificationManager.showInfo("Manual Dispatch",
-                    String.format("Ambulance #%d manually dispatched", ambulanceId));
+            if (notificationsEnabled) {
+                notifications.showInfo("Manual Dispatch",
+                        String.format("Ambulance #%d manually dispatched", ambulanceId));
+            }
         } catch (SQLException e) {
             System.err.println("[AmbulanceMovementSync] Error in manual dispatch: " + e.getMessage());
         }
     }
 
+    /**
+     * Run ticks on this executor instead of the scheduler thread, e.g.
+     * SwingUtilities::invokeLater; must be called before start()
+     */
+    public void setTickExecutor(Executor tickExecutor) {
+        this.tickExecutor = tickExecutor;
+    }
+
+    /**
+     * Report dispatches, arrivals and deliveries here instead of standard output
+     */
+    public void setNotificationSink(NotificationSink sink) {
+        this.notifications = sink;
+    }
+
+    /**
+     * Enable or disable notifications (disabled for headless benchmarks)
+     */
+    public void setNotificationsEnabled(boolean enabled) {
+        this.notificationsEnabled = enabled;
+    }
+
+    /**
+     * Check whether an accident already has an ambulance assigned
+     */
+    public boolean isAssigned(int accidentId) {
+        Incident incident = incidents.get(accidentId);
+        return incident != null && !incident.dispatched.isEmpty();
+    }
+
+    /**
+     * Check whether every unit requested for an accident is on scene
+     */
+    public boolean isCovered(int accidentId) {
+        Incident incident = incidents.get(accidentId);
+        return incident != null && incident.covered;
+    }
+
+    /**
+     * Number of incidents still waiting for some of their units
+     */
+    public int getUnderstaffedIncidentCount() {
+        int count = 0;
+        for (Incident incident : incidents.values()) {
+            if (incident.unitsNeeded() > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public FleetStore getStore() {
+        return store;
+    }
+
+    public MissionRecorder getMissionRecorder() {
+        return missionRecorder;
+    }
+
+    public FuelModel getFuelModel() {
+        return fuelModel;
+    }
+
+    /**
+     * Whether this instance currently runs the mutating tick for any part of
+     * the city; false for a follower or a node whose leases lapsed
+     */
+    public boolean isDispatching() {
+        return leases == null || !ownedRegions.isEmpty();
+    }
+
+    public DispatchOwnership getOwnership() {
+        return leases;
+    }
+
     /**
      * Check if sync is running
      */
@@ -1,7 +1,8 @@
 import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
-import java.sql.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 import java.util.*;
 import java.text.SimpleDateFormat;
 
@@ -10,8 +11,7 @@ import java.text.SimpleDateFormat;
  * Features: Real-time graphs, accident heatmap, performance metrics
  */
 public class AnalyticsDashboard extends JPanel {
-    private DatabaseManager dbManager;
-    private javax.swing.Timer refreshTimer;
+    private final java.util.List<LiveDataHub.Subscription> subscriptions = new ArrayList<>();
 
     // Stat values
     private int totalAccidents = 0;
@@ -25,14 +25,25 @@ public class AnalyticsDashboard extends JPanel {
     private Map<String, Integer> severityData = new HashMap<>();
     private int[][] heatmapData = new int[10][10];
 
+    private final Map<String, JLabel> statValues = new HashMap<>();
+    private JTextArea activityLog;
+
+    private CachedChart responseChart;
+    private CachedChart severityChart;
+    private CachedChart heatmap;
+
+    // Paint cost of the charts, to check it stays flat between data changes
+    private long chartPaints = 0;
+    private long chartRenders = 0;
+    private long chartPaintNanos = 0;
+
     public AnalyticsDashboard() {
-        this.dbManager = DatabaseManager.getInstance();
         setLayout(new BorderLayout(0, UITheme.SPACE_LG));
         setBackground(UITheme.DARK_BG);
         setBorder(new EmptyBorder(UITheme.SPACE_XL, UITheme.SPACE_XL, UITheme.SPACE_XL, UITheme.SPACE_XL));
 
         initializeUI();
-        loadData();
+        loadHeatmap();
         startAutoRefresh();
     }
 
@@ -114,6 +125,7 @@ public class AnalyticsDashboard extends JPanel {
         textPanel.setLayout(new BoxLayout(textPanel, BoxLayout.Y_AXIS));
 
         JLabel valueLabel = new JLabel(value);
+        statValues.put(title, valueLabel);
         valueLabel.setFont(UITheme.FONT_HEADER);
         valueLabel.setForeground(color);
 
@@ -137,15 +149,9 @@ public class AnalyticsDashboard extends JPanel {
         chartCard.add(title, BorderLayout.NORTH);
 
         // Custom chart panel
-        JPanel chart = new JPanel() {
+        responseChart = new CachedChart() {
             @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                Graphics2D g2d = (Graphics2D) g;
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-                int width = getWidth();
-                int height = getHeight();
+            void draw(Graphics2D g2d, int width, int height) {
                 int padding = 40;
                 int chartWidth = width - 2 * padding;
                 int chartHeight = height - 2 * padding;
@@ -180,7 +186,7 @@ public class AnalyticsDashboard extends JPanel {
                         // Value label
                         g2d.setColor(UITheme.TEXT_PRIMARY);
                         g2d.setFont(UITheme.FONT_XSMALL);
-                        String label = value + "m";
+                        String label = value >= 120 ? (value / 60) + "m" : value + "s";
                         int labelWidth = g2d.getFontMetrics().stringWidth(label);
                         g2d.drawString(label, x + (barWidth - labelWidth) / 2, y - 5);
                     }
@@ -191,8 +197,8 @@ public class AnalyticsDashboard extends JPanel {
                 }
             }
         };
-        chart.setBackground(UITheme.CARD_BG);
-        chartCard.add(chart, BorderLayout.CENTER);
+        responseChart.setBackground(UITheme.CARD_BG);
+        chartCard.add(responseChart, BorderLayout.CENTER);
 
         return chartCard;
     }
@@ -206,15 +212,9 @@ public class AnalyticsDashboard extends JPanel {
         chartCard.add(title, BorderLayout.NORTH);
 
         // Pie chart panel
-        JPanel chart = new JPanel() {
+        severityChart = new CachedChart() {
             @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                Graphics2D g2d = (Graphics2D) g;
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-                int width = getWidth();
-                int height = getHeight();
+            void draw(Graphics2D g2d, int width, int height) {
                 int size = Math.min(width, height) - 80;
                 int x = (width - size) / 2;
                 int y = (height - size) / 2 - 10;
@@ -263,8 +263,8 @@ public class AnalyticsDashboard extends JPanel {
                 }
             }
         };
-        chart.setBackground(UITheme.CARD_BG);
-        chartCard.add(chart, BorderLayout.CENTER);
+        severityChart.setBackground(UITheme.CARD_BG);
+        chartCard.add(severityChart, BorderLayout.CENTER);
 
         return chartCard;
     }
@@ -278,15 +278,9 @@ public class AnalyticsDashboard extends JPanel {
         heatmapCard.add(title, BorderLayout.NORTH);
 
         // Heatmap panel
-        JPanel heatmap = new JPanel() {
+        heatmap = new CachedChart() {
             @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                Graphics2D g2d = (Graphics2D) g;
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-                int width = getWidth();
-                int height = getHeight();
+            void draw(Graphics2D g2d, int width, int height) {
                 int cellWidth = (width - 40) / 10;
                 int cellHeight = (height - 40) / 10;
                 int padding = 20;
@@ -299,22 +293,26 @@ public class AnalyticsDashboard extends JPanel {
                     }
                 }
 
+                // One shade per count, blended from the card background to critical red
+                Color[] shades = new Color[maxValue + 1];
+                for (int v = 0; v <= maxValue; v++) {
+                    float intensity = (float) v / maxValue;
+                    shades[v] = new Color(
+                            (int) (UITheme.STATUS_CRITICAL.getRed() * intensity
+                                    + UITheme.CARD_BG.getRed() * (1 - intensity)),
+                            (int) (UITheme.STATUS_CRITICAL.getGreen() * intensity
+                                    + UITheme.CARD_BG.getGreen() * (1 - intensity)),
+                            (int) (UITheme.STATUS_CRITICAL.getBlue() * intensity
+                                    + UITheme.CARD_BG.getBlue() * (1 - intensity)));
+                }
+
                 // Draw cells
                 for (int i = 0; i < 10; i++) {
                     for (int j = 0; j < 10; j++) {
                         int x = padding + j * cellWidth;
                         int y = padding + i * cellHeight;
 
-                        float intensity = (float) heatmapData[i][j] / maxValue;
-                        Color cellColor = new Color(
-                                (int) (UITheme.STATUS_CRITICAL.getRed() * intensity
-                                        + UITheme.CARD_BG.getRed() * (1 - intensity)),
-                                (int) (UITheme.STATUS_CRITICAL.getGreen() * intensity
-                                        + UITheme.CARD_BG.getGreen() * (1 - intensity)),
-                                (int) (UITheme.STATUS_CRITICAL.getBlue() * intensity
-                                        + UITheme.CARD_BG.getBlue() * (1 - intensity)));
-
-                        g2d.setColor(cellColor);
+                        g2d.setColor(shades[Math.max(0, heatmapData[i][j])]);
                         g2d.fillRect(x, y, cellWidth - 2, cellHeight - 2);
                     }
                 }
@@ -339,31 +337,13 @@ public class AnalyticsDashboard extends JPanel {
         title.setBorder(new EmptyBorder(0, 0, UITheme.SPACE_MD, 0));
         activityCard.add(title, BorderLayout.NORTH);
 
-        JTextArea activityLog = new JTextArea();
+        activityLog = new JTextArea();
         activityLog.setEditable(false);
         activityLog.setBackground(UITheme.PANEL_BG);
         activityLog.setForeground(UITheme.TEXT_PRIMARY);
         activityLog.setFont(UITheme.FONT_SMALL);
         activityLog.setBorder(new EmptyBorder(UITheme.SPACE_SM, UITheme.SPACE_SM, UITheme.SPACE_SM, UITheme.SPACE_SM));
 
-        // Load recent activity
-        try {
-            String sql = "SELECT accident_time, location, severity FROM accidents ORDER BY accident_time DESC LIMIT 5";
-            ResultSet rs = dbManager.executeQuery(sql);
-            SimpleDateFormat sdf = new SimpleDateFormat("HH:mm");
-
-            StringBuilder sb = new StringBuilder();
-            while (rs.next()) {
-                sb.append(String.format("  %s  │  %s  │  %s%n",
-                        sdf.format(rs.getTimestamp("accident_time")),
-                        rs.getString("severity"),
-                        rs.getString("location")));
-            }
-            activityLog.setText(sb.toString());
-        } catch (SQLException e) {
-            activityLog.setText("Unable to load recent activity");
-        }
-
         JScrollPane scroll = new JScrollPane(activityLog);
         UITheme.styleScrollPane(scroll);
         activityCard.add(scroll, BorderLayout.CENTER);
@@ -371,67 +351,173 @@ public class AnalyticsDashboard extends JPanel {
         return activityCard;
     }
 
+    /**
+     * Ask the hub to query everything shown here again now
+     */
     private void loadData() {
-        // Load statistics
-        try {
-            // Total accidents
-            ResultSet rs = dbManager.executeQuery("SELECT COUNT(*) FROM accidents");
-            if (rs.next())
-                totalAccidents = rs.getInt(1);
-
-            // Active ambulances
-            rs = dbManager.executeQuery("SELECT COUNT(*) FROM ambulances WHERE status != 'green'");
-            if (rs.next())
-                activeAmbulances = rs.getInt(1);
-
-            // Patients today
-            rs = dbManager.executeQuery("SELECT COUNT(*) FROM patients WHERE DATE(created_at) = CURDATE()");
-            if (rs.next())
-                patientsToday = rs.getInt(1);
-
-            // Severity distribution
-            severityData.clear();
-            rs = dbManager.executeQuery("SELECT severity, COUNT(*) as cnt FROM accidents GROUP BY severity");
-            while (rs.next()) {
-                severityData.put(rs.getString("severity"), rs.getInt("cnt"));
-            }
+        LiveDataHub.getInstance().refresh(LiveDataHub.Topic.STATS, LiveDataHub.Topic.SEVERITY_COUNTS,
+                LiveDataHub.Topic.DAILY_RESPONSE_TIMES, LiveDataHub.Topic.ACCIDENTS);
+    }
 
-            // Response times (simulate for demo)
-            responseTimeData.clear();
-            responseTimeLabels.clear();
-            Random rand = new Random();
-            for (int i = 0; i < 7; i++) {
-                responseTimeData.add(5 + rand.nextInt(15));
-                responseTimeLabels.add("Day " + (i + 1));
-            }
-            avgResponseTime = (int) responseTimeData.stream().mapToInt(Integer::intValue).average().orElse(0);
+    private void showStats(LiveDataHub.Snapshot snapshot) {
+        LiveDataHub.Row stats = snapshot.first();
+        if (stats == null) {
+            return;
+        }
+        totalAccidents = stats.getInt("total_accidents");
+        activeAmbulances = stats.getInt("active_ambulances");
+        patientsToday = stats.getInt("patients_today");
+        avgResponseTime = (int) Math.round(stats.getDouble("avg_response_seconds") / 60.0);
+
+        statValues.get("Total Accidents").setText(String.valueOf(totalAccidents));
+        statValues.get("Avg Response Time").setText(avgResponseTime + " min");
+        statValues.get("Active Ambulances").setText(String.valueOf(activeAmbulances));
+        statValues.get("Patients Today").setText(String.valueOf(patientsToday));
+    }
 
-            // Heatmap data (simulate based on accident locations)
-            for (int i = 0; i < 10; i++) {
-                for (int j = 0; j < 10; j++) {
-                    heatmapData[i][j] = rand.nextInt(5);
-                }
-            }
-            // Add some hotspots
-            heatmapData[3][5] = 8;
-            heatmapData[7][2] = 6;
-            heatmapData[5][7] = 7;
+    private void showSeverityCounts(LiveDataHub.Snapshot snapshot) {
+        severityData.clear();
+        for (LiveDataHub.Row row : snapshot.rows) {
+            severityData.put(row.getString("severity"), row.getInt("cnt"));
+        }
+        severityChart.invalidateImage();
+    }
 
-        } catch (SQLException e) {
-            System.err.println("[Analytics] Error loading data: " + e.getMessage());
+    // Response times measured by the dispatch engine (seconds, last 7 days)
+    private void showResponseTimes(LiveDataHub.Snapshot snapshot) {
+        responseTimeData.clear();
+        responseTimeLabels.clear();
+        SimpleDateFormat dayFormat = new SimpleDateFormat("EEE");
+        for (LiveDataHub.Row row : snapshot.rows) {
+            responseTimeData.add((int) Math.round(row.getDouble("avg_rt")));
+            responseTimeLabels.add(dayFormat.format((java.util.Date) row.get("day")));
         }
+        responseChart.invalidateImage();
+    }
 
-        repaint();
+    private void showRecentActivity(LiveDataHub.Snapshot snapshot) {
+        SimpleDateFormat sdf = new SimpleDateFormat("HH:mm");
+        StringBuilder sb = new StringBuilder();
+        for (LiveDataHub.Row row : snapshot.rows.subList(0, Math.min(5, snapshot.rows.size()))) {
+            sb.append(String.format("  %s  │  %s  │  %s%n",
+                    sdf.format(row.getTimestamp("accident_time")),
+                    row.getString("severity"),
+                    row.getString("location")));
+        }
+        activityLog.setText(sb.toString());
+    }
+
+    private void loadHeatmap() {
+        Random rand = new Random();
+
+        // Heatmap data (simulate based on accident locations)
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                heatmapData[i][j] = rand.nextInt(5);
+            }
+        }
+        // Add some hotspots
+        heatmapData[3][5] = 8;
+        heatmapData[7][2] = 6;
+        heatmapData[5][7] = 7;
+        heatmap.invalidateImage();
     }
 
     private void startAutoRefresh() {
-        refreshTimer = new javax.swing.Timer(30000, e -> loadData());
-        refreshTimer.start();
+        LiveDataHub hub = LiveDataHub.getInstance();
+        subscriptions.add(hub.subscribe(LiveDataHub.Topic.STATS, this, this::showStats));
+        subscriptions.add(hub.subscribe(LiveDataHub.Topic.SEVERITY_COUNTS, this, this::showSeverityCounts));
+        subscriptions.add(hub.subscribe(LiveDataHub.Topic.DAILY_RESPONSE_TIMES, this, this::showResponseTimes));
+        subscriptions.add(hub.subscribe(LiveDataHub.Topic.ACCIDENTS, this, this::showRecentActivity));
     }
 
     public void stopRefresh() {
-        if (refreshTimer != null) {
-            refreshTimer.stop();
+        for (LiveDataHub.Subscription subscription : subscriptions) {
+            subscription.cancel();
+        }
+        subscriptions.clear();
+    }
+
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        System.out.printf(Locale.ROOT, "[Analytics] %d chart paints, %d renders, %.1f us per paint%n",
+                chartPaints, chartRenders, getAveragePaintMicros());
+    }
+
+    /**
+     * Chart paints since the dashboard opened
+     */
+    public long getChartPaintCount() {
+        return chartPaints;
+    }
+
+    /**
+     * Times a chart was drawn again because its data or size changed
+     */
+    public long getChartRenderCount() {
+        return chartRenders;
+    }
+
+    public double getAveragePaintMicros() {
+        return chartPaints == 0 ? 0 : chartPaintNanos / 1000.0 / chartPaints;
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // CACHED CHARTS
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    /**
+     * Chart drawn once into an image that every paint just copies to the
+     * screen. It is drawn again only after invalidateImage(), when its data
+     * changed, or when it is resized. The image is kept at device
+     * resolution so charts stay sharp on scaled displays.
+     */
+    private abstract class CachedChart extends JPanel {
+        private BufferedImage image;
+
+        abstract void draw(Graphics2D g2d, int width, int height);
+
+        void invalidateImage() {
+            image = null;
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            long start = System.nanoTime();
+            super.paintComponent(g);
+            int width = getWidth();
+            int height = getHeight();
+            if (width <= 0 || height <= 0) {
+                return;
+            }
+            AffineTransform tx = ((Graphics2D) g).getTransform();
+            int imageWidth = (int) Math.ceil(width * tx.getScaleX());
+            int imageHeight = (int) Math.ceil(height * tx.getScaleY());
+
+            if (image == null || image.getWidth() != imageWidth || image.getHeight() != imageHeight) {
+                // A screen-compatible image can be copied by the graphics card
+                GraphicsConfiguration gc = getGraphicsConfiguration();
+                image = gc != null ? gc.createCompatibleImage(imageWidth, imageHeight)
+                        : new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g2d = image.createGraphics();
+                g2d.setColor(getBackground());
+                g2d.fillRect(0, 0, imageWidth, imageHeight);
+                g2d.scale(tx.getScaleX(), tx.getScaleY());
+                // Text as the desktop would draw it on screen
+                Object desktopHints = Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+                if (desktopHints instanceof Map) {
+                    g2d.addRenderingHints((Map<?, ?>) desktopHints);
+                }
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                draw(g2d, width, height);
+                g2d.dispose();
+                chartRenders++;
+            }
+            g.drawImage(image, 0, 0, width, height, null);
+            chartPaints++;
+            chartPaintNanos += System.nanoTime() - start;
         }
     }
 }
@@ -0,0 +1,65 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * BenchmarkRun - Command line and result file shared by the benchmark and
+ * soak harnesses. Options are --key value pairs; --label tags the run and
+ * --out names the .jsonl file each result line is appended to.
+ */
+public final class BenchmarkRun {
+    private final Map<String, String> options = new HashMap<>();
+    private final String label;
+    private final String outFile;
+
+    public BenchmarkRun(String[] args, String defaultOutFile) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        this.label = get("label", "");
+        this.outFile = get("out", defaultOutFile);
+    }
+
+    public String get(String key, String fallback) {
+        return options.getOrDefault(key, fallback);
+    }
+
+    public boolean has(String key) {
+        return options.containsKey(key);
+    }
+
+    public Map<String, String> getOptions() {
+        return Collections.unmodifiableMap(options);
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getOutFile() {
+        return outFile;
+    }
+
+    /**
+     * One result as a JSON object: the benchmark name, the run's label and
+     * the current time, then the given fields (comma-separated JSON members)
+     */
+    public String result(String benchmark, String fields) {
+        return "{\"benchmark\":" + Json.quote(benchmark) + ",\"label\":" + Json.quote(label) + ",\"timestamp\":\""
+                + new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").format(new Date()) + "\"," + fields + "}";
+    }
+
+    /**
+     * Append a result line to the output file
+     */
+    public void append(String json) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(outFile, true))) {
+            out.println(json);
+        }
+    }
+}
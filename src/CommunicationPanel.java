@@ -14,7 +14,7 @@ public class CommunicationPanel extends JPanel {
     private JTextField messageInput;
     private JComboBox<String> prioritySelector;
     private JButton sendButton;
-    private Timer refreshTimer;
+    private LiveDataHub.Subscription subscription;
     private int currentUserId = 1; // Default admin user
 
     public CommunicationPanel() {
@@ -116,7 +116,7 @@ public class CommunicationPanel extends JPanel {
             pstmt.executeUpdate();
 
             messageInput.setText("");
-            refreshMessages();
+            LiveDataHub.getInstance().refresh(LiveDataHub.Topic.MESSAGES);
 
             NotificationManager.getInstance().showInfo("Message Sent", "Your message has been delivered");
         } catch (SQLException e) {
@@ -126,31 +126,22 @@ public class CommunicationPanel extends JPanel {
     }
 
     /**
-     * Refresh and display all messages
+     * Display the latest messages
      */
-    private void refreshMessages() {
-        try {
-            String sql = "SELECT m.*, u.username FROM messages m " +
-                    "LEFT JOIN users u ON m.sender_id = u.id " +
-                    "ORDER BY m.sent_at DESC LIMIT 50";
-            ResultSet rs = dbManager.executeQuery(sql);
-
-            StringBuilder messages = new StringBuilder();
-            while (rs.next()) {
-                String username = rs.getString("username");
-                String msg = rs.getString("message");
-                String priority = rs.getString("priority");
-                String time = rs.getTimestamp("sent_at").toString();
-
-                String priorityIcon = getPriorityIcon(priority);
-                messages.append(String.format("[%s] %s %s: %s\n",
-                        time.substring(0, 19), priorityIcon, username, msg));
-            }
-
-            messageDisplay.setText(messages.toString());
-        } catch (SQLException e) {
-            System.err.println("[CommunicationPanel] Error refreshing messages: " + e.getMessage());
+    private void showMessages(LiveDataHub.Snapshot snapshot) {
+        StringBuilder messages = new StringBuilder();
+        for (LiveDataHub.Row row : snapshot.rows) {
+            String username = row.getString("username");
+            String msg = row.getString("message");
+            String priority = row.getString("priority");
+            String time = row.getTimestamp("sent_at").toString();
+
+            String priorityIcon = getPriorityIcon(priority);
+            messages.append(String.format("[%s] %s %s: %s\n",
+                    time.substring(0, 19), priorityIcon, username, msg));
         }
+
+        messageDisplay.setText(messages.toString());
     }
 
     /**
@@ -175,17 +166,15 @@ public class CommunicationPanel extends JPanel {
      * Start automatic message refresh
      */
     private void startMessageRefresh() {
-        refreshMessages();
-        refreshTimer = new Timer(5000, e -> refreshMessages());
-        refreshTimer.start();
+        subscription = LiveDataHub.getInstance().subscribe(LiveDataHub.Topic.MESSAGES, this, this::showMessages);
     }
 
     /**
      * Stop message refresh
      */
     public void stopRefresh() {
-        if (refreshTimer != null) {
-            refreshTimer.stop();
+        if (subscription != null) {
+            subscription.cancel();
         }
     }
 
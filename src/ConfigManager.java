@@ -56,16 +56,18 @@ public class ConfigManager {
 
     /**
      * Get configuration property by key
+     * A JVM system property with the same key (-Dkey=value) takes precedence,
+     * so tools like FleetBenchmark can point at a scratch database
      */
     public String getProperty(String key) {
-        return properties.getProperty(key);
+        return System.getProperty(key, properties.getProperty(key));
     }
 
     /**
      * Get configuration property with default value
      */
     public String getProperty(String key, String defaultValue) {
-        return properties.getProperty(key, defaultValue);
+        return System.getProperty(key, properties.getProperty(key, defaultValue));
     }
 
     /**
@@ -116,4 +118,177 @@ public class ConfigManager {
     public int getNotificationDisplayDuration() {
         return Integer.parseInt(getProperty("notification.display.duration", "5000"));
     }
+
+    /**
+     * Check if the dispatch engine should share the city with other nodes
+     * through region leases
+     */
+    public boolean isDispatchShardingEnabled() {
+        return Boolean.parseBoolean(getProperty("dispatch.sharding.enabled", "false"));
+    }
+
+    /**
+     * Check if running copies of the application elect a single leader to move
+     * the fleet (ignored when sharding is enabled)
+     */
+    public boolean isLeaderElectionEnabled() {
+        return Boolean.parseBoolean(getProperty("dispatch.leader.election", "true"));
+    }
+
+    /**
+     * Number of region rows/columns the city is split into when sharding
+     */
+    public int getDispatchRegionGrid() {
+        return Integer.parseInt(getProperty("dispatch.regions", "3"));
+    }
+
+    /**
+     * Identifier of this dispatch node, or null to derive one from host and pid
+     */
+    public String getDispatchNodeId() {
+        return getProperty("dispatch.node.id");
+    }
+
+    /**
+     * Check if the console only views a fleet moved by an EngineServer
+     * instead of running a dispatch engine of its own
+     */
+    public boolean isConsoleViewer() {
+        return Boolean.parseBoolean(getProperty("console.viewer", "false"));
+    }
+
+    /**
+     * JSON lines file a headless engine appends its notifications to, or
+     * null to only log them
+     */
+    public String getEngineEventFile() {
+        return getProperty("engine.events.file");
+    }
+
+    /**
+     * Port the live map server (LiveMapServer) listens on
+     */
+    public int getMapServerPort() {
+        return Integer.parseInt(getProperty("map.server.port", "8086"));
+    }
+
+    /**
+     * Port the accident ingestion service listens on
+     */
+    public int getIngestPort() {
+        return Integer.parseInt(getProperty("ingest.port", "8085"));
+    }
+
+    /**
+     * Detections the ingestion service holds before refusing requests
+     */
+    public int getIngestBufferCapacity() {
+        return Integer.parseInt(getProperty("ingest.buffer.capacity", "65536"));
+    }
+
+    /**
+     * Most accidents written in one group commit
+     */
+    public int getIngestBatchSize() {
+        return Integer.parseInt(getProperty("ingest.batch.size", "1000"));
+    }
+
+    /**
+     * Reports closer than this to a recent accident are merged into it (0 turns merging off)
+     */
+    public double getIngestDedupRadiusMeters() {
+        return Double.parseDouble(getProperty("ingest.dedup.radius.meters", "150"));
+    }
+
+    /**
+     * How long an accident keeps absorbing duplicate reports after its last one
+     */
+    public int getIngestDedupWindowSeconds() {
+        return Integer.parseInt(getProperty("ingest.dedup.window.seconds", "180"));
+    }
+
+    /**
+     * What accident ingestion does when its queue is full: block, shed or spill
+     */
+    public String getIngestAdmissionPolicy() {
+        return getProperty("ingest.admission.policy", "shed");
+    }
+
+    /**
+     * Longest a caller waits for queue space under the block policy
+     */
+    public long getIngestBlockTimeoutMs() {
+        return Long.parseLong(getProperty("ingest.admission.block.ms", "2000"));
+    }
+
+    /**
+     * Overflow file used by the ingestion service under the spill policy
+     */
+    public String getIngestSpillFile() {
+        return getProperty("ingest.spill.file", "ingest-overflow.jsonl");
+    }
+
+    /**
+     * File that detections the database refuses are moved to, so they do not hold up ingestion
+     */
+    public String getIngestDeadLetterFile() {
+        return getProperty("ingest.deadletter.file", "ingest-deadletter.jsonl");
+    }
+
+    /**
+     * Detection ids per Bloom filter generation for idempotent ingestion;
+     * 0 leaves duplicate ids to the unique index alone
+     */
+    public int getIngestIdBloomCapacity() {
+        return Integer.parseInt(getProperty("ingest.idempotency.bloom.capacity", "1000000"));
+    }
+
+    /**
+     * Target false-positive rate of each Bloom filter generation
+     */
+    public double getIngestIdBloomFalsePositiveRate() {
+        return Double.parseDouble(getProperty("ingest.idempotency.bloom.fpp", "0.01"));
+    }
+
+    /**
+     * Most recent detection ids kept for exact duplicate checks
+     */
+    public int getIngestIdLruSize() {
+        return Integer.parseInt(getProperty("ingest.idempotency.lru.size", "100000"));
+    }
+
+    /**
+     * Whether ingested accidents get a risk score for dispatch order
+     */
+    public boolean isIngestRiskEnabled() {
+        return Boolean.parseBoolean(getProperty("ingest.risk.enabled", "true"));
+    }
+
+    /**
+     * Days after which an accident counts half as much towards its area's risk
+     */
+    public double getIngestRiskHalfLifeDays() {
+        return Double.parseDouble(getProperty("ingest.risk.half.life.days", "90"));
+    }
+
+    /**
+     * Recent accidents around a spot at which it counts as a black spot
+     */
+    public double getIngestRiskSaturationCount() {
+        return Double.parseDouble(getProperty("ingest.risk.saturation", "20"));
+    }
+
+    /**
+     * Stored accidents loaded into the risk history at startup
+     */
+    public int getIngestRiskHistoryLimit() {
+        return Integer.parseInt(getProperty("ingest.risk.history.limit", "10000"));
+    }
+
+    /**
+     * Place-name CSV used to geocode accidents reported without coordinates
+     */
+    public String getGazetteerFile() {
+        return getProperty("gazetteer.file", "chennai_places.csv");
+    }
 }
@@ -12,6 +12,23 @@ import java.util.*;
  */
 public class DatabaseManager {
     private static DatabaseManager instance;
+
+    // Last-change time of a row, kept by MySQL itself on every insert and update
+    private static final String UPDATED_AT =
+            "TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)";
+
+    /**
+     * Tables carrying updated_at, for queryChangedSince
+     */
+    public static final List<String> VERSIONED_TABLES =
+            Collections.unmodifiableList(Arrays.asList("accidents", "ambulances", "hospitals", "drivers", "messages"));
+
+    /**
+     * How far a delta query reaches back before its high-water mark, to
+     * cover statements that committed after the time they stamped
+     */
+    public static final long DELTA_OVERLAP_MS = 2000;
+
     private Connection connection;
     private ConfigManager config;
 
@@ -54,11 +71,36 @@ public class DatabaseManager {
         return connection;
     }
 
+    /**
+     * Open a separate connection for background work (batch writers etc.)
+     * so it does not share transaction state with the UI connection.
+     * Caller is responsible for closing it.
+     */
+    public Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(
+                config.getDbUrl(),
+                config.getDbUser(),
+                config.getDbPassword());
+    }
+
+    /**
+     * Open a connection that sends JDBC batches as multi-row statements,
+     * for bulk writers such as the ingestion service
+     */
+    public Connection openBatchConnection() throws SQLException {
+        Properties props = new Properties();
+        props.setProperty("user", config.getDbUser());
+        props.setProperty("password", config.getDbPassword());
+        props.setProperty("rewriteBatchedStatements", "true");
+        return DriverManager.getConnection(config.getDbUrl(), props);
+    }
+
     private void initializeTables() {
         try {
             // Core tables
             createUsersTable();
             createAccidentsTable();
+            createDetectionIdsTable();
             createHospitalsTable();
             createAmbulancesTable();
             createMessagesTable();
@@ -71,6 +113,12 @@ public class DatabaseManager {
             createIncidentReportsTable();
             createResponseTimesTable();
 
+            // Dispatch sharding and leader election tables
+            createDispatchLeaderTable();
+            createDispatchNodesTable();
+            createRegionLeasesTable();
+            createAmbulanceHandoffsTable();
+
             // Migrate existing tables with new columns
             migrateExistingDatabase();
 
@@ -97,6 +145,9 @@ public class DatabaseManager {
         // Add GPS columns to accidents table if they don't exist
         safeAddColumn("accidents", "latitude", "DECIMAL(10,8) DEFAULT 13.0827");
         safeAddColumn("accidents", "longitude", "DECIMAL(11,8) DEFAULT 80.2707");
+        safeAddColumn("accidents", "report_count", "INT DEFAULT 1");
+        safeAddColumn("accidents", "detection_id", "VARCHAR(64) UNIQUE");
+        safeAddColumn("accidents", "risk_score", "TINYINT UNSIGNED");
 
         // Add columns to hospitals table if they don't exist
         safeAddColumn("hospitals", "latitude", "DECIMAL(10,8) DEFAULT 13.0827");
@@ -107,6 +158,26 @@ public class DatabaseManager {
         safeAddColumn("hospitals", "phone", "VARCHAR(20)");
         safeAddColumn("hospitals", "max_severity", "ENUM('Low','Medium','High','Critical') DEFAULT 'Medium'");
 
+        // Change tracking for delta queries
+        for (String table : VERSIONED_TABLES) {
+            safeAddColumn(table, "updated_at", UPDATED_AT);
+            safeAddIndex(table, "idx_updated", "updated_at");
+        }
+
+        // Dispatch reads available units around the waiting incidents
+        safeAddIndex("ambulances", "idx_status_position", "status, current_x, current_y");
+
+        // Keyset paging of the report history
+        safeAddIndex("incident_reports", "idx_created", "created_at");
+
+        // Ids stored before detection_ids existed
+        try {
+            executeUpdate("INSERT IGNORE INTO detection_ids (detection_id, accident_id) "
+                    + "SELECT detection_id, accident_id FROM accidents WHERE detection_id IS NOT NULL");
+        } catch (SQLException e) {
+            System.err.println("[DatabaseManager] Migration note for detection_ids: " + e.getMessage());
+        }
+
         System.out.println("[DatabaseManager] Database migration completed");
     }
 
@@ -130,6 +201,19 @@ public class DatabaseManager {
         }
     }
 
+    /**
+     * Safely add an index to a table if it doesn't exist
+     */
+    private void safeAddIndex(String table, String index, String columns) {
+        try {
+            executeUpdate("ALTER TABLE " + table + " ADD INDEX " + index + " (" + columns + ")");
+        } catch (SQLException e) {
+            if (!e.getMessage().toLowerCase().contains("duplicate key name")) {
+                System.err.println("[DatabaseManager] Migration note for " + table + "." + index + ": " + e.getMessage());
+            }
+        }
+    }
+
     // ═══════════════════════════════════════════════════════════════════════════
     // CORE TABLES
     // ═══════════════════════════════════════════════════════════════════════════
@@ -159,9 +243,23 @@ public class DatabaseManager {
                 "reported_by VARCHAR(100) NOT NULL, " +
                 "accident_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
                 "status ENUM('Reported','Dispatched','Responding','Resolved') DEFAULT 'Reported', " +
+                "report_count INT DEFAULT 1, " +
+                "detection_id VARCHAR(64) UNIQUE, " +
+                "risk_score TINYINT UNSIGNED, " +
+                "updated_at " + UPDATED_AT + ", " +
                 "INDEX idx_severity (severity), " +
                 "INDEX idx_time (accident_time), " +
-                "INDEX idx_status (status))";
+                "INDEX idx_status (status), " +
+                "INDEX idx_updated (updated_at))";
+        executeUpdate(sql);
+    }
+
+    // Every detection id admitted by the ingestion service, merged reports included
+    private void createDetectionIdsTable() throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS detection_ids (" +
+                "detection_id VARCHAR(64) PRIMARY KEY, " +
+                "accident_id INT NOT NULL, " +
+                "INDEX idx_accident (accident_id))";
         executeUpdate(sql);
     }
 
@@ -180,8 +278,10 @@ public class DatabaseManager {
                 "y INT NOT NULL, " +
                 "latitude DECIMAL(10,8) DEFAULT 13.0827, " +
                 "longitude DECIMAL(11,8) DEFAULT 80.2707, " +
+                "updated_at " + UPDATED_AT + ", " +
                 "INDEX idx_beds (available_beds), " +
-                "INDEX idx_specialty (specialty))";
+                "INDEX idx_specialty (specialty), " +
+                "INDEX idx_updated (updated_at))";
         executeUpdate(sql);
     }
 
@@ -199,9 +299,12 @@ public class DatabaseManager {
                 "assigned_accident_id INT NULL, " +
                 "assigned_hospital_id INT NULL, " +
                 "last_maintenance DATE, " +
+                "updated_at " + UPDATED_AT + ", " +
                 "INDEX idx_status (status), " +
+                "INDEX idx_status_position (status, current_x, current_y), " +
                 "INDEX idx_driver (driver_id), " +
-                "INDEX idx_assigned_accident (assigned_accident_id))";
+                "INDEX idx_assigned_accident (assigned_accident_id), " +
+                "INDEX idx_updated (updated_at))";
         executeUpdate(sql);
     }
 
@@ -213,7 +316,9 @@ public class DatabaseManager {
                 "message TEXT, " +
                 "priority ENUM('LOW', 'MEDIUM', 'HIGH', 'URGENT') DEFAULT 'MEDIUM', " +
                 "sent_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-                "read_status BOOLEAN DEFAULT FALSE)";
+                "read_status BOOLEAN DEFAULT FALSE, " +
+                "updated_at " + UPDATED_AT + ", " +
+                "INDEX idx_updated (updated_at))";
         executeUpdate(sql);
     }
 
@@ -247,8 +352,10 @@ public class DatabaseManager {
                 "rating DECIMAL(2,1) DEFAULT 5.0, " +
                 "hire_date DATE, " +
                 "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "updated_at " + UPDATED_AT + ", " +
                 "INDEX idx_status (status), " +
-                "INDEX idx_ambulance (ambulance_id))";
+                "INDEX idx_ambulance (ambulance_id), " +
+                "INDEX idx_updated (updated_at))";
         executeUpdate(sql);
     }
 
@@ -325,7 +432,8 @@ public class DatabaseManager {
                 "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
                 "INDEX idx_accident (accident_id), " +
                 "INDEX idx_ambulance (ambulance_id), " +
-                "INDEX idx_outcome (outcome))";
+                "INDEX idx_outcome (outcome), " +
+                "INDEX idx_created (created_at))";
         executeUpdate(sql);
     }
 
@@ -346,6 +454,60 @@ public class DatabaseManager {
         executeUpdate(sql);
     }
 
+    // ═══════════════════════════════════════════════════════════════════════════
+    // DISPATCH SHARDING TABLES
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    private void createDispatchLeaderTable() throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS dispatch_leader (" +
+                "id INT PRIMARY KEY, " +
+                "leader_node VARCHAR(64), " +
+                "lease_expires TIMESTAMP(3) NULL, " +
+                "fencing_token BIGINT NOT NULL DEFAULT 0)";
+        executeUpdate(sql);
+    }
+
+    private void createDispatchNodesTable() throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS dispatch_nodes (" +
+                "node_id VARCHAR(64) PRIMARY KEY, " +
+                "heartbeat_at TIMESTAMP(3) NOT NULL)";
+        executeUpdate(sql);
+    }
+
+    private void createRegionLeasesTable() throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS region_leases (" +
+                "region_id INT PRIMARY KEY, " +
+                "owner_node VARCHAR(64), " +
+                "lease_expires TIMESTAMP(3) NULL, " +
+                "fencing_token BIGINT NOT NULL DEFAULT 0, " +
+                "INDEX idx_owner (owner_node))";
+        executeUpdate(sql);
+    }
+
+    private void createAmbulanceHandoffsTable() throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS ambulance_handoffs (" +
+                "ambulance_id INT PRIMARY KEY, " +
+                "to_region INT NOT NULL, " +
+                "current_x INT, " +
+                "current_y INT, " +
+                "target_x INT, " +
+                "target_y INT, " +
+                "refuelling BOOLEAN DEFAULT FALSE, " +
+                "fuel_level DOUBLE, " +
+                "accident_id INT, " +
+                "severity VARCHAR(20), " +
+                "location VARCHAR(100), " +
+                "hospital_id INT, " +
+                "dispatch_time BIGINT, " +
+                "arrival_time BIGINT, " +
+                "scene_departure_time BIGINT, " +
+                "response_distance DOUBLE, " +
+                "transport_distance DOUBLE, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "INDEX idx_region (to_region))";
+        executeUpdate(sql);
+    }
+
     // ═══════════════════════════════════════════════════════════════════════════
     // DEFAULT DATA INSERTION
     // ═══════════════════════════════════════════════════════════════════════════
@@ -463,6 +625,67 @@ public class DatabaseManager {
         return stmt.executeQuery(sql);
     }
 
+    // ═══════════════════════════════════════════════════════════════════════════
+    // DELTA QUERIES
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    /**
+     * Rows returned by a delta query, and the mark to pass to the next one
+     */
+    public static class Delta {
+        public final Timestamp highWater;
+        public final List<Map<String, Object>> rows;
+
+        Delta(Timestamp highWater, List<Map<String, Object>> rows) {
+            this.highWater = highWater;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * Run a query over VERSIONED_TABLES that only returns rows changed since
+     * a high-water mark. Every ? in the sql is bound to the mark, less
+     * DELTA_OVERLAP_MS, so it should filter with "updated_at > ?" on each
+     * table whose changes matter. Rows are maps keyed by lower-case column
+     * label. When nothing changed the result is empty and nothing but the
+     * server clock crosses the wire.
+     *
+     * Deleted rows are not reported; callers that care reload from null
+     * now and then.
+     *
+     * @param since highWater of the previous Delta, or null for every row
+     */
+    public Delta queryChangedSince(String sql, Timestamp since) throws SQLException {
+        Connection conn = getConnection();
+        Timestamp highWater;
+        // Read the clock first, so changes made while the query runs are seen next time
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT NOW(3)")) {
+            rs.next();
+            highWater = rs.getTimestamp(1);
+        }
+
+        Timestamp from = new Timestamp(since == null ? 0 : since.getTime() - DELTA_OVERLAP_MS);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 1; i <= pstmt.getParameterMetaData().getParameterCount(); i++) {
+                pstmt.setTimestamp(i, from);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                int columns = meta.getColumnCount();
+                while (rs.next()) {
+                    Map<String, Object> values = new HashMap<>(columns * 2);
+                    for (int c = 1; c <= columns; c++) {
+                        values.put(meta.getColumnLabel(c).toLowerCase(Locale.ROOT), rs.getObject(c));
+                    }
+                    rows.add(values);
+                }
+            }
+        }
+        return new Delta(highWater, rows);
+    }
+
     public void close() {
         try {
             if (connection != null && !connection.isClosed()) {
@@ -0,0 +1,293 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Detection - One accident report arriving through the ingestion service,
+ * from a camera, the web tier or another feed. Holds the accidents columns
+ * to insert plus the time it was received, used for ingest-to-commit
+ * latency, and how many reports were merged into it.
+ *
+ * A detection_id supplied by the client makes the report idempotent: a
+ * retry with the same id is dropped instead of becoming a second accident.
+ * The ids of reports merged into this one travel with it, so each of them
+ * is stored and recognised on retry too.
+ *
+ * Reports that name a place without coordinates are geocoded through the
+ * Gazetteer when they are built; the city centre is used only for names
+ * it does not know.
+ *
+ * The ingest writer adds a RiskScorer score before the report is saved;
+ * merging keeps the higher score.
+ */
+public class Detection {
+    public static final List<String> SEVERITIES = Arrays.asList("Low", "Medium", "High", "Critical");
+
+    // City centre, used when a place name cannot be geocoded
+    private static final double DEFAULT_LATITUDE = 13.0827;
+    private static final double DEFAULT_LONGITUDE = 80.2707;
+
+    // Column sizes in accidents; a longer value would make MySQL refuse the whole batch
+    private static final int MAX_DETECTION_ID_LENGTH = 64;
+    private static final int MAX_LOCATION_LENGTH = 100;
+    private static final int MAX_VEHICLE_ID_LENGTH = 50;
+    private static final int MAX_REPORTED_BY_LENGTH = 100;
+    // TEXT holds 65,535 bytes, up to 4 per character
+    private static final int MAX_DESCRIPTION_LENGTH = 16_000;
+
+    public final String location;
+    public final double latitude;
+    public final double longitude;
+    public final String vehicleId;
+    public final String severity;
+    public final String description;
+    public final String reportedBy;
+    public final int reports;
+    // Client idempotency key, or null
+    public final String detectionId;
+    // Ids of the duplicate reports merged into this one
+    public final List<String> mergedIds;
+    // 0-100 dispatch risk, 0 until scored
+    public final int riskScore;
+    // False when the feed sent no coordinates; the position is then the
+    // gazetteer's point for the place name, or the city centre
+    public final boolean hasPosition;
+    final long receivedNanos;
+
+    public Detection(String location, double latitude, double longitude, String vehicleId, String severity,
+            String description, String reportedBy) {
+        this(location, latitude, longitude, vehicleId, severity, description, reportedBy, null);
+    }
+
+    public Detection(String location, double latitude, double longitude, String vehicleId, String severity,
+            String description, String reportedBy, String detectionId) {
+        this(location, latitude, longitude, vehicleId, severity, description, reportedBy, 1, true,
+                System.nanoTime(), detectionId, 0);
+    }
+
+    private Detection(String location, double latitude, double longitude, String vehicleId, String severity,
+            String description, String reportedBy, int reports, boolean hasPosition, long receivedNanos,
+            String detectionId, int riskScore) {
+        this(location, latitude, longitude, vehicleId, severity, description, reportedBy, reports, hasPosition,
+                receivedNanos, detectionId, Collections.emptyList(), riskScore);
+    }
+
+    private Detection(String location, double latitude, double longitude, String vehicleId, String severity,
+            String description, String reportedBy, int reports, boolean hasPosition, long receivedNanos,
+            String detectionId, List<String> mergedIds, int riskScore) {
+        this.location = location;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.vehicleId = vehicleId;
+        this.severity = severity;
+        this.description = description;
+        this.reportedBy = reportedBy;
+        this.reports = reports;
+        this.hasPosition = hasPosition;
+        this.receivedNanos = receivedNanos;
+        this.detectionId = detectionId;
+        this.mergedIds = mergedIds;
+        this.riskScore = riskScore;
+    }
+
+    /**
+     * Detection known only by place name, placed by the gazetteer. Never
+     * merged with other reports: a place name is too coarse to tell two
+     * crashes apart.
+     */
+    public static Detection unlocated(String location, String vehicleId, String severity, String description,
+            String reportedBy) {
+        return unlocated(location, vehicleId, severity, description, reportedBy, null);
+    }
+
+    private static Detection unlocated(String location, String vehicleId, String severity, String description,
+            String reportedBy, String detectionId) {
+        Gazetteer.Place place = Gazetteer.getInstance().lookup(location);
+        return new Detection(location, place != null ? place.latitude : DEFAULT_LATITUDE,
+                place != null ? place.longitude : DEFAULT_LONGITUDE, vehicleId, severity, description,
+                reportedBy, 1, false, System.nanoTime(), detectionId, 0);
+    }
+
+    /**
+     * This detection with a duplicate report folded in: one more report and
+     * the more severe of the two severities. Keeps this detection's id and
+     * adds the duplicate's to mergedIds.
+     */
+    public Detection merge(Detection duplicate) {
+        String merged = IncidentSizing.priority(duplicate.severity) > IncidentSizing.priority(severity)
+                ? duplicate.severity : severity;
+        return new Detection(location, latitude, longitude, vehicleId, merged, description, reportedBy,
+                reports + duplicate.reports, hasPosition, receivedNanos, detectionId,
+                concat(mergedIds, duplicate.allIds()), Math.max(riskScore, duplicate.riskScore));
+    }
+
+    /**
+     * This detection without the merged reports whose ids are already
+     * stored, one report fewer for each
+     */
+    public Detection withoutMerged(Collection<String> storedIds) {
+        List<String> kept = new ArrayList<>(mergedIds);
+        kept.removeAll(storedIds);
+        return new Detection(location, latitude, longitude, vehicleId, severity, description, reportedBy,
+                reports - (mergedIds.size() - kept.size()), hasPosition, receivedNanos, detectionId,
+                Collections.unmodifiableList(kept), riskScore);
+    }
+
+    /**
+     * This detection's id, if any, followed by the ids merged into it
+     */
+    public List<String> allIds() {
+        return detectionId == null ? mergedIds : concat(Collections.singletonList(detectionId), mergedIds);
+    }
+
+    /**
+     * This detection with a risk score
+     */
+    public Detection scored(int score) {
+        return new Detection(location, latitude, longitude, vehicleId, severity, description, reportedBy, reports,
+                hasPosition, receivedNanos, detectionId, mergedIds, score);
+    }
+
+    /**
+     * Build a detection from a parsed JSON object. Needs a severity and a
+     * location name or coordinates; the other fields are optional.
+     *
+     * @throws IllegalArgumentException if the object is not a valid detection
+     */
+    public static Detection fromJson(Object value) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Detection must be a JSON object");
+        }
+        Map<?, ?> map = (Map<?, ?>) value;
+
+        String severity = text(map, "severity");
+        if (severity == null || !SEVERITIES.contains(severity)) {
+            throw new IllegalArgumentException("severity must be one of " + SEVERITIES);
+        }
+        String location = limit(text(map, "location"), "location", MAX_LOCATION_LENGTH);
+        Double latitude = number(map, "latitude");
+        Double longitude = number(map, "longitude");
+        if (location == null && (latitude == null || longitude == null)) {
+            throw new IllegalArgumentException("location or latitude/longitude is required");
+        }
+        if (latitude != null && !(latitude >= -90 && latitude <= 90)) {
+            throw new IllegalArgumentException("latitude must be between -90 and 90");
+        }
+        if (longitude != null && !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("longitude must be between -180 and 180");
+        }
+
+        String vehicleId = orDefault(limit(text(map, "vehicle_id"), "vehicle_id", MAX_VEHICLE_ID_LENGTH), "Unknown");
+        String description = orDefault(limit(text(map, "description"), "description", MAX_DESCRIPTION_LENGTH), "");
+        String source = orDefault(limit(text(map, "reported_by"), "reported_by", MAX_REPORTED_BY_LENGTH),
+                "Ingest API");
+        String detectionId = limit(text(map, "detection_id"), "detection_id", MAX_DETECTION_ID_LENGTH);
+        if (latitude == null || longitude == null) {
+            return unlocated(location, vehicleId, severity, description, source, detectionId);
+        }
+        return new Detection(
+                location != null ? location : String.format(Locale.ROOT, "%.5f, %.5f", latitude, longitude),
+                latitude, longitude, vehicleId, severity, description, source, 1, true, System.nanoTime(),
+                detectionId, 0);
+    }
+
+    /**
+     * One-line JSON form used by the overflow spill file; keeps the report
+     * count and the wall-clock receive time
+     */
+    public String toJson() {
+        long receivedAtMs = System.currentTimeMillis() - (System.nanoTime() - receivedNanos) / 1_000_000;
+        StringBuilder sb = new StringBuilder(192).append('{');
+        if (detectionId != null) {
+            sb.append("\"detection_id\":").append(Json.quote(detectionId)).append(',');
+        }
+        sb.append("\"location\":").append(Json.quote(location));
+        if (hasPosition) {
+            sb.append(",\"latitude\":").append(latitude).append(",\"longitude\":").append(longitude);
+        }
+        sb.append(",\"vehicle_id\":").append(Json.quote(vehicleId));
+        sb.append(",\"severity\":").append(Json.quote(severity));
+        sb.append(",\"description\":").append(Json.quote(description));
+        sb.append(",\"reported_by\":").append(Json.quote(reportedBy));
+        sb.append(",\"reports\":").append(reports);
+        if (!mergedIds.isEmpty()) {
+            sb.append(",\"merged_ids\":[");
+            for (int i = 0; i < mergedIds.size(); i++) {
+                sb.append(i > 0 ? "," : "").append(Json.quote(mergedIds.get(i)));
+            }
+            sb.append(']');
+        }
+        sb.append(",\"received_at_ms\":").append(receivedAtMs);
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Read back a detection written by toJson, with its original receive time
+     * and merged ids
+     */
+    public static Detection fromSpill(Object value) {
+        Detection d = fromJson(value);
+        Map<?, ?> map = (Map<?, ?>) value;
+        Double reports = number(map, "reports");
+        List<String> mergedIds = new ArrayList<>();
+        if (map.get("merged_ids") instanceof List) {
+            for (Object id : (List<?>) map.get("merged_ids")) {
+                mergedIds.add(limit(String.valueOf(id), "merged_ids", MAX_DETECTION_ID_LENGTH));
+            }
+        }
+        Double receivedAtMs = number(map, "received_at_ms");
+        long receivedNanos = receivedAtMs == null ? d.receivedNanos
+                : System.nanoTime() - (System.currentTimeMillis() - receivedAtMs.longValue()) * 1_000_000;
+        return new Detection(d.location, d.latitude, d.longitude, d.vehicleId, d.severity, d.description,
+                d.reportedBy, reports == null ? 1 : reports.intValue(), d.hasPosition, receivedNanos, d.detectionId,
+                Collections.unmodifiableList(mergedIds), 0);
+    }
+
+    private static List<String> concat(List<String> a, List<String> b) {
+        if (b.isEmpty()) {
+            return a;
+        }
+        List<String> all = new ArrayList<>(a.size() + b.size());
+        all.addAll(a);
+        all.addAll(b);
+        return Collections.unmodifiableList(all);
+    }
+
+    private static String text(Map<?, ?> map, String key) {
+        Object value = map.get(key);
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException(key + " must be a string");
+        }
+        String s = ((String) value).trim();
+        return s.isEmpty() ? null : s;
+    }
+
+    private static String limit(String value, String key, int maxLength) {
+        if (value != null && value.length() > maxLength) {
+            throw new IllegalArgumentException(key + " must be at most " + maxLength + " characters");
+        }
+        return value;
+    }
+
+    private static Double number(Map<?, ?> map, String key) {
+        Object value = map.get(key);
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof Double)) {
+            throw new IllegalArgumentException(key + " must be a number");
+        }
+        return (Double) value;
+    }
+
+    private static String orDefault(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DetectionDeduplicator - Recognises reports of a crash that is already
+ * known, so several cameras and callers seeing the same crash produce one
+ * accidents row. Recent incidents are indexed in a spatial hash with cells
+ * as wide as the match radius; a lookup checks the 3 x 3 cells around the
+ * report, so it costs the same however many incidents are live. An
+ * incident stays matchable until no report has touched it for the time
+ * window; a periodic sweep drops expired incidents and empty cells.
+ *
+ * Used only from the AccidentIngestor writer thread, so it is not
+ * synchronised.
+ */
+public class DetectionDeduplicator {
+    // Metres per degree around Chennai (latitude ~13 N)
+    private static final double METERS_PER_DEG_LAT = 110_540;
+    private static final double METERS_PER_DEG_LNG = 111_320 * Math.cos(Math.toRadians(13.0));
+
+    private static final long SWEEP_INTERVAL_MS = 10_000;
+
+    /**
+     * Crash known to the ingest stage. accidentId stays 0 until its row has
+     * been inserted; merged reports, and their ids, are kept until they
+     * are written.
+     */
+    static class Incident {
+        final double latitude;
+        final double longitude;
+        final long cell;
+        long lastSeenMs;
+        String severity;
+        int riskScore;
+        int accidentId = 0;
+        int unsavedReports = 0;
+        final List<String> unsavedIds = new ArrayList<>();
+        boolean escalated = false;
+
+        Incident(double latitude, double longitude, long cell, String severity, int riskScore, long nowMs) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cell = cell;
+            this.severity = severity;
+            this.riskScore = riskScore;
+            this.lastSeenMs = nowMs;
+        }
+    }
+
+    private final double radiusMeters;
+    private final long windowMs;
+    private final Map<Long, List<Incident>> cells = new HashMap<>();
+    private int liveIncidents = 0;
+    private long lastSweepMs = 0;
+
+    public DetectionDeduplicator(double radiusMeters, long windowMs) {
+        this.radiusMeters = radiusMeters;
+        this.windowMs = windowMs;
+    }
+
+    /**
+     * Live incident within the radius and time window of a detection,
+     * nearest first, or null if the detection is a new crash
+     */
+    Incident find(Detection detection, long nowMs) {
+        long cx = cellX(detection.longitude);
+        long cy = cellY(detection.latitude);
+        Incident best = null;
+        double bestDistance = radiusMeters;
+        for (long dx = -1; dx <= 1; dx++) {
+            for (long dy = -1; dy <= 1; dy++) {
+                List<Incident> cell = cells.get(key(cx + dx, cy + dy));
+                if (cell == null) {
+                    continue;
+                }
+                for (Incident incident : cell) {
+                    if (nowMs - incident.lastSeenMs > windowMs) {
+                        continue;
+                    }
+                    double d = distanceMeters(incident.latitude, incident.longitude, detection.latitude,
+                            detection.longitude);
+                    if (d <= bestDistance) {
+                        best = incident;
+                        bestDistance = d;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Start tracking a detection as a new incident
+     */
+    Incident add(Detection detection, long nowMs) {
+        sweep(nowMs);
+        long cell = key(cellX(detection.longitude), cellY(detection.latitude));
+        Incident incident = new Incident(detection.latitude, detection.longitude, cell, detection.severity,
+                detection.riskScore, nowMs);
+        cells.computeIfAbsent(cell, k -> new ArrayList<>(2)).add(incident);
+        liveIncidents++;
+        return incident;
+    }
+
+    /**
+     * Fold a duplicate report into an incident, keeping the highest severity
+     * and risk score
+     */
+    void merge(Incident incident, Detection duplicate, long nowMs) {
+        incident.lastSeenMs = nowMs;
+        incident.unsavedReports += duplicate.reports;
+        incident.unsavedIds.addAll(duplicate.allIds());
+        incident.riskScore = Math.max(incident.riskScore, duplicate.riskScore);
+        if (IncidentSizing.priority(duplicate.severity) > IncidentSizing.priority(incident.severity)) {
+            incident.severity = duplicate.severity;
+            incident.escalated = true;
+        }
+    }
+
+    /**
+     * Stop tracking an incident whose row the database refused
+     */
+    void remove(Incident incident) {
+        List<Incident> cell = cells.get(incident.cell);
+        if (cell != null && cell.remove(incident)) {
+            liveIncidents--;
+            if (cell.isEmpty()) {
+                cells.remove(incident.cell);
+            }
+        }
+    }
+
+    /**
+     * Drop incidents outside the window and the cells they leave empty
+     */
+    private void sweep(long nowMs) {
+        if (nowMs - lastSweepMs < SWEEP_INTERVAL_MS) {
+            return;
+        }
+        lastSweepMs = nowMs;
+        Iterator<List<Incident>> it = cells.values().iterator();
+        while (it.hasNext()) {
+            List<Incident> cell = it.next();
+            int before = cell.size();
+            // Incidents still waiting for their row or merged reports stay
+            cell.removeIf(i -> nowMs - i.lastSeenMs > windowMs && i.accidentId != 0 && i.unsavedReports == 0);
+            liveIncidents -= before - cell.size();
+            if (cell.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    public int getLiveIncidentCount() {
+        return liveIncidents;
+    }
+
+    private long cellX(double longitude) {
+        return (long) Math.floor(longitude * METERS_PER_DEG_LNG / radiusMeters);
+    }
+
+    private long cellY(double latitude) {
+        return (long) Math.floor(latitude * METERS_PER_DEG_LAT / radiusMeters);
+    }
+
+    private static long key(long x, long y) {
+        return (x << 32) ^ (y & 0xffffffffL);
+    }
+
+    private static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dx = (lng2 - lng1) * METERS_PER_DEG_LNG;
+        double dy = (lat2 - lat1) * METERS_PER_DEG_LAT;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
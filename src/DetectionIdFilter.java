@@ -0,0 +1,153 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * DetectionIdFilter - Remembers client-supplied detection ids so a retried
+ * report can be recognised without asking MySQL.
+ *
+ * A bounded LRU of the most recent ids answers "seen" exactly. Behind it
+ * sits a rotating Bloom filter: two generations of bits, each sized for
+ * capacity ids at the target false-positive rate. Ids go into the current
+ * generation; once it holds capacity ids the older one is dropped and a
+ * fresh one started, so the filter always remembers between capacity and
+ * 2 x capacity of the latest ids in fixed memory. A Bloom miss proves the
+ * id is new; only a Bloom hit that is not in the LRU needs a lookup in
+ * detection_ids (FleetStore.findDetections, one query per batch) to decide.
+ *
+ * Used only from the AccidentIngestor writer thread, so it is not
+ * synchronised.
+ */
+public class DetectionIdFilter {
+    private final int capacity;
+    private final int bits;
+    private final int hashes;
+    private long[] current;
+    private long[] previous;
+    private int currentCount = 0;
+    private long rotations = 0;
+
+    private final LinkedHashMap<String, Boolean> recent;
+
+    /**
+     * @param capacity          ids per Bloom generation
+     * @param falsePositiveRate target false-positive rate of one generation
+     * @param lruSize           ids kept in the exact LRU
+     */
+    public DetectionIdFilter(int capacity, double falsePositiveRate, int lruSize) {
+        this.capacity = Math.max(1, capacity);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        // Standard sizing: m = -n ln p / (ln 2)^2, k = m / n ln 2
+        long m = (long) Math.ceil(-this.capacity * Math.log(p) / (Math.log(2) * Math.log(2)));
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / this.capacity * Math.log(2)));
+        this.current = new long[(bits + 63) / 64];
+        this.previous = new long[current.length];
+
+        final int maxRecent = Math.max(1, lruSize);
+        this.recent = new LinkedHashMap<String, Boolean>(Math.min(maxRecent, 1 << 16), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxRecent;
+            }
+        };
+    }
+
+    /**
+     * True if the id is one of the most recent ids, known for certain
+     */
+    public boolean isRecent(String id) {
+        return recent.get(id) != null;
+    }
+
+    /**
+     * False if the id has certainly not been seen within the filter's memory
+     */
+    public boolean mightContain(String id) {
+        long h1 = hash(id);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        return test(current, h1, h2) || test(previous, h1, h2);
+    }
+
+    /**
+     * Remember an id
+     */
+    public void add(String id) {
+        recent.put(id, Boolean.TRUE);
+        if (currentCount >= capacity) {
+            long[] reuse = previous;
+            Arrays.fill(reuse, 0L);
+            previous = current;
+            current = reuse;
+            currentCount = 0;
+            rotations++;
+        }
+        long h1 = hash(id);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) Long.remainderUnsigned(h1 + i * h2, bits);
+            current[bit >>> 6] |= 1L << bit;
+        }
+        currentCount++;
+    }
+
+    private boolean test(long[] words, long h1, long h2) {
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) Long.remainderUnsigned(h1 + i * h2, bits);
+            if ((words[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * False-positive rate the filter currently gives a new id, from how
+     * full both generations are
+     */
+    public double expectedFalsePositiveRate() {
+        double a = Math.pow(fill(current), hashes);
+        double b = Math.pow(fill(previous), hashes);
+        return 1 - (1 - a) * (1 - b);
+    }
+
+    private double fill(long[] words) {
+        long set = 0;
+        for (long w : words) {
+            set += Long.bitCount(w);
+        }
+        return (double) set / bits;
+    }
+
+    public long getRotations() {
+        return rotations;
+    }
+
+    public int getBitsPerGeneration() {
+        return bits;
+    }
+
+    public int getHashCount() {
+        return hashes;
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer
+    private static long hash(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : id.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
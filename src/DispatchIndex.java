@@ -0,0 +1,99 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * DispatchIndex - Grid bucket index over the ambulances available in one
+ * sync tick. Built in a single pass over the candidate rows; units are
+ * removed as they are assigned so every incident in the tick draws from the
+ * same pool without re-querying the database. Searches can be bounded by
+ * the radius the candidates were read for.
+ */
+public class DispatchIndex {
+    // Cell edge in grid units (the dispatch grid is 0-600)
+    private static final int CELL_SIZE = 50;
+    private static final int CELLS = 600 / CELL_SIZE + 1;
+
+    private final List<List<FleetStore.Unit>> cells = new ArrayList<>(CELLS * CELLS);
+    private int size = 0;
+
+    public DispatchIndex(List<FleetStore.Unit> units) {
+        for (int i = 0; i < CELLS * CELLS; i++) {
+            cells.add(new ArrayList<>());
+        }
+        for (FleetStore.Unit unit : units) {
+            cells.get(cellOf(unit.currentX, unit.currentY)).add(unit);
+            size++;
+        }
+    }
+
+    private static int clampCell(int coordinate) {
+        return Math.max(0, Math.min(CELLS - 1, coordinate / CELL_SIZE));
+    }
+
+    private static int cellOf(int x, int y) {
+        return clampCell(x) * CELLS + clampCell(y);
+    }
+
+    /**
+     * Remove and return the unit nearest to (x, y) that passes the filter,
+     * searching outward ring by ring until no closer unit can exist
+     *
+     * @return the unit, or null if none qualifies
+     */
+    public FleetStore.Unit takeNearest(int x, int y, Predicate<FleetStore.Unit> usable) {
+        return takeNearest(x, y, usable, Double.MAX_VALUE);
+    }
+
+    /**
+     * Like takeNearest, but only units within maxDistance of (x, y) qualify
+     */
+    public FleetStore.Unit takeNearest(int x, int y, Predicate<FleetStore.Unit> usable, double maxDistance) {
+        if (size == 0) {
+            return null;
+        }
+        int cx = clampCell(x);
+        int cy = clampCell(y);
+
+        FleetStore.Unit best = null;
+        List<FleetStore.Unit> bestCell = null;
+        double bestDistance = Double.MAX_VALUE;
+        // Strictly above maxDistance, so units exactly at it still qualify
+        double limit = Math.nextUp(maxDistance);
+
+        for (int ring = 0; ring < CELLS; ring++) {
+            for (int i = cx - ring; i <= cx + ring; i++) {
+                for (int j = cy - ring; j <= cy + ring; j++) {
+                    // Only the border of the ring; inner cells were searched already
+                    if (i < 0 || j < 0 || i >= CELLS || j >= CELLS
+                            || (Math.abs(i - cx) != ring && Math.abs(j - cy) != ring)) {
+                        continue;
+                    }
+                    List<FleetStore.Unit> cell = cells.get(i * CELLS + j);
+                    for (FleetStore.Unit unit : cell) {
+                        double d = Math.hypot(unit.currentX - x, unit.currentY - y);
+                        if (d < bestDistance && d < limit && usable.test(unit)) {
+                            best = unit;
+                            bestCell = cell;
+                            bestDistance = d;
+                        }
+                    }
+                }
+            }
+            // Anything in the next ring is at least ring * CELL_SIZE away
+            if ((best != null && bestDistance <= ring * CELL_SIZE) || ring * CELL_SIZE > maxDistance) {
+                break;
+            }
+        }
+
+        if (best != null) {
+            bestCell.remove(best);
+            size--;
+        }
+        return best;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * DispatchNode - Runs the dispatch engine without the operator console so
+ * several nodes can share the city through region leases.
+ *
+ * Usage (one per terminal, all against the same MySQL):
+ * java -Djava.awt.headless=true -Ddispatch.node.id=node-a -cp "out;lib/*" DispatchNode
+ *
+ * Sharding is switched on for this process regardless of config.properties;
+ * -Ddispatch.regions=N sets the N x N region grid (default 3). Stop a node
+ * with Ctrl+C to watch its regions move to the others, or kill -9 it to see
+ * them taken over once its leases expire.
+ */
+public class DispatchNode {
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("dispatch.sharding.enabled", "true");
+
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        ConfigManager config = ConfigManager.getInstance();
+        RegionLeaseManager leases = new RegionLeaseManager(dbManager,
+                new RegionMap(config.getDispatchRegionGrid()), config.getDispatchNodeId());
+
+        JdbcFleetStore store = new JdbcFleetStore(dbManager);
+        store.setFence(leases);
+        AmbulanceMovementSync engine = new AmbulanceMovementSync(store, leases);
+        engine.setNotificationsEnabled(false);
+
+        engine.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(engine::stop));
+
+        System.out.println("[DispatchNode] " + leases.getNodeId() + " running, Ctrl+C to stop");
+        while (true) {
+            Thread.sleep(5000);
+            System.out.println(String.format("[DispatchNode] %s regions=%s missions=%d",
+                    leases.getNodeId(), leases.getOwnedRegions(),
+                    engine.getMissionRecorder().getActiveMissionCount()));
+        }
+    }
+}
@@ -0,0 +1,31 @@
+import java.util.Set;
+
+/**
+ * DispatchOwnership - Decides which parts of the city this process's
+ * dispatch engine may mutate. RegionLeaseManager splits the city between
+ * several nodes; LeaderElection gives all of it to a single leader and
+ * leaves every other instance read-only.
+ */
+public interface DispatchOwnership {
+
+    void start();
+
+    /**
+     * Stop renewing and give up ownership so another instance takes over at once
+     */
+    void stop();
+
+    /**
+     * True while this instance may still act on what it owns
+     */
+    boolean isLeaseValid();
+
+    /**
+     * Regions this instance currently owns, empty when it owns nothing
+     */
+    Set<Integer> getOwnedRegions();
+
+    RegionMap getRegionMap();
+
+    String getNodeId();
+}
@@ -12,8 +12,8 @@ public class DriverManagementPanel extends JPanel {
     private DatabaseManager dbManager;
     private AmbulanceDriverManager driverMgr;
     private JTable driverTable;
-    private DefaultTableModel tableModel;
-    private javax.swing.Timer refreshTimer;
+    private KeyedTableModel tableModel;
+    private final java.util.List<LiveDataHub.Subscription> subscriptions = new java.util.ArrayList<>();
 
     public DriverManagementPanel() {
         this.dbManager = DatabaseManager.getInstance();
@@ -23,7 +23,6 @@ public class DriverManagementPanel extends JPanel {
         setBorder(new EmptyBorder(UITheme.SPACE_XL, UITheme.SPACE_XL, UITheme.SPACE_XL, UITheme.SPACE_XL));
 
         initializeUI();
-        loadDrivers();
         startAutoRefresh();
     }
 
@@ -97,12 +96,7 @@ public class DriverManagementPanel extends JPanel {
         tableCard.setLayout(new BorderLayout());
 
         String[] columns = { "ID", "Name", "License", "Phone", "Status", "Ambulance", "Trips", "Rating", "Shift" };
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new KeyedTableModel(columns);
 
         driverTable = UITheme.createStyledTable(tableModel);
         driverTable.getColumnModel().getColumn(0).setPreferredWidth(40);
@@ -139,28 +133,35 @@ public class DriverManagementPanel extends JPanel {
         return actionPanel;
     }
 
+    /**
+     * Ask the hub for fresh driver rows after a change made here; assignments
+     * also show in the fleet views
+     */
     private void loadDrivers() {
-        tableModel.setRowCount(0);
+        LiveDataHub.getInstance().refresh(LiveDataHub.Topic.DRIVERS, LiveDataHub.Topic.AMBULANCES);
+    }
 
-        java.util.List<Map<String, Object>> drivers = driverMgr.getAllDrivers();
-        for (Map<String, Object> driver : drivers) {
-            String status = (String) driver.get("status");
+    private void showDrivers(LiveDataHub.Snapshot snapshot) {
+        java.util.List<Object[]> rows = new java.util.ArrayList<>();
+        for (LiveDataHub.Row driver : snapshot.rows) {
+            String status = driver.getString("status");
             String statusDisplay = getStatusEmoji(status) + " " + status;
-            String ambulance = driver.get("vehicle_number") != null ? (String) driver.get("vehicle_number")
+            String ambulance = driver.getString("vehicle_number") != null ? driver.getString("vehicle_number")
                     : "Unassigned";
 
-            tableModel.addRow(new Object[] {
-                    driver.get("driver_id"),
-                    driver.get("name"),
-                    driver.get("license_number"),
-                    driver.get("phone"),
+            rows.add(new Object[] {
+                    driver.getInt("driver_id"),
+                    driver.getString("name"),
+                    driver.getString("license_number"),
+                    driver.getString("phone"),
                     statusDisplay,
                     ambulance,
-                    driver.get("total_trips"),
-                    driver.get("rating") + "★",
-                    driver.get("shift_start") + " - " + driver.get("shift_end")
+                    driver.getInt("total_trips"),
+                    driver.getDouble("rating") + "★",
+                    driver.getString("shift_start") + " - " + driver.getString("shift_end")
             });
         }
+        tableModel.update(rows);
     }
 
     private String getStatusEmoji(String status) {
@@ -308,13 +309,13 @@ public class DriverManagementPanel extends JPanel {
     }
 
     private void startAutoRefresh() {
-        refreshTimer = new javax.swing.Timer(15000, e -> loadDrivers());
-        refreshTimer.start();
+        subscriptions.add(LiveDataHub.getInstance().subscribe(LiveDataHub.Topic.DRIVERS, this, this::showDrivers));
     }
 
     public void stopRefresh() {
-        if (refreshTimer != null) {
-            refreshTimer.stop();
+        for (LiveDataHub.Subscription subscription : subscriptions) {
+            subscription.cancel();
         }
+        subscriptions.clear();
     }
 }
@@ -0,0 +1,62 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * EngineServer - The dispatch back end as one always-on process with no
+ * display: weather, the dispatch and movement engine, and the accident
+ * ingestion service, with notifications written to the log and, if
+ * engine.events.file is set, appended to it as JSON lines.
+ *
+ * Usage:
+ * java -cp "out;lib/*" EngineServer [--port 8085] [--events engine-events.jsonl]
+ * (or java -cp "out;lib/*" Main --headless)
+ *
+ * Consoles started with console.viewer=true then run no engine of their
+ * own and show the fleet this one moves, through the database. Ownership
+ * follows config.properties as for the console: the engine leads through
+ * dispatch_leader, or leases regions when dispatch.sharding.enabled is set.
+ */
+public class EngineServer {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].startsWith("--") && !args[i + 1].startsWith("--")) {
+                opts.put(args[i].substring(2), args[++i]);
+            }
+        }
+        ConfigManager config = ConfigManager.getInstance();
+        int port = Integer.parseInt(opts.getOrDefault("port", String.valueOf(config.getIngestPort())));
+        String eventFile = opts.getOrDefault("events", config.getEngineEventFile());
+
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        WeatherService weatherService = new WeatherService();
+        LogNotificationSink notifications = eventFile != null ? new LogNotificationSink(eventFile)
+                : new LogNotificationSink();
+
+        AmbulanceMovementSync engine = new AmbulanceMovementSync();
+        engine.setNotificationSink(notifications);
+        IngestionServer ingestion = new IngestionServer(AccidentIngestor.fromConfig(new JdbcFleetStore(dbManager),
+                config.getIngestSpillFile(), weatherService), port);
+
+        engine.start();
+        ingestion.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            // Stop taking accidents first, then hand the fleet over
+            ingestion.stop();
+            engine.stop();
+            weatherService.stop();
+            notifications.close();
+            System.out.println("[EngineServer] Stopped");
+        }));
+
+        System.out.println("[EngineServer] Running, Ctrl+C to stop");
+        while (true) {
+            Thread.sleep(10000);
+            System.out.println(String.format("[EngineServer] dispatching=%s missions=%d weather=%s",
+                    engine.isDispatching(), engine.getMissionRecorder().getActiveMissionCount(),
+                    weatherService.getCurrentWeather()));
+            System.out.println("[EngineServer] " + ingestion.getIngestor().metricsJson());
+        }
+    }
+}
@@ -0,0 +1,441 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * FleetBenchmark - Repeatable load test for the AmbulanceMovementSync
+ * dispatch / movement / hospital-transport loop.
+ *
+ * Drives the engine tick by tick (no Swing timer) against a fleet of the
+ * requested size while accidents arrive as a Poisson process, and appends
+ * one JSON line per scenario to the results file so runs can be diffed
+ * across commits.
+ *
+ * Usage:
+ * java -cp "out;lib/*" FleetBenchmark --store memory|mysql|both
+ * --fleet 100,1000,10000,50000 --rate 0.5,5 --ticks 150 --warmup 20
+ * --seed 42 --out fleet_benchmark.jsonl --label my-change --mci 100
+ *
+ * --mci N opens N mass-casualty incidents (several patients, bus pile-up
+ * wording) at the first measured tick on top of the Poisson arrivals and
+ * reports how long each takes to have all of its units on scene.
+ *
+ * The mysql store seeds BENCH* ambulances and "Benchmark" accidents and
+ * deletes them afterwards. Point it at a scratch database with
+ * -Ddb.url=jdbc:mysql://localhost:3306/accident_bench
+ */
+public class FleetBenchmark {
+    // Simulated wall-clock interval between ticks (matches the 2 s sync timer)
+    private static final int TICK_INTERVAL_MS = 2000;
+
+    private static final String[] LOCATIONS = {
+            "T Nagar Main Road", "Anna Nagar Signal", "Velachery Bridge", "Adyar Junction",
+            "Mylapore Temple St", "Nungambakkam High Rd", "Egmore Station", "Guindy Flyover"
+    };
+    private static final String[] SEVERITIES = { "Low", "Medium", "High", "Critical" };
+
+    // Same grid positions as the default hospitals in DatabaseManager
+    private static final int[][] HOSPITAL_GRID = { { 100, 100 }, { 300, 150 }, { 500, 200 }, { 200, 300 },
+            { 400, 350 } };
+
+    private final PrintStream console;
+    private final Random random;
+    private final int ticks;
+    private final int warmup;
+    private final int mci;
+
+    private static final String MCI_DESCRIPTION = "Bus overturned, multi-vehicle pile-up";
+
+    /**
+     * Accident waiting for an ambulance
+     */
+    private static class PendingAccident {
+        final int accidentId;
+        final int arrivalTick;
+        final int offsetMs; // when inside the preceding interval it arrived
+
+        PendingAccident(int accidentId, int arrivalTick, int offsetMs) {
+            this.accidentId = accidentId;
+            this.arrivalTick = arrivalTick;
+            this.offsetMs = offsetMs;
+        }
+    }
+
+    /**
+     * Results of a single store / fleet / rate combination
+     */
+    private static class ScenarioResult {
+        String store;
+        int fleet;
+        double rate;
+        long[] tickNanos;
+        long[] tickAllocBytes;
+        long[] tickRoundTrips;
+        List<Long> dispatchLatencyMs = new ArrayList<>();
+        int arrived;
+        int undispatched;
+        int mciUnitsRequested;
+        List<Long> mciCoverMs = new ArrayList<>();
+    }
+
+    public FleetBenchmark(PrintStream console, long seed, int ticks, int warmup, int mci) {
+        this.console = console;
+        this.random = new Random(seed);
+        this.ticks = ticks;
+        this.warmup = warmup;
+        this.mci = mci;
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // SCENARIO
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    private ScenarioResult run(String storeName, int fleet, double ratePerSecond) throws SQLException {
+        ScenarioResult result = new ScenarioResult();
+        result.store = storeName;
+        result.fleet = fleet;
+        result.rate = ratePerSecond;
+        result.tickNanos = new long[ticks];
+        result.tickAllocBytes = new long[ticks];
+        result.tickRoundTrips = new long[ticks];
+
+        FleetStore store;
+        MysqlFixture mysql = null;
+        if ("mysql".equals(storeName)) {
+            mysql = new MysqlFixture();
+            mysql.seedFleet(fleet, random);
+            store = new JdbcFleetStore(DatabaseManager.getInstance());
+        } else {
+            InMemoryFleetStore memory = new InMemoryFleetStore();
+            for (int i = 1; i <= fleet; i++) {
+                memory.addAmbulance(i, random.nextInt(601), random.nextInt(601), 20 + random.nextInt(81));
+            }
+            for (int i = 0; i < HOSPITAL_GRID.length; i++) {
+                memory.addHospital(i + 1, "Hospital " + (i + 1), HOSPITAL_GRID[i][0], HOSPITAL_GRID[i][1]);
+            }
+            store = memory;
+        }
+
+        AmbulanceMovementSync engine = new AmbulanceMovementSync(store);
+        engine.setNotificationsEnabled(false);
+        engine.getMissionRecorder().start();
+        engine.getFuelModel().start();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        double arrivalsPerTick = ratePerSecond * TICK_INTERVAL_MS / 1000.0;
+        List<PendingAccident> pending = new ArrayList<>();
+        List<Integer> uncovered = new ArrayList<>();
+
+        try {
+            for (int t = -warmup; t < ticks; t++) {
+                // Accidents that arrived during the interval before this tick
+                int arrivals = poisson(arrivalsPerTick);
+                for (int i = 0; i < arrivals; i++) {
+                    String location = LOCATIONS[random.nextInt(LOCATIONS.length)];
+                    String severity = SEVERITIES[random.nextInt(SEVERITIES.length)];
+                    double lat = 12.9 + random.nextDouble() * 0.3;
+                    double lng = 80.0 + random.nextDouble() * 0.4;
+                    int accidentId = mysql != null ? mysql.insertAccident(location, severity, lat, lng)
+                            : ((InMemoryFleetStore) store).addAccident(location, severity, lat, lng);
+                    if (t >= 0) {
+                        pending.add(new PendingAccident(accidentId, t, random.nextInt(TICK_INTERVAL_MS)));
+                        result.arrived++;
+                    }
+                }
+                if (t == 0) {
+                    for (int i = 0; i < mci; i++) {
+                        String location = LOCATIONS[random.nextInt(LOCATIONS.length)];
+                        double lat = 12.9 + random.nextDouble() * 0.3;
+                        double lng = 80.0 + random.nextDouble() * 0.4;
+                        int patients = 4 + random.nextInt(9);
+                        int accidentId = mysql != null
+                                ? mysql.insertAccident(location, "Critical", MCI_DESCRIPTION, lat, lng, patients)
+                                : ((InMemoryFleetStore) store).addAccident(location, "Critical", MCI_DESCRIPTION,
+                                        lat, lng, patients);
+                        uncovered.add(accidentId);
+                        result.mciUnitsRequested += IncidentSizing.unitsRequired("Critical", patients,
+                                MCI_DESCRIPTION);
+                    }
+                }
+
+                long roundTripsBefore = store.getRoundTrips();
+                long allocBefore = threads.getThreadAllocatedBytes(threadId);
+                long start = System.nanoTime();
+
+                engine.tick();
+
+                long elapsed = System.nanoTime() - start;
+                long alloc = threads.getThreadAllocatedBytes(threadId) - allocBefore;
+                long roundTrips = store.getRoundTrips() - roundTripsBefore;
+
+                if (t < 0) {
+                    continue;
+                }
+                result.tickNanos[t] = elapsed;
+                result.tickAllocBytes[t] = alloc;
+                result.tickRoundTrips[t] = roundTrips;
+
+                // Modelled latency: wait for the tick + ticks spent queued + tick processing
+                Iterator<PendingAccident> it = pending.iterator();
+                while (it.hasNext()) {
+                    PendingAccident p = it.next();
+                    if (engine.isAssigned(p.accidentId)) {
+                        long latency = (long) (t - p.arrivalTick) * TICK_INTERVAL_MS
+                                + (TICK_INTERVAL_MS - p.offsetMs) + elapsed / 1_000_000;
+                        result.dispatchLatencyMs.add(latency);
+                        it.remove();
+                    }
+                }
+                Iterator<Integer> mciIt = uncovered.iterator();
+                while (mciIt.hasNext()) {
+                    if (engine.isCovered(mciIt.next())) {
+                        result.mciCoverMs.add((long) t * TICK_INTERVAL_MS + elapsed / 1_000_000);
+                        mciIt.remove();
+                    }
+                }
+            }
+            result.undispatched = pending.size();
+        } finally {
+            engine.getMissionRecorder().stop();
+            engine.getFuelModel().stop();
+            if (mysql != null) {
+                mysql.cleanup();
+            }
+        }
+        return result;
+    }
+
+    private int poisson(double mean) {
+        if (mean <= 0) {
+            return 0;
+        }
+        if (mean > 30) {
+            // Normal approximation for large means
+            return Math.max(0, (int) Math.round(mean + Math.sqrt(mean) * random.nextGaussian()));
+        }
+        double limit = Math.exp(-mean);
+        double p = 1.0;
+        int k = 0;
+        do {
+            k++;
+            p *= random.nextDouble();
+        } while (p > limit);
+        return k - 1;
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // MYSQL FIXTURE
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    /**
+     * Seeds and removes benchmark rows on a dedicated connection so fixture
+     * traffic is not counted as engine round trips
+     */
+    private static class MysqlFixture {
+        private final Connection conn;
+
+        MysqlFixture() throws SQLException {
+            conn = DatabaseManager.getInstance().openConnection();
+            cleanup();
+        }
+
+        void seedFleet(int fleet, Random random) throws SQLException {
+            String sql = "INSERT INTO ambulances (vehicle_number, current_x, current_y, status, fuel_level) " +
+                    "VALUES (?, ?, ?, 'green', ?)";
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 1; i <= fleet; i++) {
+                    pstmt.setString(1, String.format("BENCH%05d", i));
+                    pstmt.setInt(2, random.nextInt(601));
+                    pstmt.setInt(3, random.nextInt(601));
+                    pstmt.setInt(4, 20 + random.nextInt(81));
+                    pstmt.addBatch();
+                    if (i % 1000 == 0) {
+                        pstmt.executeBatch();
+                    }
+                }
+                pstmt.executeBatch();
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+
+        int insertAccident(String location, String severity, double lat, double lng) throws SQLException {
+            return insertAccident(location, severity, "Benchmark load", lat, lng, 0);
+        }
+
+        int insertAccident(String location, String severity, String description, double lat, double lng,
+                int patients) throws SQLException {
+            String sql = "INSERT INTO accidents (location, latitude, longitude, vehicle_id, severity, " +
+                    "description, reported_by) VALUES (?, ?, ?, 'BENCH', ?, ?, 'Benchmark')";
+            int accidentId;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setString(1, location);
+                pstmt.setDouble(2, lat);
+                pstmt.setDouble(3, lng);
+                pstmt.setString(4, severity);
+                pstmt.setString(5, description);
+                pstmt.executeUpdate();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    accidentId = keys.next() ? keys.getInt(1) : -1;
+                }
+            }
+            if (patients > 0) {
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "INSERT INTO patients (accident_id, name) VALUES (?, ?)")) {
+                    for (int i = 1; i <= patients; i++) {
+                        pstmt.setInt(1, accidentId);
+                        pstmt.setString(2, "Benchmark patient " + i);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+            }
+            return accidentId;
+        }
+
+        void cleanup() throws SQLException {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE rt FROM response_times rt JOIN accidents a " +
+                        "ON rt.accident_id = a.accident_id WHERE a.reported_by = 'Benchmark'");
+                stmt.executeUpdate("DELETE p FROM patients p JOIN accidents a " +
+                        "ON p.accident_id = a.accident_id WHERE a.reported_by = 'Benchmark'");
+                stmt.executeUpdate("DELETE ir FROM incident_reports ir JOIN accidents a " +
+                        "ON ir.accident_id = a.accident_id WHERE a.reported_by = 'Benchmark'");
+                stmt.executeUpdate("UPDATE ambulances SET status = 'green', assigned_accident_id = NULL, " +
+                        "assigned_hospital_id = NULL WHERE assigned_accident_id IN " +
+                        "(SELECT accident_id FROM accidents WHERE reported_by = 'Benchmark')");
+                stmt.executeUpdate("DELETE FROM accidents WHERE reported_by = 'Benchmark'");
+                stmt.executeUpdate("DELETE FROM ambulances WHERE vehicle_number LIKE 'BENCH%'");
+            }
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // REPORTING
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    private static double percentile(long[] values, double pct) {
+        if (values.length == 0) {
+            return 0;
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(pct / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double mean(long[] values) {
+        double sum = 0;
+        for (long v : values) {
+            sum += v;
+        }
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    private String toJson(ScenarioResult r, BenchmarkRun run, String commit) {
+        long[] latencies = toArray(r.dispatchLatencyMs);
+        long[] cover = toArray(r.mciCoverMs);
+        long totalNanos = 0;
+        long totalAlloc = 0;
+        for (int i = 0; i < r.tickNanos.length; i++) {
+            totalNanos += r.tickNanos[i];
+            totalAlloc += r.tickAllocBytes[i];
+        }
+        double allocMbPerSec = totalNanos == 0 ? 0 : (totalAlloc / 1048576.0) / (totalNanos / 1e9);
+
+        return run.result("fleet", String.format(Locale.ROOT,
+                "\"commit\":%s,\"store\":\"%s\",\"fleet\":%d,\"rate_per_sec\":%.3f,\"ticks\":%d," +
+                        "\"tick_interval_ms\":%d," +
+                        "\"tick_p50_ms\":%.3f,\"tick_p99_ms\":%.3f,\"tick_max_ms\":%.3f," +
+                        "\"dispatch_p50_ms\":%.1f,\"dispatch_p99_ms\":%.1f,\"arrived\":%d,\"dispatched\":%d," +
+                        "\"undispatched\":%d,\"round_trips_per_tick\":%.2f,\"round_trips_p99\":%.0f," +
+                        "\"alloc_bytes_per_tick\":%.0f,\"alloc_mb_per_sec\":%.2f,\"mci\":%d," +
+                        "\"mci_units_requested\":%d,\"mci_covered\":%d,\"mci_cover_p50_ms\":%.1f," +
+                        "\"mci_cover_p99_ms\":%.1f",
+                Json.quote(commit), r.store, r.fleet, r.rate, ticks, TICK_INTERVAL_MS,
+                percentile(r.tickNanos, 50) / 1e6, percentile(r.tickNanos, 99) / 1e6,
+                percentile(r.tickNanos, 100) / 1e6,
+                percentile(latencies, 50), percentile(latencies, 99), r.arrived, latencies.length,
+                r.undispatched, mean(r.tickRoundTrips), percentile(r.tickRoundTrips, 99),
+                mean(r.tickAllocBytes), allocMbPerSec, mci, r.mciUnitsRequested, cover.length,
+                percentile(cover, 50), percentile(cover, 99)));
+    }
+
+    private static long[] toArray(List<Long> values) {
+        long[] array = new long[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    private static String currentCommit() {
+        try {
+            Process process = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line = reader.readLine();
+                return line != null ? line.trim() : "unknown";
+            }
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+
+    private static List<Integer> parseInts(String csv) {
+        List<Integer> values = new ArrayList<>();
+        for (String part : csv.split(",")) {
+            values.add(Integer.parseInt(part.trim()));
+        }
+        return values;
+    }
+
+    private static List<Double> parseDoubles(String csv) {
+        List<Double> values = new ArrayList<>();
+        for (String part : csv.split(",")) {
+            values.add(Double.parseDouble(part.trim()));
+        }
+        return values;
+    }
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRun run = new BenchmarkRun(args, "fleet_benchmark.jsonl");
+        String storeOpt = run.get("store", "memory");
+        List<Integer> fleets = parseInts(run.get("fleet", "100,1000,10000,50000"));
+        List<Double> rates = parseDoubles(run.get("rate", "0.5,5"));
+        int ticks = Integer.parseInt(run.get("ticks", "150"));
+        int warmup = Integer.parseInt(run.get("warmup", "20"));
+        long seed = Long.parseLong(run.get("seed", "42"));
+        int mci = Integer.parseInt(run.get("mci", "0"));
+
+        List<String> stores = "both".equals(storeOpt) ? Arrays.asList("memory", "mysql")
+                : Collections.singletonList(storeOpt);
+        String commit = currentCommit();
+
+        // Engine logs every dispatch to stdout - keep it out of the measurements
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        try {
+            for (String store : stores) {
+                for (int fleet : fleets) {
+                    for (double rate : rates) {
+                        FleetBenchmark bench = new FleetBenchmark(console, seed, ticks, warmup, mci);
+                        console.printf("[FleetBenchmark] store=%s fleet=%d rate=%.2f/s ...%n", store, fleet, rate);
+                        ScenarioResult result = bench.run(store, fleet, rate);
+                        String json = bench.toJson(result, run, commit);
+                        run.append(json);
+                        console.println(json);
+                    }
+                }
+            }
+        } finally {
+            System.setOut(console);
+        }
+        console.println("[FleetBenchmark] Results appended to " + run.getOutFile());
+        System.exit(0);
+    }
+}
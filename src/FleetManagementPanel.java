@@ -12,10 +12,10 @@ public class FleetManagementPanel extends JPanel {
     private DatabaseManager dbManager;
     private VehicleManager vehicleMgr;
     private JTable fleetTable;
-    private DefaultTableModel tableModel;
+    private KeyedTableModel tableModel;
     private JTable maintenanceTable;
-    private DefaultTableModel maintenanceModel;
-    private javax.swing.Timer refreshTimer;
+    private KeyedTableModel maintenanceModel;
+    private final java.util.List<LiveDataHub.Subscription> subscriptions = new java.util.ArrayList<>();
 
     public FleetManagementPanel() {
         this.dbManager = DatabaseManager.getInstance();
@@ -25,7 +25,6 @@ public class FleetManagementPanel extends JPanel {
         setBorder(new EmptyBorder(UITheme.SPACE_XL, UITheme.SPACE_XL, UITheme.SPACE_XL, UITheme.SPACE_XL));
 
         initializeUI();
-        loadFleetData();
         startAutoRefresh();
     }
 
@@ -116,12 +115,7 @@ public class FleetManagementPanel extends JPanel {
         tableCard.add(tableTitle, BorderLayout.NORTH);
 
         String[] columns = { "ID", "Vehicle #", "Status", "Fuel", "Driver", "Location (X,Y)", "Last Service" };
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new KeyedTableModel(columns);
 
         fleetTable = UITheme.createStyledTable(tableModel);
 
@@ -193,7 +187,7 @@ public class FleetManagementPanel extends JPanel {
         maintenanceCard.add(headerPanel, BorderLayout.NORTH);
 
         String[] columns = { "ID", "Vehicle #", "Type", "Date", "Status" };
-        maintenanceModel = new DefaultTableModel(columns, 0);
+        maintenanceModel = new KeyedTableModel(columns);
         maintenanceTable = UITheme.createStyledTable(maintenanceModel);
 
         JScrollPane scrollPane = new JScrollPane(maintenanceTable);
@@ -217,40 +211,45 @@ public class FleetManagementPanel extends JPanel {
         return maintenanceCard;
     }
 
+    /**
+     * Ask the hub for fresh fleet and maintenance rows, e.g. after a change made here
+     */
     private void loadFleetData() {
-        // Load fleet
-        tableModel.setRowCount(0);
-        java.util.List<Map<String, Object>> ambulances = vehicleMgr.getAllAmbulances();
+        LiveDataHub.getInstance().refresh(LiveDataHub.Topic.AMBULANCES, LiveDataHub.Topic.MAINTENANCE);
+    }
 
-        for (Map<String, Object> amb : ambulances) {
-            String status = (String) amb.get("status");
+    private void showFleet(LiveDataHub.Snapshot snapshot) {
+        java.util.List<Object[]> rows = new java.util.ArrayList<>();
+        for (LiveDataHub.Row amb : snapshot.rows) {
+            String status = amb.getString("status");
             String statusDisplay = UITheme.getAmbulanceStatusIcon(status);
-            String driverName = amb.get("driver_name") != null ? (String) amb.get("driver_name") : "Unassigned";
+            String driverName = amb.getString("driver_name") != null ? amb.getString("driver_name") : "Unassigned";
 
-            tableModel.addRow(new Object[] {
-                    amb.get("ambulance_id"),
-                    amb.get("vehicle_number"),
+            rows.add(new Object[] {
+                    amb.getInt("ambulance_id"),
+                    amb.getString("vehicle_number"),
                     statusDisplay,
-                    amb.get("fuel_level") + "%",
+                    amb.getInt("fuel_level") + "%",
                     driverName,
-                    amb.get("current_x") + ", " + amb.get("current_y"),
+                    amb.getInt("current_x") + ", " + amb.getInt("current_y"),
                     "N/A"
             });
         }
+        tableModel.update(rows);
+    }
 
-        // Load maintenance
-        maintenanceModel.setRowCount(0);
-        java.util.List<Map<String, Object>> maintenanceList = vehicleMgr.getScheduledMaintenance();
-
-        for (Map<String, Object> m : maintenanceList) {
-            maintenanceModel.addRow(new Object[] {
-                    m.get("maintenance_id"),
-                    m.get("vehicle_number"),
-                    m.get("maintenance_type"),
+    private void showMaintenance(LiveDataHub.Snapshot snapshot) {
+        java.util.List<Object[]> rows = new java.util.ArrayList<>();
+        for (LiveDataHub.Row m : snapshot.rows) {
+            rows.add(new Object[] {
+                    m.getInt("maintenance_id"),
+                    m.getString("vehicle_number"),
+                    m.getString("maintenance_type"),
                     m.get("service_date"),
-                    m.get("status")
+                    m.getString("status")
             });
         }
+        maintenanceModel.update(rows);
     }
 
     private void refuelAmbulance() {
@@ -324,13 +323,15 @@ public class FleetManagementPanel extends JPanel {
     }
 
     private void startAutoRefresh() {
-        refreshTimer = new javax.swing.Timer(15000, e -> loadFleetData());
-        refreshTimer.start();
+        LiveDataHub hub = LiveDataHub.getInstance();
+        subscriptions.add(hub.subscribe(LiveDataHub.Topic.AMBULANCES, this, this::showFleet));
+        subscriptions.add(hub.subscribe(LiveDataHub.Topic.MAINTENANCE, this, this::showMaintenance));
     }
 
     public void stopRefresh() {
-        if (refreshTimer != null) {
-            refreshTimer.stop();
+        for (LiveDataHub.Subscription subscription : subscriptions) {
+            subscription.cancel();
         }
+        subscriptions.clear();
     }
 }
@@ -0,0 +1,263 @@
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FleetStore - Persistence used by AmbulanceMovementSync for the dispatch,
+ * movement and hospital-transport loop, and by AccidentIngestor to write
+ * incoming accidents.
+ * JdbcFleetStore is the MySQL implementation used by the application;
+ * InMemoryFleetStore backs benchmarks and runs without a database.
+ */
+public interface FleetStore {
+
+    /**
+     * Accident row as seen by the dispatcher, with the number of patients
+     * recorded against it
+     */
+    class Accident {
+        public final int accidentId;
+        public final String location;
+        public final String severity;
+        public final String description;
+        public final double latitude;
+        public final double longitude;
+        public final int patientCount;
+        // RiskScorer score, 0 for accidents that were not scored at ingest
+        public final int riskScore;
+
+        public Accident(int accidentId, String location, String severity, String description, double latitude,
+                double longitude, int patientCount) {
+            this(accidentId, location, severity, description, latitude, longitude, patientCount, 0);
+        }
+
+        public Accident(int accidentId, String location, String severity, String description, double latitude,
+                double longitude, int patientCount, int riskScore) {
+            this.accidentId = accidentId;
+            this.location = location;
+            this.severity = severity;
+            this.description = description;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.patientCount = patientCount;
+            this.riskScore = riskScore;
+        }
+    }
+
+    /**
+     * Ambulance row with its current movement target and fuel
+     */
+    class Unit {
+        public final int ambulanceId;
+        public final String status;
+        public final int currentX;
+        public final int currentY;
+        public final int targetX;
+        public final int targetY;
+        public final int accidentId;
+        public final int hospitalId;
+        public final int fuelLevel;
+
+        public Unit(int ambulanceId, String status, int currentX, int currentY, int targetX, int targetY,
+                int accidentId, int hospitalId, int fuelLevel) {
+            this.ambulanceId = ambulanceId;
+            this.status = status;
+            this.currentX = currentX;
+            this.currentY = currentY;
+            this.targetX = targetX;
+            this.targetY = targetY;
+            this.accidentId = accidentId;
+            this.hospitalId = hospitalId;
+            this.fuelLevel = fuelLevel;
+        }
+    }
+
+    /**
+     * Hospital position on the dispatch grid
+     */
+    class Hospital {
+        public final int hospitalId;
+        public final String name;
+        public final int x;
+        public final int y;
+
+        public Hospital(int hospitalId, String name, int x, int y) {
+            this.hospitalId = hospitalId;
+            this.name = name;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    /**
+     * Duplicate reports of an existing accident to be written back to it
+     */
+    class ReportMerge {
+        public final int accidentId;
+        public final String severity;
+        public final int addedReports;
+        // Highest risk score among the added reports; the stored score only goes up
+        public final int riskScore;
+        // Ids of the added reports that had one
+        public final List<String> detectionIds;
+
+        public ReportMerge(int accidentId, String severity, int addedReports, int riskScore,
+                List<String> detectionIds) {
+            this.accidentId = accidentId;
+            this.severity = severity;
+            this.addedReports = addedReports;
+            this.riskScore = riskScore;
+            this.detectionIds = detectionIds;
+        }
+    }
+
+    /**
+     * Ambulance moving from one dispatch region into another, with the
+     * in-memory state the receiving node needs to carry on
+     */
+    class Handoff {
+        public final int ambulanceId;
+        public final int toRegion;
+        public final int currentX;
+        public final int currentY;
+        public final int targetX;
+        public final int targetY;
+        public final boolean refuelling;
+        public final double fuelLevel;
+        public final MissionRecorder.Mission mission; // null when not on a mission
+
+        public Handoff(int ambulanceId, int toRegion, int currentX, int currentY, int targetX, int targetY,
+                boolean refuelling, double fuelLevel, MissionRecorder.Mission mission) {
+            this.ambulanceId = ambulanceId;
+            this.toRegion = toRegion;
+            this.currentX = currentX;
+            this.currentY = currentY;
+            this.targetX = targetX;
+            this.targetY = targetY;
+            this.refuelling = refuelling;
+            this.fuelLevel = fuelLevel;
+            this.mission = mission;
+        }
+    }
+
+    List<Accident> findRecentAccidents(int limit) throws SQLException;
+
+    /**
+     * Accidents reported in the last few minutes that are not resolved yet
+     */
+    List<Accident> findUnresolvedAccidents(int withinMinutes) throws SQLException;
+
+    /**
+     * Accidents reported after the given id, oldest first
+     */
+    List<Accident> findAccidentsAfter(int accidentId, int limit) throws SQLException;
+
+    /**
+     * Every ambulance, read once when the engine starts
+     */
+    List<Unit> loadFleet() throws SQLException;
+
+    List<Hospital> loadHospitals() throws SQLException;
+
+    /**
+     * Available (green) ambulances inside the grid box, bounds included,
+     * with at least minFuel percent recorded in the store
+     */
+    List<Unit> findAvailableUnits(int minFuel, int minX, int minY, int maxX, int maxY) throws SQLException;
+
+    /**
+     * Send an ambulance to an accident if it is still available
+     *
+     * @return false if another node dispatched it first
+     */
+    boolean dispatch(int ambulanceId, int accidentId, int targetX, int targetY) throws SQLException;
+
+    void manualDispatch(int ambulanceId, int accidentId) throws SQLException;
+
+    /**
+     * Ambulances in the given status that are working an accident
+     */
+    List<Unit> findUnits(String status) throws SQLException;
+
+    void updatePosition(int ambulanceId, int x, int y, double latitude, double longitude) throws SQLException;
+
+    void setStatus(int ambulanceId, String status) throws SQLException;
+
+    Hospital findNearestHospital(int x, int y) throws SQLException;
+
+    Hospital findHospital(int hospitalId) throws SQLException;
+
+    void assignHospital(int ambulanceId, int hospitalId, int targetX, int targetY) throws SQLException;
+
+    /**
+     * Return the ambulance to service (green, no accident or hospital)
+     */
+    void completeMission(int ambulanceId) throws SQLException;
+
+    /**
+     * Mark an accident resolved once every unit has left the scene
+     */
+    void resolveAccident(int accidentId) throws SQLException;
+
+    /**
+     * Take an idle ambulance out of service and send it to a refuelling point
+     * (status yellow with no assigned accident)
+     */
+    void startRefuel(int ambulanceId, int targetX, int targetY) throws SQLException;
+
+    /**
+     * Fill the tank and return the ambulance to service
+     */
+    void finishRefuel(int ambulanceId) throws SQLException;
+
+    /**
+     * Persist a batch of fuel levels (ambulance id -> percent). Called from
+     * the FuelModel writer thread, never from the sync tick.
+     */
+    void saveFuelLevels(Map<Integer, Integer> levels) throws SQLException;
+
+    /**
+     * Record a handoff for whichever node owns the target region (replaces
+     * any earlier handoff of the same ambulance)
+     */
+    void saveHandoff(Handoff handoff) throws SQLException;
+
+    /**
+     * Take the handoffs waiting for the given regions; each one is returned to
+     * exactly one caller
+     */
+    List<Handoff> claimHandoffs(Collection<Integer> regions) throws SQLException;
+
+    /**
+     * Persist a batch of mission records. Called from the MissionRecorder
+     * flusher thread, never from the sync tick.
+     */
+    void saveMissions(List<MissionRecorder.Mission> arrivals, List<MissionRecorder.Mission> completed)
+            throws SQLException;
+
+    /**
+     * Insert a batch of detected accidents and fold duplicate reports into
+     * accidents already written (raising severity, adding to report_count),
+     * all in one transaction, recording every detection id of the inserted
+     * and merged reports against its accident. Called from the
+     * AccidentIngestor writer thread only.
+     *
+     * @throws java.sql.SQLIntegrityConstraintViolationException if a
+     *         detection id is already stored; nothing is written
+     *
+     * @return the new accident ids, in the order of the inserts
+     */
+    List<Integer> saveDetections(List<Detection> inserts, List<ReportMerge> merges) throws SQLException;
+
+    /**
+     * Which of these detection ids are already stored, mapped to their
+     * accident id. Called from the AccidentIngestor writer thread only.
+     */
+    Map<String, Integer> findDetections(Collection<String> detectionIds) throws SQLException;
+
+    /**
+     * Number of statements sent to the backing store so far
+     */
+    long getRoundTrips();
+}
@@ -0,0 +1,236 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * FramePipeline - Runs an AccidentDetector over recorded camera footage on
+ * a pool of worker threads and hands what it finds to the ingestion path.
+ *
+ * The recording is cut into stretches of consecutive frames that workers
+ * take from a shared counter. A worker decodes each frame of its stretch
+ * into one of its own LumaFrame buffers and feeds it to its own detector,
+ * starting and ending the detector's context frames outside the stretch so
+ * crashes near the edges come out as if one thread had watched everything.
+ * Nothing is shared between workers but the counter and the result list,
+ * so throughput grows with cores until decoding saturates the disk.
+ *
+ * The main method measures frames per second for each thread count,
+ * appends one JSON line per run to pipeline_benchmark.jsonl, and with
+ * --ingest submits the crashes as detections from the camera's location.
+ * Detection ids are derived from the camera, the recording and the frame,
+ * so running the same footage again adds no accidents.
+ *
+ * Usage:
+ * java -Djava.awt.headless=true -cp "out;lib/*" FramePipeline --source frames/ --fps 10
+ * --threads 1,2,4,8 --width 160 --detector motion --camera-id CAM-07
+ * --camera-location "Guindy Flyover" --ingest none|memory|mysql --label my-change
+ */
+public class FramePipeline {
+    private final FrameSource source;
+    private final Supplier<AccidentDetector> detectors;
+    private final int threads;
+    private final int analysisWidth;
+    private final int analysisHeight;
+
+    /**
+     * Outcome of one pass over the recording
+     */
+    public static class Result {
+        public final int frames;
+        public final int framesDecoded;
+        public final long elapsedNanos;
+        public final long allocatedBytes;
+        public final List<AccidentDetector.Candidate> candidates;
+
+        Result(int frames, int framesDecoded, long elapsedNanos, long allocatedBytes,
+                List<AccidentDetector.Candidate> candidates) {
+            this.frames = frames;
+            this.framesDecoded = framesDecoded;
+            this.elapsedNanos = elapsedNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.candidates = candidates;
+        }
+
+        public double getFps() {
+            return elapsedNanos == 0 ? 0 : frames * 1e9 / elapsedNanos;
+        }
+    }
+
+    public FramePipeline(FrameSource source, Supplier<AccidentDetector> detectors, int threads, int analysisWidth) {
+        this.source = source;
+        this.detectors = detectors;
+        this.threads = Math.max(1, threads);
+        this.analysisWidth = Math.min(source.getWidth(), analysisWidth);
+        this.analysisHeight = Math.max(1, source.getHeight() * this.analysisWidth / source.getWidth());
+    }
+
+    /**
+     * Detector factory for a --detector name: "motion" or a class name
+     */
+    public static Supplier<AccidentDetector> detector(String name) {
+        if ("motion".equals(name)) {
+            return MotionEnergyDetector::new;
+        }
+        return () -> {
+            try {
+                return (AccidentDetector) Class.forName(name).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new IllegalArgumentException("Not an AccidentDetector: " + name, e);
+            }
+        };
+    }
+
+    /**
+     * Process the whole recording once
+     *
+     * @param sink called from the worker threads with each crash as it is found
+     */
+    public Result run(Consumer<AccidentDetector.Candidate> sink) throws IOException, InterruptedException {
+        int frames = source.getFrameCount();
+        int context = detectors.get().getContextFrames();
+        // Several stretches per thread so a slow one does not hold up the end of the run;
+        // one thread reads straight through and decodes no frame twice
+        int stretch = threads == 1 ? Math.max(1, frames)
+                : Math.max(2 * context, (frames + threads * 4 - 1) / (threads * 4));
+        int stretches = (frames + stretch - 1) / stretch;
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger decoded = new AtomicInteger();
+        AtomicLong allocated = new AtomicLong();
+        List<AccidentDetector.Candidate> found = Collections.synchronizedList(new ArrayList<>());
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        List<Thread> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                long allocBefore = mx.getThreadAllocatedBytes(Thread.currentThread().getId());
+                AccidentDetector detector = detectors.get();
+                LumaFrame frame = new LumaFrame(analysisWidth, analysisHeight);
+                try (FrameSource.Reader reader = source.openReader()) {
+                    int k;
+                    while ((k = next.getAndIncrement()) < stretches && failures.isEmpty()) {
+                        int first = k * stretch;
+                        int end = Math.min(frames, first + stretch);
+                        detector.reset();
+                        for (int i = Math.max(0, first - context); i < Math.min(frames, end + context); i++) {
+                            reader.read(i, frame);
+                            decoded.incrementAndGet();
+                            AccidentDetector.Candidate candidate = detector.accept(frame);
+                            // Crashes outside the stretch belong to the neighbouring one
+                            if (candidate != null && candidate.frameIndex >= first && candidate.frameIndex < end) {
+                                found.add(candidate);
+                                if (sink != null) {
+                                    sink.accept(candidate);
+                                }
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    failures.add(e);
+                }
+                allocated.addAndGet(mx.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocBefore);
+            }, "frame-worker-" + t);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (!failures.isEmpty()) {
+            throw new IOException("Frame worker failed: " + failures.get(0).getMessage(), failures.get(0));
+        }
+
+        List<AccidentDetector.Candidate> candidates = new ArrayList<>(found);
+        candidates.sort(Comparator.comparingInt(c -> c.frameIndex));
+        return new Result(frames, decoded.get(), elapsed, allocated.get(), candidates);
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // MAIN
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRun run = new BenchmarkRun(args, "pipeline_benchmark.jsonl");
+        if (!run.has("source")) {
+            System.err.println("[FramePipeline] --source <frame directory or .y4m file> is required");
+            System.exit(2);
+        }
+        FrameSource source = FrameSource.open(new File(run.get("source", null)),
+                Double.parseDouble(run.get("fps", "10")));
+        Supplier<AccidentDetector> detectors = detector(run.get("detector", "motion"));
+        int width = Integer.parseInt(run.get("width", "160"));
+        List<Integer> threadCounts = new ArrayList<>();
+        for (String part : run.get("threads",
+                "1,2,4," + Runtime.getRuntime().availableProcessors()).split(",")) {
+            int n = Integer.parseInt(part.trim());
+            if (!threadCounts.contains(n)) {
+                threadCounts.add(n);
+            }
+        }
+
+        String cameraId = run.get("camera-id", "CAM-01");
+        String cameraLocation = run.get("camera-location", "Guindy Flyover");
+        Gazetteer.Place place = Gazetteer.getInstance().lookup(cameraLocation);
+        if (place == null) {
+            System.err.println("[FramePipeline] Unknown camera location " + cameraLocation);
+            System.exit(2);
+        }
+        String recording = Integer.toHexString(source.getName().hashCode());
+
+        AccidentIngestor ingestor = null;
+        String ingest = run.get("ingest", "none");
+        if (!"none".equals(ingest)) {
+            FleetStore store = "memory".equals(ingest) ? new InMemoryFleetStore()
+                    : new JdbcFleetStore(DatabaseManager.getInstance());
+            ingestor = AccidentIngestor.fromConfig(store, ConfigManager.getInstance().getIngestSpillFile());
+            ingestor.start();
+        }
+        final AccidentIngestor target = ingestor;
+        Consumer<AccidentDetector.Candidate> sink = target == null ? null : c -> target.submit(
+                Collections.singletonList(new Detection(place.name, place.latitude, place.longitude, "Unknown",
+                        c.severity, String.format(Locale.ROOT, "%s, %s frame %d (%.0f%% confidence)", c.summary,
+                                source.getName(), c.frameIndex, c.confidence * 100),
+                        cameraId, cameraId + "-" + recording + "-" + c.frameIndex)));
+
+        System.out.printf(Locale.ROOT, "[FramePipeline] %s: %d frames %dx%d @ %.1f fps, analysed at %d px wide%n",
+                source.getName(), source.getFrameCount(), source.getWidth(), source.getHeight(), source.getFps(),
+                width);
+        double baseFps = 0;
+        for (int n : threadCounts) {
+            FramePipeline pipeline = new FramePipeline(source, detectors, n, width);
+            Result result = pipeline.run(sink);
+            if (baseFps == 0) {
+                baseFps = result.getFps();
+            }
+            String json = run.result("pipeline", String.format(Locale.ROOT,
+                    "\"source\":%s,\"frames\":%d,\"width\":%d,\"height\":%d,\"analysis_width\":%d," +
+                            "\"threads\":%d,\"cores\":%d,\"fps\":%.1f,\"speedup\":%.2f," +
+                            "\"decoded_per_frame\":%.3f,\"alloc_bytes_per_frame\":%.0f,\"candidates\":%d",
+                    Json.quote(source.getName()), result.frames, source.getWidth(), source.getHeight(),
+                    pipeline.analysisWidth, n, Runtime.getRuntime().availableProcessors(), result.getFps(),
+                    result.getFps() / baseFps, (double) result.framesDecoded / result.frames,
+                    (double) result.allocatedBytes / result.framesDecoded, result.candidates.size()));
+            run.append(json);
+            System.out.println(json);
+            for (AccidentDetector.Candidate c : result.candidates) {
+                System.out.printf(Locale.ROOT, "[FramePipeline]   frame %d (%.1f s): %s %s at (%.2f, %.2f)%n",
+                        c.frameIndex, c.timestampMs / 1000.0, c.severity, c.summary, c.x, c.y);
+            }
+        }
+        if (ingestor != null) {
+            ingestor.stop();
+            System.out.println("[FramePipeline] Ingest: " + ingestor.metricsJson());
+        }
+        System.out.println("[FramePipeline] Results appended to " + run.getOutFile());
+        System.exit(0);
+    }
+}
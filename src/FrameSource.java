@@ -0,0 +1,337 @@
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * FrameSource - Recorded camera footage the FramePipeline can read frames
+ * from by index, so several workers can decode different stretches of the
+ * same recording at once. Each worker opens its own Reader, which keeps
+ * its decode buffers between frames.
+ *
+ * Two formats: a directory of still images (jpg/png/bmp, in file-name
+ * order), or a YUV4MPEG2 dump whose luma plane is read straight from disk.
+ * Either can be made from a video with ffmpeg, e.g.
+ * ffmpeg -i traffic_cam.mp4 -vf fps=10 frames/%05d.jpg
+ * ffmpeg -i traffic_cam.mp4 -pix_fmt yuv420p traffic_cam.y4m
+ */
+public interface FrameSource {
+
+    /**
+     * Per-worker decoder
+     */
+    interface Reader extends AutoCloseable {
+        /**
+         * Decode frame index into the given buffer, downsampled to its size
+         */
+        void read(int index, LumaFrame into) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    int getFrameCount();
+
+    int getWidth();
+
+    int getHeight();
+
+    double getFps();
+
+    /**
+     * Short name of the recording, used in detection ids
+     */
+    String getName();
+
+    Reader openReader() throws IOException;
+
+    /**
+     * Open a .y4m file or a directory of images
+     *
+     * @param fps frame rate to assume for image directories
+     */
+    static FrameSource open(File path, double fps) throws IOException {
+        if (path.isDirectory()) {
+            return new ImageDirectory(path, fps);
+        }
+        if (path.getName().toLowerCase(Locale.ROOT).endsWith(".y4m")) {
+            return new Y4m(path);
+        }
+        throw new IOException("Expected a directory of frames or a .y4m file: " + path);
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // IMAGE DIRECTORY
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    class ImageDirectory implements FrameSource {
+        private final File directory;
+        private final File[] files;
+        private final double fps;
+        private final int width;
+        private final int height;
+
+        ImageDirectory(File directory, double fps) throws IOException {
+            this.directory = directory;
+            this.fps = fps;
+            this.files = directory.listFiles((dir, name) -> name.toLowerCase(Locale.ROOT)
+                    .matches(".*\\.(jpe?g|png|bmp)"));
+            if (files == null || files.length == 0) {
+                throw new IOException("No jpg/png/bmp frames in " + directory);
+            }
+            Arrays.sort(files);
+            BufferedImage first = ImageIO.read(files[0]);
+            if (first == null) {
+                throw new IOException("Unreadable frame " + files[0]);
+            }
+            this.width = first.getWidth();
+            this.height = first.getHeight();
+        }
+
+        @Override
+        public int getFrameCount() {
+            return files.length;
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public double getFps() {
+            return fps;
+        }
+
+        @Override
+        public String getName() {
+            return directory.getName();
+        }
+
+        @Override
+        public Reader openReader() {
+            return new ImageReaderAdapter();
+        }
+
+        /**
+         * Decodes with source subsampling straight into one reused
+         * BufferedImage, then averages it down to the analysis grid. The
+         * decoder is kept too, for as long as the frames share a format.
+         */
+        private class ImageReaderAdapter implements Reader {
+            private ImageReader reader;
+            private BufferedImage destination;
+            private byte[] gray = new byte[0];
+
+            @Override
+            public void read(int index, LumaFrame into) throws IOException {
+                try (ImageInputStream in = ImageIO.createImageInputStream(files[index])) {
+                    if (reader == null || !reader.getOriginatingProvider().canDecodeInput(in)) {
+                        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+                        if (!readers.hasNext()) {
+                            throw new IOException("No decoder for " + files[index]);
+                        }
+                        close();
+                        reader = readers.next();
+                    }
+                    reader.setInput(in, true, true);
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    int step = Math.max(1, Math.min(reader.getWidth(0) / into.width,
+                            reader.getHeight(0) / into.height));
+                    param.setSourceSubsampling(step, step, 0, 0);
+                    int w = (reader.getWidth(0) + step - 1) / step;
+                    int h = (reader.getHeight(0) + step - 1) / step;
+                    if (destination == null || destination.getWidth() != w || destination.getHeight() != h) {
+                        ImageTypeSpecifier type = reader.getImageTypes(0).next();
+                        destination = type.createBufferedImage(w, h);
+                    }
+                    param.setDestination(destination);
+                    reader.read(0, param);
+                }
+                toGray(destination);
+                into.downsample(gray, destination.getWidth(), destination.getHeight(), destination.getWidth());
+                into.index = index;
+                into.timestampMs = (long) (index * 1000 / fps);
+            }
+
+            private void toGray(BufferedImage image) {
+                int w = image.getWidth();
+                int h = image.getHeight();
+                if (gray.length != w * h) {
+                    gray = new byte[w * h];
+                }
+                switch (image.getType()) {
+                    case BufferedImage.TYPE_BYTE_GRAY:
+                        System.arraycopy(((DataBufferByte) image.getRaster().getDataBuffer()).getData(), 0, gray,
+                                0, w * h);
+                        return;
+                    case BufferedImage.TYPE_3BYTE_BGR: {
+                        byte[] bgr = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                        for (int i = 0, p = 0; i < w * h; i++, p += 3) {
+                            gray[i] = (byte) (((bgr[p] & 0xff) * 29 + (bgr[p + 1] & 0xff) * 150
+                                    + (bgr[p + 2] & 0xff) * 77) >> 8);
+                        }
+                        return;
+                    }
+                    case BufferedImage.TYPE_INT_RGB:
+                    case BufferedImage.TYPE_INT_ARGB: {
+                        int[] rgb = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+                        for (int i = 0; i < w * h; i++) {
+                            gray[i] = luma(rgb[i]);
+                        }
+                        return;
+                    }
+                    default:
+                        for (int y = 0; y < h; y++) {
+                            for (int x = 0; x < w; x++) {
+                                gray[y * w + x] = luma(image.getRGB(x, y));
+                            }
+                        }
+                }
+            }
+
+            private byte luma(int rgb) {
+                return (byte) ((((rgb >> 16) & 0xff) * 77 + ((rgb >> 8) & 0xff) * 150 + (rgb & 0xff) * 29) >> 8);
+            }
+
+            @Override
+            public void close() {
+                if (reader != null) {
+                    reader.dispose();
+                    reader = null;
+                }
+            }
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // YUV4MPEG2
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    class Y4m implements FrameSource {
+        private static final int FRAME_HEADER = "FRAME\n".length();
+
+        private final File file;
+        private final int width;
+        private final int height;
+        private final double fps;
+        private final long dataStart;
+        private final long frameBytes;
+        private final int frameCount;
+
+        Y4m(File file) throws IOException {
+            this.file = file;
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                StringBuilder header = new StringBuilder();
+                int c;
+                while ((c = raf.read()) != -1 && c != '\n') {
+                    header.append((char) c);
+                }
+                if (!header.toString().startsWith("YUV4MPEG2")) {
+                    throw new IOException("Not a YUV4MPEG2 file: " + file);
+                }
+                int w = 0;
+                int h = 0;
+                double rate = 25;
+                String chroma = "420";
+                for (String token : header.toString().split(" ")) {
+                    if (token.startsWith("W")) {
+                        w = Integer.parseInt(token.substring(1));
+                    } else if (token.startsWith("H")) {
+                        h = Integer.parseInt(token.substring(1));
+                    } else if (token.startsWith("F")) {
+                        String[] ratio = token.substring(1).split(":");
+                        rate = Double.parseDouble(ratio[0]) / Double.parseDouble(ratio[1]);
+                    } else if (token.startsWith("C")) {
+                        chroma = token.substring(1);
+                    }
+                }
+                long luma = (long) w * h;
+                long planes;
+                if (chroma.startsWith("mono")) {
+                    planes = luma;
+                } else if (chroma.startsWith("444")) {
+                    planes = luma * 3;
+                } else if (chroma.startsWith("422")) {
+                    planes = luma * 2;
+                } else {
+                    planes = luma + 2 * (((w + 1) / 2) * (long) ((h + 1) / 2));
+                }
+                this.width = w;
+                this.height = h;
+                this.fps = rate;
+                this.dataStart = raf.getFilePointer();
+                this.frameBytes = FRAME_HEADER + planes;
+                this.frameCount = (int) ((raf.length() - dataStart) / frameBytes);
+            }
+        }
+
+        @Override
+        public int getFrameCount() {
+            return frameCount;
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public double getFps() {
+            return fps;
+        }
+
+        @Override
+        public String getName() {
+            return file.getName();
+        }
+
+        @Override
+        public Reader openReader() throws IOException {
+            FileChannel channel = FileChannel.open(file.toPath());
+            ByteBuffer plane = ByteBuffer.allocate(width * height);
+            return new Reader() {
+                @Override
+                public void read(int index, LumaFrame into) throws IOException {
+                    plane.clear();
+                    long position = dataStart + index * frameBytes + FRAME_HEADER;
+                    while (plane.hasRemaining()) {
+                        if (channel.read(plane, position + plane.position()) < 0) {
+                            throw new IOException("Truncated frame " + index + " in " + file);
+                        }
+                    }
+                    into.downsample(plane.array(), width, height, width);
+                    into.index = index;
+                    into.timestampMs = (long) (index * 1000 / fps);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    channel.close();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,176 @@
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * FuelModel - In-memory fuel levels for the ambulance fleet.
+ * Levels are drained by the sync tick from the distance each unit drives
+ * and written back to ambulances.fuel_level in batches on a background
+ * thread, so fuel tracking adds no per-tick database queries.
+ *
+ * Rows read by the engine for other reasons carry fuel_level; a value that
+ * differs from what this model last persisted means someone changed it
+ * outside the engine (e.g. VehicleManager.refuel) and is adopted. Rows
+ * read while a unit's level is being written are ignored for that unit.
+ */
+public class FuelModel {
+    // % of tank per grid unit (~55 m) - a full tank covers roughly 550 km
+    public static final double FUEL_PER_GRID_UNIT = 0.01;
+
+    // Units below this level are sent to refuel when idle (same cut-off as VehicleManager stats)
+    public static final double LOW_FUEL_THRESHOLD = 30.0;
+
+    // Fuel that must be left after finishing a mission
+    public static final double RESERVE = 5.0;
+
+    private static final long FLUSH_INTERVAL_MS = 10000;
+
+    private final FleetStore store;
+    private final ConcurrentHashMap<Integer, Double> levels = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Integer> persistedLevels = new ConcurrentHashMap<>();
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    // Units whose level is being written; a row read meanwhile may hold either value
+    private final Set<Integer> inFlight = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService flusher;
+
+    public FuelModel(FleetStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Start the background writer
+     */
+    public void start() {
+        if (flusher != null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "fuel-model");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the background writer and persist pending levels
+     */
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flusher = null;
+        }
+        flush();
+    }
+
+    /**
+     * Reconcile with the fuel_level column of a row the engine has read
+     */
+    public void observe(int ambulanceId, int dbLevel) {
+        if (inFlight.contains(ambulanceId)) {
+            return;
+        }
+        Integer persisted = persistedLevels.get(ambulanceId);
+        if (persisted == null || persisted != dbLevel) {
+            levels.put(ambulanceId, (double) dbLevel);
+            persistedLevels.put(ambulanceId, dbLevel);
+            dirty.remove(ambulanceId);
+        }
+    }
+
+    /**
+     * Burn fuel for the given driven distance
+     */
+    public void consume(int ambulanceId, double gridUnits) {
+        Double level = levels.get(ambulanceId);
+        if (level == null || gridUnits <= 0) {
+            return;
+        }
+        levels.put(ambulanceId, Math.max(0.0, level - gridUnits * FUEL_PER_GRID_UNIT));
+        dirty.add(ambulanceId);
+    }
+
+    /**
+     * Mark a unit as refuelled; the store has already written 100 for it
+     */
+    public void refuelled(int ambulanceId) {
+        levels.put(ambulanceId, 100.0);
+        persistedLevels.put(ambulanceId, 100);
+        dirty.remove(ambulanceId);
+    }
+
+    /**
+     * Forget a unit that another dispatch node takes over
+     *
+     * @return its current level, to be passed along with the handoff
+     */
+    public double handOff(int ambulanceId) {
+        double level = getLevel(ambulanceId);
+        levels.remove(ambulanceId);
+        persistedLevels.remove(ambulanceId);
+        dirty.remove(ambulanceId);
+        return level;
+    }
+
+    /**
+     * Take over the level of a unit handed over by another dispatch node
+     */
+    public void adopt(int ambulanceId, double level) {
+        levels.put(ambulanceId, level);
+        dirty.add(ambulanceId);
+    }
+
+    /**
+     * @return current level in percent, or 100 for units not seen yet
+     */
+    public double getLevel(int ambulanceId) {
+        return levels.getOrDefault(ambulanceId, 100.0);
+    }
+
+    public boolean isLow(int ambulanceId) {
+        return getLevel(ambulanceId) < LOW_FUEL_THRESHOLD;
+    }
+
+    /**
+     * Fuel needed to drive the given distance and still keep the reserve
+     */
+    public static double required(double gridUnits) {
+        return gridUnits * FUEL_PER_GRID_UNIT + RESERVE;
+    }
+
+    public boolean canDrive(int ambulanceId, double gridUnits) {
+        return getLevel(ambulanceId) >= required(gridUnits);
+    }
+
+    /**
+     * Write changed levels in one batch
+     */
+    public synchronized void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Map<Integer, Integer> batch = new HashMap<>();
+        for (Iterator<Integer> it = dirty.iterator(); it.hasNext();) {
+            int id = it.next();
+            inFlight.add(id);
+            it.remove();
+            batch.put(id, (int) Math.round(levels.getOrDefault(id, 100.0)));
+        }
+        try {
+            store.saveFuelLevels(batch);
+            // Before the units leave inFlight, so observe() never compares against the old value
+            persistedLevels.putAll(batch);
+        } catch (SQLException e) {
+            System.err.println("[FuelModel] Error saving fuel levels: " + e.getMessage());
+            dirty.addAll(batch.keySet());
+        } finally {
+            inFlight.removeAll(batch.keySet());
+        }
+    }
+}
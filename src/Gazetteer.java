@@ -0,0 +1,310 @@
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Gazetteer - Resolves free-text accident locations ("Anna Nagar Signal",
+ * "near guindy flyovr") to coordinates at ingest, so accidents reported by
+ * name are placed on the map and dispatched to the right spot instead of
+ * the city centre.
+ *
+ * Place names and aliases from the gazetteer.file CSV are normalised
+ * (lower case, punctuation dropped, Rd/St/Jn spelled out) and stored in a
+ * trie held in parallel arrays with first-child / next-sibling links. A
+ * lookup tries, in order: the whole text as a name, the longest name
+ * embedded in the text at a word boundary, the whole text as the prefix of
+ * a name, and finally a fuzzy prefix match allowing one or two typos.
+ * Every step walks the trie, so a lookup costs microseconds whatever the
+ * size of the gazetteer. Read-only after loading, so safe to share.
+ */
+public class Gazetteer {
+    private static Gazetteer instance;
+
+    /**
+     * Place a location resolved to
+     */
+    public static class Place {
+        public final String name;
+        public final double latitude;
+        public final double longitude;
+
+        Place(String name, double latitude, double longitude) {
+            this.name = name;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    private static final int NONE = -1;
+
+    // Trie nodes; node 0 is the root
+    private char[] label = new char[256];
+    private int[] firstChild = new int[256];
+    private int[] nextSibling = new int[256];
+    private int[] entry = new int[256];   // place ending exactly here
+    private int[] best = new int[256];    // first-loaded place below here
+    private int nodeCount = 0;
+
+    private Place[] places = new Place[64];
+    private int placeCount = 0;
+
+    Gazetteer() {
+        newNode('\0');
+    }
+
+    public static synchronized Gazetteer getInstance() {
+        if (instance == null) {
+            instance = new Gazetteer();
+            instance.load(ConfigManager.getInstance().getGazetteerFile());
+        }
+        return instance;
+    }
+
+    /**
+     * Load name,latitude,longitude[,alias|alias] lines; # starts a comment
+     */
+    void load(String file) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                StandardCharsets.UTF_8))) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] cols = line.split(",");
+                try {
+                    Place place = new Place(cols[0].trim(), Double.parseDouble(cols[1].trim()),
+                            Double.parseDouble(cols[2].trim()));
+                    add(place.name, place);
+                    if (cols.length > 3) {
+                        for (String alias : cols[3].split("\\|")) {
+                            add(alias, place);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("[Gazetteer] Skipping " + file + ":" + lineNo + ": " + line);
+                }
+            }
+            System.out.println("[Gazetteer] Loaded " + placeCount + " names (" + nodeCount + " trie nodes) from "
+                    + file);
+        } catch (IOException e) {
+            System.err.println("[Gazetteer] Could not load " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Add a name (or alias) for a place
+     */
+    void add(String name, Place place) {
+        String key = normalize(name);
+        if (key.isEmpty()) {
+            return;
+        }
+        if (placeCount == places.length) {
+            places = Arrays.copyOf(places, placeCount * 2);
+        }
+        int id = placeCount++;
+        places[id] = place;
+
+        int node = 0;
+        for (int i = 0; i < key.length(); i++) {
+            if (best[node] == NONE) {
+                best[node] = id;
+            }
+            int child = child(node, key.charAt(i));
+            if (child == NONE) {
+                child = newNode(key.charAt(i));
+                nextSibling[child] = firstChild[node];
+                firstChild[node] = child;
+            }
+            node = child;
+        }
+        if (best[node] == NONE) {
+            best[node] = id;
+        }
+        if (entry[node] == NONE) {
+            entry[node] = id;
+        }
+    }
+
+    private int newNode(char c) {
+        if (nodeCount == label.length) {
+            int size = nodeCount * 2;
+            label = Arrays.copyOf(label, size);
+            firstChild = Arrays.copyOf(firstChild, size);
+            nextSibling = Arrays.copyOf(nextSibling, size);
+            entry = Arrays.copyOf(entry, size);
+            best = Arrays.copyOf(best, size);
+        }
+        int node = nodeCount++;
+        label[node] = c;
+        firstChild[node] = NONE;
+        nextSibling[node] = NONE;
+        entry[node] = NONE;
+        best[node] = NONE;
+        return node;
+    }
+
+    private int child(int node, char c) {
+        for (int n = firstChild[node]; n != NONE; n = nextSibling[n]) {
+            if (label[n] == c) {
+                return n;
+            }
+        }
+        return NONE;
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // LOOKUP
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    /**
+     * Coordinates for a free-text location, or null if nothing matches
+     */
+    public Place lookup(String location) {
+        if (location == null) {
+            return null;
+        }
+        String key = normalize(location);
+        if (key.isEmpty()) {
+            return null;
+        }
+
+        int node = walk(key, 0);
+        if (node != NONE && entry[node] != NONE) {
+            return places[entry[node]];
+        }
+        int embedded = longestEmbedded(key);
+        if (embedded != NONE) {
+            return places[embedded];
+        }
+        if (node != NONE && key.length() >= 3) {
+            return places[best[node]];
+        }
+        int fuzzy = fuzzyPrefix(key);
+        return fuzzy != NONE ? places[fuzzy] : null;
+    }
+
+    private int walk(String key, int from) {
+        int node = 0;
+        for (int i = from; i < key.length() && node != NONE; i++) {
+            node = child(node, key.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Longest name that appears in the text between word boundaries
+     */
+    private int longestEmbedded(String key) {
+        int found = NONE;
+        int foundLength = 0;
+        for (int start = 0; start < key.length(); start++) {
+            if (start > 0 && key.charAt(start - 1) != ' ') {
+                continue;
+            }
+            int node = 0;
+            for (int i = start; i < key.length(); i++) {
+                node = child(node, key.charAt(i));
+                if (node == NONE) {
+                    break;
+                }
+                boolean boundary = i + 1 == key.length() || key.charAt(i + 1) == ' ';
+                if (boundary && entry[node] != NONE && i + 1 - start > foundLength) {
+                    found = entry[node];
+                    foundLength = i + 1 - start;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Place whose name starts with the text give or take a few edits
+     * (Levenshtein distance over the trie, one DP row per node)
+     */
+    private int fuzzyPrefix(String key) {
+        int maxEdits = key.length() < 4 ? 0 : key.length() < 8 ? 1 : 2;
+        if (maxEdits == 0) {
+            return NONE;
+        }
+        int[] row = new int[key.length() + 1];
+        for (int j = 0; j < row.length; j++) {
+            row[j] = j;
+        }
+        int[] result = { NONE, maxEdits + 1 };
+        for (int n = firstChild[0]; n != NONE; n = nextSibling[n]) {
+            fuzzy(n, key, row, maxEdits, result);
+        }
+        return result[0];
+    }
+
+    private void fuzzy(int node, String key, int[] prev, int maxEdits, int[] result) {
+        int m = key.length();
+        int[] row = new int[m + 1];
+        row[0] = prev[0] + 1;
+        int rowMin = row[0];
+        for (int j = 1; j <= m; j++) {
+            int substitute = prev[j - 1] + (key.charAt(j - 1) == label[node] ? 0 : 1);
+            row[j] = Math.min(substitute, Math.min(prev[j], row[j - 1]) + 1);
+            rowMin = Math.min(rowMin, row[j]);
+        }
+        if (row[m] < result[1]) {
+            // The whole text matches a prefix of every name below this node
+            result[0] = best[node];
+            result[1] = row[m];
+        }
+        if (rowMin >= result[1] || rowMin > maxEdits) {
+            return;
+        }
+        for (int n = firstChild[node]; n != NONE; n = nextSibling[n]) {
+            fuzzy(n, key, row, maxEdits, result);
+        }
+    }
+
+    /**
+     * Lower case, letters and digits only, single spaces, common road
+     * abbreviations spelled out and "Chennai" dropped
+     */
+    static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^a-z0-9]+")) {
+            if (word.isEmpty() || word.equals("chennai")) {
+                continue;
+            }
+            switch (word) {
+                case "rd":
+                    word = "road";
+                    break;
+                case "st":
+                    word = "street";
+                    break;
+                case "jn":
+                case "jct":
+                    word = "junction";
+                    break;
+                case "stn":
+                    word = "station";
+                    break;
+                default:
+                    break;
+            }
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(word);
+        }
+        return sb.toString();
+    }
+
+    public int size() {
+        return placeCount;
+    }
+}
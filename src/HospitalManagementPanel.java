@@ -12,8 +12,8 @@ import java.util.*;
 public class HospitalManagementPanel extends JPanel {
     private DatabaseManager dbManager;
     private JTable hospitalTable;
-    private DefaultTableModel tableModel;
-    private javax.swing.Timer refreshTimer;
+    private KeyedTableModel tableModel;
+    private LiveDataHub.Subscription subscription;
 
     // Stats labels
     private JLabel totalBedsLabel;
@@ -28,7 +28,6 @@ public class HospitalManagementPanel extends JPanel {
         setBorder(new EmptyBorder(UITheme.SPACE_XL, UITheme.SPACE_XL, UITheme.SPACE_XL, UITheme.SPACE_XL));
 
         initializeUI();
-        loadHospitalData();
         startAutoRefresh();
     }
 
@@ -117,12 +116,7 @@ public class HospitalManagementPanel extends JPanel {
 
         String[] columns = { "ID", "Hospital Name", "Specialty", "Capacity", "Available", "ICU Total", "ICU Avail",
                 "Severity", "Phone" };
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new KeyedTableModel(columns);
 
         hospitalTable = UITheme.createStyledTable(tableModel);
         hospitalTable.getColumnModel().getColumn(0).setPreferredWidth(40);
@@ -164,40 +158,41 @@ public class HospitalManagementPanel extends JPanel {
         return actionPanel;
     }
 
+    /**
+     * Ask the hub for fresh hospital rows, e.g. after a change made here
+     */
     private void loadHospitalData() {
-        tableModel.setRowCount(0);
-        int totalBeds = 0, availBeds = 0, totalICU = 0, availICU = 0;
+        LiveDataHub.getInstance().refresh(LiveDataHub.Topic.HOSPITALS, LiveDataHub.Topic.STATS);
+    }
 
-        try {
-            String sql = "SELECT * FROM hospitals ORDER BY hospital_id";
-            ResultSet rs = dbManager.executeQuery(sql);
+    private void showHospitalData(LiveDataHub.Snapshot snapshot) {
+        java.util.List<Object[]> rows = new ArrayList<>();
+        int totalBeds = 0, availBeds = 0, totalICU = 0, availICU = 0;
 
-            while (rs.next()) {
-                int capacity = rs.getInt("capacity");
-                int available = rs.getInt("available_beds");
-                int icuTotal = rs.getInt("icu_beds");
-                int icuAvail = rs.getInt("available_icu_beds");
-
-                totalBeds += capacity;
-                availBeds += available;
-                totalICU += icuTotal;
-                availICU += icuAvail;
-
-                tableModel.addRow(new Object[] {
-                        rs.getInt("hospital_id"),
-                        rs.getString("name"),
-                        rs.getString("specialty"),
-                        capacity,
-                        available,
-                        icuTotal,
-                        icuAvail,
-                        rs.getString("max_severity"),
-                        rs.getString("phone")
-                });
-            }
-        } catch (SQLException e) {
-            System.err.println("[HospitalManagement] Error loading data: " + e.getMessage());
+        for (LiveDataHub.Row r : snapshot.rows) {
+            int capacity = r.getInt("capacity");
+            int available = r.getInt("available_beds");
+            int icuTotal = r.getInt("icu_beds");
+            int icuAvail = r.getInt("available_icu_beds");
+
+            totalBeds += capacity;
+            availBeds += available;
+            totalICU += icuTotal;
+            availICU += icuAvail;
+
+            rows.add(new Object[] {
+                    r.getInt("hospital_id"),
+                    r.getString("name"),
+                    r.getString("specialty"),
+                    capacity,
+                    available,
+                    icuTotal,
+                    icuAvail,
+                    r.getString("max_severity"),
+                    r.getString("phone")
+            });
         }
+        tableModel.update(rows);
 
         // Update stats
         totalBedsLabel.setText(String.valueOf(totalBeds));
@@ -340,13 +335,12 @@ public class HospitalManagementPanel extends JPanel {
     }
 
     private void startAutoRefresh() {
-        refreshTimer = new javax.swing.Timer(10000, e -> loadHospitalData());
-        refreshTimer.start();
+        subscription = LiveDataHub.getInstance().subscribe(LiveDataHub.Topic.HOSPITALS, this, this::showHospitalData);
     }
 
     public void stopRefresh() {
-        if (refreshTimer != null) {
-            refreshTimer.stop();
+        if (subscription != null) {
+            subscription.cancel();
         }
     }
 }
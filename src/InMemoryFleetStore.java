@@ -0,0 +1,379 @@
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.*;
+
+/**
+ * InMemoryFleetStore - FleetStore kept entirely in process memory.
+ * Mirrors the semantics of the SQL in JdbcFleetStore (ordering, limits,
+ * nearest-hospital rule) so benchmarks can compare the engine with and
+ * without the database round trips.
+ */
+public class InMemoryFleetStore implements FleetStore {
+
+    private static class AmbulanceRow {
+        int currentX;
+        int currentY;
+        int targetX;
+        int targetY;
+        double latitude;
+        double longitude;
+        String status = "green";
+        int accidentId;
+        int hospitalId;
+        int fuelLevel = 100;
+
+        Unit toUnit(int ambulanceId) {
+            return new Unit(ambulanceId, status, currentX, currentY, targetX, targetY, accidentId, hospitalId,
+                    fuelLevel);
+        }
+    }
+
+    private final TreeMap<Integer, AmbulanceRow> ambulances = new TreeMap<>();
+    private final List<Accident> accidents = new ArrayList<>();
+    private final Map<Integer, Hospital> hospitals = new LinkedHashMap<>();
+    private final Set<Integer> resolvedAccidents = new HashSet<>();
+    private final Map<Integer, Handoff> handoffs = new HashMap<>();
+    private final Map<String, Integer> detectionIds = new HashMap<>();
+
+    private long roundTrips = 0;
+    private long savedArrivals = 0;
+    private long savedReports = 0;
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // SEEDING
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    public synchronized void addAmbulance(int ambulanceId, int x, int y) {
+        addAmbulance(ambulanceId, x, y, 100);
+    }
+
+    public synchronized void addAmbulance(int ambulanceId, int x, int y, int fuelLevel) {
+        AmbulanceRow row = new AmbulanceRow();
+        row.currentX = x;
+        row.currentY = y;
+        row.fuelLevel = fuelLevel;
+        ambulances.put(ambulanceId, row);
+    }
+
+    public synchronized void addHospital(int hospitalId, String name, int x, int y) {
+        hospitals.put(hospitalId, new Hospital(hospitalId, name, x, y));
+    }
+
+    /**
+     * Insert an accident; ids are assigned in arrival order like AUTO_INCREMENT
+     */
+    public synchronized int addAccident(String location, String severity, double latitude, double longitude) {
+        return addAccident(location, severity, null, latitude, longitude, 0);
+    }
+
+    public synchronized int addAccident(String location, String severity, String description, double latitude,
+            double longitude, int patientCount) {
+        int id = accidents.size() + 1;
+        accidents.add(new Accident(id, location, severity, description, latitude, longitude, patientCount));
+        return id;
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // FLEETSTORE
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    @Override
+    public synchronized List<Accident> findRecentAccidents(int limit) {
+        roundTrips++;
+        List<Accident> recent = new ArrayList<>(limit);
+        for (int i = accidents.size() - 1; i >= 0 && recent.size() < limit; i--) {
+            recent.add(accidents.get(i));
+        }
+        return recent;
+    }
+
+    @Override
+    public synchronized List<Accident> findUnresolvedAccidents(int withinMinutes) {
+        roundTrips++;
+        // No report times in memory - every unresolved accident counts as recent
+        List<Accident> unresolved = new ArrayList<>();
+        for (Accident accident : accidents) {
+            if (!resolvedAccidents.contains(accident.accidentId)) {
+                unresolved.add(accident);
+            }
+        }
+        return unresolved;
+    }
+
+    @Override
+    public synchronized List<Accident> findAccidentsAfter(int accidentId, int limit) {
+        roundTrips++;
+        // Ids are list positions + 1
+        int from = Math.max(0, Math.min(accidentId, accidents.size()));
+        int to = Math.min(accidents.size(), from + limit);
+        return new ArrayList<>(accidents.subList(from, to));
+    }
+
+    @Override
+    public synchronized List<Unit> loadFleet() {
+        roundTrips++;
+        List<Unit> units = new ArrayList<>(ambulances.size());
+        for (Map.Entry<Integer, AmbulanceRow> entry : ambulances.entrySet()) {
+            units.add(entry.getValue().toUnit(entry.getKey()));
+        }
+        return units;
+    }
+
+    @Override
+    public synchronized List<Hospital> loadHospitals() {
+        roundTrips++;
+        return new ArrayList<>(hospitals.values());
+    }
+
+    @Override
+    public synchronized List<Unit> findAvailableUnits(int minFuel, int minX, int minY, int maxX, int maxY) {
+        roundTrips++;
+        List<Unit> units = new ArrayList<>();
+        for (Map.Entry<Integer, AmbulanceRow> entry : ambulances.entrySet()) {
+            AmbulanceRow row = entry.getValue();
+            if ("green".equals(row.status) && row.fuelLevel >= minFuel && row.currentX >= minX
+                    && row.currentX <= maxX && row.currentY >= minY && row.currentY <= maxY) {
+                units.add(row.toUnit(entry.getKey()));
+            }
+        }
+        return units;
+    }
+
+    @Override
+    public synchronized boolean dispatch(int ambulanceId, int accidentId, int targetX, int targetY) {
+        roundTrips++;
+        AmbulanceRow row = ambulances.get(ambulanceId);
+        if (row == null || !"green".equals(row.status)) {
+            return false;
+        }
+        row.status = "yellow";
+        row.accidentId = accidentId;
+        row.targetX = targetX;
+        row.targetY = targetY;
+        return true;
+    }
+
+    @Override
+    public synchronized void manualDispatch(int ambulanceId, int accidentId) {
+        roundTrips++;
+        AmbulanceRow row = ambulances.get(ambulanceId);
+        if (row != null) {
+            row.status = "yellow";
+            row.accidentId = accidentId;
+        }
+    }
+
+    @Override
+    public synchronized List<Unit> findUnits(String status) {
+        roundTrips++;
+        List<Unit> units = new ArrayList<>();
+        for (Map.Entry<Integer, AmbulanceRow> entry : ambulances.entrySet()) {
+            AmbulanceRow row = entry.getValue();
+            if (status.equals(row.status) && row.accidentId != 0) {
+                units.add(row.toUnit(entry.getKey()));
+            }
+        }
+        return units;
+    }
+
+    @Override
+    public synchronized void updatePosition(int ambulanceId, int x, int y, double latitude, double longitude) {
+        roundTrips++;
+        AmbulanceRow row = ambulances.get(ambulanceId);
+        if (row != null) {
+            row.currentX = x;
+            row.currentY = y;
+            row.latitude = latitude;
+            row.longitude = longitude;
+        }
+    }
+
+    @Override
+    public synchronized void setStatus(int ambulanceId, String status) {
+        roundTrips++;
+        AmbulanceRow row = ambulances.get(ambulanceId);
+        if (row != null) {
+            row.status = status;
+        }
+    }
+
+    @Override
+    public synchronized Hospital findNearestHospital(int x, int y) {
+        roundTrips++;
+        Hospital nearest = null;
+        double best = Double.MAX_VALUE;
+        for (Hospital h : hospitals.values()) {
+            double d = Math.hypot(h.x - x, h.y - y);
+            if (d < best) {
+                best = d;
+                nearest = h;
+            }
+        }
+        return nearest;
+    }
+
+    @Override
+    public synchronized Hospital findHospital(int hospitalId) {
+        roundTrips++;
+        return hospitals.get(hospitalId);
+    }
+
+    @Override
+    public synchronized void assignHospital(int ambulanceId, int hospitalId, int targetX, int targetY) {
+        roundTrips++;
+        AmbulanceRow row = ambulances.get(ambulanceId);
+        if (row != null) {
+            row.hospitalId = hospitalId;
+            row.targetX = targetX;
+            row.targetY = targetY;
+        }
+    }
+
+    @Override
+    public synchronized void completeMission(int ambulanceId) {
+        roundTrips++;
+        AmbulanceRow row = ambulances.get(ambulanceId);
+        if (row != null) {
+            row.status = "green";
+            row.accidentId = 0;
+            row.hospitalId = 0;
+        }
+    }
+
+    @Override
+    public synchronized void resolveAccident(int accidentId) {
+        roundTrips++;
+        resolvedAccidents.add(accidentId);
+    }
+
+    @Override
+    public synchronized void startRefuel(int ambulanceId, int targetX, int targetY) {
+        roundTrips++;
+        AmbulanceRow row = ambulances.get(ambulanceId);
+        if (row != null) {
+            row.status = "yellow";
+            row.accidentId = 0;
+            row.hospitalId = 0;
+            row.targetX = targetX;
+            row.targetY = targetY;
+        }
+    }
+
+    @Override
+    public synchronized void finishRefuel(int ambulanceId) {
+        roundTrips++;
+        AmbulanceRow row = ambulances.get(ambulanceId);
+        if (row != null) {
+            row.status = "green";
+            row.fuelLevel = 100;
+        }
+    }
+
+    @Override
+    public synchronized void saveFuelLevels(Map<Integer, Integer> levels) {
+        roundTrips++;
+        for (Map.Entry<Integer, Integer> entry : levels.entrySet()) {
+            AmbulanceRow row = ambulances.get(entry.getKey());
+            if (row != null) {
+                row.fuelLevel = entry.getValue();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void saveHandoff(Handoff handoff) {
+        roundTrips++;
+        handoffs.put(handoff.ambulanceId, handoff);
+    }
+
+    @Override
+    public synchronized List<Handoff> claimHandoffs(Collection<Integer> regions) {
+        roundTrips++;
+        List<Handoff> claimed = new ArrayList<>();
+        Iterator<Handoff> it = handoffs.values().iterator();
+        while (it.hasNext()) {
+            Handoff handoff = it.next();
+            if (regions.contains(handoff.toRegion)) {
+                claimed.add(handoff);
+                it.remove();
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public synchronized void saveMissions(List<MissionRecorder.Mission> arrivals,
+            List<MissionRecorder.Mission> completed) {
+        roundTrips++;
+        savedArrivals += arrivals.size();
+        savedReports += completed.size();
+    }
+
+    @Override
+    public synchronized List<Integer> saveDetections(List<Detection> inserts, List<ReportMerge> merges)
+            throws SQLIntegrityConstraintViolationException {
+        roundTrips++;
+        // Same all-or-nothing behaviour as the primary key on detection_ids.detection_id
+        Set<String> batchIds = new HashSet<>();
+        List<String> newIds = new ArrayList<>();
+        for (Detection d : inserts) {
+            newIds.addAll(d.allIds());
+        }
+        for (ReportMerge merge : merges) {
+            newIds.addAll(merge.detectionIds);
+        }
+        for (String id : newIds) {
+            if (detectionIds.containsKey(id) || !batchIds.add(id)) {
+                throw new SQLIntegrityConstraintViolationException("Duplicate detection_id " + id);
+            }
+        }
+        List<Integer> ids = new ArrayList<>(inserts.size());
+        for (Detection d : inserts) {
+            int id = accidents.size() + 1;
+            accidents.add(new Accident(id, d.location, d.severity, d.description, d.latitude, d.longitude, 0,
+                    d.riskScore));
+            for (String detectionId : d.allIds()) {
+                detectionIds.put(detectionId, id);
+            }
+            ids.add(id);
+        }
+        for (ReportMerge merge : merges) {
+            for (String detectionId : merge.detectionIds) {
+                detectionIds.put(detectionId, merge.accidentId);
+            }
+            Accident a = accidents.get(merge.accidentId - 1);
+            boolean escalate = IncidentSizing.priority(merge.severity) > IncidentSizing.priority(a.severity);
+            if (escalate || merge.riskScore > a.riskScore) {
+                accidents.set(merge.accidentId - 1, new Accident(a.accidentId, a.location,
+                        escalate ? merge.severity : a.severity, a.description, a.latitude, a.longitude,
+                        a.patientCount, Math.max(a.riskScore, merge.riskScore)));
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public synchronized Map<String, Integer> findDetections(Collection<String> ids) {
+        roundTrips++;
+        Map<String, Integer> found = new HashMap<>();
+        for (String id : ids) {
+            Integer accidentId = detectionIds.get(id);
+            if (accidentId != null) {
+                found.put(id, accidentId);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public synchronized long getRoundTrips() {
+        return roundTrips;
+    }
+
+    public synchronized long getSavedArrivals() {
+        return savedArrivals;
+    }
+
+    public synchronized long getSavedReports() {
+        return savedReports;
+    }
+}
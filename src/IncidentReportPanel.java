@@ -1,6 +1,5 @@
 import javax.swing.*;
 import javax.swing.border.*;
-import javax.swing.table.*;
 import java.awt.*;
 import java.sql.*;
 import java.text.SimpleDateFormat;
@@ -13,8 +12,9 @@ import java.util.*;
 public class IncidentReportPanel extends JPanel {
     private DatabaseManager dbManager;
     private JTable reportsTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel tableModel;
     private javax.swing.Timer refreshTimer;
+    private int currentUserId = 1; // Default admin user
 
     // Form fields
     private JComboBox<String> accidentCombo;
@@ -31,7 +31,7 @@ public class IncidentReportPanel extends JPanel {
         setBorder(new EmptyBorder(UITheme.SPACE_XL, UITheme.SPACE_XL, UITheme.SPACE_XL, UITheme.SPACE_XL));
 
         initializeUI();
-        loadReports();
+        tableModel.reload();
         startAutoRefresh();
     }
 
@@ -177,19 +177,28 @@ public class IncidentReportPanel extends JPanel {
         tableHeader.add(tableTitle, BorderLayout.WEST);
 
         JButton refreshBtn = UITheme.createGhostButton("↻ Refresh");
-        refreshBtn.addActionListener(e -> loadReports());
+        refreshBtn.addActionListener(e -> tableModel.reload());
         tableHeader.add(refreshBtn, BorderLayout.EAST);
 
         tableCard.add(tableHeader, BorderLayout.NORTH);
 
         // Table
         String[] columns = { "ID", "Accident", "Ambulance", "Response Time", "Outcome", "Created" };
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+        tableModel = new PagedTableModel(columns, PagedTableModel.jdbc(
+                "SELECT ir.report_id, ir.created_at, ir.ambulance_id, ir.response_time_minutes, ir.outcome, " +
+                        "a.location FROM incident_reports ir LEFT JOIN accidents a ON ir.accident_id = a.accident_id",
+                "ir.created_at", "ir.report_id", rs -> {
+                    Object responseTime = rs.getObject("response_time_minutes");
+                    return new Object[] {
+                            rs.getInt("report_id"),
+                            rs.getString("location"),
+                            "Amb #" + rs.getInt("ambulance_id"),
+                            responseTime != null ? responseTime + " min" : "—",
+                            rs.getString("outcome"),
+                            sdf.format(rs.getTimestamp("created_at"))
+                    };
+                }), 200, 10);
 
         reportsTable = UITheme.createStyledTable(tableModel);
         reportsTable.getColumnModel().getColumn(0).setPreferredWidth(50);
@@ -261,29 +270,11 @@ public class IncidentReportPanel extends JPanel {
         }
     }
 
+    /**
+     * Show reports filed since the last look, at the top of the history
+     */
     private void loadReports() {
-        tableModel.setRowCount(0);
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm");
-
-        try {
-            String sql = "SELECT ir.*, a.location FROM incident_reports ir " +
-                    "LEFT JOIN accidents a ON ir.accident_id = a.accident_id " +
-                    "ORDER BY ir.created_at DESC";
-            ResultSet rs = dbManager.executeQuery(sql);
-
-            while (rs.next()) {
-                tableModel.addRow(new Object[] {
-                        rs.getInt("report_id"),
-                        rs.getString("location"),
-                        "Amb #" + rs.getInt("ambulance_id"),
-                        rs.getInt("response_time_minutes") + " min",
-                        rs.getString("outcome"),
-                        sdf.format(rs.getTimestamp("created_at"))
-                });
-            }
-        } catch (SQLException e) {
-            System.err.println("[IncidentReport] Error loading reports: " + e.getMessage());
-        }
+        tableModel.refresh();
     }
 
     private void submitReport() {
@@ -298,24 +289,44 @@ public class IncidentReportPanel extends JPanel {
             int ambulanceId = Integer.parseInt(ambulanceCombo.getSelectedItem().toString().split(" - ")[0]);
             String outcome = (String) outcomeCombo.getSelectedItem();
             String traffic = (String) trafficCombo.getSelectedItem();
-            String complications = complicationsArea.getText().replace("'", "''");
-            String notes = notesArea.getText().replace("'", "''");
-
-            // Calculate a simulated response time
-            int responseTime = 5 + new Random().nextInt(20);
-
-            String sql = String.format(
-                    "INSERT INTO incident_reports (accident_id, ambulance_id, response_time_minutes, " +
-                            "outcome, traffic_conditions, complications, notes, dispatch_time, arrival_time) VALUES " +
-                            "(%d, %d, %d, '%s', '%s', '%s', '%s', NOW(), NOW())",
-                    accidentId, ambulanceId, responseTime, outcome, traffic, complications, notes);
-
-            dbManager.executeUpdate(sql);
+            String complications = complicationsArea.getText();
+            String notes = notesArea.getText();
+
+            // The dispatch engine pre-fills a report with the real mission timeline;
+            // complete that one if it exists instead of creating a duplicate
+            PreparedStatement findPstmt = dbManager.getConnection().prepareStatement(
+                    "SELECT report_id FROM incident_reports WHERE accident_id = ? AND ambulance_id = ? " +
+                            "AND created_by IS NULL ORDER BY report_id DESC LIMIT 1");
+            findPstmt.setInt(1, accidentId);
+            findPstmt.setInt(2, ambulanceId);
+            ResultSet existing = findPstmt.executeQuery();
+
+            boolean updated = existing.next();
+            if (updated) {
+                PreparedStatement pstmt = dbManager.getConnection().prepareStatement(
+                        "UPDATE incident_reports SET outcome = ?, traffic_conditions = ?, complications = ?, " +
+                                "notes = ?, created_by = ? WHERE report_id = ?");
+                pstmt.setString(1, outcome);
+                pstmt.setString(2, traffic);
+                pstmt.setString(3, complications);
+                pstmt.setString(4, notes);
+                pstmt.setInt(5, currentUserId);
+                pstmt.setInt(6, existing.getInt("report_id"));
+                pstmt.executeUpdate();
+            } else {
+                insertReport(accidentId, ambulanceId, outcome, traffic, complications, notes);
+            }
 
             JOptionPane.showMessageDialog(this, "Report submitted successfully!", "Success",
                     JOptionPane.INFORMATION_MESSAGE);
             clearForm();
-            loadReports();
+            // refresh() only fetches rows newer than the top one, so an
+            // edited row needs a full reload to show its new outcome
+            if (updated) {
+                tableModel.reload();
+            } else {
+                loadReports();
+            }
 
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this, "Error submitting report: " + e.getMessage(), "Error",
@@ -323,6 +334,55 @@ public class IncidentReportPanel extends JPanel {
         }
     }
 
+    /**
+     * Insert a new report, taking the response time from the measured
+     * response_times row for this dispatch when one has been recorded
+     */
+    private void insertReport(int accidentId, int ambulanceId, String outcome, String traffic,
+            String complications, String notes) throws SQLException {
+        PreparedStatement rtPstmt = dbManager.getConnection().prepareStatement(
+                "SELECT dispatch_time, arrival_time, response_time_seconds, distance_meters FROM response_times " +
+                        "WHERE accident_id = ? AND ambulance_id = ? ORDER BY id DESC LIMIT 1");
+        rtPstmt.setInt(1, accidentId);
+        rtPstmt.setInt(2, ambulanceId);
+        ResultSet rt = rtPstmt.executeQuery();
+
+        Timestamp dispatchTime = null;
+        Timestamp arrivalTime = null;
+        Integer responseMinutes = null;
+        Double distanceKm = null;
+        if (rt.next()) {
+            dispatchTime = rt.getTimestamp("dispatch_time");
+            arrivalTime = rt.getTimestamp("arrival_time");
+            responseMinutes = (int) Math.round(rt.getInt("response_time_seconds") / 60.0);
+            distanceKm = rt.getInt("distance_meters") / 1000.0;
+        }
+
+        PreparedStatement pstmt = dbManager.getConnection().prepareStatement(
+                "INSERT INTO incident_reports (accident_id, ambulance_id, response_time_minutes, distance_km, " +
+                        "outcome, traffic_conditions, complications, notes, dispatch_time, arrival_time, created_by) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        pstmt.setInt(1, accidentId);
+        pstmt.setInt(2, ambulanceId);
+        pstmt.setObject(3, responseMinutes, Types.INTEGER);
+        pstmt.setObject(4, distanceKm, Types.DECIMAL);
+        pstmt.setString(5, outcome);
+        pstmt.setString(6, traffic);
+        pstmt.setString(7, complications);
+        pstmt.setString(8, notes);
+        pstmt.setTimestamp(9, dispatchTime);
+        pstmt.setTimestamp(10, arrivalTime);
+        pstmt.setInt(11, currentUserId);
+        pstmt.executeUpdate();
+    }
+
+    /**
+     * Set the operator who completes and files reports
+     */
+    public void setCurrentUserId(int userId) {
+        this.currentUserId = userId;
+    }
+
     private void clearForm() {
         if (accidentCombo.getItemCount() > 0)
             accidentCombo.setSelectedIndex(0);
@@ -334,6 +394,17 @@ public class IncidentReportPanel extends JPanel {
         notesArea.setText("");
     }
 
+    // Id of a selected row, from its cached key; null, after telling the user, while its page is loading
+    private Integer selectedReportId(int selectedRow) {
+        PagedTableModel.Key key = tableModel.getKeyAt(selectedRow);
+        if (key == null) {
+            JOptionPane.showMessageDialog(this, "This report is still loading, please try again", "Loading",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return null;
+        }
+        return (int) key.id;
+    }
+
     private void viewReportDetails() {
         int selectedRow = reportsTable.getSelectedRow();
         if (selectedRow == -1) {
@@ -342,7 +413,10 @@ public class IncidentReportPanel extends JPanel {
             return;
         }
 
-        int reportId = (int) tableModel.getValueAt(selectedRow, 0);
+        Integer reportId = selectedReportId(selectedRow);
+        if (reportId == null) {
+            return;
+        }
 
         try {
             String sql = "SELECT ir.*, a.location, a.severity FROM incident_reports ir " +
@@ -401,7 +475,10 @@ public class IncidentReportPanel extends JPanel {
             return;
         }
 
-        int reportId = (int) tableModel.getValueAt(selectedRow, 0);
+        Integer reportId = selectedReportId(selectedRow);
+        if (reportId == null) {
+            return;
+        }
         int confirm = JOptionPane.showConfirmDialog(this,
                 "Are you sure you want to delete Report #" + reportId + "?",
                 "Confirm Delete", JOptionPane.YES_NO_OPTION);
@@ -409,7 +486,7 @@ public class IncidentReportPanel extends JPanel {
         if (confirm == JOptionPane.YES_OPTION) {
             try {
                 dbManager.executeUpdate("DELETE FROM incident_reports WHERE report_id = " + reportId);
-                loadReports();
+                tableModel.reload();
             } catch (SQLException e) {
                 JOptionPane.showMessageDialog(this, "Error deleting report: " + e.getMessage(), "Error",
                         JOptionPane.ERROR_MESSAGE);
@@ -444,7 +521,10 @@ public class IncidentReportPanel extends JPanel {
             return;
         }
 
-        int reportId = (int) tableModel.getValueAt(selectedRow, 0);
+        Integer reportId = selectedReportId(selectedRow);
+        if (reportId == null) {
+            return;
+        }
 
         try {
             String sql = "SELECT ir.*, a.location, a.severity FROM incident_reports ir " +
@@ -0,0 +1,70 @@
+import java.util.regex.Pattern;
+
+/**
+ * IncidentSizing - Decides how many ambulances an accident needs from its
+ * severity, the patients recorded against it and keywords in the reporter's
+ * description.
+ */
+public class IncidentSizing {
+    // Upper bound for a single incident so one pile-up cannot drain the fleet
+    public static final int MAX_UNITS = 8;
+
+    // Patients one ambulance can transport
+    private static final int PATIENTS_PER_UNIT = 2;
+
+    // Minimum response for mass-casualty wording
+    private static final int MASS_CASUALTY_UNITS = 3;
+
+    private static final Pattern MASS_CASUALTY = Pattern.compile(
+            "\\b(bus|pile-?up|multi-?vehicle|multiple vehicles|mass casualty|chain collision|overturned|collapse)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern HAZARD = Pattern.compile(
+            "\\b(fire|explosion|chemical|hazmat|gas leak)\\b", Pattern.CASE_INSENSITIVE);
+
+    private IncidentSizing() {
+    }
+
+    /**
+     * Number of units to send
+     *
+     * @param severity     Low / Medium / High / Critical
+     * @param patientCount rows in the patients table for the accident
+     * @param description  free text from the report, may be null
+     */
+    public static int unitsRequired(String severity, int patientCount, String description) {
+        int units = "Critical".equals(severity) ? 2 : 1;
+
+        // Enough units to carry every recorded patient
+        units = Math.max(units, (patientCount + PATIENTS_PER_UNIT - 1) / PATIENTS_PER_UNIT);
+
+        if (description != null) {
+            if (MASS_CASUALTY.matcher(description).find()) {
+                units = Math.max(units, MASS_CASUALTY_UNITS);
+            }
+            if (HAZARD.matcher(description).find()) {
+                units++;
+            }
+        }
+        return Math.min(units, MAX_UNITS);
+    }
+
+    /**
+     * Dispatch priority, higher goes first
+     */
+    public static int priority(String severity) {
+        if (severity == null) {
+            return 0;
+        }
+        switch (severity) {
+            case "Critical":
+                return 3;
+            case "High":
+                return 2;
+            case "Medium":
+                return 1;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * IngestionBuffer - Bounded queue between the HTTP handlers and the batch
+ * writer, kept as one FIFO ring per severity that share the capacity.
+ * The single consumer drains whole batches, most severe first, lingering
+ * briefly after the first item so bursts are committed together.
+ *
+ * Producers choose how to behave when it is full (see AccidentIngestor):
+ * offerAll waits for room up to a timeout, offerShedding makes room by
+ * evicting the oldest detection of a lower severity.
+ */
+public class IngestionBuffer {
+    // Index = IncidentSizing.priority: Low, Medium, High, Critical
+    private static final int LEVELS = 4;
+
+    private final int capacity;
+    private final ArrayDeque<Detection>[] queues;
+    private int count = 0;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public IngestionBuffer(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.queues = new ArrayDeque[LEVELS];
+        for (int i = 0; i < LEVELS; i++) {
+            queues[i] = new ArrayDeque<>(Math.min(this.capacity, 1024));
+        }
+    }
+
+    private static int level(Detection detection) {
+        return Math.max(0, Math.min(LEVELS - 1, IncidentSizing.priority(detection.severity)));
+    }
+
+    private void add(Detection detection) {
+        queues[level(detection)].addLast(detection);
+        count++;
+    }
+
+    /**
+     * Add every detection, or none if they do not all fit within waitMs
+     *
+     * @return false if the buffer stayed too full
+     */
+    public boolean offerAll(List<Detection> detections, long waitMs) throws InterruptedException {
+        if (detections.size() > capacity) {
+            return false;
+        }
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(waitMs);
+            while (capacity - count < detections.size()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+            for (Detection detection : detections) {
+                add(detection);
+            }
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add a detection without waiting. When full, the oldest queued
+     * detection of the lowest severity below this one is dropped to make room.
+     *
+     * @return null if added without shedding, the evicted detection if one
+     *         was dropped for it, or the detection itself if it was refused
+     */
+    public Detection offerShedding(Detection detection) {
+        lock.lock();
+        try {
+            Detection shed = null;
+            if (count >= capacity) {
+                int incoming = level(detection);
+                for (int i = 0; i < incoming && shed == null; i++) {
+                    shed = queues[i].pollFirst();
+                }
+                if (shed == null) {
+                    return detection;
+                }
+                count--;
+            }
+            add(detection);
+            notEmpty.signal();
+            return shed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move up to max detections into the given list, most severe first.
+     * Waits up to timeoutMs for the first one, then up to lingerMs for the
+     * batch to fill.
+     *
+     * @return number of detections drained
+     */
+    public int drainTo(List<Detection> batch, int max, long timeoutMs, long lingerMs) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            while (count == 0) {
+                if (remaining <= 0) {
+                    return 0;
+                }
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+            long linger = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+            while (count < max && linger > 0) {
+                linger = notEmpty.awaitNanos(linger);
+            }
+
+            int n = 0;
+            for (int i = LEVELS - 1; i >= 0 && n < max; i--) {
+                while (n < max && !queues[i].isEmpty()) {
+                    batch.add(queues[i].pollFirst());
+                    n++;
+                }
+            }
+            count -= n;
+            notFull.signalAll();
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queued detections of one severity
+     */
+    public int size(String severity) {
+        lock.lock();
+        try {
+            return queues[Math.max(0, Math.min(LEVELS - 1, IncidentSizing.priority(severity)))].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
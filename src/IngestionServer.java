@@ -0,0 +1,204 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IngestionServer - Headless HTTP endpoint for accident detections from
+ * cameras and the web tier, on the JDK's built-in HTTP server.
+ *
+ * POST /api/detections with one JSON detection or an array of them:
+ * {"location": "Anna Salai", "latitude": 13.06, "longitude": 80.26,
+ * "severity": "High", "vehicle_id": "TN01AB1234", "description": "...",
+ * "reported_by": "CAM-12", "detection_id": "CAM-12-000123"}
+ * A detection_id makes the report safe to retry: one already seen is
+ * dropped instead of creating a second accident, even if the report was
+ * merged into another.
+ *
+ * Answers 202 with the number admitted once the detections are queued,
+ * 400 for invalid input and 503 (with Retry-After) when none could be
+ * admitted under the ingest.admission.policy. Accidents are written by
+ * AccidentIngestor in group commits; reports of a crash already reported
+ * nearby within the last few minutes are merged into it.
+ *
+ * GET /api/ingest/metrics returns counters and ingest-to-commit latency.
+ *
+ * Usage:
+ * java -Djava.awt.headless=true -cp "out;lib/*" IngestionServer [--port 8085] [--store mysql|memory]
+ */
+public class IngestionServer {
+    private static final int HANDLER_THREADS = 8;
+    private static final int MAX_BODY_BYTES = 4 * 1024 * 1024;
+
+    private final AccidentIngestor ingestor;
+    private final int port;
+    private HttpServer server;
+    private ExecutorService handlers;
+
+    public IngestionServer(AccidentIngestor ingestor, int port) {
+        this.ingestor = ingestor;
+        this.port = port;
+    }
+
+    public void start() throws IOException {
+        // Without TCP_NODELAY small responses wait on delayed ACKs (~40 ms each)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        handlers = Executors.newFixedThreadPool(HANDLER_THREADS, r -> {
+            Thread t = new Thread(r, "ingest-http");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(handlers);
+        server.createContext("/api/detections", this::handleDetections);
+        server.createContext("/api/ingest/metrics", this::handleMetrics);
+        ingestor.start();
+        server.start();
+        System.out.println("[IngestionServer] Listening on port " + port);
+    }
+
+    /**
+     * Stop accepting requests, then let the ingestor write what it holds
+     */
+    public void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(1);
+        handlers.shutdown();
+        try {
+            handlers.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ingestor.stop();
+        server = null;
+        System.out.println("[IngestionServer] Stopped");
+    }
+
+    public AccidentIngestor getIngestor() {
+        return ingestor;
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // HANDLERS
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    private void handleDetections(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "{\"error\":\"POST required\"}");
+                return;
+            }
+            String body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                respond(exchange, 413, "{\"error\":\"Body too large\"}");
+                return;
+            }
+
+            List<Detection> detections = new ArrayList<>();
+            try {
+                Object parsed = Json.parse(body);
+                if (parsed instanceof List) {
+                    for (Object item : (List<?>) parsed) {
+                        detections.add(Detection.fromJson(item));
+                    }
+                } else {
+                    detections.add(Detection.fromJson(parsed));
+                }
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, "{\"error\":" + Json.quote(e.getMessage()) + "}");
+                return;
+            }
+
+            int admitted = ingestor.submit(detections);
+            if (admitted == 0 && !detections.isEmpty()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 503, "{\"error\":\"Ingest buffer full\"}");
+                return;
+            }
+            respond(exchange, 202, "{\"accepted\":" + admitted + ",\"refused\":"
+                    + (detections.size() - admitted) + "}");
+        } catch (Exception e) {
+            System.err.println("[IngestionServer] Error handling detections: " + e.getMessage());
+            respond(exchange, 500, "{\"error\":\"Internal error\"}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            respond(exchange, 200, ingestor.metricsJson());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Read the whole request body, or null if it exceeds MAX_BODY_BYTES
+     */
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int n;
+        while ((n = in.read(chunk)) != -1) {
+            out.write(chunk, 0, n);
+            if (out.size() > MAX_BODY_BYTES) {
+                return null;
+            }
+        }
+        return out.toString(StandardCharsets.UTF_8.name());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // MAIN
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    public static void main(String[] args) throws Exception {
+        ConfigManager config = ConfigManager.getInstance();
+        int port = config.getIngestPort();
+        String storeKind = "mysql";
+        for (int i = 0; i < args.length - 1; i++) {
+            if ("--port".equals(args[i])) {
+                port = Integer.parseInt(args[++i]);
+            } else if ("--store".equals(args[i])) {
+                storeKind = args[++i];
+            }
+        }
+
+        // The memory store lets the HTTP path be load-tested without a database
+        FleetStore store = "memory".equals(storeKind) ? new InMemoryFleetStore()
+                : new JdbcFleetStore(DatabaseManager.getInstance());
+        IngestionServer server = new IngestionServer(
+                AccidentIngestor.fromConfig(store, config.getIngestSpillFile()), port);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+
+        while (true) {
+            Thread.sleep(10000);
+            System.out.println("[IngestionServer] " + server.getIngestor().metricsJson());
+        }
+    }
+}
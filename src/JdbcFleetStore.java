@@ -0,0 +1,662 @@
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JdbcFleetStore - MySQL implementation of FleetStore on top of
+ * DatabaseManager. Every statement sent to the server is counted so the
+ * benchmark can report round trips per tick.
+ */
+public class JdbcFleetStore implements FleetStore {
+    private final DatabaseManager dbManager;
+    private final AtomicLong roundTrips = new AtomicLong();
+
+    // Fleet updates only apply while this leader's fencing token is current
+    private static final String FENCE = " AND EXISTS (SELECT 1 FROM dispatch_leader " +
+            "WHERE id = 1 AND leader_node = ? AND fencing_token = ?)";
+    private LeaderElection fence;
+
+    // Under sharding, unit updates only apply to units standing in a region this
+    // node still holds at the token it claimed it with; accident updates while it
+    // holds any of its leases
+    private static final String HELD_LEASE = "r.owner_node = ? " +
+            "AND FIND_IN_SET(CONCAT(r.region_id, ':', r.fencing_token), ?))";
+    private RegionLeaseManager regionFence;
+    private String unitRegionFence;
+
+    // Connection used only by the ingest writer thread
+    private Connection ingestConnection;
+
+    public JdbcFleetStore(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    /**
+     * Fence every fleet update with the given leader's lease, so writes from
+     * an instance that has lost leadership match no rows. Set before the
+     * engine starts.
+     */
+    public void setFence(LeaderElection leader) {
+        this.fence = leader;
+    }
+
+    /**
+     * Fence every fleet update with the given node's region leases. Set
+     * before the engine starts.
+     */
+    public void setFence(RegionLeaseManager leases) {
+        this.regionFence = leases;
+        this.unitRegionFence = " AND EXISTS (SELECT 1 FROM region_leases r WHERE r.region_id = "
+                + leases.getRegionMap().sqlRegionOf("ambulances.current_x", "ambulances.current_y") + " AND "
+                + HELD_LEASE;
+    }
+
+    // Fence an UPDATE of ambulances
+    private String fenced(String sql) {
+        if (regionFence != null) {
+            return sql + unitRegionFence;
+        }
+        return fence != null ? sql + FENCE : sql;
+    }
+
+    // Fence an UPDATE of accidents
+    private String fencedAccident(String sql) {
+        if (regionFence != null) {
+            return sql + " AND EXISTS (SELECT 1 FROM region_leases r WHERE " + HELD_LEASE;
+        }
+        return fence != null ? sql + FENCE : sql;
+    }
+
+    private void bindFence(PreparedStatement pstmt, int index) throws SQLException {
+        if (regionFence != null) {
+            pstmt.setString(index, regionFence.getNodeId());
+            pstmt.setString(index + 1, regionFence.getHeldLeases());
+        } else if (fence != null) {
+            pstmt.setString(index, fence.getNodeId());
+            pstmt.setLong(index + 1, fence.getFencingToken());
+        }
+    }
+
+    private PreparedStatement prepare(String sql) throws SQLException {
+        roundTrips.incrementAndGet();
+        return dbManager.getConnection().prepareStatement(sql);
+    }
+
+    private static final String ACCIDENT_COLUMNS = "a.accident_id, a.location, a.severity, a.description, " +
+            "a.latitude, a.longitude, a.risk_score, " +
+            "(SELECT COUNT(*) FROM patients p WHERE p.accident_id = a.accident_id) AS patient_count";
+
+    private List<Accident> readAccidents(PreparedStatement pstmt) throws SQLException {
+        List<Accident> accidents = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                accidents.add(new Accident(rs.getInt("accident_id"), rs.getString("location"),
+                        rs.getString("severity"), rs.getString("description"), rs.getDouble("latitude"),
+                        rs.getDouble("longitude"), rs.getInt("patient_count"), rs.getInt("risk_score")));
+            }
+        }
+        return accidents;
+    }
+
+    @Override
+    public List<Accident> findRecentAccidents(int limit) throws SQLException {
+        try (PreparedStatement pstmt = prepare("SELECT " + ACCIDENT_COLUMNS + " FROM accidents a " +
+                "ORDER BY a.accident_time DESC LIMIT ?")) {
+            pstmt.setInt(1, limit);
+            return readAccidents(pstmt);
+        }
+    }
+
+    @Override
+    public List<Accident> findUnresolvedAccidents(int withinMinutes) throws SQLException {
+        try (PreparedStatement pstmt = prepare("SELECT " + ACCIDENT_COLUMNS + " FROM accidents a " +
+                "WHERE a.status <> 'Resolved' AND a.accident_time > NOW() - INTERVAL ? MINUTE " +
+                "ORDER BY a.accident_id")) {
+            pstmt.setInt(1, withinMinutes);
+            return readAccidents(pstmt);
+        }
+    }
+
+    @Override
+    public List<Accident> findAccidentsAfter(int accidentId, int limit) throws SQLException {
+        try (PreparedStatement pstmt = prepare("SELECT " + ACCIDENT_COLUMNS + " FROM accidents a " +
+                "WHERE a.accident_id > ? ORDER BY a.accident_id LIMIT ?")) {
+            pstmt.setInt(1, accidentId);
+            pstmt.setInt(2, limit);
+            return readAccidents(pstmt);
+        }
+    }
+
+    private static final String UNIT_COLUMNS = "ambulance_id, status, current_x, current_y, target_x, target_y, " +
+            "assigned_accident_id, assigned_hospital_id, fuel_level";
+
+    private static Unit readUnit(ResultSet rs) throws SQLException {
+        return new Unit(rs.getInt("ambulance_id"), rs.getString("status"), rs.getInt("current_x"),
+                rs.getInt("current_y"), rs.getInt("target_x"), rs.getInt("target_y"),
+                rs.getInt("assigned_accident_id"), rs.getInt("assigned_hospital_id"), rs.getInt("fuel_level"));
+    }
+
+    @Override
+    public List<Unit> loadFleet() throws SQLException {
+        List<Unit> units = new ArrayList<>();
+        try (PreparedStatement pstmt = prepare("SELECT " + UNIT_COLUMNS + " FROM ambulances");
+                ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                units.add(readUnit(rs));
+            }
+        }
+        return units;
+    }
+
+    @Override
+    public List<Hospital> loadHospitals() throws SQLException {
+        List<Hospital> hospitals = new ArrayList<>();
+        try (PreparedStatement pstmt = prepare("SELECT hospital_id, name, x, y FROM hospitals");
+                ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                hospitals.add(new Hospital(rs.getInt("hospital_id"), rs.getString("name"), rs.getInt("x"),
+                        rs.getInt("y")));
+            }
+        }
+        return hospitals;
+    }
+
+    @Override
+    public List<Unit> findAvailableUnits(int minFuel, int minX, int minY, int maxX, int maxY)
+            throws SQLException {
+        List<Unit> units = new ArrayList<>();
+        // Range scan on idx_status_position
+        try (PreparedStatement pstmt = prepare("SELECT " + UNIT_COLUMNS + " FROM ambulances " +
+                "WHERE status = 'green' AND current_x BETWEEN ? AND ? AND current_y BETWEEN ? AND ? " +
+                "AND fuel_level >= ?")) {
+            pstmt.setInt(1, minX);
+            pstmt.setInt(2, maxX);
+            pstmt.setInt(3, minY);
+            pstmt.setInt(4, maxY);
+            pstmt.setInt(5, minFuel);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    units.add(readUnit(rs));
+                }
+            }
+        }
+        return units;
+    }
+
+    @Override
+    public boolean dispatch(int ambulanceId, int accidentId, int targetX, int targetY) throws SQLException {
+        try (PreparedStatement pstmt = prepare(fenced("UPDATE ambulances SET status = 'yellow', " +
+                "assigned_accident_id = ?, target_x = ?, target_y = ? " +
+                "WHERE ambulance_id = ? AND status = 'green'"))) {
+            pstmt.setInt(1, accidentId);
+            pstmt.setInt(2, targetX);
+            pstmt.setInt(3, targetY);
+            pstmt.setInt(4, ambulanceId);
+            bindFence(pstmt, 5);
+            return pstmt.executeUpdate() == 1;
+        }
+    }
+
+    @Override
+    public void manualDispatch(int ambulanceId, int accidentId) throws SQLException {
+        try (PreparedStatement pstmt = prepare("UPDATE ambulances SET status = 'yellow', " +
+                "assigned_accident_id = ? WHERE ambulance_id = ?")) {
+            pstmt.setInt(1, accidentId);
+            pstmt.setInt(2, ambulanceId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public List<Unit> findUnits(String status) throws SQLException {
+        List<Unit> units = new ArrayList<>();
+        try (PreparedStatement pstmt = prepare("SELECT " + UNIT_COLUMNS + " FROM ambulances " +
+                "WHERE status = ? AND assigned_accident_id IS NOT NULL")) {
+            pstmt.setString(1, status);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    units.add(readUnit(rs));
+                }
+            }
+        }
+        return units;
+    }
+
+    @Override
+    public void updatePosition(int ambulanceId, int x, int y, double latitude, double longitude)
+            throws SQLException {
+        try (PreparedStatement pstmt = prepare(fenced("UPDATE ambulances SET current_x = ?, current_y = ?, " +
+                "latitude = ?, longitude = ? WHERE ambulance_id = ?"))) {
+            pstmt.setInt(1, x);
+            pstmt.setInt(2, y);
+            pstmt.setDouble(3, latitude);
+            pstmt.setDouble(4, longitude);
+            pstmt.setInt(5, ambulanceId);
+            bindFence(pstmt, 6);
+            pstmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public void setStatus(int ambulanceId, String status) throws SQLException {
+        try (PreparedStatement pstmt = prepare(fenced("UPDATE ambulances SET status = ? WHERE ambulance_id = ?"))) {
+            pstmt.setString(1, status);
+            pstmt.setInt(2, ambulanceId);
+            bindFence(pstmt, 3);
+            pstmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public Hospital findNearestHospital(int x, int y) throws SQLException {
+        try (PreparedStatement pstmt = prepare("SELECT hospital_id, x, y, name FROM hospitals ORDER BY " +
+                "SQRT(POW(x - ?, 2) + POW(y - ?, 2)) LIMIT 1")) {
+            pstmt.setInt(1, x);
+            pstmt.setInt(2, y);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new Hospital(rs.getInt("hospital_id"), rs.getString("name"), rs.getInt("x"),
+                            rs.getInt("y"));
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Hospital findHospital(int hospitalId) throws SQLException {
+        try (PreparedStatement pstmt = prepare("SELECT hospital_id, name, x, y FROM hospitals WHERE hospital_id = ?")) {
+            pstmt.setInt(1, hospitalId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new Hospital(rs.getInt("hospital_id"), rs.getString("name"), rs.getInt("x"),
+                            rs.getInt("y"));
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void assignHospital(int ambulanceId, int hospitalId, int targetX, int targetY) throws SQLException {
+        try (PreparedStatement pstmt = prepare(fenced("UPDATE ambulances SET assigned_hospital_id = ?, " +
+                "target_x = ?, target_y = ? WHERE ambulance_id = ?"))) {
+            pstmt.setInt(1, hospitalId);
+            pstmt.setInt(2, targetX);
+            pstmt.setInt(3, targetY);
+            pstmt.setInt(4, ambulanceId);
+            bindFence(pstmt, 5);
+            pstmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public void completeMission(int ambulanceId) throws SQLException {
+        try (PreparedStatement pstmt = prepare(fenced("UPDATE ambulances SET status = 'green', " +
+                "assigned_accident_id = NULL, assigned_hospital_id = NULL WHERE ambulance_id = ?"))) {
+            pstmt.setInt(1, ambulanceId);
+            bindFence(pstmt, 2);
+            pstmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public void resolveAccident(int accidentId) throws SQLException {
+        try (PreparedStatement pstmt = prepare(fencedAccident("UPDATE accidents SET status = 'Resolved' " +
+                "WHERE accident_id = ?"))) {
+            pstmt.setInt(1, accidentId);
+            bindFence(pstmt, 2);
+            pstmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public void startRefuel(int ambulanceId, int targetX, int targetY) throws SQLException {
+        try (PreparedStatement pstmt = prepare(fenced("UPDATE ambulances SET status = 'yellow', " +
+                "assigned_accident_id = NULL, assigned_hospital_id = NULL, target_x = ?, target_y = ? " +
+                "WHERE ambulance_id = ?"))) {
+            pstmt.setInt(1, targetX);
+            pstmt.setInt(2, targetY);
+            pstmt.setInt(3, ambulanceId);
+            bindFence(pstmt, 4);
+            pstmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public void finishRefuel(int ambulanceId) throws SQLException {
+        try (PreparedStatement pstmt = prepare(fenced("UPDATE ambulances SET status = 'green', " +
+                "fuel_level = 100 WHERE ambulance_id = ?"))) {
+            pstmt.setInt(1, ambulanceId);
+            bindFence(pstmt, 2);
+            pstmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public void saveFuelLevels(Map<Integer, Integer> levels) throws SQLException {
+        if (levels.isEmpty()) {
+            return;
+        }
+        try (Connection conn = dbManager.openConnection();
+                PreparedStatement pstmt = conn.prepareStatement(
+                        fenced("UPDATE ambulances SET fuel_level = ? WHERE ambulance_id = ?"))) {
+            conn.setAutoCommit(false);
+            for (Map.Entry<Integer, Integer> entry : levels.entrySet()) {
+                pstmt.setInt(1, entry.getValue());
+                pstmt.setInt(2, entry.getKey());
+                bindFence(pstmt, 3);
+                pstmt.addBatch();
+            }
+            roundTrips.incrementAndGet();
+            pstmt.executeBatch();
+            conn.commit();
+        }
+    }
+
+    @Override
+    public void saveHandoff(Handoff handoff) throws SQLException {
+        MissionRecorder.Mission m = handoff.mission;
+        try (PreparedStatement pstmt = prepare("REPLACE INTO ambulance_handoffs (ambulance_id, to_region, " +
+                "current_x, current_y, target_x, target_y, refuelling, fuel_level, accident_id, severity, location, " +
+                "hospital_id, dispatch_time, arrival_time, scene_departure_time, response_distance, " +
+                "transport_distance) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            pstmt.setInt(1, handoff.ambulanceId);
+            pstmt.setInt(2, handoff.toRegion);
+            pstmt.setInt(3, handoff.currentX);
+            pstmt.setInt(4, handoff.currentY);
+            pstmt.setInt(5, handoff.targetX);
+            pstmt.setInt(6, handoff.targetY);
+            pstmt.setBoolean(7, handoff.refuelling);
+            pstmt.setDouble(8, handoff.fuelLevel);
+            if (m != null) {
+                pstmt.setInt(9, m.accidentId);
+                pstmt.setString(10, m.severity);
+                pstmt.setString(11, m.location);
+                pstmt.setInt(12, m.hospitalId);
+                pstmt.setLong(13, m.dispatchTime);
+                pstmt.setLong(14, m.arrivalTime);
+                pstmt.setLong(15, m.sceneDepartureTime);
+                pstmt.setDouble(16, m.responseDistance);
+                pstmt.setDouble(17, m.transportDistance);
+            } else {
+                for (int i = 9; i <= 17; i++) {
+                    pstmt.setNull(i, Types.NULL);
+                }
+            }
+            pstmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public List<Handoff> claimHandoffs(Collection<Integer> regions) throws SQLException {
+        List<Handoff> claimed = new ArrayList<>();
+        if (regions.isEmpty()) {
+            return claimed;
+        }
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < regions.size(); i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+
+        List<Handoff> waiting = new ArrayList<>();
+        try (PreparedStatement pstmt = prepare("SELECT * FROM ambulance_handoffs WHERE to_region IN (" +
+                placeholders + ")")) {
+            int index = 1;
+            for (int region : regions) {
+                pstmt.setInt(index++, region);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    MissionRecorder.Mission mission = null;
+                    int accidentId = rs.getInt("accident_id");
+                    if (!rs.wasNull()) {
+                        mission = new MissionRecorder.Mission(accidentId, rs.getInt("ambulance_id"),
+                                rs.getString("severity"), rs.getString("location"), rs.getLong("dispatch_time"));
+                        mission.hospitalId = rs.getInt("hospital_id");
+                        mission.arrivalTime = rs.getLong("arrival_time");
+                        mission.sceneDepartureTime = rs.getLong("scene_departure_time");
+                        mission.responseDistance = rs.getDouble("response_distance");
+                        mission.transportDistance = rs.getDouble("transport_distance");
+                    }
+                    waiting.add(new Handoff(rs.getInt("ambulance_id"), rs.getInt("to_region"),
+                            rs.getInt("current_x"), rs.getInt("current_y"), rs.getInt("target_x"),
+                            rs.getInt("target_y"), rs.getBoolean("refuelling"), rs.getDouble("fuel_level"),
+                            mission));
+                }
+            }
+        }
+
+        // Deleting the row is the claim - only the caller whose delete succeeds takes the unit
+        for (Handoff handoff : waiting) {
+            try (PreparedStatement pstmt = prepare("DELETE FROM ambulance_handoffs " +
+                    "WHERE ambulance_id = ? AND to_region = ?")) {
+                pstmt.setInt(1, handoff.ambulanceId);
+                pstmt.setInt(2, handoff.toRegion);
+                if (pstmt.executeUpdate() == 1) {
+                    claimed.add(handoff);
+                }
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public void saveMissions(List<MissionRecorder.Mission> arrivals, List<MissionRecorder.Mission> completed)
+            throws SQLException {
+        try (Connection conn = dbManager.openConnection()) {
+            conn.setAutoCommit(false);
+            writeResponseTimes(conn, arrivals);
+            writeIncidentReports(conn, completed);
+            conn.commit();
+        }
+    }
+
+    private void writeResponseTimes(Connection conn, List<MissionRecorder.Mission> arrivals) throws SQLException {
+        if (arrivals.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO response_times (accident_id, ambulance_id, dispatch_time, arrival_time, " +
+                "response_time_seconds, distance_meters, severity, location) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (MissionRecorder.Mission m : arrivals) {
+                pstmt.setInt(1, m.accidentId);
+                pstmt.setInt(2, m.ambulanceId);
+                pstmt.setTimestamp(3, new Timestamp(m.dispatchTime));
+                pstmt.setTimestamp(4, new Timestamp(m.arrivalTime));
+                pstmt.setInt(5, m.responseTimeSeconds());
+                pstmt.setInt(6, (int) Math.round(m.responseDistance * MissionRecorder.METERS_PER_GRID_UNIT));
+                pstmt.setString(7, m.severity);
+                pstmt.setString(8, m.location);
+                pstmt.addBatch();
+            }
+            roundTrips.incrementAndGet();
+            pstmt.executeBatch();
+        }
+    }
+
+    private void writeIncidentReports(Connection conn, List<MissionRecorder.Mission> completed)
+            throws SQLException {
+        if (completed.isEmpty()) {
+            return;
+        }
+        // Pre-filled reports: created_by stays NULL until an operator completes them
+        String sql = "INSERT INTO incident_reports (accident_id, ambulance_id, hospital_id, dispatch_time, " +
+                "arrival_time, scene_departure_time, hospital_arrival_time, response_time_minutes, " +
+                "total_time_minutes, distance_km) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (MissionRecorder.Mission m : completed) {
+                double km = (m.responseDistance + m.transportDistance) * MissionRecorder.METERS_PER_GRID_UNIT
+                        / 1000.0;
+                pstmt.setInt(1, m.accidentId);
+                pstmt.setInt(2, m.ambulanceId);
+                pstmt.setInt(3, m.hospitalId);
+                pstmt.setTimestamp(4, new Timestamp(m.dispatchTime));
+                pstmt.setTimestamp(5, new Timestamp(m.arrivalTime));
+                pstmt.setTimestamp(6, new Timestamp(m.sceneDepartureTime));
+                pstmt.setTimestamp(7, new Timestamp(m.hospitalArrivalTime));
+                pstmt.setInt(8, (int) Math.round(m.responseTimeSeconds() / 60.0));
+                pstmt.setInt(9, (int) Math.round(m.totalTimeSeconds() / 60.0));
+                pstmt.setDouble(10, Math.round(km * 100) / 100.0);
+                pstmt.addBatch();
+            }
+            roundTrips.incrementAndGet();
+            pstmt.executeBatch();
+        }
+    }
+
+    @Override
+    public List<Integer> saveDetections(List<Detection> inserts, List<ReportMerge> merges) throws SQLException {
+        List<Integer> ids = new ArrayList<>(inserts.size());
+        if (inserts.isEmpty() && merges.isEmpty()) {
+            return ids;
+        }
+        openIngestConnection();
+        try {
+            insertAccidents(inserts, ids);
+            mergeReports(merges);
+            insertDetectionIds(inserts, ids, merges);
+            ingestConnection.commit();
+            return ids;
+        } catch (SQLException e) {
+            closeIngestConnection();
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<String, Integer> findDetections(Collection<String> detectionIds) throws SQLException {
+        Map<String, Integer> found = new HashMap<>();
+        if (detectionIds.isEmpty()) {
+            return found;
+        }
+        openIngestConnection();
+        String sql = "SELECT detection_id, accident_id FROM detection_ids WHERE detection_id IN ("
+                + String.join(",", Collections.nCopies(detectionIds.size(), "?")) + ")";
+        try (PreparedStatement pstmt = ingestConnection.prepareStatement(sql)) {
+            int i = 1;
+            for (String id : detectionIds) {
+                pstmt.setString(i++, id);
+            }
+            roundTrips.incrementAndGet();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    found.put(rs.getString(1), rs.getInt(2));
+                }
+            }
+            // End the read so the next one sees rows committed since
+            ingestConnection.commit();
+            return found;
+        } catch (SQLException e) {
+            closeIngestConnection();
+            throw e;
+        }
+    }
+
+    // Kept open between batches; the ingest writer commits many times a second
+    private void openIngestConnection() throws SQLException {
+        if (ingestConnection == null || ingestConnection.isClosed()) {
+            ingestConnection = dbManager.openBatchConnection();
+            ingestConnection.setAutoCommit(false);
+        }
+    }
+
+    private void closeIngestConnection() {
+        try {
+            ingestConnection.close();
+        } catch (SQLException ignored) {
+        }
+        ingestConnection = null;
+    }
+
+    private void insertAccidents(List<Detection> detections, List<Integer> ids) throws SQLException {
+        if (detections.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO accidents (location, latitude, longitude, vehicle_id, severity, description, " +
+                "reported_by, report_count, detection_id, risk_score) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = ingestConnection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Detection d : detections) {
+                pstmt.setString(1, d.location);
+                pstmt.setDouble(2, d.latitude);
+                pstmt.setDouble(3, d.longitude);
+                pstmt.setString(4, d.vehicleId);
+                pstmt.setString(5, d.severity);
+                pstmt.setString(6, d.description);
+                pstmt.setString(7, d.reportedBy);
+                pstmt.setInt(8, d.reports);
+                pstmt.setString(9, d.detectionId);
+                if (d.riskScore > 0) {
+                    pstmt.setInt(10, d.riskScore);
+                } else {
+                    pstmt.setNull(10, Types.INTEGER);
+                }
+                pstmt.addBatch();
+            }
+            roundTrips.incrementAndGet();
+            pstmt.executeBatch();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                while (keys.next()) {
+                    ids.add(keys.getInt(1));
+                }
+            }
+        }
+    }
+
+    private void mergeReports(List<ReportMerge> merges) throws SQLException {
+        if (merges.isEmpty()) {
+            return;
+        }
+        // Severity only ever goes up, whatever an operator set in the meantime
+        String sql = "UPDATE accidents SET report_count = report_count + ?, severity = CASE " +
+                "WHEN FIELD(?, 'Low', 'Medium', 'High', 'Critical') > FIELD(severity, 'Low', 'Medium', 'High', " +
+                "'Critical') THEN ? ELSE severity END, risk_score = GREATEST(COALESCE(risk_score, 0), ?) " +
+                "WHERE accident_id = ?";
+        try (PreparedStatement pstmt = ingestConnection.prepareStatement(sql)) {
+            for (ReportMerge merge : merges) {
+                pstmt.setInt(1, merge.addedReports);
+                pstmt.setString(2, merge.severity);
+                pstmt.setString(3, merge.severity);
+                pstmt.setInt(4, merge.riskScore);
+                pstmt.setInt(5, merge.accidentId);
+                pstmt.addBatch();
+            }
+            roundTrips.incrementAndGet();
+            pstmt.executeBatch();
+        }
+    }
+
+    // Every id of the batch, merged reports included, so a retry of any of them is found
+    private void insertDetectionIds(List<Detection> inserts, List<Integer> ids, List<ReportMerge> merges)
+            throws SQLException {
+        String sql = "INSERT INTO detection_ids (detection_id, accident_id) VALUES (?, ?)";
+        try (PreparedStatement pstmt = ingestConnection.prepareStatement(sql)) {
+            int rows = 0;
+            for (int i = 0; i < inserts.size(); i++) {
+                for (String id : inserts.get(i).allIds()) {
+                    pstmt.setString(1, id);
+                    pstmt.setInt(2, ids.get(i));
+                    pstmt.addBatch();
+                    rows++;
+                }
+            }
+            for (ReportMerge merge : merges) {
+                for (String id : merge.detectionIds) {
+                    pstmt.setString(1, id);
+                    pstmt.setInt(2, merge.accidentId);
+                    pstmt.addBatch();
+                    rows++;
+                }
+            }
+            if (rows > 0) {
+                roundTrips.incrementAndGet();
+                pstmt.executeBatch();
+            }
+        }
+    }
+
+    @Override
+    public long getRoundTrips() {
+        return roundTrips.get();
+    }
+}
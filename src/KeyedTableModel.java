@@ -0,0 +1,104 @@
+import javax.swing.table.DefaultTableModel;
+import java.util.*;
+
+/**
+ * KeyedTableModel - Read-only table model for periodically refreshed
+ * views. Instead of clearing the table and adding every row again, update
+ * compares the new rows with the current ones by the primary key in the
+ * first column and fires one event per changed row: deleted rows, rows
+ * whose cells changed, and inserted rows. Unchanged rows fire nothing, so
+ * a refresh that finds nothing new repaints nothing and the user's
+ * selection and scroll position survive it.
+ */
+public class KeyedTableModel extends DefaultTableModel {
+    private int lastChanges = 0;
+
+    public KeyedTableModel(String[] columns) {
+        super(columns, 0);
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    /**
+     * Make the table show these rows, in this order, keyed by their first
+     * value. Must be called on the event dispatch thread.
+     *
+     * @return rows inserted, updated, moved or deleted
+     * @throws IllegalArgumentException if two rows have the same key
+     */
+    public int update(List<Object[]> rows) {
+        Set<Object> keys = new HashSet<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            if (!keys.add(row[0])) {
+                throw new IllegalArgumentException("Duplicate row key " + row[0]);
+            }
+        }
+
+        int changes = 0;
+        // Deletions first, from the bottom so indexes stay valid
+        for (int i = getRowCount() - 1; i >= 0; i--) {
+            if (!keys.contains(keyAt(i))) {
+                removeRow(i);
+                changes++;
+            }
+        }
+
+        Set<Object> present = new HashSet<>(getRowCount() * 2);
+        for (int i = 0; i < getRowCount(); i++) {
+            present.add(keyAt(i));
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            if (i < getRowCount() && Objects.equals(keyAt(i), row[0])) {
+                if (replaceCells(i, row)) {
+                    fireTableRowsUpdated(i, i);
+                    changes++;
+                }
+            } else if (present.contains(row[0])) {
+                // Row moved up past rows that now come after it
+                int from = i + 1;
+                while (!Objects.equals(keyAt(from), row[0])) {
+                    from++;
+                }
+                moveRow(from, from, i);
+                replaceCells(i, row);
+                changes++;
+            } else {
+                insertRow(i, row);
+                present.add(row[0]);
+                changes++;
+            }
+        }
+        lastChanges = changes;
+        return changes;
+    }
+
+    /**
+     * Rows changed by the last update
+     */
+    public int getLastChangeCount() {
+        return lastChanges;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object keyAt(int row) {
+        return ((Vector<Object>) dataVector.get(row)).get(0);
+    }
+
+    // Copy the new values into a row without firing; true if any differed
+    @SuppressWarnings("unchecked")
+    private boolean replaceCells(int index, Object[] row) {
+        Vector<Object> current = (Vector<Object>) dataVector.get(index);
+        boolean changed = false;
+        for (int c = 0; c < current.size() && c < row.length; c++) {
+            if (!Objects.equals(current.get(c), row[c])) {
+                current.set(c, row[c]);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+}
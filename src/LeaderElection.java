@@ -0,0 +1,221 @@
+import java.sql.*;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * LeaderElection - Makes sure only one running copy of the application
+ * moves the fleet. The single dispatch_leader row holds the current leader
+ * and its lease; every instance heartbeats each second, the leader renews
+ * its lease and the others try to take it once it has expired. A leader
+ * that exits cleanly releases the row so a follower takes over on its next
+ * heartbeat; one that dies is replaced once its lease runs out (under 5 s).
+ *
+ * Taking the lease bumps fencing_token. JdbcFleetStore adds the token to
+ * every fleet update while a fence is set, so a leader that was paused past
+ * its lease cannot overwrite the new leader's work.
+ */
+public class LeaderElection implements DispatchOwnership {
+    public static final long LEASE_TTL_MS = 3000;
+    private static final long HEARTBEAT_MS = 1000;
+
+    // Stop acting this long before the lease could expire on the server
+    private static final long SAFETY_MARGIN_MS = 500;
+
+    // The leader owns the whole city as a single region
+    private static final RegionMap WHOLE_CITY = new RegionMap(1);
+    private static final Set<Integer> ALL_REGIONS = Collections.singleton(0);
+
+    private final DatabaseManager dbManager;
+    private final String nodeId;
+
+    private volatile boolean leader = false;
+    private volatile long fencingToken = 0;
+    private volatile long lastRenewalNanos = 0;
+    private volatile String leaderNode;
+
+    private Connection conn;
+    private ScheduledExecutorService heartbeat;
+
+    public LeaderElection(DatabaseManager dbManager, String nodeId) {
+        this.dbManager = dbManager;
+        this.nodeId = nodeId != null ? nodeId : RegionLeaseManager.defaultNodeId();
+    }
+
+    /**
+     * Create the leader row if needed and start heartbeating
+     */
+    @Override
+    public void start() {
+        if (heartbeat != null) {
+            return;
+        }
+        try (PreparedStatement pstmt = connection().prepareStatement(
+                "INSERT IGNORE INTO dispatch_leader (id) VALUES (1)")) {
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("[LeaderElection] Error preparing leader lease: " + e.getMessage());
+        }
+
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "leader-election");
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, 0, HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+        System.out.println("[LeaderElection] Node " + nodeId + " joining");
+    }
+
+    /**
+     * Stop heartbeating and release the lease if we hold it
+     */
+    @Override
+    public void stop() {
+        if (heartbeat == null) {
+            return;
+        }
+        heartbeat.shutdown();
+        try {
+            heartbeat.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        heartbeat = null;
+
+        if (leader) {
+            leader = false;
+            lastRenewalNanos = 0;
+            try (PreparedStatement pstmt = connection().prepareStatement("UPDATE dispatch_leader SET " +
+                    "leader_node = NULL, lease_expires = NULL WHERE id = 1 AND leader_node = ? AND fencing_token = ?")) {
+                pstmt.setString(1, nodeId);
+                pstmt.setLong(2, fencingToken);
+                pstmt.executeUpdate();
+            } catch (SQLException e) {
+                System.err.println("[LeaderElection] Error releasing leadership: " + e.getMessage());
+            }
+        }
+        try {
+            if (conn != null) {
+                conn.close();
+            }
+        } catch (SQLException ignored) {
+        }
+        conn = null;
+        System.out.println("[LeaderElection] Node " + nodeId + " left");
+    }
+
+    private Connection connection() throws SQLException {
+        if (conn == null || conn.isClosed()) {
+            conn = dbManager.openConnection();
+        }
+        return conn;
+    }
+
+    /**
+     * One heartbeat: renew our lease, or take it over if it has expired
+     */
+    private void heartbeat() {
+        try {
+            Connection c = connection();
+            long started = System.nanoTime();
+            boolean wasLeader = leader;
+            boolean isLeader;
+
+            if (wasLeader) {
+                try (PreparedStatement pstmt = c.prepareStatement("UPDATE dispatch_leader SET " +
+                        "lease_expires = TIMESTAMPADD(MICROSECOND, ?, NOW(3)) " +
+                        "WHERE id = 1 AND leader_node = ? AND fencing_token = ?")) {
+                    pstmt.setLong(1, LEASE_TTL_MS * 1000);
+                    pstmt.setString(2, nodeId);
+                    pstmt.setLong(3, fencingToken);
+                    isLeader = pstmt.executeUpdate() == 1;
+                }
+            } else {
+                try (PreparedStatement pstmt = c.prepareStatement("UPDATE dispatch_leader SET leader_node = ?, " +
+                        "lease_expires = TIMESTAMPADD(MICROSECOND, ?, NOW(3)), fencing_token = fencing_token + 1 " +
+                        "WHERE id = 1 AND (leader_node IS NULL OR lease_expires IS NULL OR lease_expires < NOW(3))")) {
+                    pstmt.setString(1, nodeId);
+                    pstmt.setLong(2, LEASE_TTL_MS * 1000);
+                    isLeader = pstmt.executeUpdate() == 1;
+                }
+            }
+
+            try (PreparedStatement pstmt = c.prepareStatement(
+                    "SELECT leader_node, fencing_token FROM dispatch_leader WHERE id = 1");
+                    ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    leaderNode = rs.getString("leader_node");
+                    if (isLeader) {
+                        fencingToken = rs.getLong("fencing_token");
+                    }
+                }
+            }
+
+            if (isLeader) {
+                lastRenewalNanos = started;
+            }
+            leader = isLeader;
+            if (isLeader != wasLeader) {
+                System.out.println(isLeader
+                        ? "[LeaderElection] Node " + nodeId + " is now leader (token " + fencingToken + ")"
+                        : "[LeaderElection] Node " + nodeId + " lost leadership to " + leaderNode);
+            }
+        } catch (SQLException e) {
+            System.err.println("[LeaderElection] Heartbeat failed: " + e.getMessage());
+            try {
+                if (conn != null) {
+                    conn.close();
+                }
+            } catch (SQLException ignored) {
+            }
+            conn = null;
+        }
+    }
+
+    /**
+     * True while we hold the lease and the last renewal is recent enough that
+     * no follower can have taken over
+     */
+    @Override
+    public boolean isLeaseValid() {
+        long renewed = lastRenewalNanos;
+        return leader && renewed != 0
+                && System.nanoTime() - renewed < TimeUnit.MILLISECONDS.toNanos(LEASE_TTL_MS - SAFETY_MARGIN_MS);
+    }
+
+    public boolean isLeader() {
+        return isLeaseValid();
+    }
+
+    /**
+     * The whole city while leading, nothing while following
+     */
+    @Override
+    public Set<Integer> getOwnedRegions() {
+        return isLeaseValid() ? ALL_REGIONS : Collections.emptySet();
+    }
+
+    /**
+     * Token of the lease we hold, used to fence fleet updates
+     */
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    /**
+     * Node currently holding the lease as of the last heartbeat, or null
+     */
+    public String getLeaderNode() {
+        return leaderNode;
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public RegionMap getRegionMap() {
+        return WHOLE_CITY;
+    }
+}
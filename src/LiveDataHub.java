@@ -0,0 +1,445 @@
+import javax.swing.*;
+import java.awt.Component;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * LiveDataHub - Single source of the live data shown by the console
+ * windows. Each Topic is one query that the hub runs on its own thread at
+ * the topic's interval, or straight away after refresh(topic) when a
+ * window has just changed the data. The result is published as an
+ * immutable Snapshot to every subscribed window on the event dispatch
+ * thread, and only when it differs from the previous one.
+ *
+ * A topic is only queried while at least one of its subscribers is on
+ * screen, and once per interval however many are, so the database load
+ * no longer grows with the number of open windows. Topics over the
+ * fleet's tables ask only for rows changed since their last query, so
+ * an idle fleet costs a clock read per interval rather than its tables.
+ * Subscriptions end on their own when the subscribing component's window
+ * is disposed. Services with no window of their own subscribe with a
+ * condition instead, and cancel their subscriptions when they stop.
+ */
+public class LiveDataHub {
+    private static LiveDataHub instance;
+
+    private static final long TICK_MS = 250;
+    // Delta queries do not see deletions, so delta topics are read whole this often
+    private static final long FULL_RELOAD_MS = 300_000;
+
+    /**
+     * Shared query and how often it is repeated while someone is watching.
+     * Topics over DatabaseManager.VERSIONED_TABLES are delta topics: their
+     * query filters on updated_at and the hub merges the changed rows into
+     * its copy by key, kept in the order the comparator gives and cut to
+     * the limit. The others are small aggregates read whole.
+     */
+    public enum Topic {
+        ACCIDENTS(3000, "SELECT accident_id, location, severity, latitude, longitude, accident_time, risk_score " +
+                "FROM accidents WHERE updated_at > ? ORDER BY accident_time DESC, accident_id DESC LIMIT 20",
+                "accident_id", byTime("accident_time", "accident_id"), 20),
+        // Every accident of the last 12 hours, for the clustered live map
+        SHIFT_ACCIDENTS(3000, "SELECT accident_id, location, severity, latitude, longitude, accident_time " +
+                "FROM accidents WHERE updated_at > ? AND accident_time >= NOW() - INTERVAL 12 HOUR " +
+                "ORDER BY accident_id", "accident_id", byInt("accident_id"), 0),
+        AMBULANCES(3000, "SELECT a.ambulance_id, a.vehicle_number, a.status, a.current_x, a.current_y, " +
+                "a.latitude, a.longitude, a.fuel_level, d.name AS driver_name FROM ambulances a " +
+                "LEFT JOIN drivers d ON a.driver_id = d.driver_id " +
+                "WHERE a.updated_at > ? OR d.updated_at > ? ORDER BY a.ambulance_id",
+                "ambulance_id", byInt("ambulance_id"), 0),
+        HOSPITALS(3000, "SELECT * FROM hospitals WHERE updated_at > ? ORDER BY hospital_id",
+                "hospital_id", byInt("hospital_id"), 0),
+        DRIVERS(15000, "SELECT d.*, a.vehicle_number FROM drivers d " +
+                "LEFT JOIN ambulances a ON d.ambulance_id = a.ambulance_id " +
+                "WHERE d.updated_at > ? OR a.updated_at > ? ORDER BY d.name, d.driver_id",
+                "driver_id", Comparator.comparing((Row r) -> r.getString("name"),
+                        Comparator.nullsFirst(Comparator.<String>naturalOrder())).thenComparing(byInt("driver_id")),
+                0),
+        MAINTENANCE(15000, "SELECT vm.*, a.vehicle_number FROM vehicle_maintenance vm " +
+                "JOIN ambulances a ON vm.ambulance_id = a.ambulance_id " +
+                "WHERE vm.status IN ('Scheduled', 'In Progress') ORDER BY vm.service_date"),
+        MESSAGES(5000, "SELECT m.*, u.username FROM messages m LEFT JOIN users u ON m.sender_id = u.id " +
+                "WHERE m.updated_at > ? ORDER BY m.sent_at DESC, m.id DESC LIMIT 50",
+                "id", byTime("sent_at", "id"), 50),
+        STATS(3000, "SELECT (SELECT COUNT(*) FROM accidents) AS total_accidents, " +
+                "(SELECT COUNT(*) FROM ambulances WHERE status = 'green') AS available_ambulances, " +
+                "(SELECT COUNT(*) FROM ambulances WHERE status <> 'green') AS active_ambulances, " +
+                "(SELECT COUNT(*) FROM patients WHERE DATE(created_at) = CURDATE()) AS patients_today, " +
+                "(SELECT AVG(response_time_seconds) FROM response_times) AS avg_response_seconds"),
+        SEVERITY_COUNTS(30000, "SELECT severity, COUNT(*) AS cnt FROM accidents GROUP BY severity"),
+        DAILY_RESPONSE_TIMES(30000, "SELECT DATE(dispatch_time) AS day, AVG(response_time_seconds) AS avg_rt " +
+                "FROM response_times WHERE dispatch_time >= CURDATE() - INTERVAL 6 DAY " +
+                "GROUP BY DATE(dispatch_time) ORDER BY day");
+
+        final long intervalMs;
+        final String sql;
+        final String key;
+        final Comparator<Row> order;
+        final int limit;
+
+        Topic(long intervalMs, String sql) {
+            this(intervalMs, sql, null, null, 0);
+        }
+
+        Topic(long intervalMs, String sql, String key, Comparator<Row> order, int limit) {
+            this.intervalMs = intervalMs;
+            this.sql = sql;
+            this.key = key;
+            this.order = order;
+            this.limit = limit;
+        }
+
+        boolean isDelta() {
+            return key != null;
+        }
+    }
+
+    private static Comparator<Row> byInt(String column) {
+        return Comparator.comparingInt(r -> r.getInt(column));
+    }
+
+    // Newest first, as ORDER BY time DESC, id DESC
+    private static Comparator<Row> byTime(String column, String id) {
+        return Comparator.comparing((Row r) -> r.getTimestamp(column),
+                Comparator.nullsLast(Comparator.<Timestamp>reverseOrder()))
+                .thenComparing(byInt(id).reversed());
+    }
+
+    /**
+     * One row of a snapshot, by lower-case column label
+     */
+    public static class Row {
+        private final Map<String, Object> values;
+
+        Row(Map<String, Object> values) {
+            this.values = Collections.unmodifiableMap(values);
+        }
+
+        public Object get(String column) {
+            return values.get(column);
+        }
+
+        public int getInt(String column) {
+            Object value = values.get(column);
+            return value instanceof Number ? ((Number) value).intValue() : 0;
+        }
+
+        public double getDouble(String column) {
+            Object value = values.get(column);
+            return value instanceof Number ? ((Number) value).doubleValue() : 0;
+        }
+
+        public String getString(String column) {
+            Object value = values.get(column);
+            return value == null ? null : value.toString();
+        }
+
+        public Timestamp getTimestamp(String column) {
+            return (Timestamp) values.get(column);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Row && values.equals(((Row) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return values.hashCode();
+        }
+    }
+
+    /**
+     * Result of one run of a topic's query
+     */
+    public static class Snapshot {
+        public final Topic topic;
+        public final List<Row> rows;
+        public final long fetchedAtMs;
+
+        Snapshot(Topic topic, List<Row> rows, long fetchedAtMs) {
+            this.topic = topic;
+            this.rows = Collections.unmodifiableList(rows);
+            this.fetchedAtMs = fetchedAtMs;
+        }
+
+        /**
+         * First row, for single-row topics such as STATS; null if empty
+         */
+        public Row first() {
+            return rows.isEmpty() ? null : rows.get(0);
+        }
+    }
+
+    /**
+     * Handle returned by subscribe
+     */
+    public class Subscription {
+        final Topic topic;
+        final Component owner;
+        final BooleanSupplier watching;
+        final Consumer<Snapshot> listener;
+        boolean wasDisplayable = false;
+
+        Subscription(Topic topic, Component owner, BooleanSupplier watching, Consumer<Snapshot> listener) {
+            this.topic = topic;
+            this.owner = owner;
+            this.watching = watching;
+            this.listener = listener;
+        }
+
+        public void cancel() {
+            subscriptions.remove(this);
+        }
+    }
+
+    private final DatabaseManager dbManager;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Map<Topic, Snapshot> latest = new EnumMap<>(Topic.class);
+    private final long[] lastFetchMs = new long[Topic.values().length];
+    private final boolean[] requested = new boolean[Topic.values().length];
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong rowsRead = new AtomicLong();
+
+    // Delta topics, used on the poller thread only: rows by key, and the marks of the last queries
+    private final Map<Topic, Map<Object, Row>> known = new EnumMap<>(Topic.class);
+    private final Timestamp[] highWater = new Timestamp[Topic.values().length];
+    private final long[] lastFullMs = new long[Topic.values().length];
+    private ScheduledExecutorService poller;
+
+    private LiveDataHub() {
+        this.dbManager = DatabaseManager.getInstance();
+    }
+
+    public static synchronized LiveDataHub getInstance() {
+        if (instance == null) {
+            instance = new LiveDataHub();
+        }
+        return instance;
+    }
+
+    /**
+     * Receive every new snapshot of a topic on the event dispatch thread,
+     * starting with the latest one if there is one
+     *
+     * @param owner component showing the data; the topic is only polled
+     *              while it is on screen, and the subscription ends when
+     *              its window is disposed
+     */
+    public Subscription subscribe(Topic topic, Component owner, Consumer<Snapshot> listener) {
+        return subscribe(new Subscription(topic, owner, owner::isShowing, listener));
+    }
+
+    /**
+     * Subscribe without a component: the topic is polled while watching
+     * returns true, and the subscription lasts until cancelled
+     */
+    public Subscription subscribe(Topic topic, BooleanSupplier watching, Consumer<Snapshot> listener) {
+        return subscribe(new Subscription(topic, null, watching, listener));
+    }
+
+    private Subscription subscribe(Subscription subscription) {
+        Topic topic = subscription.topic;
+        Consumer<Snapshot> listener = subscription.listener;
+        subscriptions.add(subscription);
+        Snapshot current;
+        synchronized (this) {
+            current = latest.get(topic);
+            requested[topic.ordinal()] |= current == null;
+        }
+        if (current != null) {
+            SwingUtilities.invokeLater(() -> listener.accept(current));
+        }
+        start();
+        return subscription;
+    }
+
+    /**
+     * Query these topics again now, e.g. after a window has changed them
+     */
+    public void refresh(Topic... topics) {
+        synchronized (this) {
+            for (Topic topic : topics) {
+                requested[topic.ordinal()] = true;
+            }
+        }
+        ScheduledExecutorService p = poller;
+        if (p != null) {
+            p.execute(this::poll);
+        }
+    }
+
+    /**
+     * Latest snapshot of a topic, or null before its first query
+     */
+    public synchronized Snapshot getLatest(Topic topic) {
+        return latest.get(topic);
+    }
+
+    /**
+     * Queries sent since startup, for checking that load does not grow with open windows
+     */
+    public long getQueryCount() {
+        return queries.get();
+    }
+
+    /**
+     * Live subscriptions, for checking that windows and services do not leak them
+     */
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Rows received from the database since startup; stays flat while nothing changes
+     */
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    private synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "live-data-hub");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(this::poll, 0, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop polling; subscribing again restarts it
+     */
+    public synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+            System.out.println("[LiveDataHub] Stopped after " + queries.get() + " queries");
+        }
+    }
+
+    // Runs on the poller thread only
+    private void poll() {
+        long now = System.currentTimeMillis();
+        boolean[] watched = new boolean[Topic.values().length];
+        for (Subscription s : subscriptions) {
+            // Service subscriptions have no window and last until cancelled
+            if (s.owner != null && s.owner.isDisplayable()) {
+                s.wasDisplayable = true;
+            } else if (s.owner != null && s.wasDisplayable) {
+                // Window disposed
+                subscriptions.remove(s);
+                continue;
+            }
+            watched[s.topic.ordinal()] |= s.watching.getAsBoolean();
+        }
+
+        for (Topic topic : Topic.values()) {
+            int i = topic.ordinal();
+            boolean due;
+            synchronized (this) {
+                due = requested[i] || (watched[i] && now - lastFetchMs[i] >= topic.intervalMs);
+                requested[i] = false;
+            }
+            if (!due) {
+                continue;
+            }
+            lastFetchMs[i] = now;
+            try {
+                Snapshot snapshot = topic.isDelta() ? fetchChanges(topic, now) : fetch(topic);
+                if (snapshot != null) {
+                    publish(snapshot);
+                }
+            } catch (SQLException | RuntimeException e) {
+                // An exception escaping poll() would cancel the schedule for good
+                System.err.println("[LiveDataHub] Error loading " + topic + ": " + e);
+            }
+        }
+    }
+
+    private Snapshot fetch(Topic topic) throws SQLException {
+        List<Row> rows = new ArrayList<>();
+        queries.incrementAndGet();
+        try (Statement stmt = dbManager.getConnection().createStatement();
+                ResultSet rs = stmt.executeQuery(topic.sql)) {
+            ResultSetMetaData meta = rs.getMetaData();
+            int columns = meta.getColumnCount();
+            while (rs.next()) {
+                Map<String, Object> values = new HashMap<>(columns * 2);
+                for (int c = 1; c <= columns; c++) {
+                    values.put(meta.getColumnLabel(c).toLowerCase(Locale.ROOT), normalize(rs.getObject(c)));
+                }
+                rows.add(new Row(values));
+            }
+        }
+        rowsRead.addAndGet(rows.size());
+        return new Snapshot(topic, rows, System.currentTimeMillis());
+    }
+
+    // Merge the rows changed since the last query; null when none came back
+    private Snapshot fetchChanges(Topic topic, long now) throws SQLException {
+        int i = topic.ordinal();
+        boolean full = highWater[i] == null || now - lastFullMs[i] >= FULL_RELOAD_MS;
+        queries.incrementAndGet();
+        DatabaseManager.Delta delta = dbManager.queryChangedSince(topic.sql, full ? null : highWater[i]);
+        highWater[i] = delta.highWater;
+        rowsRead.addAndGet(delta.rows.size());
+
+        Map<Object, Row> rowsByKey = known.computeIfAbsent(topic, t -> new HashMap<>());
+        if (full) {
+            rowsByKey.clear();
+            lastFullMs[i] = now;
+        } else if (delta.rows.isEmpty()) {
+            return null;
+        }
+        for (Map<String, Object> values : delta.rows) {
+            values.replaceAll((column, value) -> normalize(value));
+            rowsByKey.put(values.get(topic.key), new Row(values));
+        }
+
+        List<Row> rows = new ArrayList<>(rowsByKey.values());
+        rows.sort(topic.order);
+        if (topic.limit > 0 && rows.size() > topic.limit) {
+            for (Row dropped : rows.subList(topic.limit, rows.size())) {
+                rowsByKey.remove(dropped.get(topic.key));
+            }
+            rows = new ArrayList<>(rows.subList(0, topic.limit));
+        }
+        return new Snapshot(topic, rows, System.currentTimeMillis());
+    }
+
+    // The driver returns java.time values for some column types; panels expect java.sql ones
+    private static Object normalize(Object value) {
+        if (value instanceof java.time.LocalDateTime) {
+            return Timestamp.valueOf((java.time.LocalDateTime) value);
+        }
+        if (value instanceof java.time.LocalDate) {
+            return java.sql.Date.valueOf((java.time.LocalDate) value);
+        }
+        return value;
+    }
+
+    private void publish(Snapshot snapshot) {
+        synchronized (this) {
+            Snapshot previous = latest.get(snapshot.topic);
+            if (previous != null && previous.rows.equals(snapshot.rows)) {
+                return;
+            }
+            latest.put(snapshot.topic, snapshot);
+        }
+        for (Subscription s : subscriptions) {
+            if (s.topic == snapshot.topic) {
+                SwingUtilities.invokeLater(() -> s.listener.accept(snapshot));
+            }
+        }
+    }
+}
@@ -0,0 +1,598 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LiveMapServer - Serves the live map to browsers and keeps it current by
+ * pushing marker changes, on the JDK's built-in HTTP server.
+ *
+ * GET / returns the Leaflet page, which never reloads itself, so pan and
+ * zoom survive and Leaflet is downloaded once.
+ * GET /api/map/snapshot returns every marker and the version it is at:
+ * {"version": 42, "markers": [{"id": "amb-3", "kind": "ambulance",
+ * "lat": 13.06, "lng": 80.26, "color": "#22c55e", "radius": 8,
+ * "popup": "..."}, ...]}
+ * The JSON is built once per version however many browsers ask for it.
+ * GET /api/map/events?since=42 is a Server-Sent Events stream of "delta"
+ * events, each with the markers added or changed since the version before
+ * and the ids removed: {"version": 43, "upsert": [...], "remove": [...]}.
+ * The event id is the version, so a browser that reconnects (EventSource
+ * sends Last-Event-ID) gets the deltas it missed replayed, or a "reset"
+ * event telling it to fetch the snapshot again when they are too old or
+ * too many to fit its queue.
+ *
+ * GET /api/map/clusters?zoom=12&bbox=west,south,east,north returns what
+ * the browser should draw for its viewport: markers grouped by
+ * MarkerClusterIndex into clusters with a count and a count per category,
+ * and the markers that are alone in their cell. The page draws only that
+ * and asks again as the user pans or zooms, or when a delta touches
+ * markers it is not showing on their own, so it stays responsive however
+ * many markers there are. Deltas changing more than MAX_DELTA_MARKERS
+ * markers carry "bulk": true instead of the markers.
+ *
+ * The map's owner feeds it with update(kind, markers) whenever a layer is
+ * re-read; only markers that differ from the last update go out. Each
+ * stream has its own thread and a bounded queue, and a browser too slow to
+ * keep up is dropped and catches up through its reconnect.
+ */
+public class LiveMapServer {
+    private static LiveMapServer instance;
+
+    private static final int HISTORY = 256;
+    private static final int CLIENT_QUEUE = 64;
+    private static final String RESET_EVENT = "event: reset\ndata: {}\n\n";
+    private static final long HEARTBEAT_MS = 15000;
+    // Deltas changing more markers than this tell browsers to re-read their view instead
+    private static final int MAX_DELTA_MARKERS = 500;
+    // Most urgent first; a cluster takes the color of the first category it holds
+    private static final List<String> CATEGORY_ORDER = Arrays.asList("Critical", "At Scene", "High", "En Route",
+            "Medium", "Low", "Available", "Hospital");
+
+    /**
+     * One map marker; kind is "accident", "hospital" or "ambulance", and
+     * category what clusters count it as, e.g. its severity or status
+     */
+    public static final class Marker {
+        public final String id;
+        public final String kind;
+        public final double lat;
+        public final double lng;
+        public final String category;
+        public final String color;
+        final String json;
+
+        public Marker(String id, String kind, double lat, double lng, String category, String color, int radius,
+                String popup) {
+            this.id = id;
+            this.kind = kind;
+            this.lat = lat;
+            this.lng = lng;
+            this.category = category;
+            this.color = color;
+            this.json = String.format(Locale.ROOT,
+                    "{\"id\":%s,\"kind\":%s,\"lat\":%.6f,\"lng\":%.6f,\"color\":%s,\"radius\":%d,\"popup\":%s}",
+                    Json.quote(id), Json.quote(kind), lat, lng, Json.quote(color), radius, Json.quote(popup));
+        }
+    }
+
+    private static final class Delta {
+        final long version;
+        final String event;
+
+        Delta(long version, String event) {
+            this.version = version;
+            this.event = event;
+        }
+    }
+
+    // An SSE stream; close() wakes it with an empty string
+    private static final class Client {
+        final BlockingQueue<String> queue = new LinkedBlockingQueue<>(CLIENT_QUEUE);
+        volatile boolean closed = false;
+    }
+
+    private final int port;
+    private HttpServer server;
+    private ExecutorService handlers;
+
+    // Guarded by this
+    private final Map<String, Marker> markers = new LinkedHashMap<>();
+    private final MarkerClusterIndex clusters = new MarkerClusterIndex();
+    private final Map<String, String> categoryColors = new HashMap<>();
+    private final ArrayDeque<Delta> history = new ArrayDeque<>();
+    private long version = 0;
+    private String snapshotJson;
+    private long snapshotVersion = -1;
+
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+    private long snapshotsServed = 0;
+    private long snapshotsBuilt = 0;
+    private long deltasSent = 0;
+    private long clientsDropped = 0;
+    private long clusterQueries = 0;
+    private long clusterNanos = 0;
+
+    public LiveMapServer(int port) {
+        this.port = port;
+    }
+
+    /**
+     * The process's map server, on map.server.port
+     */
+    public static synchronized LiveMapServer getInstance() {
+        if (instance == null) {
+            instance = new LiveMapServer(ConfigManager.getInstance().getMapServerPort());
+        }
+        return instance;
+    }
+
+    /**
+     * Start listening; does nothing if already started
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        server = HttpServer.create(new InetSocketAddress(port), 64);
+        // Streams hold their thread while the browser is open
+        handlers = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "live-map-http");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(handlers);
+        server.createContext("/api/map/snapshot", this::handleSnapshot);
+        server.createContext("/api/map/events", this::handleEvents);
+        server.createContext("/api/map/clusters", this::handleClusters);
+        server.createContext("/", this::handlePage);
+        server.start();
+        System.out.println("[LiveMapServer] Listening on http://localhost:" + getPort() + "/");
+    }
+
+    /**
+     * Close every stream and stop listening
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        for (Client client : clients) {
+            close(client);
+        }
+        server.stop(0);
+        handlers.shutdownNow();
+        server = null;
+        System.out.println("[LiveMapServer] Stopped");
+    }
+
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * Port actually listened on, for a server started on port 0
+     */
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    /**
+     * Make one kind of marker exactly these; markers of other kinds are
+     * left as they are. Sends a delta to every stream if anything changed.
+     *
+     * @return markers added, changed or removed
+     */
+    public synchronized int update(String kind, Collection<Marker> layer) {
+        Map<String, Marker> incoming = new LinkedHashMap<>();
+        for (Marker marker : layer) {
+            incoming.put(marker.id, marker);
+        }
+        List<String> removed = new ArrayList<>();
+        Iterator<Marker> it = markers.values().iterator();
+        while (it.hasNext()) {
+            Marker marker = it.next();
+            if (marker.kind.equals(kind) && !incoming.containsKey(marker.id)) {
+                removed.add(marker.id);
+                clusters.remove(marker.id);
+                it.remove();
+            }
+        }
+        List<Marker> upserted = new ArrayList<>();
+        for (Marker marker : incoming.values()) {
+            Marker old = markers.put(marker.id, marker);
+            if (old != marker && (old == null || !old.json.equals(marker.json))) {
+                upserted.add(marker);
+                clusters.put(new MarkerClusterIndex.Point(marker.id, marker.lat, marker.lng, marker.category, marker));
+                categoryColors.putIfAbsent(marker.category, marker.color);
+            }
+        }
+        if (upserted.isEmpty() && removed.isEmpty()) {
+            return 0;
+        }
+
+        version++;
+        StringBuilder data = new StringBuilder("{\"version\":").append(version);
+        if (upserted.size() + removed.size() > MAX_DELTA_MARKERS) {
+            data.append(",\"bulk\":true}");
+        } else {
+            data.append(",\"upsert\":[");
+            for (int i = 0; i < upserted.size(); i++) {
+                data.append(i > 0 ? "," : "").append(upserted.get(i).json);
+            }
+            data.append("],\"remove\":[");
+            for (int i = 0; i < removed.size(); i++) {
+                data.append(i > 0 ? "," : "").append(Json.quote(removed.get(i)));
+            }
+            data.append("]}");
+        }
+        Delta delta = new Delta(version, "id: " + version + "\nevent: delta\ndata: " + data + "\n\n");
+        history.addLast(delta);
+        if (history.size() > HISTORY) {
+            history.removeFirst();
+        }
+        for (Client client : clients) {
+            offer(client, delta.event);
+        }
+        return upserted.size() + removed.size();
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Snapshots returned to browsers, and how many of them had to be built
+     */
+    public synchronized String metricsJson() {
+        return String.format(Locale.ROOT,
+                "{\"version\":%d,\"markers\":%d,\"clients\":%d,\"snapshots_served\":%d,\"snapshots_built\":%d," +
+                        "\"deltas_sent\":%d,\"clients_dropped\":%d,\"cluster_queries\":%d,\"cluster_query_us\":%.1f}",
+                version, markers.size(), clients.size(), snapshotsServed, snapshotsBuilt, deltasSent,
+                clientsDropped, clusterQueries, clusterQueries == 0 ? 0.0 : clusterNanos / 1e3 / clusterQueries);
+    }
+
+    // Queue an event for a stream, dropping the stream if it has fallen behind
+    private void offer(Client client, String event) {
+        if (!client.queue.offer(event)) {
+            clientsDropped++;
+            close(client);
+        }
+    }
+
+    private void close(Client client) {
+        client.closed = true;
+        clients.remove(client);
+        client.queue.clear();
+        client.queue.offer("");
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // HANDLERS
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    private void handlePage(HttpExchange exchange) throws IOException {
+        try {
+            if (!"/".equals(exchange.getRequestURI().getPath())) {
+                respond(exchange, 404, "text/plain", "Not found");
+                return;
+            }
+            exchange.getResponseHeaders().set("Cache-Control", "max-age=300");
+            respond(exchange, 200, "text/html; charset=utf-8", PAGE);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleSnapshot(HttpExchange exchange) throws IOException {
+        try {
+            String json;
+            synchronized (this) {
+                if (snapshotVersion != version) {
+                    StringBuilder sb = new StringBuilder("{\"version\":").append(version).append(",\"markers\":[");
+                    boolean first = true;
+                    for (Marker marker : markers.values()) {
+                        sb.append(first ? "" : ",").append(marker.json);
+                        first = false;
+                    }
+                    snapshotJson = sb.append("]}").toString();
+                    snapshotVersion = version;
+                    snapshotsBuilt++;
+                }
+                json = snapshotJson;
+                snapshotsServed++;
+            }
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            respond(exchange, 200, "application/json", json);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleClusters(HttpExchange exchange) throws IOException {
+        try {
+            String query = exchange.getRequestURI().getRawQuery();
+            String[] bbox = String.valueOf(queryParam(query, "bbox")).split(",");
+            int zoom;
+            double west, south, east, north;
+            try {
+                zoom = Integer.parseInt(queryParam(query, "zoom"));
+                west = Double.parseDouble(bbox[0]);
+                south = Double.parseDouble(bbox[1]);
+                east = Double.parseDouble(bbox[2]);
+                north = Double.parseDouble(bbox[3]);
+            } catch (RuntimeException e) {
+                respond(exchange, 400, "application/json", "{\"error\":\"zoom and bbox=west,south,east,north required\"}");
+                return;
+            }
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            respond(exchange, 200, "application/json", clustersJson(zoom, west, south, east, north));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Clusters and single markers in a viewport, as served on /api/map/clusters:
+     * {"version": 42, "clusters": [{"lat": 13.05, "lng": 80.24, "count": 312,
+     * "color": "#e11d48", "categories": {"Critical": 40, "Low": 272}}, ...],
+     * "markers": [...]}
+     */
+    public synchronized String clustersJson(int zoom, double west, double south, double east, double north) {
+        long start = System.nanoTime();
+        StringBuilder sb = new StringBuilder("{\"version\":").append(version).append(",\"clusters\":[");
+        StringBuilder singles = new StringBuilder();
+        boolean first = true;
+        for (MarkerClusterIndex.Cluster cluster : clusters.query(zoom, west, south, east, north)) {
+            if (cluster.single != null) {
+                singles.append(singles.length() > 0 ? "," : "").append(((Marker) cluster.single.value).json);
+                continue;
+            }
+            String top = null;
+            StringBuilder categories = new StringBuilder();
+            for (Map.Entry<String, Integer> entry : cluster.categories.entrySet()) {
+                categories.append(categories.length() > 0 ? "," : "").append(Json.quote(entry.getKey()))
+                        .append(':').append(entry.getValue());
+                if (top == null || rank(entry.getKey()) < rank(top)) {
+                    top = entry.getKey();
+                }
+            }
+            sb.append(first ? "" : ",").append(String.format(Locale.ROOT,
+                    "{\"lat\":%.6f,\"lng\":%.6f,\"count\":%d,\"color\":%s,\"categories\":{%s}}",
+                    cluster.lat, cluster.lng, cluster.count, Json.quote(categoryColors.get(top)), categories));
+            first = false;
+        }
+        sb.append("],\"markers\":[").append(singles).append("]}");
+        clusterQueries++;
+        clusterNanos += System.nanoTime() - start;
+        return sb.toString();
+    }
+
+    private static int rank(String category) {
+        int rank = CATEGORY_ORDER.indexOf(category);
+        return rank < 0 ? CATEGORY_ORDER.size() : rank;
+    }
+
+    private void handleEvents(HttpExchange exchange) throws IOException {
+        Client client = new Client();
+        try {
+            long since = parseVersion(exchange.getRequestHeaders().getFirst("Last-Event-ID"));
+            if (since < 0) {
+                since = parseVersion(queryParam(exchange.getRequestURI().getRawQuery(), "since"));
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+
+            // Replay what this browser missed and join, atomically with respect to update()
+            synchronized (this) {
+                Delta oldest = history.peekFirst();
+                if (since < 0 || since > version || version - since > CLIENT_QUEUE
+                        || (since < version && (oldest == null || oldest.version > since + 1))) {
+                    client.queue.offer(RESET_EVENT);
+                } else {
+                    for (Delta delta : history) {
+                        if (delta.version > since && !client.queue.offer(delta.event)) {
+                            // Missed more than the queue holds; a partial replay would skip deltas
+                            client.queue.clear();
+                            client.queue.offer(RESET_EVENT);
+                            break;
+                        }
+                    }
+                }
+                clients.add(client);
+            }
+
+            out.write("retry: 2000\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            while (!client.closed) {
+                String event = client.queue.poll(HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+                if (client.closed) {
+                    break;
+                }
+                // A comment line keeps proxies from timing the stream out and finds closed browsers
+                out.write((event != null ? event : ": ping\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                if (event != null && event.startsWith("id: ")) {
+                    synchronized (this) {
+                        deltasSent++;
+                    }
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // Browser went away
+        } finally {
+            client.closed = true;
+            clients.remove(client);
+            exchange.close();
+        }
+    }
+
+    private static long parseVersion(String value) {
+        try {
+            return value == null ? -1 : Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String queryParam(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return pair.substring(eq + 1);
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String type, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", type);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Escape text for a marker popup
+     */
+    public static String escapeHtml(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("\"", "&quot;").replace("'", "&#39;");
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // PAGE
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    private static final String PAGE = "<!DOCTYPE html>\n" +
+            "<html><head><title>Accident Alert System - Live Map</title>\n" +
+            "<meta charset='utf-8'>\n" +
+            "<link rel='stylesheet' href='https://unpkg.com/leaflet@1.9.4/dist/leaflet.css'/>\n" +
+            "<script src='https://unpkg.com/leaflet@1.9.4/dist/leaflet.js'></script>\n" +
+            "<style>\n" +
+            "body{margin:0;font-family:'Segoe UI',sans-serif;}\n" +
+            "#map{height:100vh;width:100%;}\n" +
+            ".info{position:fixed;top:20px;left:20px;background:rgba(255,255,255,0.95);\n" +
+            "padding:20px;border-radius:12px;color:#0f172a;z-index:1000;box-shadow:0 4px 20px rgba(0,0,0,0.15);border:1px solid #e2e8f0;max-width:220px;}\n" +
+            ".info h3{margin:0 0 15px 0;color:#2563eb;font-size:16px;}\n" +
+            ".legend-item{display:flex;align-items:center;margin:8px 0;font-size:13px;}\n" +
+            ".legend-dot{width:12px;height:12px;border-radius:50%;margin-right:10px;}\n" +
+            ".stats{margin-top:15px;padding-top:15px;border-top:1px solid #e2e8f0;font-size:11px;color:#64748b;}\n" +
+            ".hospital-marker{font-size:24px;text-shadow:0 2px 4px rgba(0,0,0,0.3);}\n" +
+            ".cluster div{border-radius:50%;border:2px solid #fff;color:#fff;font-size:12px;font-weight:bold;\n" +
+            "text-align:center;opacity:0.85;box-shadow:0 2px 6px rgba(0,0,0,0.3);}\n" +
+            "</style></head><body>\n" +
+            "<div class='info'>\n" +
+            "<h3>AI Accident Detector</h3>\n" +
+            "<div class='legend-item'><div class='legend-dot' style='background:#e11d48'></div>Critical/At Scene</div>\n" +
+            "<div class='legend-item'><div class='legend-dot' style='background:#f59e0b'></div>High/En Route</div>\n" +
+            "<div class='legend-item'><div class='legend-dot' style='background:#22c55e'></div>Available</div>\n" +
+            "<div class='legend-item'>H Hospitals</div>\n" +
+            "<div class='stats' id='stats'>Connecting...</div>\n" +
+            "</div>\n" +
+            "<div id='map'></div>\n" +
+            "<script>\n" +
+            "var map = L.map('map').setView([13.0827, 80.2707], 12);\n" +
+            "L.tileLayer('https://{s}.tile.openstreetmap.org/{z}/{x}/{y}.png', {\n" +
+            "    attribution: '© OpenStreetMap contributors'\n" +
+            "}).addTo(map);\n" +
+            "var singles = {}, clusterLayer = L.layerGroup().addTo(map), version = -1, events = null, pending = null;\n" +
+            "function draw(m) {\n" +
+            "  var old = singles[m.id];\n" +
+            "  if (old) {\n" +
+            "    old.setLatLng([m.lat, m.lng]);\n" +
+            "    if (old.setStyle) old.setStyle({fillColor: m.color, radius: m.radius});\n" +
+            "    old.setPopupContent(m.popup);\n" +
+            "    return;\n" +
+            "  }\n" +
+            "  var layer = m.kind === 'hospital'\n" +
+            "    ? L.marker([m.lat, m.lng], {icon: L.divIcon({className: 'hospital-marker', html: '🏥', iconSize: [30, 30]})})\n" +
+            "    : L.circleMarker([m.lat, m.lng], {radius: m.radius, fillColor: m.color, color: '#fff', weight: 2, opacity: 1, fillOpacity: 0.85});\n" +
+            "  singles[m.id] = layer.bindPopup(m.popup).addTo(map);\n" +
+            "}\n" +
+            "function remove(id) {\n" +
+            "  if (singles[id]) { map.removeLayer(singles[id]); delete singles[id]; }\n" +
+            "}\n" +
+            "function cluster(c) {\n" +
+            "  var size = Math.round(26 + 10 * Math.log10(c.count)), text = '<b>' + c.count + ' markers</b>';\n" +
+            "  for (var k in c.categories) text += '<br>' + k + ': ' + c.categories[k];\n" +
+            "  L.marker([c.lat, c.lng], {icon: L.divIcon({className: 'cluster', iconSize: [size, size],\n" +
+            "      html: '<div style=\"background:' + c.color + ';width:' + size + 'px;height:' + size + 'px;line-height:' + size + 'px\">' + c.count + '</div>'})})\n" +
+            "    .bindTooltip(text).on('click', function () { map.setView([c.lat, c.lng], map.getZoom() + 2); })\n" +
+            "    .addTo(clusterLayer);\n" +
+            "}\n" +
+            "function view() {\n" +
+            "  pending = null;\n" +
+            "  var b = map.getBounds();\n" +
+            "  return fetch('/api/map/clusters?zoom=' + map.getZoom() + '&bbox=' +\n" +
+            "      [b.getWest(), b.getSouth(), b.getEast(), b.getNorth()].join(','))\n" +
+            "    .then(function (r) { return r.json(); }).then(function (v) {\n" +
+            "      clusterLayer.clearLayers();\n" +
+            "      v.clusters.forEach(cluster);\n" +
+            "      var keep = {}, total = v.markers.length;\n" +
+            "      v.markers.forEach(function (m) { keep[m.id] = true; draw(m); });\n" +
+            "      for (var id in singles) if (!keep[id]) remove(id);\n" +
+            "      v.clusters.forEach(function (c) { total += c.count; });\n" +
+            "      version = Math.max(version, v.version);\n" +
+            "      document.getElementById('stats').innerHTML = 'Live GPS Tracking<br>' + total + ' markers in view, ' +\n" +
+            "        v.clusters.length + ' clusters<br>Updated: ' + new Date().toLocaleTimeString();\n" +
+            "    });\n" +
+            "}\n" +
+            "function later() {\n" +
+            "  if (!pending) pending = setTimeout(view, 300);\n" +
+            "}\n" +
+            "function load() {\n" +
+            "  if (events) { events.close(); events = null; }\n" +
+            "  version = -1;\n" +
+            "  view().then(listen).catch(function () { setTimeout(load, 2000); });\n" +
+            "}\n" +
+            "function listen() {\n" +
+            "  events = new EventSource('/api/map/events?since=' + version);\n" +
+            "  events.addEventListener('delta', function (e) {\n" +
+            "    var d = JSON.parse(e.data);\n" +
+            "    if (d.version <= version) return;\n" +
+            "    version = d.version;\n" +
+            "    // Markers drawn on their own move in place; anything else changes the clusters\n" +
+            "    if (d.bulk || d.remove.length || d.upsert.some(function (m) { return !singles[m.id]; })) later();\n" +
+            "    if (!d.bulk) d.upsert.forEach(function (m) { if (singles[m.id]) draw(m); });\n" +
+            "  });\n" +
+            "  events.addEventListener('reset', load);\n" +
+            "}\n" +
+            "map.on('moveend', later);\n" +
+            "load();\n" +
+            "</script>\n" +
+            "</body></html>";
+}
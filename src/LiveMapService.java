@@ -0,0 +1,326 @@
+import javax.swing.*;
+import java.awt.Component;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * LiveMapService - The one map renderer of the process. It subscribes to
+ * the accident, hospital and ambulance topics once, turns new or changed
+ * rows into markers and pushes them to LiveMapServer, on its own thread.
+ * Snapshots arriving within FLUSH_MS of each other are pushed together,
+ * and only the latest of each layer is built.
+ *
+ * Map windows are viewers: opening and closing them adds no subscriptions,
+ * threads or timers. The layers are polled while a viewer is on screen or
+ * a browser has the map open. start() and stop() bound the service's life;
+ * the console stops it on logout.
+ *
+ * LiveMapSoak checks that none of this grows with the windows opened.
+ */
+public class LiveMapService {
+    private static LiveMapService instance;
+
+    private static final long FLUSH_MS = 250;
+
+    private static final class Layer {
+        final String kind;
+        final LiveDataHub.Topic topic;
+        final Function<LiveDataHub.Row, LiveMapServer.Marker> toMarker;
+
+        Layer(String kind, LiveDataHub.Topic topic, Function<LiveDataHub.Row, LiveMapServer.Marker> toMarker) {
+            this.kind = kind;
+            this.topic = topic;
+            this.toMarker = toMarker;
+        }
+    }
+
+    private static final class Viewer {
+        final Component view;
+        final Consumer<String> listener;
+
+        Viewer(Component view, Consumer<String> listener) {
+            this.view = view;
+            this.listener = listener;
+        }
+    }
+
+    private final List<Layer> layers = Arrays.asList(
+            new Layer("accident", LiveDataHub.Topic.SHIFT_ACCIDENTS, LiveMapService::accidentMarker),
+            new Layer("hospital", LiveDataHub.Topic.HOSPITALS, LiveMapService::hospitalMarker),
+            new Layer("ambulance", LiveDataHub.Topic.AMBULANCES, LiveMapService::ambulanceMarker));
+
+    private final LiveDataHub liveData;
+    private final LiveMapServer mapServer;
+    private final List<Viewer> viewers = new CopyOnWriteArrayList<>();
+    private final List<LiveDataHub.Subscription> subscriptions = new ArrayList<>();
+    private ScheduledExecutorService renderer;
+
+    // Latest snapshot of each layer not pushed yet, and whether a flush is scheduled
+    private final Map<Layer, LiveDataHub.Snapshot> pending = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+    // Renderer thread only: marker of each row of the last snapshot pushed, per layer.
+    // The hub keeps unchanged rows as the same objects, so only new or changed rows are built.
+    private final Map<Layer, Map<LiveDataHub.Row, LiveMapServer.Marker>> built = new HashMap<>();
+
+    private final AtomicLong snapshotsReceived = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong markersBuilt = new AtomicLong();
+    private final AtomicLong renderersStarted = new AtomicLong();
+
+    LiveMapService(LiveDataHub liveData, LiveMapServer mapServer) {
+        this.liveData = liveData;
+        this.mapServer = mapServer;
+    }
+
+    public static synchronized LiveMapService getInstance() {
+        if (instance == null) {
+            instance = new LiveMapService(LiveDataHub.getInstance(), LiveMapServer.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Start the map server and the renderer; does nothing if running
+     */
+    public synchronized void start() throws IOException {
+        if (renderer != null) {
+            return;
+        }
+        mapServer.start();
+        renderer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "live-map");
+            t.setDaemon(true);
+            return t;
+        });
+        renderersStarted.incrementAndGet();
+        for (Layer layer : layers) {
+            subscriptions.add(liveData.subscribe(layer.topic, this::isWatched, snapshot -> offer(layer, snapshot)));
+        }
+        System.out.println("[LiveMapService] Rendering to " + getMapUrl());
+    }
+
+    /**
+     * Cancel the subscriptions, stop the renderer and the map server, and
+     * forget the viewers; start() brings it all back
+     */
+    public void stop() {
+        ScheduledExecutorService stopped;
+        synchronized (this) {
+            if (renderer == null) {
+                return;
+            }
+            for (LiveDataHub.Subscription subscription : subscriptions) {
+                subscription.cancel();
+            }
+            subscriptions.clear();
+            pending.clear();
+            flushScheduled = false;
+            stopped = renderer;
+            renderer = null;
+        }
+        stopped.shutdown();
+        try {
+            stopped.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        built.clear();
+        viewers.clear();
+        mapServer.stop();
+        System.out.println("[LiveMapService] Stopped after " + flushes.get() + " pushes");
+    }
+
+    public synchronized boolean isRunning() {
+        return renderer != null;
+    }
+
+    /**
+     * Show the map in a window: starts the service if needed, and calls
+     * the listener on the event dispatch thread with a line per push
+     */
+    public void addViewer(Component view, Consumer<String> listener) throws IOException {
+        start();
+        viewers.add(new Viewer(view, listener));
+    }
+
+    public void removeViewer(Component view) {
+        viewers.removeIf(viewer -> viewer.view == view);
+    }
+
+    /**
+     * Read every layer again now
+     */
+    public void refresh() {
+        LiveDataHub.Topic[] topics = new LiveDataHub.Topic[layers.size()];
+        for (int i = 0; i < topics.length; i++) {
+            topics[i] = layers.get(i).topic;
+        }
+        liveData.refresh(topics);
+    }
+
+    public String getMapUrl() {
+        return "http://localhost:" + mapServer.getPort() + "/";
+    }
+
+    public int getViewerCount() {
+        return viewers.size();
+    }
+
+    public long getSnapshotsReceived() {
+        return snapshotsReceived.get();
+    }
+
+    /**
+     * Pushes to the map server; at most one per FLUSH_MS however many snapshots arrive
+     */
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    public long getMarkersBuilt() {
+        return markersBuilt.get();
+    }
+
+    /**
+     * Renderer threads started since startup; one per start() after a stop()
+     */
+    public long getRendererStarts() {
+        return renderersStarted.get();
+    }
+
+    // A window showing the map, or a browser on it
+    private boolean isWatched() {
+        if (mapServer.getClientCount() > 0) {
+            return true;
+        }
+        for (Viewer viewer : viewers) {
+            if (viewer.view.isShowing()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Render a snapshot as if the hub had published it, for the soak check
+     */
+    void offer(LiveDataHub.Snapshot snapshot) {
+        for (Layer layer : layers) {
+            if (layer.topic == snapshot.topic) {
+                offer(layer, snapshot);
+            }
+        }
+    }
+
+    // Keep the latest snapshot of the layer and schedule a push unless one is due
+    private synchronized void offer(Layer layer, LiveDataHub.Snapshot snapshot) {
+        if (renderer == null) {
+            return;
+        }
+        snapshotsReceived.incrementAndGet();
+        pending.put(layer, snapshot);
+        if (!flushScheduled) {
+            flushScheduled = true;
+            renderer.schedule(this::flush, FLUSH_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Runs on the renderer thread only
+    private void flush() {
+        Map<Layer, LiveDataHub.Snapshot> due;
+        synchronized (this) {
+            due = new LinkedHashMap<>(pending);
+            pending.clear();
+            flushScheduled = false;
+        }
+        flushes.incrementAndGet();
+        for (Map.Entry<Layer, LiveDataHub.Snapshot> entry : due.entrySet()) {
+            Layer layer = entry.getKey();
+            List<LiveDataHub.Row> rows = entry.getValue().rows;
+            Map<LiveDataHub.Row, LiveMapServer.Marker> previous = built.getOrDefault(layer, Collections.emptyMap());
+            Map<LiveDataHub.Row, LiveMapServer.Marker> current = new IdentityHashMap<>(rows.size() * 2);
+            List<LiveMapServer.Marker> markers = new ArrayList<>(rows.size());
+            for (LiveDataHub.Row r : rows) {
+                LiveMapServer.Marker marker;
+                if (previous.containsKey(r)) {
+                    marker = previous.get(r);
+                } else {
+                    marker = layer.toMarker.apply(r);
+                    markersBuilt.incrementAndGet();
+                }
+                current.put(r, marker);
+                if (marker != null) {
+                    markers.add(marker);
+                }
+            }
+            built.put(layer, current);
+
+            int changed = mapServer.update(layer.kind, markers);
+            if (changed > 0 && !viewers.isEmpty()) {
+                String message = String.format("Pushed %d changed %s markers (%d shown, %d browsers)", changed,
+                        layer.kind, markers.size(), mapServer.getClientCount());
+                SwingUtilities.invokeLater(() -> {
+                    for (Viewer viewer : viewers) {
+                        viewer.listener.accept(message);
+                    }
+                });
+            }
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // MARKERS
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    // Marker of a row, or null for rows without a position
+    private static LiveMapServer.Marker accidentMarker(LiveDataHub.Row r) {
+        double lat = r.getDouble("latitude");
+        double lng = r.getDouble("longitude");
+        if (lat == 0 || lng == 0)
+            return null;
+
+        String severity = r.getString("severity");
+        String color = severity.equals("Critical") ? "#e11d48"
+                : severity.equals("High") ? "#f59e0b" : severity.equals("Medium") ? "#eab308" : "#22c55e";
+        return new LiveMapServer.Marker("acc-" + r.getInt("accident_id"), "accident", lat, lng, severity, color, 10,
+                "<b>" + LiveMapServer.escapeHtml(severity) + " Accident</b><br>"
+                        + LiveMapServer.escapeHtml(r.getString("location")));
+    }
+
+    private static LiveMapServer.Marker hospitalMarker(LiveDataHub.Row r) {
+        double lat = r.getDouble("latitude");
+        double lng = r.getDouble("longitude");
+        if (lat == 0 || lng == 0)
+            return null;
+
+        return new LiveMapServer.Marker("hosp-" + r.getInt("hospital_id"), "hospital", lat, lng, "Hospital",
+                "#3b82f6", 0, "<b>" + LiveMapServer.escapeHtml(r.getString("name")) + "</b><br>Available Beds: "
+                        + r.getInt("available_beds"));
+    }
+
+    private static LiveMapServer.Marker ambulanceMarker(LiveDataHub.Row r) {
+        double lat = r.getDouble("latitude");
+        double lng = r.getDouble("longitude");
+        if (lat == 0 || lng == 0)
+            return null;
+
+        String status = r.getString("status");
+        String driverName = r.getString("driver_name");
+        if (driverName == null)
+            driverName = "Unassigned";
+
+        String color = status.equals("green") ? "#22c55e" : status.equals("yellow") ? "#f59e0b" : "#e11d48";
+        String statusText = status.equals("green") ? "Available"
+                : status.equals("yellow") ? "En Route" : "At Scene";
+        return new LiveMapServer.Marker("amb-" + r.getInt("ambulance_id"), "ambulance", lat, lng, statusText, color,
+                8, "<b>" + LiveMapServer.escapeHtml(r.getString("vehicle_number")) + "</b><br>Status: " + statusText
+                        + "<br>Driver: " + LiveMapServer.escapeHtml(driverName));
+    }
+}
@@ -0,0 +1,144 @@
+import javax.swing.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LiveMapSoak - Leak check for LiveMapService and its map windows.
+ *
+ * Opens and closes a GoogleMapsPanel many times a second while ambulance
+ * snapshots stream in, with one browser watching the map, and every 5
+ * seconds samples what the service and the hub own: viewers, hub
+ * subscriptions, queries sent in the interval, renderer threads started
+ * and pushes. Panels are closed the way a disposed window closes them and
+ * are never framed, so the check runs headless. Exits with status 1 if
+ * renderers, subscriptions or queries per interval grew, or if closed
+ * panels stayed viewers.
+ *
+ * Usage:
+ * java -Djava.awt.headless=true -cp "out;lib/*" LiveMapSoak
+ * --seconds 60 --opens 20 --snapshots 50 --out map_soak.jsonl --label my-change
+ */
+public class LiveMapSoak {
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRun run = new BenchmarkRun(args, "map_soak.jsonl");
+        int seconds = Integer.parseInt(run.get("seconds", "60"));
+        int opensPerSecond = Integer.parseInt(run.get("opens", "20"));
+        int snapshotsPerSecond = Integer.parseInt(run.get("snapshots", "50"));
+
+        LiveDataHub hub = LiveDataHub.getInstance();
+        LiveMapService service = LiveMapService.getInstance();
+        service.start();
+
+        // One browser on the map keeps the layers polled
+        Thread browser = new Thread(() -> {
+            try (InputStream in = new URL(service.getMapUrl() + "api/map/events").openStream()) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) >= 0) {
+                    // Discard the events
+                }
+            } catch (IOException e) {
+                // Service stopped
+            }
+        }, "soak-browser");
+        browser.setDaemon(true);
+        browser.start();
+
+        // What Main used to do on every Live Map click: open a new map panel; close the one before
+        ScheduledExecutorService load = Executors.newScheduledThreadPool(2);
+        AtomicLong opens = new AtomicLong();
+        GoogleMapsPanel[] open = new GoogleMapsPanel[1];
+        load.scheduleAtFixedRate(() -> SwingUtilities.invokeLater(() -> {
+            if (open[0] != null) {
+                // What disposing its window does to the panel
+                open[0].removeNotify();
+            }
+            open[0] = new GoogleMapsPanel();
+            opens.incrementAndGet();
+        }), 0, 1000 / opensPerSecond, TimeUnit.MILLISECONDS);
+
+        // A fleet of 200 ambulances, 10 of them moving in each snapshot
+        Random random = new Random(1);
+        LiveDataHub.Row[] fleet = new LiveDataHub.Row[200];
+        load.scheduleAtFixedRate(() -> {
+            for (int i = 0; i < fleet.length; i++) {
+                if (fleet[i] == null || random.nextInt(fleet.length) < 10) {
+                    Map<String, Object> values = new HashMap<>();
+                    values.put("ambulance_id", i + 1);
+                    values.put("vehicle_number", "TN-01-AB-" + (1000 + i));
+                    values.put("driver_name", "Driver " + (i + 1));
+                    values.put("status", i % 3 == 0 ? "green" : i % 3 == 1 ? "yellow" : "red");
+                    values.put("latitude", 12.9 + random.nextDouble() * 0.2);
+                    values.put("longitude", 80.15 + random.nextDouble() * 0.2);
+                    fleet[i] = new LiveDataHub.Row(values);
+                }
+            }
+            service.offer(new LiveDataHub.Snapshot(LiveDataHub.Topic.AMBULANCES,
+                    new ArrayList<>(Arrays.asList(fleet)), System.currentTimeMillis()));
+        }, 0, 1000 / snapshotsPerSecond, TimeUnit.MILLISECONDS);
+
+        List<long[]> samples = new ArrayList<>();
+        long lastQueries = hub.getQueryCount();
+        long lastFlushes = service.getFlushCount();
+        for (int t = 5; t <= seconds; t += 5) {
+            Thread.sleep(5000);
+            long queries = hub.getQueryCount();
+            long flushCount = service.getFlushCount();
+            long[] sample = { t, Thread.activeCount(), service.getRendererStarts(), hub.getSubscriptionCount(),
+                    service.getViewerCount(), queries - lastQueries, flushCount - lastFlushes, opens.get() };
+            samples.add(sample);
+            lastQueries = queries;
+            lastFlushes = flushCount;
+            System.out.println(String.format(Locale.ROOT, "[LiveMapSoak] t=%ds threads=%d renderers=%d " +
+                    "subscriptions=%d viewers=%d queries=%d pushes=%d panels_opened=%d", sample[0], sample[1],
+                    sample[2], sample[3], sample[4], sample[5], sample[6], sample[7]));
+        }
+        load.shutdownNow();
+
+        long[] first = samples.get(0);
+        long[] last = samples.get(samples.size() - 1);
+        List<String> grew = new ArrayList<>();
+        if (last[2] > first[2]) {
+            grew.add("renderers");
+        }
+        if (last[3] > first[3]) {
+            grew.add("subscriptions");
+        }
+        if (last[4] > 1) {
+            grew.add("viewers");
+        }
+        // A 5 s interval sees one or two polls of each 3 s topic; a leak adds queries per panel
+        if (last[5] > 2 * first[5] + 1) {
+            grew.add("queries");
+        }
+        String json = run.result("map_soak", String.format(Locale.ROOT,
+                "\"seconds\":%d,\"panels_opened\":%d,\"snapshots\":%d,\"pushes\":%d,\"markers_built\":%d," +
+                        "\"threads_first\":%d,\"threads_last\":%d,\"renderers_first\":%d,\"renderers_last\":%d," +
+                        "\"subscriptions_first\":%d,\"subscriptions_last\":%d,\"viewers_last\":%d," +
+                        "\"queries_per_5s_first\":%d,\"queries_per_5s_last\":%d," +
+                        "\"pushes_per_5s_first\":%d,\"pushes_per_5s_last\":%d,\"passed\":%b",
+                seconds, opens.get(), service.getSnapshotsReceived(), service.getFlushCount(),
+                service.getMarkersBuilt(), first[1], last[1], first[2], last[2], first[3], last[3], last[4],
+                first[5], last[5], first[6], last[6], grew.isEmpty()));
+        run.append(json);
+        System.out.println(json);
+        System.out.println("[LiveMapSoak] Results appended to " + run.getOutFile());
+        SwingUtilities.invokeAndWait(() -> {
+            if (open[0] != null) {
+                open[0].removeNotify();
+            }
+        });
+        service.stop();
+        if (!grew.isEmpty()) {
+            System.err.println("[LiveMapSoak] FAILED: " + String.join(", ", grew) + " grew while panels opened");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,585 @@
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * LoadGenerator - Open-loop accident load against the IngestionServer.
+ *
+ * Each producer thread owns one keep-alive connection and draws its send
+ * times from the arrival process up front, independent of how fast the
+ * server answers. Latency is measured from the intended send time, not the
+ * actual one, so a stalled server shows up as latency instead of silently
+ * lowering the offered load (coordinated omission). Prints target versus
+ * achieved rate every second and appends a JSON summary line to the
+ * results file.
+ *
+ * Arrival processes: poisson (exponential gaps), bursty (Poisson whose rate
+ * jumps to burst-factor x for burst-ms out of every burst-every-ms, with
+ * the quiet rate lowered so the mean stays at --rate) and constant.
+ * Positions are uniform over the Chennai box, or with --hotspot-share
+ * drawn around the named junctions, which exercises incident merging.
+ * Every detection carries a unique detection_id; --retry-share resends
+ * that fraction of requests unchanged, as a detector retrying would, to
+ * exercise idempotent ingestion.
+ *
+ * Usage:
+ * java -cp "out;lib/*" LoadGenerator --url http://localhost:8085/api/detections
+ * --rate 2000 --duration 30 --warmup 5 --threads 8 --arrival poisson|bursty|constant
+ * --burst-factor 4 --burst-ms 500 --burst-every-ms 5000 --batch 1
+ * --hotspot-share 0.3 --hotspot-sigma-m 200 --retry-share 0.05
+ * --severity Low:50,Medium:30,High:15,Critical:5 --seed 42
+ * --out loadgen.jsonl --label my-change --embedded false
+ *
+ * The first --warmup seconds are offered but left out of the summary.
+ * --embedded true starts an IngestionServer on the URL's port with the
+ * in-memory store, for runs without a database.
+ */
+public class LoadGenerator {
+    // Chennai bounding box used by RegionMap and the dispatch grid
+    private static final double MIN_LAT = 12.9;
+    private static final double MAX_LAT = 13.2;
+    private static final double MIN_LNG = 80.0;
+    private static final double MAX_LNG = 80.4;
+    private static final double METERS_PER_DEG = 111_000;
+
+    private static final String[] HOTSPOTS = {
+            "T Nagar Main Road", "Anna Nagar Signal", "Velachery Bridge", "Adyar Junction",
+            "Mylapore Temple St", "Nungambakkam High Rd", "Egmore Station", "Guindy Flyover",
+            "Vadapalani Metro", "Porur Junction", "Tambaram Highway", "OMR IT Park",
+            "ECR Beach Road", "Marina Beach Drive", "Mount Road Central"
+    };
+    private static final double[][] HOTSPOT_COORDS = {
+            { 13.0418, 80.2341 }, { 13.0850, 80.2101 }, { 12.9791, 80.2212 }, { 13.0012, 80.2565 },
+            { 13.0339, 80.2619 }, { 13.0569, 80.2425 }, { 13.0732, 80.2609 }, { 13.0067, 80.2206 },
+            { 13.0500, 80.2121 }, { 13.0382, 80.1565 }, { 12.9249, 80.1275 }, { 12.9010, 80.2279 },
+            { 12.9150, 80.2500 }, { 13.0500, 80.2824 }, { 13.0604, 80.2496 }
+    };
+    private static final String[] VEHICLE_PREFIXES = { "TN01", "TN02", "TN03", "TN04", "TN05", "TN09", "TN10" };
+
+    private static final int REPORT_INTERVAL_MS = 1000;
+    private static final int CONNECT_TIMEOUT_MS = 2000;
+    private static final int READ_TIMEOUT_MS = 30000;
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // LATENCY HISTOGRAM
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    /**
+     * Lock-free log-linear histogram of microseconds: exact below 64 us,
+     * then 32 buckets per power of two (about 3% resolution)
+     */
+    static class Histogram {
+        private static final int SUB_BUCKETS = 32;
+        private static final int LINEAR = 64;
+        private final AtomicLongArray counts = new AtomicLongArray(LINEAR + 58 * SUB_BUCKETS);
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long micros) {
+            long v = Math.max(0, micros);
+            counts.incrementAndGet(index(v));
+            total.incrementAndGet();
+            long m;
+            while (v > (m = max.get()) && !max.compareAndSet(m, v)) {
+                // retry
+            }
+        }
+
+        private static int index(long v) {
+            if (v < LINEAR) {
+                return (int) v;
+            }
+            int exp = 63 - Long.numberOfLeadingZeros(v);
+            int sub = (int) ((v >>> (exp - 5)) & (SUB_BUCKETS - 1));
+            return LINEAR + (exp - 6) * SUB_BUCKETS + sub;
+        }
+
+        private static long upperBound(int index) {
+            if (index < LINEAR) {
+                return index;
+            }
+            int exp = (index - LINEAR) / SUB_BUCKETS + 6;
+            int sub = (index - LINEAR) % SUB_BUCKETS;
+            return ((long) (SUB_BUCKETS + sub + 1) << (exp - 5)) - 1;
+        }
+
+        long count() {
+            return total.get();
+        }
+
+        double percentileMs(double pct) {
+            long n = total.get();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(pct / 100.0 * n));
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max.get()) / 1000.0;
+                }
+            }
+            return max.get() / 1000.0;
+        }
+
+        double maxMs() {
+            return max.get() / 1000.0;
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // CONFIGURATION
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    private final String host;
+    private final int port;
+    private final String path;
+    private final double rate;
+    private final int durationSec;
+    private final int warmupSec;
+    private final int threads;
+    private final String arrival;
+    private final double burstFactor;
+    private final long burstNanos;
+    private final long burstEveryNanos;
+    private final int batch;
+    private final double hotspotShare;
+    private final double hotspotSigmaMeters;
+    private final double retryShare;
+    // Keeps detection ids unique across runs against the same database
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final String[] severities;
+    private final double[] severityCumulative;
+    private final long seed;
+
+    // Requests, not detections; a request carries --batch detections.
+    // Only requests scheduled after the warmup are counted.
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong detectionsAccepted = new AtomicLong();
+    private final AtomicLong detectionsRefused = new AtomicLong();
+    private final AtomicLong rejectedRequests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    // How far the furthest-behind producer lags its schedule
+    private final AtomicLong maxLagNanos = new AtomicLong();
+    private final AtomicLong intervalCompleted = new AtomicLong();
+
+    private final Histogram latency = new Histogram();
+    private final Histogram serviceTime = new Histogram();
+    private volatile Histogram intervalLatency = new Histogram();
+
+    private long startNanos;
+    private long measureFromNanos;
+
+    LoadGenerator(Map<String, String> opts) {
+        URI uri = URI.create(opts.getOrDefault("url", "http://localhost:8085/api/detections"));
+        this.host = uri.getHost();
+        this.port = uri.getPort() > 0 ? uri.getPort() : 80;
+        this.path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        this.rate = Double.parseDouble(opts.getOrDefault("rate", "1000"));
+        this.durationSec = Integer.parseInt(opts.getOrDefault("duration", "30"));
+        this.warmupSec = Integer.parseInt(opts.getOrDefault("warmup", "5"));
+        this.threads = Math.max(1, Integer.parseInt(opts.getOrDefault("threads", "8")));
+        this.arrival = opts.getOrDefault("arrival", "poisson");
+        this.burstFactor = Double.parseDouble(opts.getOrDefault("burst-factor", "4"));
+        this.burstNanos = Long.parseLong(opts.getOrDefault("burst-ms", "500")) * 1_000_000L;
+        this.burstEveryNanos = Long.parseLong(opts.getOrDefault("burst-every-ms", "5000")) * 1_000_000L;
+        this.batch = Math.max(1, Integer.parseInt(opts.getOrDefault("batch", "1")));
+        this.hotspotShare = Double.parseDouble(opts.getOrDefault("hotspot-share", "0"));
+        this.hotspotSigmaMeters = Double.parseDouble(opts.getOrDefault("hotspot-sigma-m", "200"));
+        this.retryShare = Double.parseDouble(opts.getOrDefault("retry-share", "0"));
+        this.seed = Long.parseLong(opts.getOrDefault("seed", "42"));
+
+        if (!Arrays.asList("poisson", "bursty", "constant").contains(arrival)) {
+            throw new IllegalArgumentException("--arrival must be poisson, bursty or constant");
+        }
+        if ("bursty".equals(arrival) && burstFactor * burstNanos > burstEveryNanos) {
+            throw new IllegalArgumentException("burst-factor x burst-ms must not exceed burst-every-ms");
+        }
+
+        String[] parts = opts.getOrDefault("severity", "Low:50,Medium:30,High:15,Critical:5").split(",");
+        severities = new String[parts.length];
+        severityCumulative = new double[parts.length];
+        double sum = 0;
+        for (int i = 0; i < parts.length; i++) {
+            String[] kv = parts[i].split(":");
+            if (!Detection.SEVERITIES.contains(kv[0].trim())) {
+                throw new IllegalArgumentException("Unknown severity " + kv[0]);
+            }
+            severities[i] = kv[0].trim();
+            sum += Double.parseDouble(kv[1].trim());
+            severityCumulative[i] = sum;
+        }
+        for (int i = 0; i < parts.length; i++) {
+            severityCumulative[i] /= sum;
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // ARRIVALS
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    /**
+     * Per-thread arrival schedule; the threads' processes superpose to --rate
+     */
+    private class Schedule {
+        private final Random random;
+        private final double perNanoRate;
+        private long next;
+
+        Schedule(Random random, long firstNanos) {
+            this.random = random;
+            this.perNanoRate = rate / threads / 1e9;
+            this.next = firstNanos;
+            advance();
+        }
+
+        long next() {
+            long due = next;
+            advance();
+            return due;
+        }
+
+        private void advance() {
+            if ("constant".equals(arrival)) {
+                next += (long) (1 / perNanoRate);
+            } else if ("poisson".equals(arrival)) {
+                next += exponential(perNanoRate);
+            } else {
+                // Thinning: candidates at the burst rate, kept in proportion to the current rate
+                double peak = perNanoRate * burstFactor;
+                double duty = (double) burstNanos / burstEveryNanos;
+                double quiet = perNanoRate * (1 - burstFactor * duty) / (1 - duty);
+                do {
+                    next += exponential(peak);
+                } while (!inBurst(next) && random.nextDouble() * peak >= quiet);
+            }
+        }
+
+        private long exponential(double perNano) {
+            return (long) (-Math.log(1 - random.nextDouble()) / perNano);
+        }
+
+        private boolean inBurst(long atNanos) {
+            return Math.floorMod(atNanos - startNanos, burstEveryNanos) < burstNanos;
+        }
+    }
+
+    private String detectionJson(Random random, String detectionId) {
+        double lat;
+        double lng;
+        String location;
+        if (random.nextDouble() < hotspotShare) {
+            int h = random.nextInt(HOTSPOTS.length);
+            lat = HOTSPOT_COORDS[h][0] + random.nextGaussian() * hotspotSigmaMeters / METERS_PER_DEG;
+            lng = HOTSPOT_COORDS[h][1] + random.nextGaussian() * hotspotSigmaMeters / METERS_PER_DEG;
+            location = HOTSPOTS[h];
+        } else {
+            lat = MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT);
+            lng = MIN_LNG + random.nextDouble() * (MAX_LNG - MIN_LNG);
+            location = null;
+        }
+
+        double u = random.nextDouble();
+        String severity = severities[severities.length - 1];
+        for (int i = 0; i < severityCumulative.length; i++) {
+            if (u < severityCumulative[i]) {
+                severity = severities[i];
+                break;
+            }
+        }
+        String vehicle = VEHICLE_PREFIXES[random.nextInt(VEHICLE_PREFIXES.length)]
+                + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26))
+                + String.format("%04d", random.nextInt(10000));
+
+        StringBuilder sb = new StringBuilder(240).append('{');
+        sb.append("\"detection_id\":\"").append(detectionId).append("\",");
+        if (location != null) {
+            sb.append("\"location\":").append(Json.quote(location)).append(',');
+        }
+        sb.append(String.format(Locale.ROOT, "\"latitude\":%.6f,\"longitude\":%.6f,", lat, lng));
+        sb.append("\"severity\":\"").append(severity).append("\",\"vehicle_id\":\"").append(vehicle)
+                .append("\",\"description\":\"Load test collision\",\"reported_by\":\"LoadGenerator\"}");
+        return sb.toString();
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // HTTP
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    /**
+     * Keep-alive HTTP/1.1 connection with TCP_NODELAY, reconnected after errors
+     */
+    private class Connection implements Closeable {
+        private Socket socket;
+        private OutputStream out;
+        private InputStream in;
+        int lastStatus;
+        String lastBody;
+
+        private void connect() throws IOException {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(READ_TIMEOUT_MS);
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+            out = new BufferedOutputStream(socket.getOutputStream(), 16384);
+            in = new BufferedInputStream(socket.getInputStream(), 16384);
+        }
+
+        void request(String method, String target, String body) throws IOException {
+            if (socket == null) {
+                connect();
+            }
+            try {
+                byte[] payload = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+                String head = method + " " + target + " HTTP/1.1\r\nHost: " + host + ":" + port
+                        + "\r\nContent-Type: application/json\r\nContent-Length: " + payload.length + "\r\n\r\n";
+                out.write(head.getBytes(StandardCharsets.US_ASCII));
+                out.write(payload);
+                out.flush();
+                readResponse();
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private void readResponse() throws IOException {
+            String status = readLine();
+            if (status == null || status.length() < 12) {
+                throw new EOFException("Connection closed by server");
+            }
+            lastStatus = Integer.parseInt(status.substring(9, 12));
+            int length = 0;
+            boolean closeAfter = false;
+            String line;
+            while ((line = readLine()) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon < 0) {
+                    continue;
+                }
+                String name = line.substring(0, colon).trim();
+                String value = line.substring(colon + 1).trim();
+                if (name.equalsIgnoreCase("Content-Length")) {
+                    length = Integer.parseInt(value);
+                } else if (name.equalsIgnoreCase("Connection") && value.equalsIgnoreCase("close")) {
+                    closeAfter = true;
+                }
+            }
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length < length) {
+                throw new EOFException("Truncated response");
+            }
+            lastBody = new String(bytes, StandardCharsets.UTF_8);
+            if (closeAfter) {
+                close();
+            }
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder sb = new StringBuilder(64);
+            int c;
+            while ((c = in.read()) != -1) {
+                if (c == '\n') {
+                    int n = sb.length();
+                    return n > 0 && sb.charAt(n - 1) == '\r' ? sb.substring(0, n - 1) : sb.toString();
+                }
+                sb.append((char) c);
+            }
+            return sb.length() == 0 ? null : sb.toString();
+        }
+
+        @Override
+        public void close() {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // already broken
+                }
+            }
+            socket = null;
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // PRODUCERS
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    private void produce(int id, long endNanos) {
+        Random random = new Random(seed + id);
+        Schedule schedule = new Schedule(random, startNanos);
+        StringBuilder body = new StringBuilder(batch * 260);
+        String idPrefix = "lg-" + runId + "-" + id + "-";
+        long sequence = 0;
+        try (Connection connection = new Connection()) {
+            while (true) {
+                long intended = schedule.next();
+                if (intended >= endNanos) {
+                    return;
+                }
+                long now;
+                while ((now = System.nanoTime()) < intended) {
+                    LockSupport.parkNanos(intended - now);
+                }
+                long lag = now - intended;
+                long m;
+                while (lag > (m = maxLagNanos.get()) && !maxLagNanos.compareAndSet(m, lag)) {
+                    // retry
+                }
+
+                // A retry resends the previous request as it was
+                boolean retry = body.length() > 0 && random.nextDouble() < retryShare;
+                if (!retry) {
+                    body.setLength(0);
+                    if (batch == 1) {
+                        body.append(detectionJson(random, idPrefix + sequence++));
+                    } else {
+                        body.append('[');
+                        for (int i = 0; i < batch; i++) {
+                            body.append(i > 0 ? "," : "").append(detectionJson(random, idPrefix + sequence++));
+                        }
+                        body.append(']');
+                    }
+                }
+
+                boolean measured = intended >= measureFromNanos;
+                if (measured) {
+                    sent.incrementAndGet();
+                    if (retry) {
+                        retries.incrementAndGet();
+                    }
+                }
+                try {
+                    connection.request("POST", path, body.toString());
+                    long done = System.nanoTime();
+                    // Measured from when the request should have gone out, not when it did
+                    intervalLatency.record((done - intended) / 1000);
+                    intervalCompleted.incrementAndGet();
+                    if (measured) {
+                        latency.record((done - intended) / 1000);
+                        serviceTime.record((done - now) / 1000);
+                        completed.incrementAndGet();
+                        recordResponse(connection.lastStatus, connection.lastBody);
+                    }
+                } catch (IOException e) {
+                    if (measured) {
+                        errors.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    private void recordResponse(int status, String body) {
+        if (status == 202) {
+            try {
+                Map<?, ?> counts = (Map<?, ?>) Json.parse(body);
+                detectionsAccepted.addAndGet(((Double) counts.get("accepted")).longValue());
+                detectionsRefused.addAndGet(((Double) counts.get("refused")).longValue());
+            } catch (RuntimeException e) {
+                detectionsAccepted.addAndGet(batch);
+            }
+        } else if (status == 503) {
+            rejectedRequests.incrementAndGet();
+            detectionsRefused.addAndGet(batch);
+        } else {
+            errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Run the load and return the summary line
+     */
+    String run(BenchmarkRun results) throws InterruptedException {
+        System.out.printf(Locale.ROOT, "[LoadGenerator] %s -> %.0f detections/s (%.0f req/s x %d), %s arrivals, " +
+                        "%d threads, %d s + %d s warmup%n", "http://" + host + ":" + port + path, rate * batch, rate,
+                batch, arrival, threads, durationSec, warmupSec);
+
+        startNanos = System.nanoTime() + 100_000_000L;
+        measureFromNanos = startNanos + warmupSec * 1_000_000_000L;
+        long endNanos = measureFromNanos + durationSec * 1_000_000_000L;
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            final int id = i;
+            Thread t = new Thread(() -> produce(id, endNanos), "loadgen-" + i);
+            t.setDaemon(true);
+            producers.add(t);
+            t.start();
+        }
+
+        long lastReport = startNanos;
+        int second = 0;
+        while (producers.stream().anyMatch(Thread::isAlive)) {
+            long wait = (lastReport + REPORT_INTERVAL_MS * 1_000_000L - System.nanoTime()) / 1_000_000;
+            if (wait > 0) {
+                Thread.sleep(wait);
+            }
+            long now = System.nanoTime();
+            long done = intervalCompleted.getAndSet(0);
+            Histogram interval = intervalLatency;
+            intervalLatency = new Histogram();
+            second++;
+            System.out.printf(Locale.ROOT, "[LoadGenerator] t=%3ds target=%.0f/s achieved=%.0f/s " +
+                            "p50=%.2fms p99=%.2fms max=%.2fms behind=%.1fms refused=%d errors=%d%s%n",
+                    second, rate, done * 1e9 / (now - lastReport),
+                    interval.percentileMs(50), interval.percentileMs(99), interval.maxMs(),
+                    maxLagNanos.getAndSet(0) / 1e6, detectionsRefused.get(), errors.get(),
+                    second <= warmupSec ? " (warmup)" : "");
+            lastReport = now;
+        }
+        double elapsed = (System.nanoTime() - measureFromNanos) / 1e9;
+
+        String serverMetrics = "null";
+        try (Connection connection = new Connection()) {
+            connection.request("GET", "/api/ingest/metrics", null);
+            if (connection.lastStatus == 200) {
+                serverMetrics = connection.lastBody;
+            }
+        } catch (IOException e) {
+            System.err.println("[LoadGenerator] Could not read server metrics: " + e.getMessage());
+        }
+
+        return results.result("ingest", String.format(Locale.ROOT,
+                "\"arrival\":%s,\"threads\":%d,\"batch\":%d,\"duration_s\":%.1f,\"target_rate\":%.1f," +
+                        "\"achieved_rate\":%.1f,\"sent\":%d,\"completed\":%d,\"accepted\":%d,\"refused\":%d," +
+                        "\"rejected_requests\":%d,\"errors\":%d,\"retries\":%d,\"latency_p50_ms\":%.3f,\"latency_p90_ms\":%.3f," +
+                        "\"latency_p99_ms\":%.3f,\"latency_p999_ms\":%.3f,\"latency_max_ms\":%.3f," +
+                        "\"service_p50_ms\":%.3f,\"service_p99_ms\":%.3f,\"server\":%s",
+                Json.quote(arrival), threads, batch,
+                elapsed, rate, completed.get() / elapsed, sent.get(), completed.get(), detectionsAccepted.get(),
+                detectionsRefused.get(), rejectedRequests.get(), errors.get(), retries.get(), latency.percentileMs(50),
+                latency.percentileMs(90), latency.percentileMs(99), latency.percentileMs(99.9), latency.maxMs(),
+                serviceTime.percentileMs(50), serviceTime.percentileMs(99), serverMetrics));
+    }
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRun run = new BenchmarkRun(args, "loadgen.jsonl");
+        LoadGenerator generator = new LoadGenerator(run.getOptions());
+
+        IngestionServer embedded = null;
+        if (Boolean.parseBoolean(run.get("embedded", "false"))) {
+            embedded = new IngestionServer(AccidentIngestor.fromConfig(new InMemoryFleetStore(),
+                    ConfigManager.getInstance().getIngestSpillFile()), generator.port);
+            embedded.start();
+        }
+
+        String summary = generator.run(run);
+        run.append(summary);
+        System.out.println(summary);
+        System.out.println("[LoadGenerator] Results appended to " + run.getOutFile());
+
+        if (embedded != null) {
+            embedded.stop();
+        }
+        System.exit(0);
+    }
+}
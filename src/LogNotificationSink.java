@@ -0,0 +1,67 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * LogNotificationSink - Notifications of a headless engine, written to
+ * standard output and, when a file is given, appended to it as one JSON
+ * event per line for other tools to tail:
+ * {"time":"...","level":"URGENT","title":"...","message":"..."}
+ */
+public class LogNotificationSink implements NotificationSink {
+    private final PrintWriter events;
+
+    /**
+     * Sink that writes to standard output only
+     */
+    public LogNotificationSink() {
+        this.events = null;
+    }
+
+    /**
+     * @param eventFile JSON lines file to append to
+     */
+    public LogNotificationSink(String eventFile) throws IOException {
+        this.events = new PrintWriter(new FileWriter(eventFile, true), true);
+    }
+
+    @Override
+    public void showInfo(String title, String message) {
+        write("INFO", title, message);
+    }
+
+    @Override
+    public void showWarning(String title, String message) {
+        write("WARNING", title, message);
+    }
+
+    @Override
+    public void showError(String title, String message) {
+        write("ERROR", title, message);
+    }
+
+    @Override
+    public void showUrgent(String title, String message) {
+        write("URGENT", title, message);
+    }
+
+    private synchronized void write(String level, String title, String message) {
+        System.out.println("[Notification] " + level + " " + title + ": " + message);
+        if (events != null) {
+            events.println("{\"time\":" + Json.quote(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS").format(new Date()))
+                    + ",\"level\":\"" + level + "\",\"title\":" + Json.quote(title)
+                    + ",\"message\":" + Json.quote(message) + "}");
+        }
+    }
+
+    /**
+     * Stop appending to the event file
+     */
+    public synchronized void close() {
+        if (events != null) {
+            events.close();
+        }
+    }
+}
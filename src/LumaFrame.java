@@ -0,0 +1,46 @@
+/**
+ * LumaFrame - One video frame reduced to an 8-bit brightness grid at
+ * analysis resolution. Each FramePipeline worker owns a couple of these
+ * and refills them frame after frame, so decoding allocates no per-frame
+ * images; detectors must copy anything they want to keep.
+ */
+public class LumaFrame {
+    public final int width;
+    public final int height;
+    public final byte[] pixels;
+    public int index;
+    public long timestampMs;
+
+    public LumaFrame(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.pixels = new byte[width * height];
+    }
+
+    public int luma(int x, int y) {
+        return pixels[y * width + x] & 0xff;
+    }
+
+    /**
+     * Box-average a larger 8-bit plane (row stride srcStride) into this frame
+     */
+    public void downsample(byte[] src, int srcWidth, int srcHeight, int srcStride) {
+        int sx = Math.max(1, srcWidth / width);
+        int sy = Math.max(1, srcHeight / height);
+        int area = sx * sy;
+        for (int y = 0; y < height; y++) {
+            int rowBase = y * sy * srcStride;
+            for (int x = 0; x < width; x++) {
+                int sum = 0;
+                int base = rowBase + x * sx;
+                for (int dy = 0; dy < sy; dy++) {
+                    int p = base + dy * srcStride;
+                    for (int dx = 0; dx < sx; dx++) {
+                        sum += src[p + dx] & 0xff;
+                    }
+                }
+                pixels[y * width + x] = (byte) (sum / area);
+            }
+        }
+    }
+}
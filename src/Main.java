@@ -3,6 +3,10 @@ import javax.swing.border.*;
 import javax.swing.table.*;
 import java.awt.*;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
 /**
@@ -12,14 +16,19 @@ public class Main extends JFrame {
     private DatabaseManager dbManager;
     private WeatherService weatherService;
     private AmbulanceMovementSync ambulanceSync;
+    private AccidentIngestor accidentIngestor;
     private NotificationManager notificationManager;
 
     private JTable accidentTable;
     private JTable ambulanceTable;
     private JTable hospitalTable;
-    private DefaultTableModel accidentModel;
-    private DefaultTableModel ambulanceModel;
-    private DefaultTableModel hospitalModel;
+    // Refreshed every few seconds; only changed rows are repainted
+    private KeyedTableModel accidentModel;
+    private KeyedTableModel ambulanceModel;
+    private KeyedTableModel hospitalModel;
+    private final LiveDataHub liveData = LiveDataHub.getInstance();
+    // One map window per console, hidden rather than disposed when closed
+    private JFrame mapFrame;
 
     private JLabel weatherLabel;
     private JLabel statsLabel;
@@ -59,12 +68,24 @@ public class Main extends JFrame {
         this.currentUserId = userId;
         this.dbManager = DatabaseManager.getInstance();
         this.weatherService = new WeatherService();
-        this.ambulanceSync = new AmbulanceMovementSync();
         this.notificationManager = NotificationManager.getInstance();
+        // A viewer only shows the fleet an EngineServer moves
+        if (!ConfigManager.getInstance().isConsoleViewer()) {
+            this.ambulanceSync = new AmbulanceMovementSync();
+            ambulanceSync.setTickExecutor(SwingUtilities::invokeLater);
+            ambulanceSync.setNotificationSink(notificationManager);
+        }
+        // Accidents are queued and written in the background so a slow database never blocks the UI
+        this.accidentIngestor = AccidentIngestor.fromConfig(new JdbcFleetStore(dbManager),
+                ConfigManager.getInstance().getIngestSpillFile(), weatherService);
 
         initializeUI();
         startRefreshTimer();
-        ambulanceSync.start();
+        if (ambulanceSync != null) {
+            ambulanceSync.start();
+        }
+        accidentIngestor.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(accidentIngestor::stop));
 
         notificationManager.showInfo("Welcome", "Logged in as " + userRole);
     }
@@ -279,7 +300,7 @@ public class Main extends JFrame {
         statsLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
         statsLabel.setForeground(UITheme.ACCENT);
         statsLabel.setAlignmentX(Component.RIGHT_ALIGNMENT);
-        updateStats();
+        liveData.subscribe(LiveDataHub.Topic.STATS, statsLabel, this::showStats);
 
         rightPanel.add(weatherLabel);
         rightPanel.add(Box.createVerticalStrut(5));
@@ -399,15 +420,10 @@ public class Main extends JFrame {
 
     private JScrollPane createAccidentsTable() {
         String[] columns = { "ID", "Location", "Severity", "Time" };
-        accidentModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        accidentModel = new KeyedTableModel(columns);
 
         accidentTable = UITheme.createStyledTable(accidentModel);
-        refreshAccidents();
+        liveData.subscribe(LiveDataHub.Topic.ACCIDENTS, accidentTable, this::showAccidents);
 
         JScrollPane scroll = new JScrollPane(accidentTable);
         UITheme.styleScrollPane(scroll);
@@ -416,15 +432,10 @@ public class Main extends JFrame {
 
     private JScrollPane createAmbulancesTable() {
         String[] columns = { "ID", "Position", "Status" };
-        ambulanceModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        ambulanceModel = new KeyedTableModel(columns);
 
         ambulanceTable = UITheme.createStyledTable(ambulanceModel);
-        refreshAmbulances();
+        liveData.subscribe(LiveDataHub.Topic.AMBULANCES, ambulanceTable, this::showAmbulances);
 
         JScrollPane scroll = new JScrollPane(ambulanceTable);
         UITheme.styleScrollPane(scroll);
@@ -433,15 +444,10 @@ public class Main extends JFrame {
 
     private JScrollPane createHospitalsTable() {
         String[] columns = { "ID", "Name", "Beds", "Max Severity" };
-        hospitalModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        hospitalModel = new KeyedTableModel(columns);
 
         hospitalTable = UITheme.createStyledTable(hospitalModel);
-        refreshHospitals();
+        liveData.subscribe(LiveDataHub.Topic.HOSPITALS, hospitalTable, this::showHospitals);
 
         JScrollPane scroll = new JScrollPane(hospitalTable);
         UITheme.styleScrollPane(scroll);
@@ -474,6 +480,7 @@ public class Main extends JFrame {
         primaryRow.add(createActionButton("Fleet", UITheme.ACCENT_PURPLE, e -> showFleetManagement()));
         primaryRow.add(createActionButton("Drivers", UITheme.ACCENT_PURPLE, e -> showDriverManagement()));
         primaryRow.add(createActionButton("Reports", UITheme.ACCENT_PURPLE, e -> showIncidentReports()));
+        primaryRow.add(createActionButton("History", UITheme.ACCENT_PURPLE, e -> showAccidentHistory()));
         primaryRow.add(createActionButton("SQL Lab", UITheme.STATUS_ENROUTE, e -> showSQLOperations()));
         primaryRow.add(createActionButton("Messages", UITheme.ACCENT, e -> showCommunicationPanel()));
         primaryRow.add(createActionButton("Refresh", UITheme.TEXT_SECONDARY, e -> refreshAllData()));
@@ -488,6 +495,7 @@ public class Main extends JFrame {
         JFrame frame = new JFrame("Analytics Dashboard");
         frame.setSize(1200, 800);
         frame.setLocationRelativeTo(this);
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         frame.add(new AnalyticsDashboard());
         frame.setVisible(true);
     }
@@ -496,6 +504,7 @@ public class Main extends JFrame {
         JFrame frame = new JFrame("Hospital Management");
         frame.setSize(1100, 700);
         frame.setLocationRelativeTo(this);
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         frame.add(new HospitalManagementPanel());
         frame.setVisible(true);
     }
@@ -504,6 +513,7 @@ public class Main extends JFrame {
         JFrame frame = new JFrame("Fleet Management");
         frame.setSize(1100, 750);
         frame.setLocationRelativeTo(this);
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         frame.add(new FleetManagementPanel());
         frame.setVisible(true);
     }
@@ -512,6 +522,7 @@ public class Main extends JFrame {
         JFrame frame = new JFrame("Driver Management");
         frame.setSize(1050, 650);
         frame.setLocationRelativeTo(this);
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         frame.add(new DriverManagementPanel());
         frame.setVisible(true);
     }
@@ -520,7 +531,39 @@ public class Main extends JFrame {
         JFrame frame = new JFrame("Incident Reports");
         frame.setSize(1100, 700);
         frame.setLocationRelativeTo(this);
-        frame.add(new IncidentReportPanel());
+        IncidentReportPanel panel = new IncidentReportPanel();
+        panel.setCurrentUserId(currentUserId);
+        frame.add(panel);
+        frame.setVisible(true);
+    }
+
+    /**
+     * Every accident ever reported, newest first, paged in as the user scrolls
+     */
+    private void showAccidentHistory() {
+        String[] columns = { "ID", "Location", "Severity", "Status", "Risk", "Reported" };
+        PagedTableModel model = new PagedTableModel(columns, PagedTableModel.jdbc(
+                "SELECT accident_id, location, severity, status, risk_score, accident_time FROM accidents",
+                "accident_time", "accident_id", rs -> new Object[] {
+                        rs.getInt("accident_id"),
+                        rs.getString("location"),
+                        rs.getString("severity"),
+                        rs.getString("status"),
+                        rs.getObject("risk_score") != null ? rs.getInt("risk_score") : "—",
+                        rs.getTimestamp("accident_time").toString().substring(0, 19)
+                }), 200, 10);
+        JTable table = UITheme.createStyledTable(model);
+        model.reload();
+        // New accidents slide in at the top whenever the live view sees some
+        liveData.subscribe(LiveDataHub.Topic.ACCIDENTS, table, snapshot -> model.refresh());
+
+        JScrollPane scroll = new JScrollPane(table);
+        UITheme.styleScrollPane(scroll);
+        JFrame frame = new JFrame("Accident History");
+        frame.setSize(900, 650);
+        frame.setLocationRelativeTo(this);
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.add(scroll);
         frame.setVisible(true);
     }
 
@@ -606,143 +649,92 @@ public class Main extends JFrame {
     }
 
     private void generateRandomAccident() {
-        try {
-            String location = LOCATIONS[random.nextInt(LOCATIONS.length)];
-            String vehicleId = VEHICLE_PREFIXES[random.nextInt(VEHICLE_PREFIXES.length)] +
-                    String.format("%c%c%04d",
-                            (char) ('A' + random.nextInt(26)),
-                            (char) ('A' + random.nextInt(26)),
-                            random.nextInt(10000));
-            String severity = SEVERITIES[random.nextInt(SEVERITIES.length)];
-            String description = "AI-detected collision at " + location;
-
-            String sql = "INSERT INTO accidents (location, vehicle_id, severity, description, reported_by) " +
-                    "VALUES (?, ?, ?, ?, ?)";
-            PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql);
-            pstmt.setString(1, location);
-            pstmt.setString(2, vehicleId);
-            pstmt.setString(3, severity);
-            pstmt.setString(4, description);
-            pstmt.setString(5, "AI System");
-            pstmt.executeUpdate();
-
-            String tag = severity.equals("Critical") ? "[CRITICAL]"
-                    : severity.equals("High") ? "[HIGH]" : severity.equals("Medium") ? "[MEDIUM]" : "[LOW]";
-
-            notificationManager.showUrgent("NEW ACCIDENT DETECTED",
-                    tag + " " + severity + " — " + location);
-
-            refreshAllData();
-            updateGoogleMaps();
-
-        } catch (SQLException e) {
-            System.err.println("[Main] Error generating accident: " + e.getMessage());
+        String location = LOCATIONS[random.nextInt(LOCATIONS.length)];
+        String vehicleId = VEHICLE_PREFIXES[random.nextInt(VEHICLE_PREFIXES.length)] +
+                String.format("%c%c%04d",
+                        (char) ('A' + random.nextInt(26)),
+                        (char) ('A' + random.nextInt(26)),
+                        random.nextInt(10000));
+        String severity = SEVERITIES[random.nextInt(SEVERITIES.length)];
+        String description = "AI-detected collision at " + location;
+
+        // Tables and map pick the new row up on their next refresh
+        if (accidentIngestor.submitNow(Collections.singletonList(
+                Detection.unlocated(location, vehicleId, severity, description, "AI System"))) == 0) {
+            System.err.println("[Main] Accident queue full, generated accident dropped");
+            return;
         }
+
+        String tag = severity.equals("Critical") ? "[CRITICAL]"
+                : severity.equals("High") ? "[HIGH]" : severity.equals("Medium") ? "[MEDIUM]" : "[LOW]";
+
+        notificationManager.showUrgent("NEW ACCIDENT DETECTED",
+                tag + " " + severity + " — " + location);
     }
 
-    private void updateGoogleMaps() {
-        // Trigger map refresh
-        try {
-            GoogleMapsPanel mapPanel = new GoogleMapsPanel();
-            mapPanel.refreshMap();
-        } catch (Exception e) {
-            System.err.println("[Main] Error updating map: " + e.getMessage());
+    private void showAccidents(LiveDataHub.Snapshot snapshot) {
+        List<Object[]> rows = new ArrayList<>();
+        for (LiveDataHub.Row r : snapshot.rows) {
+            String severity = r.getString("severity");
+            String icon = severity.equals("Critical") ? "●"
+                    : severity.equals("High") ? "●" : severity.equals("Medium") ? "●" : "●";
+
+            rows.add(new Object[] {
+                    r.getInt("accident_id"),
+                    r.getString("location"),
+                    icon + " " + severity,
+                    r.getTimestamp("accident_time").toString().substring(11, 19)
+            });
         }
+        accidentModel.update(rows);
     }
 
-    private void refreshAccidents() {
-        try {
-            accidentModel.setRowCount(0);
-            String sql = "SELECT * FROM accidents ORDER BY accident_time DESC LIMIT 20";
-            ResultSet rs = dbManager.executeQuery(sql);
-
-            while (rs.next()) {
-                String severity = rs.getString("severity");
-                String icon = severity.equals("Critical") ? "●"
-                        : severity.equals("High") ? "●" : severity.equals("Medium") ? "●" : "●";
+    private void showAmbulances(LiveDataHub.Snapshot snapshot) {
+        List<Object[]> rows = new ArrayList<>();
+        for (LiveDataHub.Row r : snapshot.rows) {
+            String status = r.getString("status");
+            String icon = status.equals("green") ? "Available"
+                    : status.equals("yellow") ? "Dispatched" : "At Scene";
 
-                Object[] row = {
-                        rs.getInt("accident_id"),
-                        rs.getString("location"),
-                        icon + " " + severity,
-                        rs.getTimestamp("accident_time").toString().substring(11, 19)
-                };
-                accidentModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            System.err.println("[Main] Error refreshing accidents: " + e.getMessage());
+            rows.add(new Object[] {
+                    r.getInt("ambulance_id"),
+                    String.format("(%d, %d)", r.getInt("current_x"), r.getInt("current_y")),
+                    icon
+            });
         }
+        ambulanceModel.update(rows);
     }
 
-    private void refreshAmbulances() {
-        try {
-            ambulanceModel.setRowCount(0);
-            String sql = "SELECT * FROM ambulances";
-            ResultSet rs = dbManager.executeQuery(sql);
-
-            while (rs.next()) {
-                String status = rs.getString("status");
-                String icon = status.equals("green") ? "Available"
-                        : status.equals("yellow") ? "Dispatched" : "At Scene";
-
-                Object[] row = {
-                        rs.getInt("ambulance_id"),
-                        String.format("(%d, %d)", rs.getInt("current_x"), rs.getInt("current_y")),
-                        icon
-                };
-                ambulanceModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            System.err.println("[Main] Error refreshing ambulances: " + e.getMessage());
+    private void showHospitals(LiveDataHub.Snapshot snapshot) {
+        List<Object[]> rows = new ArrayList<>();
+        for (LiveDataHub.Row r : snapshot.rows) {
+            rows.add(new Object[] {
+                    r.getInt("hospital_id"),
+                    r.getString("name"),
+                    r.getInt("available_beds") + "/" + r.getInt("capacity"),
+                    r.getString("max_severity")
+            });
         }
+        hospitalModel.update(rows);
     }
 
-    private void refreshHospitals() {
-        try {
-            hospitalModel.setRowCount(0);
-            String sql = "SELECT * FROM hospitals";
-            ResultSet rs = dbManager.executeQuery(sql);
-
-            while (rs.next()) {
-                Object[] row = {
-                        rs.getInt("hospital_id"),
-                        rs.getString("name"),
-                        rs.getInt("available_beds") + "/" + rs.getInt("capacity"),
-                        rs.getString("max_severity")
-                };
-                hospitalModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            System.err.println("[Main] Error refreshing hospitals: " + e.getMessage());
+    private void showStats(LiveDataHub.Snapshot snapshot) {
+        LiveDataHub.Row stats = snapshot.first();
+        if (stats != null) {
+            statsLabel.setText(String.format("%d Accidents  |  %d Units Ready", stats.getInt("total_accidents"),
+                    stats.getInt("available_ambulances")));
         }
     }
 
     private void refreshAllData() {
-        refreshAccidents();
-        refreshAmbulances();
-        refreshHospitals();
+        liveData.refresh(LiveDataHub.Topic.ACCIDENTS, LiveDataHub.Topic.AMBULANCES, LiveDataHub.Topic.HOSPITALS,
+                LiveDataHub.Topic.STATS);
         weatherLabel.setText(weatherService.getWeatherDisplay());
-        updateStats();
-    }
-
-    private void updateStats() {
-        try {
-            ResultSet rs = dbManager.executeQuery("SELECT COUNT(*) as total FROM accidents");
-            rs.next();
-            int totalAccidents = rs.getInt("total");
-
-            rs = dbManager.executeQuery("SELECT COUNT(*) as avail FROM ambulances WHERE status = 'green'");
-            rs.next();
-            int availAmbulances = rs.getInt("avail");
-
-            statsLabel.setText(String.format("%d Accidents  |  %d Units Ready", totalAccidents, availAmbulances));
-        } catch (SQLException e) {
-            System.err.println("[Main] Error updating stats: " + e.getMessage());
-        }
     }
 
     private void startRefreshTimer() {
-        refreshTimer = new Timer(3000, e -> refreshAllData());
+        // Tables and stats are pushed by the LiveDataHub; only the weather is polled here
+        refreshTimer = new Timer(3000, e -> weatherLabel.setText(weatherService.getWeatherDisplay()));
         refreshTimer.start();
     }
 
@@ -772,23 +764,15 @@ public class Main extends JFrame {
         submitBtn.setBackground(UITheme.STATUS_CRITICAL);
         submitBtn.setForeground(Color.WHITE);
         submitBtn.addActionListener(e -> {
-            try {
-                String sql = "INSERT INTO accidents (location, vehicle_id, severity, description, reported_by) VALUES (?, ?, ?, ?, ?)";
-                PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql);
-                pstmt.setString(1, locationField.getText());
-                pstmt.setString(2, vehicleField.getText());
-                pstmt.setString(3, (String) severityCombo.getSelectedItem());
-                pstmt.setString(4, descField.getText());
-                pstmt.setString(5, "User #" + currentUserId);
-                pstmt.executeUpdate();
-
-                notificationManager.showUrgent("Accident Reported", "New accident at " + locationField.getText());
-                dialog.dispose();
-                refreshAccidents();
-                updateGoogleMaps();
-            } catch (SQLException ex) {
-                System.err.println("[Main] Error: " + ex.getMessage());
+            Detection report = Detection.unlocated(locationField.getText(), vehicleField.getText(),
+                    (String) severityCombo.getSelectedItem(), descField.getText(), "User #" + currentUserId);
+            if (accidentIngestor.submitNow(Collections.singletonList(report)) == 0) {
+                notificationManager.showError("Report Not Saved", "Accident queue is full, please try again");
+                return;
             }
+
+            notificationManager.showUrgent("Accident Reported", "New accident at " + locationField.getText());
+            dialog.dispose();
         });
 
         JButton cancelBtn = new JButton("Cancel");
@@ -807,17 +791,22 @@ public class Main extends JFrame {
     }
 
     private void showGoogleMaps() {
-        JFrame mapFrame = new JFrame("Google Maps - Live View");
-        mapFrame.setSize(1000, 750);
-        mapFrame.setLocationRelativeTo(this);
-        mapFrame.add(new GoogleMapsPanel());
+        if (mapFrame == null) {
+            mapFrame = new JFrame("Google Maps - Live View");
+            mapFrame.setSize(1000, 750);
+            mapFrame.setLocationRelativeTo(this);
+            mapFrame.setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
+            mapFrame.add(new GoogleMapsPanel());
+        }
         mapFrame.setVisible(true);
+        mapFrame.toFront();
     }
 
     private void showCommunicationPanel() {
         JFrame commFrame = new JFrame("Communication Center");
         commFrame.setSize(700, 500);
         commFrame.setLocationRelativeTo(this);
+        commFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         CommunicationPanel panel = new CommunicationPanel();
         panel.setCurrentUserId(currentUserId);
         commFrame.add(panel);
@@ -833,7 +822,14 @@ public class Main extends JFrame {
                 accidentGenTimer.stop();
             if (refreshTimer != null)
                 refreshTimer.stop();
-            ambulanceSync.stop();
+            if (ambulanceSync != null) {
+                ambulanceSync.stop();
+            }
+            accidentIngestor.stop();
+            if (mapFrame != null)
+                mapFrame.dispose();
+            LiveMapService.getInstance().stop();
+            liveData.stop();
             dispose();
 
             SwingUtilities.invokeLater(() -> {
@@ -847,7 +843,11 @@ public class Main extends JFrame {
         }
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (Arrays.asList(args).contains("--headless")) {
+            EngineServer.main(args);
+            return;
+        }
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception e) {
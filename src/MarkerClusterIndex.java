@@ -0,0 +1,272 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MarkerClusterIndex - Map points grouped into clusters for every zoom
+ * level, so a browser is sent a few hundred aggregates for its viewport
+ * instead of every point in the city.
+ *
+ * Each zoom level from MIN_ZOOM to MAX_ZOOM is a grid of CELL_PX pixel
+ * cells in Web Mercator, holding per cell the number of points, the sum of
+ * their positions (for the centroid) and their count per category (e.g.
+ * severity). Cells double in resolution from one level to the next, so
+ * the four cells under a cell are its exact children, like a quadtree.
+ * Adding, moving or removing a point touches one cell per level, and a
+ * point that moves within its cell only shifts the sums, so the index is
+ * kept current as ambulances drive rather than rebuilt. The finest level
+ * also keeps the points themselves, for zooms past MAX_ZOOM and for
+ * cells that hold a single point.
+ *
+ * Not thread-safe; LiveMapServer uses it under its own lock.
+ */
+public class MarkerClusterIndex {
+    public static final int MIN_ZOOM = 3;
+    public static final int MAX_ZOOM = 16;
+    private static final int CELL_PX = 64;
+    private static final int LEVELS = MAX_ZOOM - MIN_ZOOM + 1;
+
+    /**
+     * One indexed point and what it stands for
+     */
+    public static final class Point {
+        public final String id;
+        public final double lat;
+        public final double lng;
+        public final String category;
+        public final Object value;
+        // Web Mercator position, 0..1 from the west and from the north
+        final double x;
+        final double y;
+        int categoryId;
+
+        public Point(String id, double lat, double lng, String category, Object value) {
+            this.id = id;
+            this.lat = lat;
+            this.lng = lng;
+            this.category = category;
+            this.value = value;
+            this.x = (lng + 180) / 360;
+            double sin = Math.sin(Math.toRadians(Math.max(-85, Math.min(85, lat))));
+            this.y = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+        }
+    }
+
+    /**
+     * Points of one cell: a cluster, or a single point when count is 1
+     */
+    public static final class Cluster {
+        public final double lat;
+        public final double lng;
+        public final int count;
+        public final Map<String, Integer> categories;
+        public final Point single;
+
+        Cluster(double lat, double lng, int count, Map<String, Integer> categories, Point single) {
+            this.lat = lat;
+            this.lng = lng;
+            this.count = count;
+            this.categories = categories;
+            this.single = single;
+        }
+    }
+
+    private static final class Cell {
+        int count;
+        double sumLat;
+        double sumLng;
+        int[] categories = new int[4];
+        // Finest level only
+        List<Point> points;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private final Map<Long, Cell>[] levels = new HashMap[LEVELS];
+    private final Map<String, Point> points = new HashMap<>();
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    private final List<String> categoryNames = new ArrayList<>();
+
+    public MarkerClusterIndex() {
+        for (int i = 0; i < LEVELS; i++) {
+            levels[i] = new HashMap<>();
+        }
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    /**
+     * Add a point, or move and update the point with the same id
+     */
+    public void put(Point point) {
+        Integer categoryId = categoryIds.get(point.category);
+        if (categoryId == null) {
+            categoryId = categoryNames.size();
+            categoryIds.put(point.category, categoryId);
+            categoryNames.add(point.category);
+        }
+        point.categoryId = categoryId;
+
+        Point old = points.put(point.id, point);
+        for (int z = MIN_ZOOM; z <= MAX_ZOOM; z++) {
+            Map<Long, Cell> level = levels[z - MIN_ZOOM];
+            long key = cellKey(point, z);
+            if (old != null && cellKey(old, z) == key) {
+                // Still in the same cell: shift the sums only
+                Cell cell = level.get(key);
+                cell.sumLat += point.lat - old.lat;
+                cell.sumLng += point.lng - old.lng;
+                cell.categories[old.categoryId]--;
+                count(cell, point.categoryId, 1);
+                if (cell.points != null) {
+                    cell.points.set(cell.points.indexOf(old), point);
+                }
+                continue;
+            }
+            if (old != null) {
+                leave(level, cellKey(old, z), old, z);
+            }
+            Cell cell = level.computeIfAbsent(key, k -> new Cell());
+            cell.count++;
+            cell.sumLat += point.lat;
+            cell.sumLng += point.lng;
+            count(cell, point.categoryId, 1);
+            if (z == MAX_ZOOM) {
+                if (cell.points == null) {
+                    cell.points = new ArrayList<>(2);
+                }
+                cell.points.add(point);
+            }
+        }
+    }
+
+    /**
+     * Remove the point with this id, if there is one
+     */
+    public void remove(String id) {
+        Point old = points.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (int z = MIN_ZOOM; z <= MAX_ZOOM; z++) {
+            leave(levels[z - MIN_ZOOM], cellKey(old, z), old, z);
+        }
+    }
+
+    /**
+     * Clusters and single points inside a viewport at a zoom level; past
+     * MAX_ZOOM every point is returned on its own
+     */
+    public List<Cluster> query(int zoom, double west, double south, double east, double north) {
+        List<Cluster> result = new ArrayList<>();
+        int z = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom));
+        Map<Long, Cell> level = levels[z - MIN_ZOOM];
+        Point northWest = new Point("", north, west, "", null);
+        Point southEast = new Point("", south, east, "", null);
+        long scale = (1L << (z + 8)) / CELL_PX;
+        int x0 = (int) Math.floor(northWest.x * scale);
+        int y0 = (int) Math.floor(northWest.y * scale);
+        int x1 = (int) Math.floor(southEast.x * scale);
+        int y1 = (int) Math.floor(southEast.y * scale);
+
+        boolean expand = zoom > MAX_ZOOM;
+        if ((long) (x1 - x0 + 1) * (y1 - y0 + 1) <= level.size()) {
+            for (int cx = x0; cx <= x1; cx++) {
+                for (int cy = y0; cy <= y1; cy++) {
+                    Cell cell = level.get(key(cx, cy));
+                    if (cell != null) {
+                        emit(result, cell, cx, cy, z, expand);
+                    }
+                }
+            }
+        } else {
+            for (Map.Entry<Long, Cell> entry : level.entrySet()) {
+                int cx = (int) (entry.getKey() >> 32);
+                int cy = (int) (long) entry.getKey();
+                if (cx >= x0 && cx <= x1 && cy >= y0 && cy <= y1) {
+                    emit(result, entry.getValue(), cx, cy, z, expand);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void emit(List<Cluster> result, Cell cell, int cx, int cy, int z, boolean expand) {
+        if (expand) {
+            for (Point point : cell.points) {
+                result.add(single(point));
+            }
+            return;
+        }
+        if (cell.count == 1) {
+            result.add(single(findSingle(cell, cx, cy, z)));
+            return;
+        }
+        Map<String, Integer> categories = new LinkedHashMap<>();
+        for (int c = 0; c < cell.categories.length; c++) {
+            if (cell.categories[c] > 0) {
+                categories.put(categoryNames.get(c), cell.categories[c]);
+            }
+        }
+        result.add(new Cluster(cell.sumLat / cell.count, cell.sumLng / cell.count, cell.count, categories, null));
+    }
+
+    private static Cluster single(Point point) {
+        return new Cluster(point.lat, point.lng, 1, null, point);
+    }
+
+    // The one point under a cell holding one: follow the non-empty child down to the finest level
+    private Point findSingle(Cell cell, int cx, int cy, int z) {
+        while (cell.points == null) {
+            z++;
+            Map<Long, Cell> finer = levels[z - MIN_ZOOM];
+            Cell child = null;
+            for (int i = 0; i < 4 && child == null; i++) {
+                int nx = cx * 2 + (i & 1);
+                int ny = cy * 2 + (i >> 1);
+                child = finer.get(key(nx, ny));
+                if (child != null) {
+                    cx = nx;
+                    cy = ny;
+                }
+            }
+            cell = child;
+        }
+        return cell.points.get(0);
+    }
+
+    private void leave(Map<Long, Cell> level, long key, Point point, int z) {
+        Cell cell = level.get(key);
+        if (--cell.count == 0) {
+            level.remove(key);
+            return;
+        }
+        cell.sumLat -= point.lat;
+        cell.sumLng -= point.lng;
+        cell.categories[point.categoryId]--;
+        if (z == MAX_ZOOM) {
+            cell.points.remove(point);
+        }
+    }
+
+    private static void count(Cell cell, int categoryId, int delta) {
+        if (categoryId >= cell.categories.length) {
+            cell.categories = Arrays.copyOf(cell.categories, Math.max(categoryId + 1, cell.categories.length * 2));
+        }
+        cell.categories[categoryId] += delta;
+    }
+
+    private static long cellKey(Point point, int z) {
+        // CELL_PX-pixel cells of a world 256 << z pixels wide
+        long scale = (1L << (z + 8)) / CELL_PX;
+        return key((int) Math.floor(point.x * scale), (int) Math.floor(point.y * scale));
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+}
@@ -0,0 +1,214 @@
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * MissionRecorder - Captures the real timeline of every ambulance mission
+ * (dispatch, scene arrival, scene departure, hospital arrival) together with
+ * the distance driven. Missions are tracked in memory by the movement engine
+ * and handed to the FleetStore (response_times and incident_reports) in
+ * batches on a background thread so the sync tick never waits on these
+ * inserts.
+ */
+public class MissionRecorder {
+    // Grid unit -> metres, matching the 0.0005 deg per unit used for GPS updates
+    public static final double METERS_PER_GRID_UNIT = 0.0005 * 111320;
+
+    private static final long FLUSH_INTERVAL_MS = 5000;
+    private static final int MAX_PENDING = 10000;
+
+    private final FleetStore store;
+
+    // Active missions keyed by ambulance id - only touched by the sync tick
+    private final Map<Integer, Mission> activeMissions = new HashMap<>();
+
+    // Finished legs waiting to be written by the flusher thread
+    private final ConcurrentLinkedQueue<Mission> pendingResponseTimes = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Mission> pendingReports = new ConcurrentLinkedQueue<>();
+
+    private ScheduledExecutorService flusher;
+
+    /**
+     * In-memory timeline of a single dispatch
+     */
+    static class Mission {
+        final int accidentId;
+        final int ambulanceId;
+        final String severity;
+        final String location;
+        final long dispatchTime;
+        int hospitalId;
+        long arrivalTime;
+        long sceneDepartureTime;
+        long hospitalArrivalTime;
+        double responseDistance; // grid units driven to the scene
+        double transportDistance; // grid units driven to the hospital
+
+        Mission(int accidentId, int ambulanceId, String severity, String location, long dispatchTime) {
+            this.accidentId = accidentId;
+            this.ambulanceId = ambulanceId;
+            this.severity = severity;
+            this.location = location;
+            this.dispatchTime = dispatchTime;
+        }
+
+        int responseTimeSeconds() {
+            return (int) ((arrivalTime - dispatchTime) / 1000);
+        }
+
+        int totalTimeSeconds() {
+            return (int) ((hospitalArrivalTime - dispatchTime) / 1000);
+        }
+    }
+
+    public MissionRecorder(FleetStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Start the background flusher
+     */
+    public void start() {
+        if (flusher != null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mission-recorder");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the flusher and write out anything still buffered
+     */
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flusher = null;
+        }
+        flush();
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // MISSION EVENTS (called from the sync tick)
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    public void missionDispatched(int ambulanceId, int accidentId, String severity, String location) {
+        activeMissions.put(ambulanceId,
+                new Mission(accidentId, ambulanceId, severity, location, System.currentTimeMillis()));
+    }
+
+    public void distanceTravelled(int ambulanceId, double gridUnits) {
+        Mission mission = activeMissions.get(ambulanceId);
+        if (mission == null) {
+            return;
+        }
+        if (mission.arrivalTime == 0) {
+            mission.responseDistance += gridUnits;
+        } else {
+            mission.transportDistance += gridUnits;
+        }
+    }
+
+    public void arrivedAtScene(int ambulanceId) {
+        Mission mission = activeMissions.get(ambulanceId);
+        if (mission == null || mission.arrivalTime != 0) {
+            return;
+        }
+        mission.arrivalTime = System.currentTimeMillis();
+        enqueue(pendingResponseTimes, mission);
+    }
+
+    public void departedScene(int ambulanceId, int hospitalId) {
+        Mission mission = activeMissions.get(ambulanceId);
+        if (mission == null || mission.arrivalTime == 0) {
+            return;
+        }
+        mission.hospitalId = hospitalId;
+        mission.sceneDepartureTime = System.currentTimeMillis();
+    }
+
+    public void arrivedAtHospital(int ambulanceId) {
+        Mission mission = activeMissions.remove(ambulanceId);
+        if (mission == null || mission.sceneDepartureTime == 0) {
+            return;
+        }
+        mission.hospitalArrivalTime = System.currentTimeMillis();
+        enqueue(pendingReports, mission);
+    }
+
+    /**
+     * Stop tracking a mission because another dispatch node takes the unit over
+     *
+     * @return the mission so far, or null if the unit had none
+     */
+    public Mission handOff(int ambulanceId) {
+        return activeMissions.remove(ambulanceId);
+    }
+
+    /**
+     * Continue a mission handed over by another dispatch node
+     */
+    public void adopt(Mission mission) {
+        activeMissions.put(mission.ambulanceId, mission);
+    }
+
+    /**
+     * Number of missions currently being tracked
+     */
+    public int getActiveMissionCount() {
+        return activeMissions.size();
+    }
+
+    private void enqueue(ConcurrentLinkedQueue<Mission> queue, Mission mission) {
+        if (queue.size() >= MAX_PENDING) {
+            System.err.println("[MissionRecorder] Backlog full, dropping record for accident " + mission.accidentId);
+            return;
+        }
+        queue.add(mission);
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // BATCH WRITES
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    /**
+     * Write all buffered response times and incident reports in one transaction
+     */
+    public synchronized void flush() {
+        List<Mission> arrivals = drain(pendingResponseTimes);
+        List<Mission> completed = drain(pendingReports);
+        if (arrivals.isEmpty() && completed.isEmpty()) {
+            return;
+        }
+
+        try {
+            store.saveMissions(arrivals, completed);
+        } catch (SQLException e) {
+            System.err.println("[MissionRecorder] Error flushing mission data: " + e.getMessage());
+            // Keep the records for the next attempt
+            for (Mission m : arrivals) {
+                enqueue(pendingResponseTimes, m);
+            }
+            for (Mission m : completed) {
+                enqueue(pendingReports, m);
+            }
+        }
+    }
+
+    private List<Mission> drain(ConcurrentLinkedQueue<Mission> queue) {
+        List<Mission> batch = new ArrayList<>();
+        Mission m;
+        while ((m = queue.poll()) != null) {
+            batch.add(m);
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,138 @@
+import java.util.Locale;
+
+/**
+ * MotionEnergyDetector - Frame-differencing crash detector. Motion energy
+ * is the share of pixels whose brightness changed by more than a few
+ * levels since the previous frame. A traffic camera has a steady level of
+ * it; a collision shows up as a burst far above that level (debris,
+ * vehicles swerving) followed within a second or two by stillness as the
+ * vehicles stop. The baseline is an exponentially weighted mean and
+ * variance of recent energy, and a burst is measured in standard
+ * deviations above it.
+ *
+ * Severity follows how much of the frame the burst covered; confidence how
+ * far above the baseline it was. After a report the detector stays quiet
+ * for a while so one crash is reported once.
+ */
+public class MotionEnergyDetector implements AccidentDetector {
+    private static final int PIXEL_DELTA = 24;
+    private static final double BASELINE_ALPHA = 0.1;
+    private static final double MIN_STD = 0.002;
+    private static final double TRIGGER_SIGMAS = 6;
+    private static final double SETTLE_SIGMAS = 1;
+    private static final double MIN_ENERGY = 0.01;
+    // Frames the scene has to settle after a burst, and to stay quiet after a report
+    private static final int SETTLE_FRAMES = 15;
+    private static final int COOLDOWN_FRAMES = 30;
+    private static final int BASELINE_FRAMES = 10;
+
+    private byte[] previous;
+    private boolean hasPrevious = false;
+    private int framesSeen = 0;
+    private double mean = 0;
+    private double variance = 0;
+    private int quietUntil = -1;
+
+    // Burst being watched for the vehicles coming to rest; impactFrame < 0 when none
+    private int impactFrame = -1;
+    private long impactTimestampMs;
+    private double peakEnergy;
+    private double peakSigmas;
+    private double peakX;
+    private double peakY;
+
+    @Override
+    public int getContextFrames() {
+        // Baseline memory plus the longest burst-and-cooldown the state can carry
+        return (int) (3 / BASELINE_ALPHA) + SETTLE_FRAMES + COOLDOWN_FRAMES;
+    }
+
+    @Override
+    public Candidate accept(LumaFrame frame) {
+        byte[] pixels = frame.pixels;
+        if (previous == null || previous.length != pixels.length) {
+            previous = new byte[pixels.length];
+            hasPrevious = false;
+        }
+        if (!hasPrevious) {
+            System.arraycopy(pixels, 0, previous, 0, pixels.length);
+            hasPrevious = true;
+            return null;
+        }
+
+        int changed = 0;
+        long sumX = 0;
+        long sumY = 0;
+        for (int y = 0, i = 0; y < frame.height; y++) {
+            for (int x = 0; x < frame.width; x++, i++) {
+                int delta = (pixels[i] & 0xff) - (previous[i] & 0xff);
+                if (delta > PIXEL_DELTA || delta < -PIXEL_DELTA) {
+                    changed++;
+                    sumX += x;
+                    sumY += y;
+                }
+            }
+        }
+        System.arraycopy(pixels, 0, previous, 0, pixels.length);
+        framesSeen++;
+
+        double energy = (double) changed / pixels.length;
+        double std = Math.max(MIN_STD, Math.sqrt(variance));
+        double sigmas = (energy - mean) / std;
+
+        if (impactFrame >= 0) {
+            if (energy > peakEnergy) {
+                peakEnergy = energy;
+                peakSigmas = sigmas;
+                peakX = changed == 0 ? 0.5 : (double) sumX / changed / frame.width;
+                peakY = changed == 0 ? 0.5 : (double) sumY / changed / frame.height;
+            }
+            if (energy <= mean + SETTLE_SIGMAS * std) {
+                Candidate candidate = candidate();
+                impactFrame = -1;
+                quietUntil = frame.index + COOLDOWN_FRAMES;
+                return candidate;
+            }
+            if (frame.index - impactFrame > SETTLE_FRAMES) {
+                // Motion carried on - a scene change or a surge of traffic, not a crash
+                impactFrame = -1;
+            }
+            return null;
+        }
+
+        if (frame.index >= quietUntil && framesSeen > BASELINE_FRAMES && sigmas > TRIGGER_SIGMAS
+                && energy > MIN_ENERGY) {
+            impactFrame = frame.index;
+            impactTimestampMs = frame.timestampMs;
+            peakEnergy = energy;
+            peakSigmas = sigmas;
+            peakX = (double) sumX / changed / frame.width;
+            peakY = (double) sumY / changed / frame.height;
+            return null;
+        }
+
+        double diff = energy - mean;
+        mean += BASELINE_ALPHA * diff;
+        variance = (1 - BASELINE_ALPHA) * (variance + BASELINE_ALPHA * diff * diff);
+        return null;
+    }
+
+    private Candidate candidate() {
+        String severity = peakEnergy >= 0.20 ? "Critical"
+                : peakEnergy >= 0.10 ? "High" : peakEnergy >= 0.04 ? "Medium" : "Low";
+        double confidence = Math.min(0.99, 0.5 + (peakSigmas - TRIGGER_SIGMAS) / (4 * TRIGGER_SIGMAS));
+        return new Candidate(impactFrame, impactTimestampMs, severity, confidence, peakX, peakY,
+                String.format(Locale.ROOT, "Motion burst over %.0f%% of the frame (%.0f sigma) then stillness",
+                        peakEnergy * 100, peakSigmas));
+    }
+
+    @Override
+    public void reset() {
+        hasPrevious = false;
+        framesSeen = 0;
+        mean = 0;
+        variance = 0;
+        quietUntil = -1;
+        impactFrame = -1;
+    }
+}
@@ -0,0 +1,71 @@
+import javax.swing.*;
+import java.util.Locale;
+
+/**
+ * NotificationBenchmark - Burst test for NotificationManager.
+ *
+ * Posts a burst of notifications from several threads, as a flood of
+ * detections and dispatches would, and reports the event dispatch thread
+ * time spent on them and the toasts opened. Appends one JSON line per run
+ * to the results file.
+ *
+ * Usage:
+ * java -cp "out;lib/*" NotificationBenchmark --events 1000 --threads 4
+ * --out notification_benchmark.jsonl --label my-change
+ */
+public class NotificationBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRun run = new BenchmarkRun(args, "notification_benchmark.jsonl");
+        int events = Integer.parseInt(run.get("events", "1000"));
+        int threads = Integer.parseInt(run.get("threads", "4"));
+
+        NotificationManager manager = NotificationManager.getInstance();
+        String[] locations = { "Anna Salai", "T Nagar", "Guindy", "Adyar", "Velachery", "Tambaram" };
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            workers[t] = new Thread(() -> {
+                for (int i = first; i < events; i += threads) {
+                    String location = locations[i % locations.length];
+                    switch (i % 4) {
+                        case 0:
+                            manager.showUrgent("NEW ACCIDENT DETECTED", "[HIGH] High — " + location);
+                            break;
+                        case 1:
+                            manager.showWarning("Ambulance Dispatched", "Ambulance #" + i + " dispatched to " + location);
+                            break;
+                        case 2:
+                            manager.showInfo("Patient Pickup", "Ambulance #" + i + " picked up patient at " + location);
+                            break;
+                        default:
+                            manager.showError("Report Not Saved", "Accident queue is full, please try again");
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long postedNanos = System.nanoTime() - start;
+        // Let the drain and a few animation ticks run
+        Thread.sleep(500);
+
+        long[] edt = new long[3];
+        SwingUtilities.invokeAndWait(() -> {
+            edt[0] = manager.getEdtNanos();
+            edt[1] = manager.getShownCount();
+            edt[2] = manager.getDroppedCount();
+        });
+        String json = run.result("notifications", String.format(Locale.ROOT,
+                "\"events\":%d,\"threads\":%d,\"post_ms\":%.3f,\"edt_ms\":%.3f,\"toasts_shown\":%d,\"dropped\":%d",
+                events, threads, postedNanos / 1e6, edt[0] / 1e6, edt[1], edt[2]));
+        run.append(json);
+        System.out.println(json);
+        System.out.println("[NotificationBenchmark] Results appended to " + run.getOutFile());
+        // The toast timer and windows keep the event dispatch thread alive
+        System.exit(0);
+    }
+}
@@ -1,29 +1,86 @@
 import javax.swing.*;
 import java.awt.*;
+import java.util.*;
+import java.util.List;
 
 /**
  * NotificationManager - Displays toast-style notifications in the bottom-right
  * corner
  * Supports different priority levels with color coding
+ *
+ * Bursts stay cheap: notifications with the same priority and title merge
+ * into one toast that counts them ("Ambulances Dispatched (7)") and shows
+ * the latest message, and callers on any thread only update a pending map,
+ * with one event-dispatch task to drain however many arrived. At most
+ * MAX_VISIBLE toasts are on screen, stacked upwards; their windows are
+ * pooled and reused, and one shared timer fades them in and closes them.
+ * Each priority may open a new toast only every so often and waits or
+ * merges in between, except URGENT, which is shown at once and takes the
+ * place of the least important toast when the stack is full.
  */
-public class NotificationManager {
+public class NotificationManager implements NotificationSink {
     private static NotificationManager instance;
     private ConfigManager config;
 
+    private static final int MAX_VISIBLE = 4;
+    // Distinct titles waiting for a toast; further ones are dropped, URGENT excepted
+    private static final int MAX_WAITING = 32;
+    private static final int TICK_MS = 40;
+    private static final long SOUND_GAP_MS = 1000;
+    private static final int TOAST_WIDTH = 320;
+    private static final int TOAST_HEIGHT = 100;
+    private static final int TOAST_GAP = 10;
+
     // Notification priorities and colors
     public enum Priority {
-        LOW(new Color(100, 181, 246)), // Light blue
-        MEDIUM(new Color(255, 183, 77)), // Orange
-        HIGH(new Color(255, 138, 101)), // Deep orange
-        URGENT(new Color(239, 83, 80)); // Red
+        LOW(new Color(100, 181, 246), 3000), // Light blue
+        MEDIUM(new Color(255, 183, 77), 1500), // Orange
+        HIGH(new Color(255, 138, 101), 750), // Deep orange
+        URGENT(new Color(239, 83, 80), 0); // Red
 
         public final Color color;
+        /** Least time between two new toasts of this priority */
+        public final long minGapMs;
 
-        Priority(Color color) {
+        Priority(Color color, long minGapMs) {
             this.color = color;
+            this.minGapMs = minGapMs;
+        }
+    }
+
+    /**
+     * Notifications of one priority and title not shown yet
+     */
+    private static class Pending {
+        final Priority priority;
+        final String title;
+        String message;
+        int count;
+
+        Pending(Priority priority, String title) {
+            this.priority = priority;
+            this.title = title;
         }
     }
 
+    // Filled from any thread; drained on the EDT
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+    private boolean drainPosted = false;
+
+    // EDT only from here down
+    private final Map<String, Pending> waiting = new LinkedHashMap<>();
+    private final List<Toast> visible = new ArrayList<>();
+    private final Deque<Toast> idle = new ArrayDeque<>();
+    private final long[] nextShowAt = new long[Priority.values().length];
+    private final boolean headless = GraphicsEnvironment.isHeadless();
+    private javax.swing.Timer ticker;
+    private volatile long lastSoundAt = 0;
+
+    private long received = 0;
+    private long shown = 0;
+    private long dropped = 0;
+    private long edtNanos = 0;
+
     private NotificationManager() {
         config = ConfigManager.getInstance();
     }
@@ -39,9 +96,22 @@ public class NotificationManager {
      * Show notification toast
      */
     public void showNotification(String title, String message, Priority priority) {
-        SwingUtilities.invokeLater(() -> {
-            createNotificationWindow(title, message, priority);
-        });
+        String key = priority.name() + '\u0000' + title;
+        synchronized (pending) {
+            received++;
+            Pending p = pending.get(key);
+            if (p == null) {
+                p = new Pending(priority, title);
+                pending.put(key, p);
+            }
+            p.message = message;
+            p.count++;
+            if (drainPosted) {
+                return;
+            }
+            drainPosted = true;
+        }
+        SwingUtilities.invokeLater(this::drain);
     }
 
     /**
@@ -71,117 +141,326 @@ public class NotificationManager {
     public void showUrgent(String title, String message) {
         showNotification(title, message, Priority.URGENT);
 
-        // Play sound for urgent notifications if enabled
-        if (config.isNotificationSoundEnabled()) {
+        // Play sound for urgent notifications if enabled, once for a burst
+        long now = System.currentTimeMillis();
+        if (config.isNotificationSoundEnabled() && now - lastSoundAt >= SOUND_GAP_MS) {
+            lastSoundAt = now;
             playNotificationSound();
         }
     }
 
     /**
-     * Create notification window
+     * Notifications received since startup
+     */
+    public long getReceivedCount() {
+        synchronized (pending) {
+            return received;
+        }
+    }
+
+    /**
+     * Toasts opened since startup; merged notifications are not counted
+     */
+    public long getShownCount() {
+        return shown;
+    }
+
+    /**
+     * Notifications dropped because too many titles were waiting
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * Time spent on the event dispatch thread draining and animating toasts
      */
-    private void createNotificationWindow(String title, String message, Priority priority) {
-        JWindow notification = new JWindow();
-        notification.setAlwaysOnTop(true);
-
-        // Create main panel with gradient background
-        JPanel panel = new JPanel() {
-            @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                Graphics2D g2d = (Graphics2D) g;
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-                // Gradient background
-                Color color1 = priority.color;
-                Color color2 = new Color(
-                        Math.max(0, color1.getRed() - 30),
-                        Math.max(0, color1.getGreen() - 30),
-                        Math.max(0, color1.getBlue() - 30));
-                GradientPaint gradient = new GradientPaint(0, 0, color1, 0, getHeight(), color2);
-                g2d.setPaint(gradient);
-                g2d.fillRoundRect(0, 0, getWidth(), getHeight(), 15, 15);
+    public long getEdtNanos() {
+        return edtNanos;
+    }
+
+    // Move what callers posted into the waiting map and show what may be shown
+    private void drain() {
+        long start = System.nanoTime();
+        List<Pending> batch;
+        synchronized (pending) {
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+            drainPosted = false;
+        }
+        for (Pending p : batch) {
+            String key = p.priority.name() + '\u0000' + p.title;
+            Pending w = waiting.get(key);
+            if (w != null) {
+                w.message = p.message;
+                w.count += p.count;
+            } else if (waiting.size() < MAX_WAITING || p.priority == Priority.URGENT) {
+                waiting.put(key, p);
+            } else {
+                dropped += p.count;
             }
-        };
-
-        panel.setLayout(new BorderLayout(10, 5));
-        panel.setBorder(BorderFactory.createEmptyBorder(15, 20, 15, 20));
-        panel.setOpaque(false);
-
-        // Title label
-        JLabel titleLabel = new JLabel(title);
-        titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
-        titleLabel.setForeground(Color.WHITE);
-
-        // Message label
-        JLabel messageLabel = new JLabel("<html><body style='width: 250px'>" + message + "</body></html>");
-        messageLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
-        messageLabel.setForeground(Color.WHITE);
-
-        // Close button
-        JButton closeBtn = new JButton("✕");
-        closeBtn.setFont(new Font("Segoe UI", Font.BOLD, 12));
-        closeBtn.setForeground(Color.WHITE);
-        closeBtn.setContentAreaFilled(false);
-        closeBtn.setBorderPainted(false);
-        closeBtn.setFocusPainted(false);
-        closeBtn.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-        closeBtn.addActionListener(e -> notification.dispose());
-
-        // Layout
-        JPanel topPanel = new JPanel(new BorderLayout());
-        topPanel.setOpaque(false);
-        topPanel.add(titleLabel, BorderLayout.WEST);
-        topPanel.add(closeBtn, BorderLayout.EAST);
-
-        panel.add(topPanel, BorderLayout.NORTH);
-        panel.add(messageLabel, BorderLayout.CENTER);
-
-        notification.add(panel);
-        notification.setSize(320, 100);
-
-        // Position at bottom-right corner
-        Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
-        int x = screenSize.width - notification.getWidth() - 20;
-        int y = screenSize.height - notification.getHeight() - 60;
-        notification.setLocation(x, y);
+        }
+        showWaiting(System.currentTimeMillis());
+        edtNanos += System.nanoTime() - start;
+    }
 
-        notification.setVisible(true);
+    private void showWaiting(long now) {
+        if (waiting.isEmpty()) {
+            return;
+        }
+        boolean moved = false;
+        Priority[] order = Priority.values();
+        for (int level = order.length - 1; level >= 0; level--) {
+            Priority priority = order[level];
+            Iterator<Pending> it = waiting.values().iterator();
+            while (it.hasNext()) {
+                Pending p = it.next();
+                if (p.priority != priority) {
+                    continue;
+                }
+                Toast same = find(p);
+                if (same != null) {
+                    same.merge(p, now);
+                    it.remove();
+                    continue;
+                }
+                boolean urgent = priority == Priority.URGENT;
+                if (!urgent && now < nextShowAt[level]) {
+                    continue;
+                }
+                if (visible.size() >= MAX_VISIBLE) {
+                    if (!urgent) {
+                        continue;
+                    }
+                    hide(leastImportant());
+                }
+                Toast toast = idle.isEmpty() ? new Toast() : idle.pop();
+                toast.show(p, now);
+                visible.add(toast);
+                shown++;
+                nextShowAt[level] = now + priority.minGapMs;
+                moved = true;
+                it.remove();
+            }
+        }
+        if (moved) {
+            stack();
+        }
+        startTicker();
+    }
 
-        // Auto-close after duration
-        int duration = config.getNotificationDisplayDuration();
-        Timer closeTimer = new Timer(duration, e -> {
-            notification.dispose();
-        });
-        closeTimer.setRepeats(false);
-        closeTimer.start();
+    private Toast find(Pending p) {
+        for (Toast toast : visible) {
+            if (toast.priority == p.priority && toast.title.equals(p.title)) {
+                return toast;
+            }
+        }
+        return null;
+    }
 
-        // Fade in animation (optional)
-        animateFadeIn(notification);
+    // Lowest priority, then oldest
+    private Toast leastImportant() {
+        Toast least = visible.get(0);
+        for (Toast toast : visible) {
+            if (toast.priority.ordinal() < least.priority.ordinal()) {
+                least = toast;
+            }
+        }
+        return least;
+    }
+
+    private void hide(Toast toast) {
+        if (visible.remove(toast)) {
+            toast.hide();
+            idle.push(toast);
+        }
+    }
+
+    private void startTicker() {
+        if (ticker == null) {
+            ticker = new javax.swing.Timer(TICK_MS, e -> tick());
+        }
+        if (!ticker.isRunning() && (!visible.isEmpty() || !waiting.isEmpty())) {
+            ticker.start();
+        }
+    }
+
+    // Fade in, close expired toasts, open waiting ones; stops when nothing is left
+    private void tick() {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        int before = visible.size();
+        for (Toast toast : new ArrayList<>(visible)) {
+            if (now >= toast.expiresAt) {
+                hide(toast);
+            } else {
+                toast.fadeIn();
+            }
+        }
+        if (visible.size() != before) {
+            stack();
+        }
+        showWaiting(now);
+        if (visible.isEmpty() && waiting.isEmpty()) {
+            ticker.stop();
+        }
+        edtNanos += System.nanoTime() - start;
+    }
+
+    // Oldest at the bottom-right corner, newer ones above it
+    private void stack() {
+        if (headless) {
+            return;
+        }
+        Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+        int x = screenSize.width - TOAST_WIDTH - 20;
+        int y = screenSize.height - TOAST_HEIGHT - 60;
+        for (Toast toast : visible) {
+            toast.window.setLocation(x, y);
+            y -= TOAST_HEIGHT + TOAST_GAP;
+        }
     }
 
     /**
-     * Animate fade-in effect
+     * One pooled toast window; shown again with new contents once closed
      */
-    private void animateFadeIn(Window window) {
-        Timer timer = new Timer(20, null);
-        final float[] opacity = { 0.0f };
-
-        timer.addActionListener(e -> {
-            opacity[0] += 0.05f;
-            if (opacity[0] >= 1.0f) {
-                opacity[0] = 1.0f;
-                timer.stop();
+    private class Toast {
+        final JWindow window;
+        final JLabel titleLabel;
+        final JLabel messageLabel;
+        Priority priority;
+        String title;
+        String message;
+        int count;
+        long expiresAt;
+        float opacity;
+
+        Toast() {
+            if (headless) {
+                window = null;
+                titleLabel = null;
+                messageLabel = null;
+                return;
             }
+            window = new JWindow();
+            window.setAlwaysOnTop(true);
+
+            // Create main panel with gradient background
+            JPanel panel = new JPanel() {
+                @Override
+                protected void paintComponent(Graphics g) {
+                    super.paintComponent(g);
+                    Graphics2D g2d = (Graphics2D) g;
+                    g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+                    // Gradient background
+                    Color color1 = priority.color;
+                    Color color2 = new Color(
+                            Math.max(0, color1.getRed() - 30),
+                            Math.max(0, color1.getGreen() - 30),
+                            Math.max(0, color1.getBlue() - 30));
+                    GradientPaint gradient = new GradientPaint(0, 0, color1, 0, getHeight(), color2);
+                    g2d.setPaint(gradient);
+                    g2d.fillRoundRect(0, 0, getWidth(), getHeight(), 15, 15);
+                }
+            };
+
+            panel.setLayout(new BorderLayout(10, 5));
+            panel.setBorder(BorderFactory.createEmptyBorder(15, 20, 15, 20));
+            panel.setOpaque(false);
+
+            // Title label
+            titleLabel = new JLabel();
+            titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
+            titleLabel.setForeground(Color.WHITE);
+
+            // Message label
+            messageLabel = new JLabel();
+            messageLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+            messageLabel.setForeground(Color.WHITE);
+
+            // Close button
+            JButton closeBtn = new JButton("✕");
+            closeBtn.setFont(new Font("Segoe UI", Font.BOLD, 12));
+            closeBtn.setForeground(Color.WHITE);
+            closeBtn.setContentAreaFilled(false);
+            closeBtn.setBorderPainted(false);
+            closeBtn.setFocusPainted(false);
+            closeBtn.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+            closeBtn.addActionListener(e -> {
+                NotificationManager.this.hide(this);
+                stack();
+            });
+
+            // Layout
+            JPanel topPanel = new JPanel(new BorderLayout());
+            topPanel.setOpaque(false);
+            topPanel.add(titleLabel, BorderLayout.WEST);
+            topPanel.add(closeBtn, BorderLayout.EAST);
+
+            panel.add(topPanel, BorderLayout.NORTH);
+            panel.add(messageLabel, BorderLayout.CENTER);
+
+            window.add(panel);
+            window.setSize(TOAST_WIDTH, TOAST_HEIGHT);
+        }
+
+        void show(Pending p, long now) {
+            priority = p.priority;
+            title = p.title;
+            message = p.message;
+            count = p.count;
+            expiresAt = now + config.getNotificationDisplayDuration();
+            opacity = 0f;
+            if (window == null) {
+                System.out.println("[NotificationManager] " + displayTitle() + ": " + message);
+                return;
+            }
+            update();
+            setOpacity();
+            window.setVisible(true);
+        }
+
+        void merge(Pending p, long now) {
+            message = p.message;
+            count += p.count;
+            expiresAt = now + config.getNotificationDisplayDuration();
+            if (window != null) {
+                update();
+            }
+        }
+
+        void hide() {
+            if (window != null) {
+                window.setVisible(false);
+            }
+        }
+
+        void fadeIn() {
+            if (window != null && opacity < 1f) {
+                opacity = Math.min(1f, opacity + 0.1f);
+                setOpacity();
+            }
+        }
+
+        private void update() {
+            titleLabel.setText(displayTitle());
+            messageLabel.setText("<html><body style='width: 250px'>" + message + "</body></html>");
+            window.repaint();
+        }
+
+        private String displayTitle() {
+            return count > 1 ? title + " (" + count + ")" : title;
+        }
+
+        private void setOpacity() {
             try {
-                window.setOpacity(opacity[0]);
+                window.setOpacity(opacity);
             } catch (Exception ex) {
                 // Opacity not supported on this platform
-                timer.stop();
+                opacity = 1f;
             }
-        });
-
-        timer.start();
+        }
     }
 
     /**
@@ -195,4 +474,3 @@ public class NotificationManager {
         }
     }
 }
-
@@ -0,0 +1,16 @@
+/**
+ * NotificationSink - Where the dispatch engine reports what it did. The
+ * console shows these as toasts (NotificationManager); a headless engine
+ * logs them (LogNotificationSink). Implementations may be called from any
+ * thread.
+ */
+public interface NotificationSink {
+
+    void showInfo(String title, String message);
+
+    void showWarning(String title, String message);
+
+    void showError(String title, String message);
+
+    void showUrgent(String title, String message);
+}
@@ -0,0 +1,139 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OverflowSpill - Local file that takes detections the ingestion buffer
+ * has no room for, one JSON line each, so nothing is lost while the
+ * database is stalled. The AccidentIngestor writer replays it once it has
+ * caught up with live traffic; the file is truncated when fully replayed
+ * and lines left over from a previous run are replayed after a restart.
+ */
+public class OverflowSpill {
+    private final File file;
+    private BufferedWriter writer;
+    private BufferedReader reader;
+    private long backlog = 0;
+    private long spilled = 0;
+    private long replayed = 0;
+
+    public OverflowSpill(File file) {
+        this.file = file;
+        if (file.exists()) {
+            try (BufferedReader in = open()) {
+                while (in.readLine() != null) {
+                    backlog++;
+                }
+            } catch (IOException e) {
+                System.err.println("[OverflowSpill] Error reading " + file + ": " + e.getMessage());
+            }
+            if (backlog > 0) {
+                System.out.println("[OverflowSpill] " + backlog + " detections left in " + file + " to replay");
+            }
+        }
+    }
+
+    private BufferedReader open() throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Append detections to the end of the file
+     */
+    public synchronized void append(List<Detection> detections) throws IOException {
+        if (writer == null) {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true),
+                    StandardCharsets.UTF_8));
+        }
+        for (Detection detection : detections) {
+            writer.write(detection.toJson());
+            writer.newLine();
+        }
+        writer.flush();
+        backlog += detections.size();
+        spilled += detections.size();
+    }
+
+    /**
+     * Take up to max detections from the front of the file. Lines that no
+     * longer parse are skipped.
+     */
+    public synchronized List<Detection> read(int max) throws IOException {
+        List<Detection> detections = new ArrayList<>();
+        if (backlog == 0) {
+            return detections;
+        }
+        if (reader == null) {
+            reader = open();
+        }
+        String line;
+        while (detections.size() < max && (line = reader.readLine()) != null) {
+            backlog--;
+            replayed++;
+            try {
+                detections.add(Detection.fromSpill(Json.parse(line)));
+            } catch (IllegalArgumentException e) {
+                System.err.println("[OverflowSpill] Skipping bad line: " + e.getMessage());
+            }
+        }
+        if (backlog <= 0) {
+            // Everything replayed - start the file over
+            backlog = 0;
+            reader.close();
+            reader = null;
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+            new FileOutputStream(file).close();
+        }
+        return detections;
+    }
+
+    /**
+     * Detections written to the file and not yet replayed
+     */
+    public synchronized long getBacklog() {
+        return backlog;
+    }
+
+    public synchronized long getSpilledCount() {
+        return spilled;
+    }
+
+    public synchronized long getReplayedCount() {
+        return replayed;
+    }
+
+    /**
+     * Close the file, dropping the lines already replayed so a restart
+     * does not replay them again
+     */
+    public synchronized void close() {
+        try {
+            if (writer != null) {
+                writer.close();
+            }
+            if (reader != null) {
+                File rest = new File(file.getPath() + ".tmp");
+                try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(rest),
+                        StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        out.write(line);
+                        out.newLine();
+                    }
+                }
+                reader.close();
+                if (!file.delete() || !rest.renameTo(file)) {
+                    System.err.println("[OverflowSpill] Could not compact " + file);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[OverflowSpill] Error closing " + file + ": " + e.getMessage());
+        }
+        writer = null;
+        reader = null;
+    }
+}
@@ -0,0 +1,338 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * PagedTableModel - Read-only table model for histories too long to load,
+ * newest first. Rows are fetched a page at a time, only when the table
+ * asks to paint them, with keyset pagination: each page starts after the
+ * (time, id) of the last row of the page before it, so reading page 5000
+ * costs the same index seek as page 1 where LIMIT/OFFSET would scan all
+ * the rows in between.
+ *
+ * The table grows as the user scrolls: the row count covers the pages
+ * found so far, and painting the second half of the last one fetches the
+ * next. Only the most recently painted pages are kept (an LRU cache), and
+ * an evicted page is fetched again from its remembered start key, so
+ * memory stays flat however far the user scrolls; the keys cost 16 bytes
+ * per page. Page 0 starts at the top row found by the last reload, not at
+ * the newest row, so refetching it never repeats rows refresh() added.
+ *
+ * refresh() asks only for rows newer than the top one and slides them in
+ * above it, so an idle history costs one empty query. reload() starts
+ * again from the top, for after rows were edited or deleted.
+ *
+ * Fetches run on one shared background thread and are applied on the
+ * event dispatch thread; every method here must be called on the EDT.
+ * Rows not fetched yet paint as empty cells.
+ */
+public class PagedTableModel extends AbstractTableModel {
+
+    /**
+     * Sort key of a row: newest time first, then highest id
+     */
+    public static final class Key {
+        public final Timestamp time;
+        public final long id;
+
+        public Key(Timestamp time, long id) {
+            this.time = time;
+            this.id = id;
+        }
+    }
+
+    /**
+     * One fetched row: its key and its cells
+     */
+    public static final class Row {
+        public final Key key;
+        public final Object[] cells;
+
+        public Row(Key key, Object[] cells) {
+            this.key = key;
+            this.cells = cells;
+        }
+    }
+
+    /**
+     * Where the rows come from
+     */
+    public interface Source {
+        /**
+         * Up to limit rows in newest-first order: those older than key, or
+         * the newest ones when key is null; with newer set, the newest of
+         * those newer than key instead
+         */
+        List<Row> fetch(Key key, boolean newer, int limit) throws SQLException;
+    }
+
+    /**
+     * Turns the current result row into table cells
+     */
+    public interface RowMapper {
+        Object[] map(ResultSet rs) throws SQLException;
+    }
+
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "paged-table-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String[] columns;
+    private final Source source;
+    private final int pageSize;
+    private final int cachedPages;
+
+    // Rows found by refresh() since the last reload, above page 0; at most a page of them
+    private final List<Row> head = new ArrayList<>();
+    private final Map<Integer, List<Row>> cache;
+    // Key of the last row of each page found so far
+    private Timestamp[] lastTimes = new Timestamp[16];
+    private long[] lastIds = new long[16];
+    private int pagesFound = 0;
+    private int pagedRows = 0;
+    private boolean complete = false;
+    private Key top;
+    // Start key of page 0: just above its first row, so fetching older rows includes it
+    private Key firstKey;
+
+    private final Set<Integer> loading = new HashSet<>();
+    private boolean refreshing = false;
+    // Bumped by reload() so fetches started before it are dropped
+    private int generation = 0;
+    private long pagesFetched = 0;
+
+    public PagedTableModel(String[] columns, Source source, int pageSize, int cachedPages) {
+        this.columns = columns;
+        this.source = source;
+        this.pageSize = pageSize;
+        this.cachedPages = Math.max(4, cachedPages);
+        this.cache = new LinkedHashMap<Integer, List<Row>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Row>> eldest) {
+                return size() > PagedTableModel.this.cachedPages;
+            }
+        };
+    }
+
+    /**
+     * Source over a JDBC query, paged on a time column and a unique id
+     * column that break ties
+     *
+     * @param select     SELECT ... FROM ... without WHERE, ORDER BY or LIMIT;
+     *                   must return both key columns
+     * @param timeColumn time column as written in the query, e.g. ir.created_at
+     * @param idColumn   id column as written in the query, e.g. ir.report_id
+     */
+    public static Source jdbc(String select, String timeColumn, String idColumn, RowMapper mapper) {
+        String timeLabel = timeColumn.substring(timeColumn.indexOf('.') + 1);
+        String idLabel = idColumn.substring(idColumn.indexOf('.') + 1);
+        String order = " ORDER BY " + timeColumn + " DESC, " + idColumn + " DESC LIMIT ?";
+        String first = select + order;
+        String older = select + " WHERE (" + timeColumn + " < ? OR (" + timeColumn + " = ? AND "
+                + idColumn + " < ?))" + order;
+        String newer = select + " WHERE (" + timeColumn + " > ? OR (" + timeColumn + " = ? AND "
+                + idColumn + " > ?))" + order;
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+
+        return (key, fromNewer, limit) -> {
+            List<Row> rows = new ArrayList<>(limit);
+            try (PreparedStatement pstmt = dbManager.getConnection()
+                    .prepareStatement(key == null ? first : fromNewer ? newer : older)) {
+                int p = 1;
+                if (key != null) {
+                    pstmt.setTimestamp(p++, key.time);
+                    pstmt.setTimestamp(p++, key.time);
+                    pstmt.setLong(p++, key.id);
+                }
+                pstmt.setInt(p, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(new Row(new Key(rs.getTimestamp(timeLabel), rs.getLong(idLabel)), mapper.map(rs)));
+                    }
+                }
+            }
+            return rows;
+        };
+    }
+
+    @Override
+    public int getRowCount() {
+        return head.size() + pagedRows;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (row < head.size()) {
+            return head.get(row).cells[column];
+        }
+        int r = row - head.size();
+        int page = r / pageSize;
+        List<Row> rows = cache.get(page);
+        if (rows == null) {
+            request(page);
+            return null;
+        }
+        if (r % pageSize >= pageSize / 2) {
+            // Prefetch the next page while this one is still being read
+            request(page + 1);
+        }
+        return r % pageSize < rows.size() ? rows.get(r % pageSize).cells[column] : null;
+    }
+
+    /**
+     * Key of a row, or null if its page is not in memory
+     */
+    public Key getKeyAt(int row) {
+        if (row < head.size()) {
+            return head.get(row).key;
+        }
+        int r = row - head.size();
+        List<Row> rows = cache.get(r / pageSize);
+        return rows != null && r % pageSize < rows.size() ? rows.get(r % pageSize).key : null;
+    }
+
+    /**
+     * Pages fetched since creation, including fetches of evicted pages
+     */
+    public long getPagesFetched() {
+        return pagesFetched;
+    }
+
+    /**
+     * Pages held in memory
+     */
+    public int getCachedPageCount() {
+        return cache.size();
+    }
+
+    /**
+     * Slide in rows newer than the top one; reloads if there are more
+     * than a page of them
+     */
+    public void refresh() {
+        if (top == null) {
+            // Nothing read yet, or the history was empty
+            if (!loading.contains(0)) {
+                reload();
+            }
+            return;
+        }
+        if (refreshing) {
+            return;
+        }
+        refreshing = true;
+        int gen = generation;
+        Key after = top;
+        load(() -> source.fetch(after, true, pageSize + 1), rows -> {
+            refreshing = false;
+            if (gen != generation || rows == null || rows.isEmpty()) {
+                return;
+            }
+            if (rows.size() > pageSize || head.size() + rows.size() > pageSize) {
+                reload();
+                return;
+            }
+            head.addAll(0, rows);
+            top = rows.get(0).key;
+            fireTableRowsInserted(0, rows.size() - 1);
+        });
+    }
+
+    /**
+     * Forget every page and start again from the newest row
+     */
+    public void reload() {
+        generation++;
+        head.clear();
+        cache.clear();
+        loading.clear();
+        refreshing = false;
+        pagesFound = 0;
+        pagedRows = 0;
+        complete = false;
+        top = null;
+        firstKey = null;
+        fireTableDataChanged();
+        request(0);
+    }
+
+    private void request(int page) {
+        if (cache.containsKey(page) || loading.contains(page) || page > pagesFound
+                || (page == pagesFound && complete)) {
+            return;
+        }
+        loading.add(page);
+        int gen = generation;
+        Key after = page == 0 ? firstKey : new Key(lastTimes[page - 1], lastIds[page - 1]);
+        load(() -> source.fetch(after, false, pageSize), rows -> {
+            if (gen != generation) {
+                return;
+            }
+            loading.remove(page);
+            if (rows == null) {
+                // Failed; tried again when the rows are next painted
+                return;
+            }
+            pagesFetched++;
+            cache.put(page, rows);
+            int firstRow = head.size() + page * pageSize;
+            if (page < pagesFound) {
+                fireTableRowsUpdated(firstRow, firstRow + pageSize - 1);
+                return;
+            }
+
+            // A page further down than any before
+            if (page == 0) {
+                top = rows.isEmpty() ? null : rows.get(0).key;
+                firstKey = top == null ? null : new Key(top.time, top.id + 1);
+            }
+            complete = rows.size() < pageSize;
+            if (!rows.isEmpty()) {
+                if (pagesFound == lastTimes.length) {
+                    lastTimes = Arrays.copyOf(lastTimes, pagesFound * 2);
+                    lastIds = Arrays.copyOf(lastIds, pagesFound * 2);
+                }
+                Key last = rows.get(rows.size() - 1).key;
+                lastTimes[pagesFound] = last.time;
+                lastIds[pagesFound] = last.id;
+                pagesFound++;
+                pagedRows += rows.size();
+                fireTableRowsInserted(firstRow, firstRow + rows.size() - 1);
+            }
+        });
+    }
+
+    private interface Fetch {
+        List<Row> run() throws SQLException;
+    }
+
+    // Run a fetch on the loader thread and apply its rows, or null if it failed, on the EDT
+    private void load(Fetch fetch, java.util.function.Consumer<List<Row>> apply) {
+        LOADER.execute(() -> {
+            List<Row> rows;
+            try {
+                rows = fetch.run();
+            } catch (SQLException e) {
+                System.err.println("[PagedTableModel] Error loading rows: " + e.getMessage());
+                rows = null;
+            }
+            List<Row> result = rows;
+            SwingUtilities.invokeLater(() -> apply.accept(result));
+        });
+    }
+}
@@ -0,0 +1,315 @@
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * RegionLeaseManager - Lets several dispatch nodes share the city.
+ * Each region has a row in region_leases; a node owns a region while its
+ * lease is unexpired and renews all of its leases on every heartbeat.
+ * Nodes also heartbeat into dispatch_nodes so every node can work out its
+ * fair share (regions / live nodes): nodes above their share release the
+ * surplus, nodes below it claim free or expired regions. A dead node's
+ * leases expire after LEASE_TTL_MS and are picked up on the next heartbeat
+ * of the survivors.
+ *
+ * Claiming a region bumps its fencing_token. The engine checks
+ * isLeaseValid() before every tick so a node that cannot reach the
+ * database stops mutating the fleet before its leases can expire, and
+ * JdbcFleetStore adds getHeldLeases() to every fleet update while fenced
+ * with this manager, so a node paused past its lease cannot overwrite a
+ * unit in a region another node has since claimed.
+ */
+public class RegionLeaseManager implements DispatchOwnership {
+    public static final long LEASE_TTL_MS = 3000;
+    private static final long HEARTBEAT_MS = 1000;
+
+    // Stop acting this long before the lease could expire on the server
+    private static final long SAFETY_MARGIN_MS = 500;
+
+    private final DatabaseManager dbManager;
+    private final RegionMap regionMap;
+    private final String nodeId;
+
+    private volatile Set<Integer> ownedRegions = Collections.emptySet();
+    private final Map<Integer, Long> fencingTokens = new ConcurrentHashMap<>();
+    private volatile long lastRenewalNanos = 0;
+
+    private Connection conn;
+    private ScheduledExecutorService heartbeat;
+
+    public RegionLeaseManager(DatabaseManager dbManager, RegionMap regionMap, String nodeId) {
+        this.dbManager = dbManager;
+        this.regionMap = regionMap;
+        this.nodeId = nodeId != null ? nodeId : defaultNodeId();
+    }
+
+    static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        // RuntimeMXBean name is "pid@host"
+        String pid = ManagementFactory.getRuntimeMXBean().getName().split("@")[0];
+        return host + "-" + pid;
+    }
+
+    /**
+     * Create the region rows if needed and start heartbeating
+     */
+    @Override
+    public void start() {
+        if (heartbeat != null) {
+            return;
+        }
+        try {
+            conn = dbManager.openConnection();
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT IGNORE INTO region_leases (region_id) VALUES (?)")) {
+                for (int region = 0; region < regionMap.getRegionCount(); region++) {
+                    pstmt.setInt(1, region);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+        } catch (SQLException e) {
+            System.err.println("[RegionLeaseManager] Error preparing leases: " + e.getMessage());
+        }
+
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "region-leases");
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, 0, HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+        System.out.println("[RegionLeaseManager] Node " + nodeId + " joining, " + regionMap.getRegionCount()
+                + " regions");
+    }
+
+    /**
+     * Stop heartbeating and release every lease so other nodes take over at once
+     */
+    @Override
+    public void stop() {
+        if (heartbeat == null) {
+            return;
+        }
+        heartbeat.shutdown();
+        try {
+            heartbeat.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        heartbeat = null;
+        ownedRegions = Collections.emptySet();
+        lastRenewalNanos = 0;
+
+        try {
+            try (PreparedStatement pstmt = connection().prepareStatement(
+                    "UPDATE region_leases SET owner_node = NULL, lease_expires = NULL WHERE owner_node = ?")) {
+                pstmt.setString(1, nodeId);
+                pstmt.executeUpdate();
+            }
+            try (PreparedStatement pstmt = connection().prepareStatement(
+                    "DELETE FROM dispatch_nodes WHERE node_id = ?")) {
+                pstmt.setString(1, nodeId);
+                pstmt.executeUpdate();
+            }
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("[RegionLeaseManager] Error releasing leases: " + e.getMessage());
+        }
+        conn = null;
+        System.out.println("[RegionLeaseManager] Node " + nodeId + " left");
+    }
+
+    private Connection connection() throws SQLException {
+        if (conn == null || conn.isClosed()) {
+            conn = dbManager.openConnection();
+        }
+        return conn;
+    }
+
+    /**
+     * One heartbeat: renew, count live nodes, then release or claim regions
+     */
+    private void heartbeat() {
+        try {
+            Connection c = connection();
+            long started = System.nanoTime();
+
+            try (PreparedStatement pstmt = c.prepareStatement("INSERT INTO dispatch_nodes (node_id, heartbeat_at) " +
+                    "VALUES (?, NOW(3)) ON DUPLICATE KEY UPDATE heartbeat_at = NOW(3)")) {
+                pstmt.setString(1, nodeId);
+                pstmt.executeUpdate();
+            }
+            try (PreparedStatement pstmt = c.prepareStatement("UPDATE region_leases SET " +
+                    "lease_expires = TIMESTAMPADD(MICROSECOND, ?, NOW(3)) WHERE owner_node = ?")) {
+                pstmt.setLong(1, LEASE_TTL_MS * 1000);
+                pstmt.setString(2, nodeId);
+                pstmt.executeUpdate();
+            }
+
+            int liveNodes = 1;
+            try (PreparedStatement pstmt = c.prepareStatement("SELECT COUNT(*) FROM dispatch_nodes " +
+                    "WHERE heartbeat_at > TIMESTAMPADD(MICROSECOND, ?, NOW(3))")) {
+                pstmt.setLong(1, -LEASE_TTL_MS * 1000);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        liveNodes = Math.max(1, rs.getInt(1));
+                    }
+                }
+            }
+
+            Set<Integer> owned = new TreeSet<>();
+            List<Integer> claimable = new ArrayList<>();
+            try (PreparedStatement pstmt = c.prepareStatement("SELECT region_id, owner_node, fencing_token, " +
+                    "(owner_node IS NULL OR lease_expires IS NULL OR lease_expires < NOW(3)) AS expired " +
+                    "FROM region_leases ORDER BY region_id");
+                    ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int region = rs.getInt("region_id");
+                    if (region >= regionMap.getRegionCount()) {
+                        continue;
+                    }
+                    if (nodeId.equals(rs.getString("owner_node")) && !rs.getBoolean("expired")) {
+                        owned.add(region);
+                        fencingTokens.put(region, rs.getLong("fencing_token"));
+                    } else if (rs.getBoolean("expired")) {
+                        claimable.add(region);
+                    }
+                }
+            }
+
+            int fairShare = (regionMap.getRegionCount() + liveNodes - 1) / liveNodes;
+            if (owned.size() > fairShare) {
+                release(c, owned, owned.size() - fairShare);
+            } else {
+                claim(c, owned, claimable, fairShare - owned.size());
+            }
+
+            publish(owned, started);
+        } catch (SQLException e) {
+            System.err.println("[RegionLeaseManager] Heartbeat failed: " + e.getMessage());
+            try {
+                if (conn != null) {
+                    conn.close();
+                }
+            } catch (SQLException ignored) {
+            }
+            conn = null;
+        }
+    }
+
+    private void release(Connection c, Set<Integer> owned, int count) throws SQLException {
+        List<Integer> surplus = new ArrayList<>(owned);
+        Collections.reverse(surplus);
+        try (PreparedStatement pstmt = c.prepareStatement("UPDATE region_leases SET owner_node = NULL, " +
+                "lease_expires = NULL WHERE region_id = ? AND owner_node = ?")) {
+            for (int region : surplus.subList(0, count)) {
+                pstmt.setInt(1, region);
+                pstmt.setString(2, nodeId);
+                pstmt.executeUpdate();
+                owned.remove(region);
+                fencingTokens.remove(region);
+            }
+        }
+    }
+
+    private void claim(Connection c, Set<Integer> owned, List<Integer> claimable, int count) throws SQLException {
+        if (count <= 0 || claimable.isEmpty()) {
+            return;
+        }
+        // Spread simultaneous claimers over different regions
+        Collections.shuffle(claimable);
+        try (PreparedStatement pstmt = c.prepareStatement("UPDATE region_leases SET owner_node = ?, " +
+                "lease_expires = TIMESTAMPADD(MICROSECOND, ?, NOW(3)), fencing_token = fencing_token + 1 " +
+                "WHERE region_id = ? AND (owner_node IS NULL OR lease_expires IS NULL OR lease_expires < NOW(3))");
+                PreparedStatement token = c.prepareStatement(
+                        "SELECT fencing_token FROM region_leases WHERE region_id = ? AND owner_node = ?")) {
+            for (int region : claimable) {
+                if (count == 0) {
+                    break;
+                }
+                pstmt.setString(1, nodeId);
+                pstmt.setLong(2, LEASE_TTL_MS * 1000);
+                pstmt.setInt(3, region);
+                if (pstmt.executeUpdate() == 1) {
+                    owned.add(region);
+                    count--;
+                    token.setInt(1, region);
+                    token.setString(2, nodeId);
+                    try (ResultSet rs = token.executeQuery()) {
+                        if (rs.next()) {
+                            fencingTokens.put(region, rs.getLong(1));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void publish(Set<Integer> owned, long renewedAt) {
+        Set<Integer> previous = ownedRegions;
+        ownedRegions = Collections.unmodifiableSet(owned);
+        lastRenewalNanos = renewedAt;
+        if (!owned.equals(previous)) {
+            System.out.println("[RegionLeaseManager] Node " + nodeId + " owns regions " + owned);
+        }
+    }
+
+    /**
+     * True while the last successful heartbeat is recent enough that no other
+     * node can have taken over our leases
+     */
+    @Override
+    public boolean isLeaseValid() {
+        long renewed = lastRenewalNanos;
+        return renewed != 0
+                && System.nanoTime() - renewed < TimeUnit.MILLISECONDS.toNanos(LEASE_TTL_MS - SAFETY_MARGIN_MS);
+    }
+
+    public boolean owns(int region) {
+        return isLeaseValid() && ownedRegions.contains(region);
+    }
+
+    /**
+     * Snapshot of the regions currently leased by this node
+     */
+    @Override
+    public Set<Integer> getOwnedRegions() {
+        return isLeaseValid() ? ownedRegions : Collections.emptySet();
+    }
+
+    public long getFencingToken(int region) {
+        return fencingTokens.getOrDefault(region, 0L);
+    }
+
+    /**
+     * Leases held as "region:token" pairs separated by commas, for
+     * FIND_IN_SET in fenced updates; empty once the leases may have expired
+     */
+    public String getHeldLeases() {
+        StringBuilder sb = new StringBuilder();
+        for (int region : getOwnedRegions()) {
+            Long token = fencingTokens.get(region);
+            if (token != null) {
+                sb.append(sb.length() > 0 ? "," : "").append(region).append(':').append(token);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public RegionMap getRegionMap() {
+        return regionMap;
+    }
+}
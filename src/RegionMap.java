@@ -0,0 +1,43 @@
+/**
+ * RegionMap - Splits the Chennai bounding box (lat 12.9-13.2, lng 80.0-80.4,
+ * i.e. the 0-600 dispatch grid) into a rows x rows set of dispatch regions.
+ * Region ids run row by row from 0.
+ */
+public class RegionMap {
+    private static final int GRID_SIZE = 600;
+
+    private final int rows;
+
+    public RegionMap(int rows) {
+        this.rows = Math.max(1, rows);
+    }
+
+    public int getRegionCount() {
+        return rows * rows;
+    }
+
+    /**
+     * Region containing a dispatch grid position (x follows latitude, y longitude)
+     */
+    public int regionOf(int x, int y) {
+        return cell(x) * rows + cell(y);
+    }
+
+    private int cell(int coordinate) {
+        int clamped = Math.max(0, Math.min(GRID_SIZE, coordinate));
+        return Math.min(rows - 1, clamped * rows / (GRID_SIZE + 1));
+    }
+
+    /**
+     * regionOf as a SQL expression over two grid columns, for fencing writes
+     * by the region a row is in
+     */
+    public String sqlRegionOf(String xColumn, String yColumn) {
+        return "(" + sqlCell(xColumn) + " * " + rows + " + " + sqlCell(yColumn) + ")";
+    }
+
+    private String sqlCell(String column) {
+        return "LEAST(" + (rows - 1) + ", LEAST(" + GRID_SIZE + ", GREATEST(0, " + column + ")) * " + rows
+                + " DIV " + (GRID_SIZE + 1) + ")";
+    }
+}
@@ -0,0 +1,226 @@
+import java.util.*;
+import java.util.function.IntSupplier;
+
+/**
+ * RiskScorer - Scores each incoming accident 0-100 for dispatch order
+ * from the reported severity, the current weather, the hour of day and
+ * how many accidents the surrounding streets have had.
+ *
+ * Severity sets the band (Low 10, Medium 35, High 60, Critical 80) and
+ * the other factors add up to 24 points, so only a High in a storm on a
+ * black spot at night overtakes a Critical in quiet conditions.
+ *
+ * Accident history is a grid of roughly 550 m cells over Chennai holding
+ * exponentially decayed accident counts. Each scored accident is added to
+ * its cell as it arrives and each cell decays lazily when it is next read
+ * or written, so scoring never goes to the database: it reads nine cells
+ * and costs well under a microsecond. At startup the grid is seeded from
+ * the most recent accidents in the store, counted as if they were new.
+ *
+ * Used only from the AccidentIngestor writer thread, so it is not
+ * synchronised.
+ */
+public class RiskScorer {
+    private static final double MIN_LAT = 12.8;
+    private static final double MIN_LNG = 79.9;
+    private static final double CELL_DEG = 0.005;
+    private static final int ROWS = 120;
+    private static final int COLS = 120;
+
+    private static final int WEATHER_POINTS = 8;
+    private static final int HOUR_POINTS = 6;
+    private static final int DENSITY_POINTS = 10;
+
+    // Relative crash risk by local hour: late night speeding, then the rush hours
+    private static final double[] HOUR_WEIGHT = {
+            0.9, 1.0, 1.0, 0.9, 0.7, 0.4, 0.3, 0.4, 0.6, 0.6, 0.3, 0.2,
+            0.2, 0.2, 0.3, 0.4, 0.5, 0.7, 0.8, 0.7, 0.6, 0.6, 0.7, 0.8 };
+
+    private final IntSupplier weatherSeverity;
+    private final double decayPerMs;
+    private final double densityScale;
+
+    private final double[] counts = new double[ROWS * COLS];
+    private final long[] stampsMs = new long[ROWS * COLS];
+
+    // Local time offset, refreshed on the hour so daylight saving is followed
+    private long offsetMs;
+    private long offsetValidUntilMs = Long.MIN_VALUE;
+
+    /**
+     * @param weatherSeverity  WeatherService severity, 1 (clear) to 5 (stormy)
+     * @param halfLifeDays     how quickly old accidents stop counting
+     * @param saturationCount  decayed accidents around a spot that earn all the density points
+     */
+    public RiskScorer(IntSupplier weatherSeverity, double halfLifeDays, double saturationCount) {
+        this.weatherSeverity = weatherSeverity;
+        this.decayPerMs = Math.log(2) / (halfLifeDays * 86_400_000.0);
+        this.densityScale = 1 / Math.log1p(Math.max(1, saturationCount));
+        // Load the time zone now rather than on the first accident
+        hourOf(System.currentTimeMillis());
+    }
+
+    /**
+     * Scorer configured from config.properties (ingest.risk.*)
+     */
+    public static RiskScorer fromConfig(WeatherService weather) {
+        ConfigManager config = ConfigManager.getInstance();
+        return new RiskScorer(weather::getWeatherSeverity, config.getIngestRiskHalfLifeDays(),
+                config.getIngestRiskSaturationCount());
+    }
+
+    /**
+     * Score of an accident with no other information, used for rows
+     * written before scoring existed or outside the ingest path
+     */
+    public static int baseline(String severity) {
+        switch (IncidentSizing.priority(severity)) {
+            case 3:
+                return 80;
+            case 2:
+                return 60;
+            case 1:
+                return 35;
+            default:
+                return 10;
+        }
+    }
+
+    /**
+     * Risk score of a new accident at this moment; does not add it to the history
+     */
+    public int score(String severity, double latitude, double longitude, long nowMs) {
+        double points = baseline(severity);
+        points += WEATHER_POINTS * (Math.max(1, Math.min(5, weatherSeverity.getAsInt())) - 1) / 4.0;
+        points += HOUR_POINTS * HOUR_WEIGHT[hourOf(nowMs)];
+        points += DENSITY_POINTS * Math.min(1, Math.log1p(density(latitude, longitude, nowMs)) * densityScale);
+        return (int) Math.min(100, Math.round(points));
+    }
+
+    /**
+     * Add an accident to the history
+     */
+    public void record(double latitude, double longitude, long nowMs) {
+        int cell = cellOf(latitude, longitude);
+        if (cell < 0) {
+            return;
+        }
+        if (counts[cell] > 0 && nowMs < stampsMs[cell]) {
+            // An older accident: keep the newer stamp and add it already decayed
+            counts[cell] += Math.exp(-(stampsMs[cell] - nowMs) * decayPerMs);
+            return;
+        }
+        counts[cell] = decayed(cell, nowMs) + 1;
+        stampsMs[cell] = nowMs;
+    }
+
+    /**
+     * Seed the history with accidents already in the store
+     */
+    public void seed(List<FleetStore.Accident> accidents, long nowMs) {
+        for (FleetStore.Accident accident : accidents) {
+            record(accident.latitude, accident.longitude, nowMs);
+        }
+        System.out.println("[RiskScorer] Seeded accident history with " + accidents.size() + " accidents");
+    }
+
+    /**
+     * Decayed accidents in the cell of a position and the eight around it
+     */
+    public double density(double latitude, double longitude, long nowMs) {
+        int cell = cellOf(latitude, longitude);
+        if (cell < 0) {
+            return 0;
+        }
+        int row = cell / COLS;
+        int col = cell % COLS;
+        double sum = 0;
+        for (int r = Math.max(0, row - 1); r <= Math.min(ROWS - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(COLS - 1, col + 1); c++) {
+                sum += decayed(r * COLS + c, nowMs);
+            }
+        }
+        return sum;
+    }
+
+    private double decayed(int cell, long nowMs) {
+        double count = counts[cell];
+        if (count == 0) {
+            return 0;
+        }
+        long age = nowMs - stampsMs[cell];
+        return age <= 0 ? count : count * Math.exp(-age * decayPerMs);
+    }
+
+    private int hourOf(long nowMs) {
+        if (nowMs >= offsetValidUntilMs || nowMs < offsetValidUntilMs - 3_600_000L) {
+            offsetMs = TimeZone.getDefault().getOffset(nowMs);
+            offsetValidUntilMs = (nowMs / 3_600_000L + 1) * 3_600_000L;
+        }
+        return (int) Math.floorMod((nowMs + offsetMs) / 3_600_000L, 24L);
+    }
+
+    // Cell index of a position, or -1 outside the grid
+    private static int cellOf(double latitude, double longitude) {
+        int row = (int) Math.floor((latitude - MIN_LAT) / CELL_DEG);
+        int col = (int) Math.floor((longitude - MIN_LNG) / CELL_DEG);
+        if (row < 0 || row >= ROWS || col < 0 || col >= COLS) {
+            return -1;
+        }
+        return row * COLS + col;
+    }
+
+    // ═══════════════════════════════════════════════════════════════════════════
+    // BENCHMARK
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    /**
+     * Time scoring on synthetic accidents around Chennai's junctions:
+     * java -cp "out;lib/*" RiskScorer --history 100000 --events 2000000
+     */
+    public static void main(String[] args) throws Exception {
+        BenchmarkRun run = new BenchmarkRun(args, "risk_benchmark.jsonl");
+        int history = Integer.parseInt(run.get("history", "100000"));
+        int events = Integer.parseInt(run.get("events", "2000000"));
+
+        Random random = new Random(42);
+        RiskScorer scorer = new RiskScorer(() -> 1 + random.nextInt(5), 90, 20);
+        long now = System.currentTimeMillis();
+        double[][] positions = new double[4096][];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = new double[] { 12.9 + random.nextDouble() * 0.3, 80.0 + random.nextDouble() * 0.4 };
+        }
+        for (int i = 0; i < history; i++) {
+            double[] p = positions[random.nextInt(64)];
+            scorer.record(p[0] + random.nextGaussian() * 0.003, p[1] + random.nextGaussian() * 0.003,
+                    now - (long) (random.nextDouble() * 365 * 86_400_000.0));
+        }
+
+        // Warm up, then time every event and also the whole run
+        long[] nanos = new long[events];
+        long checksum = 0;
+        for (int i = 0; i < Math.min(events, 200_000); i++) {
+            double[] p = positions[i & 4095];
+            checksum += scorer.score(Detection.SEVERITIES.get(i & 3), p[0], p[1], now + i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            double[] p = positions[i & 4095];
+            long t0 = System.nanoTime();
+            checksum += scorer.score(Detection.SEVERITIES.get(i & 3), p[0], p[1], now + i);
+            scorer.record(p[0], p[1], now + i);
+            nanos[i] = System.nanoTime() - t0;
+        }
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(nanos);
+
+        String json = run.result("risk", String.format(Locale.ROOT,
+                "\"history\":%d,\"events\":%d,\"ns_per_event\":%.1f,\"p50_ns\":%d,\"p99_ns\":%d," +
+                        "\"p999_ns\":%d,\"max_ns\":%d,\"events_per_sec\":%.0f,\"checksum\":%d",
+                history, events, (double) elapsed / events, nanos[events / 2], nanos[(int) (events * 0.99)],
+                nanos[(int) (events * 0.999)], nanos[events - 1], events * 1e9 / elapsed, checksum));
+        run.append(json);
+        System.out.println(json);
+        System.out.println("[RiskScorer] Results appended to " + run.getOutFile());
+    }
+}
@@ -0,0 +1,90 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * ThemeBenchmark - Paint benchmark for the UITheme skin cache.
+ *
+ * Times full repaints of a dashboard-like panel of cards, status cards,
+ * alerts, buttons and badges with the skin cache off and on; buttons
+ * alternate hover state every frame as under a moving mouse. Appends one
+ * JSON line per run to the results file.
+ *
+ * Usage:
+ * java -cp "out;lib/*" ThemeBenchmark --frames 300 --width 1600 --height 900
+ * --out ui_benchmark.jsonl --label my-change
+ */
+public class ThemeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRun run = new BenchmarkRun(args, "ui_benchmark.jsonl");
+        int frames = Integer.parseInt(run.get("frames", "300"));
+        int width = Integer.parseInt(run.get("width", "1600"));
+        int height = Integer.parseInt(run.get("height", "900"));
+
+        double[] msPerFrame = new double[2];
+        SwingUtilities.invokeAndWait(() -> {
+            JPanel board = new JPanel(new GridLayout(0, 6, UITheme.SPACE_SM, UITheme.SPACE_SM));
+            List<JButton> buttons = new ArrayList<>();
+            String[] severities = { "Low", "Medium", "High", "Critical" };
+            for (int i = 0; i < 12; i++) {
+                board.add(UITheme.createStatusCard("Unit " + i, String.valueOf(i * 7), UITheme.ICON_AMBULANCE,
+                        UITheme.getSeverityColor(severities[i % 4])));
+                board.add(UITheme.createCard());
+                board.add(UITheme.createBadge(severities[i % 4], UITheme.getSeverityColor(severities[i % 4]),
+                        UITheme.ICON_ALERT));
+                JButton primary = UITheme.createPrimaryButton("Dispatch " + i, UITheme.ICON_SIREN);
+                JButton colored = UITheme.createSuccessButton("Assign " + i);
+                buttons.add(primary);
+                buttons.add(colored);
+                board.add(primary);
+                board.add(colored);
+                board.add(i % 3 == 0 ? UITheme.createEmergencyAlert("Multi-vehicle collision", i % 2 == 0)
+                        : UITheme.createCriticalButton("Escalate", UITheme.ICON_ALERT));
+            }
+            board.setSize(width, height);
+            layoutTree(board);
+
+            BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+            for (int pass = 0; pass < 2; pass++) {
+                UITheme.setSkinCacheEnabled(pass == 1);
+                long start = 0;
+                // First third warms up the JIT and, when on, the cache
+                for (int f = -frames / 3; f < frames; f++) {
+                    if (f == 0) {
+                        start = System.nanoTime();
+                    }
+                    for (JButton button : buttons) {
+                        button.getModel().setRollover(((f + button.hashCode()) & 1) == 0);
+                    }
+                    Graphics2D g = frame.createGraphics();
+                    board.paint(g);
+                    g.dispose();
+                }
+                msPerFrame[pass] = (System.nanoTime() - start) / 1e6 / frames;
+            }
+        });
+
+        String json = run.result("ui_paint", String.format(Locale.ROOT,
+                "\"frames\":%d,\"width\":%d,\"height\":%d,\"ms_per_frame_uncached\":%.3f," +
+                        "\"ms_per_frame_cached\":%.3f,\"speedup\":%.2f,\"skins\":%d,\"hits\":%d,\"misses\":%d",
+                frames, width, height, msPerFrame[0], msPerFrame[1], msPerFrame[0] / msPerFrame[1],
+                UITheme.getSkinCacheSize(), UITheme.getSkinCacheHits(), UITheme.getSkinCacheMisses()));
+        run.append(json);
+        System.out.println(json);
+        System.out.println("[ThemeBenchmark] Results appended to " + run.getOutFile());
+    }
+
+    // Lay out a component tree that has no window to do it
+    private static void layoutTree(Component component) {
+        component.doLayout();
+        if (component instanceof Container) {
+            for (Component child : ((Container) component).getComponents()) {
+                layoutTree(child);
+            }
+        }
+    }
+}
@@ -2,6 +2,10 @@ import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
 import java.awt.geom.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * EMERGENCY RESPONSE UI THEME
@@ -259,40 +263,42 @@ public class UITheme {
         JButton button = new JButton(icon != null ? icon + " " + text : text) {
             @Override
             protected void paintComponent(Graphics g) {
-                Graphics2D g2d = (Graphics2D) g.create();
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-
                 int w = getWidth();
                 int h = getHeight();
+                boolean rollover = getModel().isRollover();
+                boolean pressed = getModel().isPressed();
+                paintSkin(g, w, h, (g2d, sw, sh) -> {
+                    // Glow effect
+                    if (rollover) {
+                        g2d.setColor(ACCENT_GLOW);
+                        g2d.fillRoundRect(-2, -2, sw + 4, sh + 4, RADIUS_LG + 2, RADIUS_LG + 2);
+                    }
+
+                    // Shadow
+                    g2d.setColor(SHADOW_MEDIUM);
+                    g2d.fillRoundRect(0, 3, sw, sh, RADIUS_LG, RADIUS_LG);
+
+                    // Gradient background
+                    GradientPaint gradient;
+                    if (pressed) {
+                        gradient = new GradientPaint(0, 0, GRADIENT_START.darker(),
+                                sw, sh, GRADIENT_END.darker());
+                    } else if (rollover) {
+                        gradient = new GradientPaint(0, 0, GRADIENT_START.brighter(),
+                                sw, sh, GRADIENT_END.brighter());
+                    } else {
+                        gradient = new GradientPaint(0, 0, GRADIENT_START, sw, sh, GRADIENT_END);
+                    }
+                    g2d.setPaint(gradient);
+                    g2d.fillRoundRect(0, 0, sw, sh - 3, RADIUS_LG, RADIUS_LG);
+
+                    // Glass overlay
+                    g2d.setColor(GLASS);
+                    g2d.fillRoundRect(0, 0, sw, sh / 2, RADIUS_LG, RADIUS_LG);
+                }, "primary", rollover, pressed);
 
-                // Glow effect
-                if (getModel().isRollover()) {
-                    g2d.setColor(ACCENT_GLOW);
-                    g2d.fillRoundRect(-2, -2, w + 4, h + 4, RADIUS_LG + 2, RADIUS_LG + 2);
-                }
-
-                // Shadow
-                g2d.setColor(SHADOW_MEDIUM);
-                g2d.fillRoundRect(0, 3, w, h, RADIUS_LG, RADIUS_LG);
-
-                // Gradient background
-                GradientPaint gradient;
-                if (getModel().isPressed()) {
-                    gradient = new GradientPaint(0, 0, GRADIENT_START.darker(),
-                            w, h, GRADIENT_END.darker());
-                } else if (getModel().isRollover()) {
-                    gradient = new GradientPaint(0, 0, GRADIENT_START.brighter(),
-                            w, h, GRADIENT_END.brighter());
-                } else {
-                    gradient = new GradientPaint(0, 0, GRADIENT_START, w, h, GRADIENT_END);
-                }
-                g2d.setPaint(gradient);
-                g2d.fillRoundRect(0, 0, w, h - 3, RADIUS_LG, RADIUS_LG);
-
-                // Glass overlay
-                g2d.setColor(GLASS);
-                g2d.fillRoundRect(0, 0, w, h / 2, RADIUS_LG, RADIUS_LG);
+                Graphics2D g2d = (Graphics2D) g.create();
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
                 // Text with shadow
                 g2d.setFont(getFont());
@@ -325,30 +331,30 @@ public class UITheme {
         JButton button = new JButton(icon != null ? icon + " " + text : text) {
             @Override
             protected void paintComponent(Graphics g) {
-                Graphics2D g2d = (Graphics2D) g.create();
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-
                 int w = getWidth();
                 int h = getHeight();
+                Color bgColor = getModel().isPressed() ? STATUS_CRITICAL.darker()
+                        : getModel().isRollover() ? STATUS_CRITICAL.brighter() : STATUS_CRITICAL;
+                paintSkin(g, w, h, (g2d, sw, sh) -> {
+                    // Critical glow
+                    g2d.setColor(STATUS_CRITICAL_GLOW);
+                    g2d.fillRoundRect(-3, -3, sw + 6, sh + 6, RADIUS_LG + 3, RADIUS_LG + 3);
 
-                // Critical glow
-                g2d.setColor(STATUS_CRITICAL_GLOW);
-                g2d.fillRoundRect(-3, -3, w + 6, h + 6, RADIUS_LG + 3, RADIUS_LG + 3);
+                    // Shadow
+                    g2d.setColor(SHADOW_DEEP);
+                    g2d.fillRoundRect(0, 4, sw, sh, RADIUS_LG, RADIUS_LG);
 
-                // Shadow
-                g2d.setColor(SHADOW_DEEP);
-                g2d.fillRoundRect(0, 4, w, h, RADIUS_LG, RADIUS_LG);
+                    // Background
+                    g2d.setColor(bgColor);
+                    g2d.fillRoundRect(0, 0, sw, sh - 4, RADIUS_LG, RADIUS_LG);
 
-                // Background
-                Color bgColor = getModel().isPressed() ? STATUS_CRITICAL.darker()
-                        : getModel().isRollover() ? STATUS_CRITICAL.brighter() : STATUS_CRITICAL;
-                g2d.setColor(bgColor);
-                g2d.fillRoundRect(0, 0, w, h - 4, RADIUS_LG, RADIUS_LG);
+                    // Glass effect
+                    g2d.setColor(new Color(255, 255, 255, 20));
+                    g2d.fillRoundRect(0, 0, sw, sh / 2, RADIUS_LG, RADIUS_LG);
+                }, "critical", bgColor);
 
-                // Glass effect
-                g2d.setColor(new Color(255, 255, 255, 20));
-                g2d.fillRoundRect(0, 0, w, h / 2, RADIUS_LG, RADIUS_LG);
+                Graphics2D g2d = (Graphics2D) g.create();
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
                 // Text
                 g2d.setFont(getFont());
@@ -427,32 +433,33 @@ public class UITheme {
         JButton button = new JButton(icon != null ? icon + " " + text : text) {
             @Override
             protected void paintComponent(Graphics g) {
-                Graphics2D g2d = (Graphics2D) g.create();
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-
                 int w = getWidth();
                 int h = getHeight();
-
-                // Glow
-                if (getModel().isRollover()) {
-                    g2d.setColor(glow);
-                    g2d.fillRoundRect(-2, -2, w + 4, h + 4, RADIUS_LG + 2, RADIUS_LG + 2);
-                }
-
-                // Shadow
-                g2d.setColor(SHADOW_MEDIUM);
-                g2d.fillRoundRect(0, 3, w, h, RADIUS_LG, RADIUS_LG);
-
-                // Background
+                boolean rollover = getModel().isRollover();
                 Color bgColor = getModel().isPressed() ? color.darker()
-                        : getModel().isRollover() ? color.brighter() : color;
-                g2d.setColor(bgColor);
-                g2d.fillRoundRect(0, 0, w, h - 3, RADIUS_LG, RADIUS_LG);
+                        : rollover ? color.brighter() : color;
+                paintSkin(g, w, h, (g2d, sw, sh) -> {
+                    // Glow
+                    if (rollover) {
+                        g2d.setColor(glow);
+                        g2d.fillRoundRect(-2, -2, sw + 4, sh + 4, RADIUS_LG + 2, RADIUS_LG + 2);
+                    }
+
+                    // Shadow
+                    g2d.setColor(SHADOW_MEDIUM);
+                    g2d.fillRoundRect(0, 3, sw, sh, RADIUS_LG, RADIUS_LG);
+
+                    // Background
+                    g2d.setColor(bgColor);
+                    g2d.fillRoundRect(0, 0, sw, sh - 3, RADIUS_LG, RADIUS_LG);
+
+                    // Glass
+                    g2d.setColor(new Color(255, 255, 255, 15));
+                    g2d.fillRoundRect(0, 0, sw, sh / 2, RADIUS_LG, RADIUS_LG);
+                }, "colored", rollover, glow, bgColor);
 
-                // Glass
-                g2d.setColor(new Color(255, 255, 255, 15));
-                g2d.fillRoundRect(0, 0, w, h / 2, RADIUS_LG, RADIUS_LG);
+                Graphics2D g2d = (Graphics2D) g.create();
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
                 // Text
                 g2d.setFont(getFont());
@@ -685,34 +692,27 @@ public class UITheme {
         JPanel card = new JPanel() {
             @Override
             protected void paintComponent(Graphics g) {
-                Graphics2D g2d = (Graphics2D) g.create();
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-
-                int w = getWidth();
-                int h = getHeight();
-
-                // Shadow - large and diffused
-                g2d.setColor(SHADOW_MEDIUM);
-                g2d.fillRoundRect(2, 6, w - 4, h - 4, RADIUS_XL, RADIUS_XL);
-
-                // Card background
-                g2d.setColor(CARD_BG);
-                g2d.fillRoundRect(0, 0, w, h, RADIUS_XL, RADIUS_XL);
-
-                // Gradient border
-                GradientPaint borderGradient = new GradientPaint(
-                        0, 0, new Color(ACCENT.getRed(), ACCENT.getGreen(), ACCENT.getBlue(), 40),
-                        w, h, new Color(GRADIENT_END.getRed(), GRADIENT_END.getGreen(), GRADIENT_END.getBlue(), 40));
-                g2d.setPaint(borderGradient);
-                g2d.setStroke(new BasicStroke(1f));
-                g2d.drawRoundRect(1, 1, w - 3, h - 3, RADIUS_XL, RADIUS_XL);
-
-                // Top highlight
-                g2d.setColor(new Color(255, 255, 255, 120));
-                g2d.fillRoundRect(0, 0, w, h / 3, RADIUS_XL, RADIUS_XL);
-
-                g2d.dispose();
+                paintSkin(g, getWidth(), getHeight(), (g2d, w, h) -> {
+                    // Shadow - large and diffused
+                    g2d.setColor(SHADOW_MEDIUM);
+                    g2d.fillRoundRect(2, 6, w - 4, h - 4, RADIUS_XL, RADIUS_XL);
+
+                    // Card background
+                    g2d.setColor(CARD_BG);
+                    g2d.fillRoundRect(0, 0, w, h, RADIUS_XL, RADIUS_XL);
+
+                    // Gradient border
+                    GradientPaint borderGradient = new GradientPaint(
+                            0, 0, new Color(ACCENT.getRed(), ACCENT.getGreen(), ACCENT.getBlue(), 40),
+                            w, h, new Color(GRADIENT_END.getRed(), GRADIENT_END.getGreen(), GRADIENT_END.getBlue(), 40));
+                    g2d.setPaint(borderGradient);
+                    g2d.setStroke(new BasicStroke(1f));
+                    g2d.drawRoundRect(1, 1, w - 3, h - 3, RADIUS_XL, RADIUS_XL);
+
+                    // Top highlight
+                    g2d.setColor(new Color(255, 255, 255, 120));
+                    g2d.fillRoundRect(0, 0, w, h / 3, RADIUS_XL, RADIUS_XL);
+                }, "card");
             }
         };
 
@@ -758,32 +758,32 @@ public class UITheme {
         JPanel card = new JPanel() {
             @Override
             protected void paintComponent(Graphics g) {
-                Graphics2D g2d = (Graphics2D) g.create();
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-
                 int w = getWidth();
                 int h = getHeight();
-
-                // Shadow
-                g2d.setColor(SHADOW_LIGHT);
-                g2d.fillRoundRect(2, 4, w - 4, h - 4, RADIUS_LG, RADIUS_LG);
-
-                // Background
-                g2d.setColor(CARD_BG);
-                g2d.fillRoundRect(0, 0, w, h, RADIUS_LG, RADIUS_LG);
-
-                // Colored left border
-                g2d.setColor(color);
-                g2d.fillRoundRect(0, 0, 6, h, RADIUS_LG, RADIUS_LG);
-
-                // Icon background circle with glow
                 int iconX = 20;
                 int iconY = h / 2 - 24;
-                g2d.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 30));
-                g2d.fillRoundRect(iconX - 4, iconY - 4, 56, 56, RADIUS_FULL, RADIUS_FULL);
-                g2d.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 50));
-                g2d.fillRoundRect(iconX, iconY, 48, 48, RADIUS_FULL, RADIUS_FULL);
+                paintSkin(g, w, h, (g2d, sw, sh) -> {
+                    // Shadow
+                    g2d.setColor(SHADOW_LIGHT);
+                    g2d.fillRoundRect(2, 4, sw - 4, sh - 4, RADIUS_LG, RADIUS_LG);
+
+                    // Background
+                    g2d.setColor(CARD_BG);
+                    g2d.fillRoundRect(0, 0, sw, sh, RADIUS_LG, RADIUS_LG);
+
+                    // Colored left border
+                    g2d.setColor(color);
+                    g2d.fillRoundRect(0, 0, 6, sh, RADIUS_LG, RADIUS_LG);
+
+                    // Icon background circle with glow
+                    g2d.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 30));
+                    g2d.fillRoundRect(iconX - 4, iconY - 4, 56, 56, RADIUS_FULL, RADIUS_FULL);
+                    g2d.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 50));
+                    g2d.fillRoundRect(iconX, iconY, 48, 48, RADIUS_FULL, RADIUS_FULL);
+                }, "status", color);
+
+                Graphics2D g2d = (Graphics2D) g.create();
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
                 // Icon
                 g2d.setColor(color);
@@ -818,41 +818,34 @@ public class UITheme {
         JPanel alert = new JPanel() {
             @Override
             protected void paintComponent(Graphics g) {
-                Graphics2D g2d = (Graphics2D) g.create();
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-
-                int w = getWidth();
-                int h = getHeight();
-
-                // Pulsing glow effect
-                if (isPulsing) {
-                    g2d.setColor(STATUS_CRITICAL_GLOW);
-                    g2d.fillRoundRect(-4, -4, w + 8, h + 8, RADIUS_LG + 4, RADIUS_LG + 4);
-                }
-
-                // Background gradient
-                GradientPaint gradient = new GradientPaint(
-                        0, 0,
-                        new Color(STATUS_CRITICAL.getRed(), STATUS_CRITICAL.getGreen(), STATUS_CRITICAL.getBlue(), 40),
-                        0, h,
-                        new Color(STATUS_CRITICAL.getRed(), STATUS_CRITICAL.getGreen(), STATUS_CRITICAL.getBlue(), 20));
-                g2d.setPaint(gradient);
-                g2d.fillRoundRect(0, 0, w, h, RADIUS_LG, RADIUS_LG);
-
-                // Border
-                g2d.setColor(STATUS_CRITICAL);
-                g2d.setStroke(new BasicStroke(2f));
-                g2d.drawRoundRect(1, 1, w - 3, h - 3, RADIUS_LG, RADIUS_LG);
-
-                // Warning stripe pattern (optional)
-                g2d.setColor(
-                        new Color(STATUS_CRITICAL.getRed(), STATUS_CRITICAL.getGreen(), STATUS_CRITICAL.getBlue(), 30));
-                for (int i = 0; i < w; i += 20) {
-                    g2d.fillRect(i, 0, 10, h);
-                }
+                paintSkin(g, getWidth(), getHeight(), (g2d, w, h) -> {
+                    // Pulsing glow effect
+                    if (isPulsing) {
+                        g2d.setColor(STATUS_CRITICAL_GLOW);
+                        g2d.fillRoundRect(-4, -4, w + 8, h + 8, RADIUS_LG + 4, RADIUS_LG + 4);
+                    }
+
+                    // Background gradient
+                    GradientPaint gradient = new GradientPaint(
+                            0, 0,
+                            new Color(STATUS_CRITICAL.getRed(), STATUS_CRITICAL.getGreen(), STATUS_CRITICAL.getBlue(), 40),
+                            0, h,
+                            new Color(STATUS_CRITICAL.getRed(), STATUS_CRITICAL.getGreen(), STATUS_CRITICAL.getBlue(), 20));
+                    g2d.setPaint(gradient);
+                    g2d.fillRoundRect(0, 0, w, h, RADIUS_LG, RADIUS_LG);
 
-                g2d.dispose();
+                    // Border
+                    g2d.setColor(STATUS_CRITICAL);
+                    g2d.setStroke(new BasicStroke(2f));
+                    g2d.drawRoundRect(1, 1, w - 3, h - 3, RADIUS_LG, RADIUS_LG);
+
+                    // Warning stripe pattern (optional)
+                    g2d.setColor(
+                            new Color(STATUS_CRITICAL.getRed(), STATUS_CRITICAL.getGreen(), STATUS_CRITICAL.getBlue(), 30));
+                    for (int i = 0; i < w; i += 20) {
+                        g2d.fillRect(i, 0, 10, h);
+                    }
+                }, "alert", isPulsing);
             }
         };
 
@@ -882,20 +875,18 @@ public class UITheme {
         JLabel badge = new JLabel(icon != null ? icon + " " + text : text) {
             @Override
             protected void paintComponent(Graphics g) {
-                Graphics2D g2d = (Graphics2D) g.create();
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                paintSkin(g, getWidth(), getHeight(), (g2d, w, h) -> {
+                    // Background
+                    g2d.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 25));
+                    g2d.fillRoundRect(0, 0, w, h, RADIUS_FULL, RADIUS_FULL);
 
-                // Background
-                g2d.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 25));
-                g2d.fillRoundRect(0, 0, getWidth(), getHeight(), RADIUS_FULL, RADIUS_FULL);
-
-                // Border
-                g2d.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 80));
-                g2d.setStroke(new BasicStroke(1.5f));
-                g2d.drawRoundRect(1, 1, getWidth() - 3, getHeight() - 3, RADIUS_FULL, RADIUS_FULL);
+                    // Border
+                    g2d.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 80));
+                    g2d.setStroke(new BasicStroke(1.5f));
+                    g2d.drawRoundRect(1, 1, w - 3, h - 3, RADIUS_FULL, RADIUS_FULL);
+                }, "badge", color);
 
                 super.paintComponent(g);
-                g2d.dispose();
             }
         };
 
@@ -954,7 +945,7 @@ public class UITheme {
     /**
      * Create PREMIUM TABLE
      */
-    public static JTable createStyledTable(javax.swing.table.DefaultTableModel model) {
+    public static JTable createStyledTable(javax.swing.table.TableModel model) {
         JTable table = new JTable(model) {
             @Override
             public Component prepareRenderer(javax.swing.table.TableCellRenderer renderer, int row, int column) {
@@ -1090,6 +1081,121 @@ public class UITheme {
         return separator;
     }
 
+    // ═══════════════════════════════════════════════════════════════════════════
+    // 🖼 SKIN CACHE - Component backgrounds rasterized once, blitted on paint
+    // ═══════════════════════════════════════════════════════════════════════════
+
+    /**
+     * Paints a component background at a given size
+     */
+    public interface SkinPainter {
+        void paint(Graphics2D g2d, int w, int h);
+    }
+
+    /** Total pixels held by cached skins before the least recently used go */
+    private static final long SKIN_CACHE_MAX_PIXELS = 4_000_000;
+    /** Skins bigger than this are painted directly rather than cached */
+    private static final long SKIN_MAX_PIXELS = 1_000_000;
+
+    // Keyed by style, size, device scale and state; touched only on the EDT
+    private static final Map<Object, BufferedImage> skins = new LinkedHashMap<>(64, 0.75f, true);
+    private static long skinPixels = 0;
+    private static boolean skinCacheEnabled = true;
+    private static long skinHits = 0;
+    private static long skinMisses = 0;
+
+    /**
+     * Draw a component background from the skin cache, rasterizing it first
+     * if this style, size, scale and state has not been drawn before. The
+     * key must hold every value the painter reads besides the size; the
+     * painter itself is not part of it.
+     */
+    public static void paintSkin(Graphics g, int w, int h, SkinPainter painter, Object... key) {
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        Graphics2D g2d = (Graphics2D) g;
+        AffineTransform tx = g2d.getTransform();
+        double scaleX = tx.getScaleX();
+        double scaleY = tx.getScaleY();
+        int pw = (int) Math.ceil(w * scaleX);
+        int ph = (int) Math.ceil(h * scaleY);
+        GraphicsConfiguration gc = g2d.getDeviceConfiguration();
+        if (!skinCacheEnabled || pw <= 0 || ph <= 0 || (long) pw * ph > SKIN_MAX_PIXELS
+                || tx.getShearX() != 0 || tx.getShearY() != 0 || gc == null) {
+            Graphics2D direct = (Graphics2D) g.create();
+            direct.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            direct.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            painter.paint(direct, w, h);
+            direct.dispose();
+            return;
+        }
+
+        Object[] full = Arrays.copyOf(key, key.length + 4);
+        full[key.length] = w;
+        full[key.length + 1] = h;
+        full[key.length + 2] = scaleX;
+        full[key.length + 3] = scaleY;
+        Object cacheKey = Arrays.asList(full);
+        BufferedImage image = skins.get(cacheKey);
+        if (image == null) {
+            skinMisses++;
+            image = gc.createCompatibleImage(pw, ph, Transparency.TRANSLUCENT);
+            Graphics2D ig = image.createGraphics();
+            ig.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            ig.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            ig.scale(scaleX, scaleY);
+            painter.paint(ig, w, h);
+            ig.dispose();
+            skins.put(cacheKey, image);
+            skinPixels += (long) pw * ph;
+            evictSkins();
+        } else {
+            skinHits++;
+        }
+        g2d.drawImage(image, 0, 0, w, h, null);
+    }
+
+    /**
+     * Drop every cached skin; call after changing theme colors
+     */
+    public static void clearSkinCache() {
+        skins.clear();
+        skinPixels = 0;
+    }
+
+    /**
+     * Turn the skin cache on or off; off paints every background directly
+     */
+    public static void setSkinCacheEnabled(boolean enabled) {
+        skinCacheEnabled = enabled;
+        if (!enabled) {
+            clearSkinCache();
+        }
+    }
+
+    public static long getSkinCacheHits() {
+        return skinHits;
+    }
+
+    public static long getSkinCacheMisses() {
+        return skinMisses;
+    }
+
+    public static int getSkinCacheSize() {
+        return skins.size();
+    }
+
+    // Sizes change as windows are resized; forget the oldest until within budget
+    private static void evictSkins() {
+        java.util.Iterator<BufferedImage> it = skins.values().iterator();
+        while (skinPixels > SKIN_CACHE_MAX_PIXELS && it.hasNext()) {
+            BufferedImage old = it.next();
+            skinPixels -= (long) old.getWidth() * old.getHeight();
+            it.remove();
+        }
+    }
+
     // ═══════════════════════════════════════════════════════════════════════════
     // 🎨 UTILITY METHODS - Colors & Icons
     // ═══════════════════════════════════════════════════════════════════════════
@@ -1210,4 +1316,4 @@ public class UITheme {
     public static final String ICON_MEDICAL = "[MED]";
     public static final String ICON_HEARTBEAT = "[HR]";
     public static final String ICON_SIREN = "[SIR]";
-}
\ No newline at end of file
+}